@@ -0,0 +1,120 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.util;
+
+import android.util.Log;
+
+/**
+ * <p>
+ * Holds the {@link PListLogger} used by the parser. No logger is installed by
+ * default, so verbose tracing is off.
+ * </p>
+ * <p>
+ * Callers check {@link #isVerbose()} before building a message:
+ * </p>
+ * 
+ * <pre>
+ * if (PListLog.isVerbose()) {
+ * 	PListLog.v(TAG, &quot;key=&quot; + key);
+ * }
+ * </pre>
+ * <p>
+ * so with tracing off the cost is a single field read, nothing is allocated
+ * and no message is formatted.
+ * </p>
+ * 
+ * @author fbeachler
+ * 
+ */
+public final class PListLog {
+
+	/**
+	 * A {@link PListLogger} writing verbose messages to
+	 * {@link android.util.Log}.
+	 */
+	public static class AndroidLogger implements PListLogger {
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see com.longevitysoft.android.util.PListLogger#isVerbose()
+		 */
+		@Override
+		public boolean isVerbose() {
+			return true;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see com.longevitysoft.android.util.PListLogger#v(java.lang.String,
+		 * java.lang.String)
+		 */
+		@Override
+		public void v(String tag, String msg) {
+			Log.v(tag, msg);
+		}
+
+	}
+
+	private static volatile PListLogger logger;
+
+	/**
+	 * Cached {@link PListLogger#isVerbose()} of {@link #logger}.
+	 */
+	private static volatile boolean verbose;
+
+	private PListLog() {
+		super();
+	}
+
+	/**
+	 * @return the installed logger, or null.
+	 */
+	public static PListLogger getLogger() {
+		return logger;
+	}
+
+	/**
+	 * Install a logger. Its {@link PListLogger#isVerbose()} is read now, to
+	 * change it install the logger again.
+	 * 
+	 * @param logger
+	 *            the logger to set, or null to turn tracing off.
+	 */
+	public static synchronized void setLogger(PListLogger logger) {
+		PListLog.logger = logger;
+		verbose = null != logger && logger.isVerbose();
+	}
+
+	/**
+	 * @return true if verbose messages are logged.
+	 */
+	public static boolean isVerbose() {
+		return verbose;
+	}
+
+	/**
+	 * Log a verbose message if verbose tracing is on.
+	 * 
+	 * @param tag
+	 * @param msg
+	 */
+	public static void v(String tag, String msg) {
+		PListLogger current = logger;
+		if (verbose && null != current) {
+			current.v(tag, msg);
+		}
+	}
+
+}
@@ -0,0 +1,40 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.util;
+
+/**
+ * Receives the verbose trace messages of the parser. Install an
+ * implementation with {@link PListLog#setLogger(PListLogger)}.
+ * 
+ * @author fbeachler
+ * 
+ */
+public interface PListLogger {
+
+	/**
+	 * Asked once when the logger is installed. When false, trace messages
+	 * are never formatted and {@link #v(String, String)} is never called.
+	 * 
+	 * @return true if verbose messages should be logged.
+	 */
+	public boolean isVerbose();
+
+	/**
+	 * Log a verbose message.
+	 * 
+	 * @param tag
+	 * @param msg
+	 */
+	public void v(String tag, String msg);
+
+}
@@ -0,0 +1,431 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.xml.plist;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Incremental Base64 decoder for the text of data elements. Characters are
+ * decoded as they are reported, so the encoded text is never collected. The
+ * decoded bytes are written to a chain of blocks that is copied once into
+ * the result, so decoding a value allocates about twice its decoded size.
+ * Whitespace and line breaks are skipped, padding is optional. Values larger
+ * than the spill threshold are written to a temporary file instead and
+ * returned as a read-only mapping of it, so the heap holds only one block of
+ * them at a time.
+ * 
+ * <pre>
+ * decoder.reset();
+ * decoder.decode(ch, start, length); // once per chunk
+ * byte[] bytes = decoder.finish();
+ * </pre>
+ * 
+ * @author fbeachler
+ * 
+ */
+public final class Base64Decoder {
+
+	public static final java.lang.String TAG = "Base64Decoder";
+
+	private static final byte INVALID = -1;
+	private static final byte WHITESPACE = -2;
+	private static final byte PAD = -3;
+
+	/**
+	 * Value of each ASCII character, or one of {@link #INVALID},
+	 * {@link #WHITESPACE} and {@link #PAD}.
+	 */
+	private static final byte[] VALUES = new byte[128];
+
+	static {
+		for (int i = 0; i < VALUES.length; i++) {
+			VALUES[i] = INVALID;
+		}
+		java.lang.String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+		for (int i = 0; i < alphabet.length(); i++) {
+			VALUES[alphabet.charAt(i)] = (byte) i;
+		}
+		VALUES[' '] = WHITESPACE;
+		VALUES['\t'] = WHITESPACE;
+		VALUES['\n'] = WHITESPACE;
+		VALUES['\r'] = WHITESPACE;
+		VALUES['='] = PAD;
+	}
+
+	/**
+	 * Largest block the decoded bytes are written to.
+	 */
+	private static final int MAX_BLOCK_SIZE = 64 * 1024;
+
+	/**
+	 * Blocks of decoded bytes, each a multiple of 3 bytes long so quanta are
+	 * never split. All but the last block are full.
+	 */
+	private byte[][] blocks;
+
+	/**
+	 * Number of blocks in use.
+	 */
+	private int blockCount;
+
+	/**
+	 * Number of decoded bytes in the last block.
+	 */
+	private int pos;
+
+	/**
+	 * Number of decoded bytes in all but the last block.
+	 */
+	private int filled;
+
+	/**
+	 * Bits of the characters of the current quantum.
+	 */
+	private int bits;
+
+	/**
+	 * Number of characters in the current quantum.
+	 */
+	private int quantum;
+
+	/**
+	 * Set once padding has been read.
+	 */
+	private boolean padded;
+
+	/**
+	 * Number of decoded bytes above which they are spilled to a file, or -1
+	 * to keep them on the heap.
+	 */
+	private int spillThreshold = -1;
+
+	/**
+	 * Directory spill files are created in, null for the default temporary
+	 * file directory.
+	 */
+	private File spillDirectory;
+
+	/**
+	 * File the current value is being spilled to, null while it is on the
+	 * heap.
+	 */
+	private File spillFile;
+
+	private RandomAccessFile spillOut;
+
+	/**
+	 * 
+	 */
+	public Base64Decoder() {
+		super();
+	}
+
+	/**
+	 * @return the number of decoded bytes above which they are spilled to a
+	 *         file, or -1 if they are always kept on the heap.
+	 */
+	public int getSpillThreshold() {
+		return spillThreshold;
+	}
+
+	/**
+	 * Spill values that decode to more than threshold bytes to a temporary
+	 * file, see {@link #isSpilled()}.
+	 * 
+	 * @param threshold
+	 *            the number of bytes, or -1 to always keep values on the heap.
+	 * @param directory
+	 *            the directory to create spill files in, or null for the
+	 *            default temporary file directory.
+	 */
+	public void setSpillThreshold(int threshold, File directory) {
+		this.spillThreshold = threshold;
+		this.spillDirectory = directory;
+	}
+
+	/**
+	 * Start decoding a new value, dropping the bytes decoded so far. A spill
+	 * file that has not been finished is deleted.
+	 */
+	public void reset() {
+		blocks = null;
+		blockCount = 0;
+		pos = 0;
+		filled = 0;
+		bits = 0;
+		quantum = 0;
+		padded = false;
+		if (null != spillOut) {
+			try {
+				spillOut.close();
+			} catch (IOException e) {
+				// the file is deleted anyway
+			}
+			spillOut = null;
+		}
+		if (null != spillFile) {
+			spillFile.delete();
+			spillFile = null;
+		}
+	}
+
+	/**
+	 * @return the number of bytes decoded so far.
+	 */
+	public int size() {
+		return filled + pos;
+	}
+
+	/**
+	 * @return true if the current value has been spilled to a file, it has
+	 *         to be finished with {@link #finishSpilled()}.
+	 */
+	public boolean isSpilled() {
+		return null != spillFile;
+	}
+
+	/**
+	 * @return the file the current value has been spilled to, or null.
+	 */
+	public File getSpillFile() {
+		return spillFile;
+	}
+
+	/**
+	 * Decode a chunk of Base64 text.
+	 * 
+	 * @param ch
+	 * @param start
+	 * @param length
+	 * @throws IllegalArgumentException
+	 *             if the chunk holds a character that is not Base64, or
+	 *             anything but whitespace after padding.
+	 * @throws IOException
+	 *             if the value can not be spilled to a file.
+	 */
+	public void decode(char[] ch, int start, int length)
+			throws IllegalArgumentException, IOException {
+		if (0 == blockCount) {
+			// size the first block for the first chunk, which is all there is
+			// for most values, but no larger than the spill threshold so the
+			// value is spilled as soon as it exceeds it
+			int size = (quantum + length) / 4 * 3;
+			if (spillThreshold >= 0) {
+				size = Math.min(size, Math.min(MAX_BLOCK_SIZE, spillThreshold));
+			}
+			addBlock(size);
+		}
+		byte[] out = blocks[blockCount - 1];
+		int n = pos;
+		int b = bits;
+		int q = quantum;
+		int end = start + length;
+		for (int i = start; i < end; i++) {
+			char c = ch[i];
+			int v = c < 128 ? VALUES[c] : INVALID;
+			if (v >= 0 && !padded) {
+				b = (b << 6) | v;
+				if (++q == 4) {
+					if (n == out.length) {
+						pos = n;
+						out = nextBlock();
+						n = 0;
+					}
+					out[n++] = (byte) (b >> 16);
+					out[n++] = (byte) (b >> 8);
+					out[n++] = (byte) b;
+					b = 0;
+					q = 0;
+				}
+			} else if (v == WHITESPACE) {
+				continue;
+			} else if (v == PAD && q >= 2) {
+				padded = true;
+			} else {
+				pos = n;
+				throw new IllegalArgumentException(
+						"invalid Base64 character in data: " + c);
+			}
+		}
+		pos = n;
+		bits = b;
+		quantum = q;
+	}
+
+	/**
+	 * Finish decoding the current value and reset this decoder.
+	 * 
+	 * @return the decoded bytes.
+	 * @throws IllegalArgumentException
+	 *             if the text ended in the middle of a byte.
+	 * @throws IllegalStateException
+	 *             if the value has been spilled to a file.
+	 */
+	public byte[] finish() throws IllegalArgumentException,
+			IllegalStateException {
+		if (isSpilled()) {
+			throw new IllegalStateException(
+					"data has been spilled to a file, use finishSpilled()");
+		}
+		try {
+			finishQuantum();
+		} catch (IOException e) {
+			// only thrown while spilling
+			throw new IllegalStateException(e);
+		}
+		byte[] ret;
+		if (1 == blockCount && pos == blocks[0].length) {
+			ret = blocks[0];
+		} else {
+			ret = new byte[filled + pos];
+			int off = 0;
+			for (int i = 0; i < blockCount; i++) {
+				int len = i == blockCount - 1 ? pos : blocks[i].length;
+				System.arraycopy(blocks[i], 0, ret, off, len);
+				off += len;
+			}
+		}
+		reset();
+		return ret;
+	}
+
+	/**
+	 * Finish decoding a value that has been spilled to a file and reset this
+	 * decoder. The file is kept, and has to be deleted by the caller once the
+	 * buffer is no longer used; get it with {@link #getSpillFile()} first.
+	 * 
+	 * @return a read-only buffer mapping the file.
+	 * @throws IllegalArgumentException
+	 *             if the text ended in the middle of a byte.
+	 * @throws IllegalStateException
+	 *             if the value has not been spilled to a file.
+	 * @throws IOException
+	 *             if the file can not be written or mapped.
+	 */
+	public MappedByteBuffer finishSpilled() throws IllegalArgumentException,
+			IllegalStateException, IOException {
+		if (!isSpilled()) {
+			throw new IllegalStateException("data has not been spilled");
+		}
+		finishQuantum();
+		spillOut.write(blocks[0], 0, pos);
+		FileChannel channel = spillOut.getChannel();
+		MappedByteBuffer ret = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+				channel.size());
+		// the mapping stays valid after the file is closed
+		spillOut.close();
+		spillOut = null;
+		spillFile = null;
+		reset();
+		return ret;
+	}
+
+	/**
+	 * Write the bytes of the last, partial quantum.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the text ended in the middle of a byte.
+	 */
+	private void finishQuantum() throws IllegalArgumentException, IOException {
+		if (quantum == 1) {
+			reset();
+			throw new IllegalArgumentException("truncated Base64 data");
+		}
+		if (0 == blockCount) {
+			addBlock(quantum > 1 ? quantum - 1 : 0);
+		}
+		if (quantum > 1) {
+			byte[] out = blocks[blockCount - 1];
+			if (out.length - pos < quantum - 1) {
+				// never start spilling here, finish() has been called already
+				out = null != spillFile ? nextBlock() : addBlock(0);
+			}
+			if (quantum == 2) {
+				out[pos++] = (byte) (bits >> 4);
+			} else {
+				out[pos++] = (byte) (bits >> 10);
+				out[pos++] = (byte) (bits >> 2);
+			}
+			quantum = 0;
+		}
+	}
+
+	/**
+	 * Make room for more decoded bytes once the last block is full. Starts
+	 * spilling once the bytes decoded so far exceed the spill threshold.
+	 * 
+	 * @return the block to write to, its first {@link #pos} bytes are used.
+	 */
+	private byte[] nextBlock() throws IOException {
+		if (filled + pos < 0) {
+			throw new IllegalArgumentException("data too large");
+		}
+		if (null == spillFile && spillThreshold >= 0
+				&& filled + pos > spillThreshold) {
+			spillFile = File.createTempFile("plist", ".data", spillDirectory);
+			spillOut = new RandomAccessFile(spillFile, "rw");
+			for (int i = 0; i < blockCount - 1; i++) {
+				spillOut.write(blocks[i]);
+			}
+			byte[] last = blocks[blockCount - 1];
+			spillOut.write(last, 0, pos);
+			// keep one block to collect the bytes written from now on
+			blocks = new byte[1][];
+			blocks[0] = last.length >= MAX_BLOCK_SIZE ? last
+					: new byte[MAX_BLOCK_SIZE / 3 * 3];
+			blockCount = 1;
+			filled += pos;
+			pos = 0;
+			return blocks[0];
+		}
+		if (null != spillFile) {
+			spillOut.write(blocks[0], 0, pos);
+			filled += pos;
+			pos = 0;
+			return blocks[0];
+		}
+		return addBlock(0);
+	}
+
+	/**
+	 * Start a new block, twice the size of the last one up to
+	 * {@link #MAX_BLOCK_SIZE} and at least size bytes.
+	 * 
+	 * @return the new block.
+	 */
+	private byte[] addBlock(int size) {
+		if (null == blocks) {
+			blocks = new byte[4][];
+		} else if (blockCount == blocks.length) {
+			byte[][] grown = new byte[blockCount * 2][];
+			System.arraycopy(blocks, 0, grown, 0, blockCount);
+			blocks = grown;
+		}
+		if (blockCount > 0) {
+			filled += pos;
+			size = Math.max(size, Math.min(MAX_BLOCK_SIZE,
+					blocks[blockCount - 1].length * 2));
+		}
+		// a multiple of 3, so quanta are never split
+		size = Math.max(3, (size + 2) / 3 * 3);
+		byte[] block = new byte[size];
+		blocks[blockCount++] = block;
+		pos = 0;
+		return block;
+	}
+
+}
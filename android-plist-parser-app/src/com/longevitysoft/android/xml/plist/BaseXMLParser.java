@@ -26,6 +26,7 @@ import org.xml.sax.helpers.DefaultHandler;
 
 import android.util.Log;
 
+import com.longevitysoft.android.util.PListLog;
 import com.longevitysoft.android.util.Stringer;
 
 /**
@@ -110,6 +111,17 @@ public abstract class BaseXMLParser {
 		}
 	}
 
+	/**
+	 * Calls {@link #initParser()} if no {@link SAXParser} has been created
+	 * yet. The parser is then reused for every following document, since
+	 * creating one is much more expensive than parsing a small document.
+	 */
+	protected void requireParser() {
+		if (null == sp) {
+			initParser();
+		}
+	}
+
 	/**
 	 * Parse an XML document.
 	 * 
@@ -118,7 +130,27 @@ public abstract class BaseXMLParser {
 	public void parse(String xml) throws IllegalStateException {
 		try {
 			// convert xml to inputsource
-			InputSource inSrc = new InputSource(new StringReader(xml));
+			parse(new InputSource(new StringReader(xml)));
+		} catch (IOException e) {
+			Log.e(
+					stringer.newBuilder().append(TAG).append("#parse")
+							.toString(), "IOException");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Parse an XML document from an {@link InputSource}. The source is handed
+	 * to the {@link SAXParser} as-is, so a byte or character stream is read
+	 * incrementally and never copied into memory as a whole.
+	 * 
+	 * @param inSrc
+	 * @throws IOException
+	 *             if the underlying stream of inSrc can not be read.
+	 */
+	public void parse(InputSource inSrc) throws IllegalStateException,
+			IOException {
+		try {
 			// register a handler for callbacks and parse the file
 			sp.parse(inSrc, getHandler());
 		} catch (SAXException e) {
@@ -126,15 +158,12 @@ public abstract class BaseXMLParser {
 					stringer.newBuilder().append(TAG).append("#parse")
 							.toString(), "SAXException");
 			e.printStackTrace();
-		} catch (IOException e) {
-			Log.e(
-					stringer.newBuilder().append(TAG).append("#parse")
-							.toString(), "IOException");
-			e.printStackTrace();
 		}
 
-		Log.v(stringer.newBuilder().append(TAG).append("#parse").toString(),
-				"done parsing xml");
+		if (PListLog.isVerbose()) {
+			PListLog.v(stringer.newBuilder().append(TAG).append("#parse")
+					.toString(), "done parsing xml");
+		}
 	}
 
 }
\ No newline at end of file
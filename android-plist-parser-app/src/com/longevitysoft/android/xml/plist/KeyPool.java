@@ -0,0 +1,93 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.xml.plist;
+
+/**
+ * Pool of dict keys shared by the parses of many documents, so documents
+ * parsed one after another, or held at the same time, use the same
+ * {@link java.lang.String} for each distinct key. Thread safe. The pool
+ * holds at most a fixed number of keys; once full, keys not in it are
+ * returned without being added, so a document with unbounded keys cannot
+ * grow it without limit.
+ * 
+ * @see PListXMLHandler#setKeyPool(KeyPool)
+ * 
+ * @author fbeachler
+ * 
+ */
+public final class KeyPool {
+
+	public static final java.lang.String TAG = "KeyPool";
+
+	/**
+	 * Default number of keys a pool holds.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 4096;
+
+	private final StringTable table = new StringTable();
+
+	private final int maxSize;
+
+	public KeyPool() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * @param maxSize
+	 *            the number of keys the pool holds at most.
+	 */
+	public KeyPool(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * @return the number of keys the pool holds at most.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return the number of keys in the pool.
+	 */
+	public synchronized int size() {
+		return table.size();
+	}
+
+	/**
+	 * Remove all keys from the pool.
+	 */
+	public synchronized void clear() {
+		table.clear();
+	}
+
+	/**
+	 * @param cs
+	 * @param start
+	 * @param end
+	 * @return the key in the pool equal to the range, added if absent and
+	 *         the pool is not full, otherwise a new string.
+	 */
+	public synchronized java.lang.String intern(CharSequence cs, int start,
+			int end) {
+		int slot = table.indexOf(cs, start, end);
+		if (slot >= 0) {
+			return table.keyAt(slot);
+		}
+		if (table.size() >= maxSize) {
+			return cs.subSequence(start, end).toString();
+		}
+		return table.intern(cs, start, end);
+	}
+
+}
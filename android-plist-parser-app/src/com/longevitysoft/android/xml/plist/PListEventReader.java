@@ -0,0 +1,441 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.xml.plist;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.xml.sax.SAXException;
+
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Data;
+import com.longevitysoft.android.xml.plist.domain.Date;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.False;
+import com.longevitysoft.android.xml.plist.domain.Integer;
+import com.longevitysoft.android.xml.plist.domain.PListObject;
+import com.longevitysoft.android.xml.plist.domain.Real;
+import com.longevitysoft.android.xml.plist.domain.String;
+import com.longevitysoft.android.xml.plist.domain.True;
+
+/**
+ * <p>
+ * Reads a PList XML document as a sequence of events, without building a
+ * {@link com.longevitysoft.android.xml.plist.domain.PList} tree. Dicts and
+ * arrays are reported as start and end events, dict keys as {@link #KEY}
+ * events and every other element as a {@link #VALUE} event carrying the
+ * scalar {@link PListObject}. Only the current container nesting is kept in
+ * memory, so documents of any size can be iterated.
+ * </p>
+ * 
+ * <pre>
+ * PListEventReader reader = new PListEventReader(in);
+ * int event;
+ * while ((event = reader.next()) != PListEventReader.END_DOCUMENT) {
+ * 	if (event == PListEventReader.VALUE) {
+ * 		use(reader.getKey(), reader.getValue());
+ * 	}
+ * }
+ * reader.close();
+ * </pre>
+ * 
+ * @author fbeachler
+ * 
+ */
+public class PListEventReader implements Closeable {
+
+	public static final java.lang.String TAG = "PListEventReader";
+
+	/**
+	 * Event types returned by {@link #next()}.
+	 */
+	public static final int END_DOCUMENT = 0;
+	public static final int START_DICT = 1;
+	public static final int END_DICT = 2;
+	public static final int START_ARRAY = 3;
+	public static final int END_ARRAY = 4;
+	public static final int KEY = 5;
+	public static final int VALUE = 6;
+
+	private final InputStream in;
+	private final PListXMLTokenizer tokenizer;
+
+	private int event;
+
+	/**
+	 * Key of the current dict member, null in arrays and at the root.
+	 */
+	private java.lang.String key;
+
+	/**
+	 * Value of the current {@link #VALUE} event.
+	 */
+	private PListObject value;
+
+	/**
+	 * For each open container, true if it is a dict.
+	 */
+	private boolean[] inDict;
+	private int depth;
+
+	/**
+	 * True between a {@link #KEY} event and the value it names.
+	 */
+	private boolean keyPending;
+
+	/**
+	 * @param in
+	 *            UTF-8 encoded PList XML. It is closed by {@link #close()}.
+	 */
+	public PListEventReader(InputStream in) {
+		this.in = in;
+		tokenizer = new PListXMLTokenizer(in);
+		inDict = new boolean[16];
+		event = -1;
+	}
+
+	/**
+	 * Advance to the next event.
+	 * 
+	 * @return one of {@link #START_DICT}, {@link #END_DICT},
+	 *         {@link #START_ARRAY}, {@link #END_ARRAY}, {@link #KEY},
+	 *         {@link #VALUE} or {@link #END_DOCUMENT}.
+	 * @throws IOException
+	 *             if the stream can not be read.
+	 * @throws SAXException
+	 *             if the document is not a well-formed PList.
+	 */
+	public int next() throws IOException, SAXException {
+		if (event == END_DOCUMENT) {
+			return event;
+		}
+		value = null;
+		while (true) {
+			switch (tokenizer.next()) {
+			case PListXMLTokenizer.END_DOCUMENT:
+				return event = END_DOCUMENT;
+			case PListXMLTokenizer.TEXT:
+				// whitespace between elements
+				break;
+			case PListXMLTokenizer.END_TAG:
+				switch (tokenizer.getTagId()) {
+				case PListXMLTokenizer.TAG_DICT:
+					return event = endContainer(END_DICT);
+				case PListXMLTokenizer.TAG_PLIST_ARRAY:
+					return event = endContainer(END_ARRAY);
+				}
+				break;
+			case PListXMLTokenizer.START_TAG:
+				int tagId = tokenizer.getTagId();
+				switch (tagId) {
+				case PListXMLTokenizer.TAG_PLIST:
+					break;
+				case PListXMLTokenizer.TAG_KEY:
+					// a key before the root element is tolerated, like the
+					// SAX handler does
+					if ((depth > 0 && !inDict[depth - 1]) || keyPending) {
+						throw new SAXException("unexpected key");
+					}
+					// trimmed like the SAX handler does
+					java.lang.String text = readText();
+					int start = ValueDecoder.trimStart(text, 0, text.length());
+					key = text.substring(start,
+							ValueDecoder.trimEnd(text, start, text.length()));
+					keyPending = true;
+					return event = KEY;
+				case PListXMLTokenizer.TAG_DICT:
+					return event = startContainer(true);
+				case PListXMLTokenizer.TAG_PLIST_ARRAY:
+					return event = startContainer(false);
+				case PListXMLTokenizer.TAG_UNKNOWN:
+					throw new SAXException("unknown element: "
+							+ tokenizer.getTagName());
+				default:
+					startMember();
+					value = buildValue(tagId, readText());
+					return event = VALUE;
+				}
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Skip the rest of the current member without decoding it. After
+	 * {@link #START_DICT} or {@link #START_ARRAY} the container is skipped up
+	 * to and including its end, and the event becomes {@link #END_DICT} or
+	 * {@link #END_ARRAY}. After {@link #KEY} the value of the key is skipped
+	 * and the event becomes the end event of the skipped container, or
+	 * {@link #VALUE} with no value. Otherwise this does nothing.
+	 * 
+	 * @throws IOException
+	 *             if the stream can not be read.
+	 * @throws SAXException
+	 *             if the document is not a well-formed PList.
+	 */
+	public void skip() throws IOException, SAXException {
+		value = null;
+		if (event == START_DICT || event == START_ARRAY) {
+			tokenizer.skipElement();
+			depth--;
+			key = null;
+			event = event == START_DICT ? END_DICT : END_ARRAY;
+		} else if (event == KEY) {
+			int token;
+			while ((token = tokenizer.next()) == PListXMLTokenizer.TEXT) {
+				// whitespace between elements
+			}
+			if (token != PListXMLTokenizer.START_TAG) {
+				throw new SAXException("key without a value: " + key);
+			}
+			switch (tokenizer.getTagId()) {
+			case PListXMLTokenizer.TAG_DICT:
+				event = END_DICT;
+				key = null;
+				break;
+			case PListXMLTokenizer.TAG_PLIST_ARRAY:
+				event = END_ARRAY;
+				key = null;
+				break;
+			case PListXMLTokenizer.TAG_KEY:
+			case PListXMLTokenizer.TAG_PLIST:
+			case PListXMLTokenizer.TAG_UNKNOWN:
+				throw new SAXException("unexpected element: "
+						+ tokenizer.getTagName());
+			default:
+				event = VALUE;
+			}
+			keyPending = false;
+			tokenizer.skipElement();
+		}
+	}
+
+	/**
+	 * Read the current member into a {@link PListObject}. After
+	 * {@link #START_DICT} or {@link #START_ARRAY} the container is read up to
+	 * and including its end, and the event becomes {@link #END_DICT} or
+	 * {@link #END_ARRAY}.
+	 * 
+	 * @return the container or, after {@link #VALUE}, the value. Otherwise
+	 *         null.
+	 * @throws IOException
+	 *             if the stream can not be read.
+	 * @throws SAXException
+	 *             if the document is not a well-formed PList.
+	 */
+	public PListObject readObject() throws IOException, SAXException {
+		switch (event) {
+		case VALUE:
+			return value;
+		case START_DICT: {
+			Dict ret = new Dict();
+			readMembers(ret);
+			return ret;
+		}
+		case START_ARRAY: {
+			Array ret = new Array();
+			readMembers(ret);
+			return ret;
+		}
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * @return the current event, or -1 before the first call to
+	 *         {@link #next()}.
+	 */
+	public int getEvent() {
+		return event;
+	}
+
+	/**
+	 * @return for a {@link #KEY} event the key, for other events inside a
+	 *         dict the key of the member being read, otherwise null.
+	 */
+	public java.lang.String getKey() {
+		return key;
+	}
+
+	/**
+	 * @return for a {@link #VALUE} event the value, otherwise null.
+	 */
+	public PListObject getValue() {
+		return value;
+	}
+
+	/**
+	 * @return the number of open dicts and arrays, counting the one just
+	 *         started.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Close the underlying stream.
+	 * 
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	/**
+	 * Check a value may start here, consuming the pending key.
+	 */
+	private void startMember() throws SAXException {
+		if (depth > 0 && inDict[depth - 1]) {
+			if (!keyPending) {
+				throw new SAXException("dict member without a key");
+			}
+		} else if (depth > 0) {
+			key = null;
+		}
+		keyPending = false;
+	}
+
+	private int startContainer(boolean dict) throws SAXException {
+		startMember();
+		if (depth == inDict.length) {
+			boolean[] grown = new boolean[depth << 1];
+			System.arraycopy(inDict, 0, grown, 0, depth);
+			inDict = grown;
+		}
+		inDict[depth++] = dict;
+		return dict ? START_DICT : START_ARRAY;
+	}
+
+	private int endContainer(int end) throws SAXException {
+		if (keyPending) {
+			throw new SAXException("key without a value: " + key);
+		}
+		depth--;
+		// the key of the container in its parent dict, if any, is no longer
+		// known
+		key = null;
+		return end;
+	}
+
+	/**
+	 * Read the members of the container just started into it, up to its end.
+	 */
+	private void readMembers(PListObject container) throws IOException,
+			SAXException {
+		while (true) {
+			PListObject member;
+			switch (next()) {
+			case END_DICT:
+				((Dict) container).trimToSize();
+				return;
+			case END_ARRAY:
+				((Array) container).trimToSize();
+				return;
+			case END_DOCUMENT:
+				return;
+			case VALUE:
+				member = value;
+				break;
+			case START_DICT:
+				member = new Dict();
+				break;
+			case START_ARRAY:
+				member = new Array();
+				break;
+			default:
+				continue;
+			}
+			if (container instanceof Dict) {
+				((Dict) container).putConfig(key, member);
+			} else {
+				((Array) container).add(member);
+			}
+			if (event != VALUE) {
+				readMembers(member);
+			}
+		}
+	}
+
+	/**
+	 * Read the text content of the element just started, up to its end tag.
+	 */
+	private java.lang.String readText() throws IOException, SAXException {
+		java.lang.String ret = "";
+		int token = tokenizer.next();
+		if (token == PListXMLTokenizer.TEXT) {
+			ret = tokenizer.getText();
+			token = tokenizer.next();
+		}
+		if (token != PListXMLTokenizer.END_TAG) {
+			throw new SAXException("unexpected element: "
+					+ tokenizer.getTagName());
+		}
+		return ret;
+	}
+
+	/**
+	 * Build the scalar for tagId from the text of its element, which has just
+	 * been read.
+	 * 
+	 * @throws SAXException
+	 *             if the text is not a value of the element's type.
+	 */
+	private PListObject buildValue(int tagId, java.lang.String text)
+			throws SAXException {
+		try {
+			return decodeValue(tagId, text);
+		} catch (IllegalArgumentException e) {
+			// also NumberFormatException
+			throw new SAXException("malformed " + tokenizer.getTagName()
+					+ ": " + text, e);
+		}
+	}
+
+	private static PListObject decodeValue(int tagId, java.lang.String text) {
+		switch (tagId) {
+		case PListXMLTokenizer.TAG_STRING: {
+			String ret = new String();
+			ret.setValue(text);
+			return ret;
+		}
+		case PListXMLTokenizer.TAG_INTEGER: {
+			Integer ret = new Integer();
+			ret.setValue(text);
+			return ret;
+		}
+		case PListXMLTokenizer.TAG_REAL: {
+			Real ret = new Real();
+			ret.setValue(text);
+			return ret;
+		}
+		case PListXMLTokenizer.TAG_DATE: {
+			Date ret = new Date();
+			ret.setValue(text);
+			return ret;
+		}
+		case PListXMLTokenizer.TAG_DATA: {
+			Data ret = new Data();
+			ret.setValue(text.trim(), true);
+			return ret;
+		}
+		case PListXMLTokenizer.TAG_BOOL_TRUE:
+			return True.getInstance();
+		default:
+			return False.getInstance();
+		}
+	}
+
+}
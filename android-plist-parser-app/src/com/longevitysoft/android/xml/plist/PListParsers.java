@@ -0,0 +1,183 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.xml.plist;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.channels.ReadableByteChannel;
+
+import com.longevitysoft.android.xml.plist.domain.PList;
+
+/**
+ * <p>
+ * Thread-safe static entry points for parsing PList XML. Each thread keeps
+ * one {@link PListXMLParser} and {@link PListXMLHandler} pair, so the
+ * {@link javax.xml.parsers.SAXParser} behind it is created once per thread
+ * instead of once per document, and no locking is needed between threads.
+ * </p>
+ * <p>
+ * Malformed documents are handled the same way as by
+ * {@link PListXMLParser}. The pair is dropped when a parse fails with an
+ * exception, in case the failure left it in a bad state. A parsed PList is
+ * not kept after it has been returned.
+ * </p>
+ * 
+ * @author fbeachler
+ * 
+ */
+public final class PListParsers {
+
+	public static final java.lang.String TAG = "PListParsers";
+
+	private static final ThreadLocal<PListXMLParser> PARSERS = new ThreadLocal<PListXMLParser>() {
+
+		@Override
+		protected PListXMLParser initialValue() {
+			PListXMLParser parser = new PListXMLParser();
+			parser.setHandler(new PListXMLHandler());
+			return parser;
+		}
+
+	};
+
+	private PListParsers() {
+		super();
+	}
+
+	/**
+	 * Parse a PList XML document.
+	 * 
+	 * @param xml
+	 * @return the parsed PList, or null if xml is null.
+	 */
+	public static PList parse(java.lang.String xml) {
+		PListXMLParser parser = PARSERS.get();
+		boolean ok = false;
+		try {
+			parser.parse(xml);
+			ok = true;
+		} finally {
+			done(ok);
+		}
+		return take(parser);
+	}
+
+	/**
+	 * Parse a PList XML document from an {@link InputStream}. The stream is
+	 * closed when parsing is done.
+	 * 
+	 * @param is
+	 * @return the parsed PList, or null if is is null.
+	 * @throws IOException
+	 *             if the stream can not be read.
+	 * @see PListXMLParser#parse(InputStream)
+	 */
+	public static PList parse(InputStream is) throws IOException {
+		PListXMLParser parser = PARSERS.get();
+		boolean ok = false;
+		try {
+			parser.parse(is);
+			ok = true;
+		} finally {
+			done(ok);
+		}
+		return take(parser);
+	}
+
+	/**
+	 * Parse a PList XML document from a {@link Reader}. The reader is closed
+	 * when parsing is done.
+	 * 
+	 * @param reader
+	 * @return the parsed PList, or null if reader is null.
+	 * @throws IOException
+	 *             if the reader can not be read.
+	 * @see PListXMLParser#parse(Reader)
+	 */
+	public static PList parse(Reader reader) throws IOException {
+		PListXMLParser parser = PARSERS.get();
+		boolean ok = false;
+		try {
+			parser.parse(reader);
+			ok = true;
+		} finally {
+			done(ok);
+		}
+		return take(parser);
+	}
+
+	/**
+	 * Parse a PList XML document from a {@link ReadableByteChannel}. The
+	 * channel is closed when parsing is done.
+	 * 
+	 * @param channel
+	 * @return the parsed PList, or null if channel is null.
+	 * @throws IOException
+	 *             if the channel can not be read.
+	 * @see PListXMLParser#parse(ReadableByteChannel)
+	 */
+	public static PList parse(ReadableByteChannel channel) throws IOException {
+		PListXMLParser parser = PARSERS.get();
+		boolean ok = false;
+		try {
+			parser.parse(channel);
+			ok = true;
+		} finally {
+			done(ok);
+		}
+		return take(parser);
+	}
+
+	/**
+	 * Parse a PList XML document from a {@link File}.
+	 * 
+	 * @param file
+	 * @return the parsed PList, or null if file is null.
+	 * @throws IOException
+	 *             if the file can not be read.
+	 * @see PListXMLParser#parse(File)
+	 */
+	public static PList parse(File file) throws IOException {
+		PListXMLParser parser = PARSERS.get();
+		boolean ok = false;
+		try {
+			parser.parse(file);
+			ok = true;
+		} finally {
+			done(ok);
+		}
+		return take(parser);
+	}
+
+	/**
+	 * Drop the parser of this thread if the parse did not complete.
+	 */
+	private static void done(boolean ok) {
+		if (!ok) {
+			PARSERS.remove();
+		}
+	}
+
+	/**
+	 * @return the PList parsed by parser, which no longer holds it.
+	 */
+	private static PList take(PListXMLParser parser) {
+		PListXMLHandler handler = (PListXMLHandler) parser.getHandler();
+		PList ret = handler.getPlist();
+		handler.setPlist(null);
+		return ret;
+	}
+
+}
@@ -0,0 +1,296 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.xml.plist;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+import org.xml.sax.SAXException;
+
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.KeyPath;
+import com.longevitysoft.android.xml.plist.domain.PList;
+import com.longevitysoft.android.xml.plist.domain.PListObject;
+
+/**
+ * <p>
+ * Builds the part of a PList selected by a set of key paths, the dotted paths
+ * of {@link KeyPath}: a numeric segment selects the element at that index of
+ * an array. The returned {@link PList} has a root {@link Dict} holding only
+ * the containers on the way to each selected path and the complete value
+ * found at it, so the paths are looked up on it the same way as on a fully
+ * parsed PList. Arrays on the way keep the index of each element they hold,
+ * the elements before it that are not selected are null.
+ * </p>
+ * <p>
+ * Everything else is skipped by the tokenizer without being decoded, and
+ * reading stops as soon as every path has been found.
+ * </p>
+ * 
+ * @author fbeachler
+ * 
+ */
+public class PListProjection {
+
+	public static final java.lang.String TAG = "PListProjection";
+
+	/**
+	 * A path segment and the segments below it.
+	 */
+	private static class Node {
+
+		final Map<java.lang.String, Node> children = new HashMap<java.lang.String, Node>();
+
+		/**
+		 * Array indexes of the numeric children, in ascending order.
+		 */
+		int[] indexes = new int[0];
+
+		/**
+		 * The numeric children, in the order of {@link #indexes}.
+		 */
+		Node[] indexed = new Node[0];
+
+		/**
+		 * Add child as the numeric child selecting the element at index.
+		 */
+		void addIndexed(int index, Node child) {
+			int pos = 0;
+			while (pos < indexes.length && indexes[pos] < index) {
+				pos++;
+			}
+			if (pos < indexes.length && indexes[pos] == index) {
+				throw new IllegalArgumentException(
+						"key paths select array element " + index
+								+ " with different segments");
+			}
+			int[] newIndexes = new int[indexes.length + 1];
+			Node[] newIndexed = new Node[indexed.length + 1];
+			System.arraycopy(indexes, 0, newIndexes, 0, pos);
+			System.arraycopy(indexed, 0, newIndexed, 0, pos);
+			newIndexes[pos] = index;
+			newIndexed[pos] = child;
+			System.arraycopy(indexes, pos, newIndexes, pos + 1, indexes.length
+					- pos);
+			System.arraycopy(indexed, pos, newIndexed, pos + 1,
+					indexed.length - pos);
+			indexes = newIndexes;
+			indexed = newIndexed;
+		}
+
+		/**
+		 * True if a selected path ends at this node.
+		 */
+		boolean selected;
+
+		/**
+		 * Number of selected paths ending at or below this node.
+		 */
+		int paths;
+
+	}
+
+	private final Node root;
+
+	/**
+	 * Selected paths not yet found in the current document.
+	 */
+	private int remaining;
+
+	/**
+	 * @param keyPaths
+	 *            dotted key paths to select, at least one.
+	 * @throws IllegalArgumentException
+	 *             if there is none, or two paths select the same array
+	 *             element with different segments, such as 3 and 03.
+	 */
+	public PListProjection(Collection<java.lang.String> keyPaths) {
+		super();
+		root = new Node();
+		Iterator<java.lang.String> it = keyPaths.iterator();
+		while (it.hasNext()) {
+			add(it.next());
+		}
+		if (root.paths == 0) {
+			throw new IllegalArgumentException("no key paths to select");
+		}
+	}
+
+	private void add(java.lang.String keyPath) {
+		StringTokenizer st = new StringTokenizer(keyPath, Dict.DOT);
+		if (!st.hasMoreTokens()) {
+			return;
+		}
+		Node node = root;
+		while (st.hasMoreTokens()) {
+			java.lang.String segment = st.nextToken();
+			Node child = node.children.get(segment);
+			if (null == child) {
+				child = new Node();
+				node.children.put(segment, child);
+				int index = parseIndex(segment);
+				if (index >= 0) {
+					node.addIndexed(index, child);
+				}
+			}
+			node = child;
+		}
+		if (node.selected) {
+			return;
+		}
+		node.selected = true;
+		// count the path on every node along it
+		node = root;
+		node.paths++;
+		st = new StringTokenizer(keyPath, Dict.DOT);
+		while (st.hasMoreTokens()) {
+			node = node.children.get(st.nextToken());
+			node.paths++;
+		}
+	}
+
+	/**
+	 * Read the selected paths from reader. Reading stops when every path has
+	 * been found, the reader is not closed.
+	 * 
+	 * @param reader
+	 *            a reader positioned before the root element.
+	 * @return a PList with a root {@link Dict} holding the selected paths that
+	 *         were found, or with no root element if the document root is not
+	 *         a dict.
+	 * @throws IOException
+	 *             if the document can not be read.
+	 * @throws SAXException
+	 *             if the document is not a well-formed PList.
+	 */
+	public PList project(PListEventReader reader) throws IOException,
+			SAXException {
+		PList ret = new PList();
+		remaining = root.paths;
+		int event;
+		while ((event = reader.next()) != PListEventReader.END_DOCUMENT) {
+			if (event == PListEventReader.KEY) {
+				// a key before the root element
+				continue;
+			}
+			if (event == PListEventReader.START_DICT) {
+				Dict dict = new Dict();
+				readDict(reader, root, dict);
+				ret.setRootElement(dict);
+			}
+			break;
+		}
+		return ret;
+	}
+
+	/**
+	 * Read the members of the dict just started, keeping those selected below
+	 * node. Reading stops when every selected path has been found.
+	 */
+	private void readDict(PListEventReader reader, Node node, Dict dict)
+			throws IOException, SAXException {
+		while (remaining > 0 && reader.next() == PListEventReader.KEY) {
+			java.lang.String key = reader.getKey();
+			Node child = node.children.get(key);
+			if (null == child) {
+				reader.skip();
+				continue;
+			}
+			PListObject member = readMember(reader, reader.next(), child);
+			if (null != member) {
+				dict.putConfig(key, member);
+			}
+		}
+	}
+
+	/**
+	 * Read the elements of the array just started, keeping those selected
+	 * below node at their index. Reading stops when every selected path has
+	 * been found.
+	 */
+	private void readArray(PListEventReader reader, Node node, Array array)
+			throws IOException, SAXException {
+		int index = 0;
+		// position in node.indexes of the next selected element
+		int next = 0;
+		int event;
+		while (remaining > 0
+				&& (event = reader.next()) != PListEventReader.END_ARRAY) {
+			if (next < node.indexes.length && node.indexes[next] == index) {
+				PListObject member = readMember(reader, event,
+						node.indexed[next]);
+				if (null != member) {
+					while (array.size() < index) {
+						array.add(null);
+					}
+					array.add(member);
+				}
+				next++;
+			} else {
+				reader.skip();
+			}
+			index++;
+		}
+	}
+
+	/**
+	 * Read the member just started, keeping what is selected at or below
+	 * node.
+	 * 
+	 * @return the member if node is selected, otherwise the container holding
+	 *         the selected paths found below node, or null if none was found.
+	 */
+	private PListObject readMember(PListEventReader reader, int event,
+			Node node) throws IOException, SAXException {
+		if (node.selected) {
+			remaining -= node.paths;
+			return reader.readObject();
+		}
+		if (event == PListEventReader.START_DICT) {
+			Dict nested = new Dict();
+			readDict(reader, node, nested);
+			return nested.getConfigMap().isEmpty() ? null : nested;
+		}
+		if (event == PListEventReader.START_ARRAY) {
+			Array nested = new Array();
+			readArray(reader, node, nested);
+			return nested.isEmpty() ? null : nested;
+		}
+		return null;
+	}
+
+	/**
+	 * @return segment as an array index the way {@link KeyPath} reads it, or
+	 *         -1 if it is not a number.
+	 */
+	private static int parseIndex(java.lang.String segment) {
+		if (segment.length() > 9) {
+			return -1;
+		}
+		int ret = 0;
+		for (int i = 0; i < segment.length(); i++) {
+			char c = segment.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			ret = ret * 10 + (c - '0');
+		}
+		return ret;
+	}
+
+}
@@ -0,0 +1,330 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.xml.plist;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.binary.BinaryPListParser;
+import com.longevitysoft.android.xml.plist.domain.PList;
+
+/**
+ * <p>
+ * Holds the current version of a PList file, XML or binary, as a frozen
+ * {@link PList} (see {@link PList#freeze()}), and replaces it when the file
+ * changes. {@link #get()} never blocks: a new version is read, parsed and
+ * frozen by the thread reloading it, then published by a single atomic swap.
+ * Threads still reading a previous version keep a consistent view of it.
+ * </p>
+ * <p>
+ * The file is watched by polling its modification time and length from a
+ * background thread, see {@link #startWatching(long)}. A change that keeps
+ * both the same is not noticed. Apps that watch the file themselves, for
+ * example with an {@link android.os.FileObserver}, call
+ * {@link #reloadIfModified()} instead. A version that can not be read, or
+ * is incomplete because it is still being written, is not published: the
+ * previous one stays current, and the version is tried again once the file
+ * changes.
+ * </p>
+ * 
+ * @author fbeachler
+ * 
+ */
+public class PListReference {
+
+	public static final java.lang.String TAG = "PListReference";
+
+	private final File file;
+
+	private final AtomicReference<PList> current = new AtomicReference<PList>();
+
+	/**
+	 * Held while a version is reloaded, so reloads never overlap.
+	 */
+	private final Object reloadLock = new Object();
+
+	/**
+	 * Modification time and length of the version last tried, guarded by
+	 * reloadLock.
+	 */
+	private long triedModified = -1;
+	private long triedLength = -1;
+
+	private Timer watcher;
+
+	private volatile int reloadCount;
+	private volatile int failureCount;
+	private volatile long lastReloadNanos;
+	private volatile long maxReloadNanos;
+	private volatile long totalReloadNanos;
+	private volatile long lastReloadTime;
+	private volatile Exception lastError;
+
+	/**
+	 * @param file
+	 *            the PList file to hold. It is not read until
+	 *            {@link #reload()} is called or it is watched.
+	 */
+	public PListReference(File file) {
+		if (null == file) {
+			throw new IllegalArgumentException("file must not be null");
+		}
+		this.file = file;
+	}
+
+	/**
+	 * @return the file held.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return the current version of the file, frozen, or null if none has
+	 *         been loaded yet.
+	 */
+	public PList get() {
+		return current.get();
+	}
+
+	/**
+	 * Read, parse and publish the file on the calling thread, whether it has
+	 * changed or not.
+	 * 
+	 * @return the new current version.
+	 * @throws IOException
+	 *             if the file can not be read or parsed, the current version
+	 *             is kept.
+	 */
+	public PList reload() throws IOException {
+		synchronized (reloadLock) {
+			return load();
+		}
+	}
+
+	/**
+	 * Read, parse and publish the file on the calling thread if its
+	 * modification time or length differ from the version tried last.
+	 * 
+	 * @return true if a new version was published.
+	 * @throws IOException
+	 *             if the file can not be read or parsed, the current version
+	 *             is kept.
+	 */
+	public boolean reloadIfModified() throws IOException {
+		synchronized (reloadLock) {
+			if (file.lastModified() == triedModified
+					&& file.length() == triedLength) {
+				return false;
+			}
+			load();
+			return true;
+		}
+	}
+
+	/**
+	 * Check the file for changes every intervalMillis from a daemon thread,
+	 * and reload it when it has changed. Failed reloads are logged and
+	 * counted, see {@link #getFailureCount()} and {@link #getLastError()}.
+	 * 
+	 * @param intervalMillis
+	 *            the delay between the end of a check and the next one.
+	 */
+	public synchronized void startWatching(long intervalMillis) {
+		if (intervalMillis <= 0) {
+			throw new IllegalArgumentException("intervalMillis="
+					+ intervalMillis);
+		}
+		stopWatching();
+		watcher = new Timer(TAG + "-" + file.getName(), true);
+		watcher.schedule(new TimerTask() {
+
+			@Override
+			public void run() {
+				try {
+					reloadIfModified();
+				} catch (IOException e) {
+					Log.e(TAG + "#run", "could not reload " + file + ": " + e);
+				} catch (RuntimeException e) {
+					// keep watching
+					Log.e(TAG + "#run", "could not reload " + file + ": " + e);
+				}
+			}
+
+		}, 0, intervalMillis);
+	}
+
+	/**
+	 * Stop checking the file for changes. A reload in progress completes.
+	 */
+	public synchronized void stopWatching() {
+		if (null != watcher) {
+			watcher.cancel();
+			watcher = null;
+		}
+	}
+
+	/**
+	 * @return true if the file is checked for changes.
+	 */
+	public synchronized boolean isWatching() {
+		return null != watcher;
+	}
+
+	/**
+	 * @return the number of versions published.
+	 */
+	public int getReloadCount() {
+		return reloadCount;
+	}
+
+	/**
+	 * @return the number of versions that could not be read or parsed.
+	 */
+	public int getFailureCount() {
+		return failureCount;
+	}
+
+	/**
+	 * @return the time taken to read, parse and freeze the current version,
+	 *         in nanoseconds, or 0 if none has been loaded yet.
+	 */
+	public long getLastReloadNanos() {
+		return lastReloadNanos;
+	}
+
+	/**
+	 * @return the longest time taken to read, parse and freeze a published
+	 *         version, in nanoseconds.
+	 */
+	public long getMaxReloadNanos() {
+		return maxReloadNanos;
+	}
+
+	/**
+	 * @return the average time taken to read, parse and freeze a published
+	 *         version, in nanoseconds, or 0 if none has been loaded yet.
+	 */
+	public long getAverageReloadNanos() {
+		int count = reloadCount;
+		return count == 0 ? 0 : totalReloadNanos / count;
+	}
+
+	/**
+	 * @return the time the current version was published, in milliseconds
+	 *         since the epoch, or 0 if none has been loaded yet.
+	 */
+	public long getLastReloadTime() {
+		return lastReloadTime;
+	}
+
+	/**
+	 * @return the error of the last version that could not be read or
+	 *         parsed, or null if there was none.
+	 */
+	public Exception getLastError() {
+		return lastError;
+	}
+
+	/**
+	 * Read, parse, freeze and publish the file. Called with reloadLock held.
+	 */
+	private PList load() throws IOException {
+		long start = System.nanoTime();
+		triedModified = file.lastModified();
+		triedLength = file.length();
+		PList pList;
+		try {
+			pList = parse(readFile());
+		} catch (IOException e) {
+			failed(e);
+			throw e;
+		} catch (RuntimeException e) {
+			failed(e);
+			throw e;
+		}
+		current.set(pList);
+		long nanos = System.nanoTime() - start;
+		lastReloadNanos = nanos;
+		if (nanos > maxReloadNanos) {
+			maxReloadNanos = nanos;
+		}
+		totalReloadNanos += nanos;
+		lastReloadTime = System.currentTimeMillis();
+		// counted last, so getAverageReloadNanos() never divides the new
+		// total by the old count
+		reloadCount++;
+		return pList;
+	}
+
+	private void failed(Exception e) {
+		lastError = e;
+		failureCount++;
+	}
+
+	/**
+	 * @return the frozen PList held by data.
+	 * @throws IOException
+	 *             if data is not a complete PList.
+	 */
+	private PList parse(byte[] data) throws IOException {
+		PList pList;
+		if (BinaryPListParser.isBinaryPList(data)) {
+			// parsed from the heap, a mapped file could change under readers
+			pList = new BinaryPListParser().parse(data);
+		} else {
+			pList = PListParsers.parse(new ByteArrayInputStream(data));
+		}
+		if (null == pList || null == pList.getRootElement()) {
+			throw new IOException("no PList in " + file);
+		}
+		try {
+			return pList.freeze();
+		} catch (IllegalStateException e) {
+			// containers were left open by a malformed or truncated document
+			IOException ioe = new IOException("incomplete PList in " + file);
+			ioe.initCause(e);
+			throw ioe;
+		}
+	}
+
+	/**
+	 * @return the contents of the file.
+	 */
+	private byte[] readFile() throws IOException {
+		InputStream is = new FileInputStream(file);
+		try {
+			ByteArrayOutputStream os = new ByteArrayOutputStream(
+					(int) Math.max(32, Math.min(file.length(),
+							java.lang.Integer.MAX_VALUE)));
+			byte[] buffer = new byte[PListXMLParser.BUFFER_SIZE];
+			int n;
+			while ((n = is.read(buffer)) != -1) {
+				os.write(buffer, 0, n);
+			}
+			return os.toByteArray();
+		} finally {
+			is.close();
+		}
+	}
+
+}
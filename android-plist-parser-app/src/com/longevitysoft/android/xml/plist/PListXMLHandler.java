@@ -12,15 +12,24 @@
  */
 package com.longevitysoft.android.xml.plist;
 
+import java.io.File;
+import java.io.IOException;
+
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.ext.DefaultHandler2;
 
-import android.util.Log;
-
+import com.longevitysoft.android.util.PListLog;
 import com.longevitysoft.android.util.Stringer;
+import com.longevitysoft.android.xml.plist.domain.Data;
+import com.longevitysoft.android.xml.plist.domain.Date;
+import com.longevitysoft.android.xml.plist.domain.False;
+import com.longevitysoft.android.xml.plist.domain.Integer;
 import com.longevitysoft.android.xml.plist.domain.PList;
 import com.longevitysoft.android.xml.plist.domain.PListObject;
+import com.longevitysoft.android.xml.plist.domain.Real;
+import com.longevitysoft.android.xml.plist.domain.String;
+import com.longevitysoft.android.xml.plist.domain.True;
 
 /**
  * <p>
@@ -77,6 +86,61 @@ public class PListXMLHandler extends DefaultHandler2 {
 	 */
 	private PList pList;
 
+	/**
+	 * Decodes the text of data elements as it is reported, created on first
+	 * use.
+	 */
+	private Base64Decoder dataDecoder;
+
+	/**
+	 * Set while the characters of a data element are being decoded.
+	 */
+	private boolean decodingData;
+
+	/**
+	 * Decoded size above which data values are spilled to temporary files, -1
+	 * to keep them on the heap.
+	 */
+	private int dataSpillThreshold = -1;
+
+	/**
+	 * Directory data values are spilled to, null for the default temporary
+	 * file directory.
+	 */
+	private File dataSpillDirectory;
+
+	/**
+	 * True to share frozen integers, see {@link Integer#valueOf(long)}.
+	 */
+	private boolean shareIntegers;
+
+	/**
+	 * Length up to which equal strings share one frozen node, -1 to give
+	 * every string its own node.
+	 */
+	private int stringInternLength = -1;
+
+	/**
+	 * Strings of at most {@link #stringInternLength} characters seen in the
+	 * current parse, each carrying its shared node.
+	 */
+	private StringTable strings;
+
+	/**
+	 * Keys seen in the current parse, each carrying the string used for it.
+	 */
+	private StringTable keys;
+
+	/**
+	 * Keys shared with other parses, or null.
+	 */
+	private KeyPool keyPool;
+
+	/**
+	 * True to build each {@link PList} with shared subtrees.
+	 */
+	private boolean shareSubtrees;
+
 	// Registers to hold state of parsing the workflow as Dict
 	protected java.lang.String key;
 
@@ -133,6 +197,123 @@ public class PListXMLHandler extends DefaultHandler2 {
 		this.tempVal = tempVal;
 	}
 
+	/**
+	 * @return the decoded size above which data values are spilled to
+	 *         temporary files, or -1 if they are kept on the heap.
+	 */
+	public int getDataSpillThreshold() {
+		return dataSpillThreshold;
+	}
+
+	/**
+	 * @return the directory data values are spilled to, or null for the
+	 *         default temporary file directory.
+	 */
+	public File getDataSpillDirectory() {
+		return dataSpillDirectory;
+	}
+
+	/**
+	 * Spill data values that decode to more than threshold bytes to temporary
+	 * files while they are parsed. Such a value is held in a read-only
+	 * mapping of its file (see {@link Data#isMapped()}), so it takes no heap,
+	 * and the file is deleted when the parsed {@link PList} is closed.
+	 * 
+	 * @param threshold
+	 *            the number of bytes, or -1 (the default) to keep data values
+	 *            on the heap.
+	 * @param directory
+	 *            the directory to create the files in, such as the cache
+	 *            directory of the application, or null for the default
+	 *            temporary file directory.
+	 */
+	public void setDataSpillThreshold(int threshold, File directory) {
+		this.dataSpillThreshold = threshold;
+		this.dataSpillDirectory = directory;
+	}
+
+	/**
+	 * @return true if integers are shared frozen nodes.
+	 */
+	public boolean isShareIntegers() {
+		return shareIntegers;
+	}
+
+	/**
+	 * Build integers with {@link Integer#valueOf(CharSequence, int, int)}, so
+	 * small values share one frozen node. Integers of the parsed {@link PList}
+	 * can then not be modified.
+	 * 
+	 * @param shareIntegers
+	 *            true to share integers, false (the default) to give every
+	 *            integer its own node.
+	 */
+	public void setShareIntegers(boolean shareIntegers) {
+		this.shareIntegers = shareIntegers;
+	}
+
+	/**
+	 * @return the length up to which equal strings share a node, or -1 if
+	 *         every string has its own node.
+	 */
+	public int getStringInternLength() {
+		return stringInternLength;
+	}
+
+	/**
+	 * Have equal strings of at most maxLength characters share one frozen
+	 * node within a parse, see {@link String#valueOf(java.lang.String)}. Such
+	 * strings of the parsed {@link PList} can then not be modified. The
+	 * strings are looked up without allocating, and forgotten at the end of
+	 * the parse.
+	 * 
+	 * @param maxLength
+	 *            the number of characters, or -1 (the default) to give every
+	 *            string its own node.
+	 */
+	public void setStringInternLength(int maxLength) {
+		this.stringInternLength = maxLength;
+	}
+
+	/**
+	 * @return the pool keys are shared through across parses, or null.
+	 */
+	public KeyPool getKeyPool() {
+		return keyPool;
+	}
+
+	/**
+	 * Share keys with the parses of other documents through a pool. Within a
+	 * parse, equal keys always share one string.
+	 * 
+	 * @param keyPool
+	 *            the pool, which may be shared by many handlers, or null (the
+	 *            default) to share keys within each parse only.
+	 */
+	public void setKeyPool(KeyPool keyPool) {
+		this.keyPool = keyPool;
+	}
+
+	/**
+	 * @return true if equal subtrees of the parsed {@link PList} are shared.
+	 */
+	public boolean isShareSubtrees() {
+		return shareSubtrees;
+	}
+
+	/**
+	 * Share equal dicts and arrays of the parsed {@link PList}, see
+	 * {@link PList#setShareSubtrees(boolean)}. The whole parsed PList is
+	 * then frozen.
+	 * 
+	 * @param shareSubtrees
+	 *            true to share subtrees, false (the default) to keep every
+	 *            container.
+	 */
+	public void setShareSubtrees(boolean shareSubtrees) {
+		this.shareSubtrees = shareSubtrees;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -144,6 +325,34 @@ public class PListXMLHandler extends DefaultHandler2 {
 		tempVal = new Stringer();
 		pList = null;
 		key = null;
+		decodingData = false;
+		if (null != dataDecoder) {
+			// drops the spill file of a data value a failed parse left
+			dataDecoder.reset();
+		}
+		if (null != strings) {
+			strings.clear();
+		}
+		if (null != keys) {
+			keys.clear();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.xml.sax.helpers.DefaultHandler#endDocument()
+	 */
+	@Override
+	public void endDocument() throws SAXException {
+		super.endDocument();
+		if (null != strings) {
+			// the nodes belong to the parsed PList now
+			strings.clear();
+		}
+		if (null != keys) {
+			keys.clear();
+		}
 	}
 
 	/*
@@ -155,13 +364,14 @@ public class PListXMLHandler extends DefaultHandler2 {
 	@Override
 	public void startElement(java.lang.String uri, java.lang.String localName,
 			java.lang.String qName, Attributes attributes) throws SAXException {
-		Log.v(stringer.newBuilder().append(TAG).append("#startElement")
-				.toString(),
-				stringer.newBuilder()
-						.append("Start Element lname|uri|attr.length :")
-						.append(localName).append(Constants.PIPE).append(uri)
-						.append(Constants.PIPE).append(attributes.getLength())
-						.toString());
+		if (PListLog.isVerbose()) {
+			PListLog.v(stringer.newBuilder().append(TAG)
+					.append("#startElement").toString(), stringer.newBuilder()
+					.append("Start Element lname|uri|attr.length :")
+					.append(localName).append(Constants.PIPE).append(uri)
+					.append(Constants.PIPE).append(attributes.getLength())
+					.toString());
+		}
 		tempVal.newBuilder();
 		if (localName.equalsIgnoreCase(Constants.TAG_PLIST)) {
 			if (null != pList) {
@@ -170,6 +380,7 @@ public class PListXMLHandler extends DefaultHandler2 {
 						"there should only be one PList element in PList XML");
 			}
 			pList = new PList();
+			pList.setShareSubtrees(shareSubtrees);
 		} else {
 			if (null == pList) {
 				throw new SAXException(
@@ -178,12 +389,19 @@ public class PListXMLHandler extends DefaultHandler2 {
 			if (localName.equalsIgnoreCase(Constants.TAG_DICT) || 
 					localName.equalsIgnoreCase(Constants.TAG_PLIST_ARRAY)) {
 				try {
-					PListObject objToAdd = pList.buildObject(localName, tempVal
-							.getBuilder().toString());
+					PListObject objToAdd = pList.buildObject(localName, null);
 					pList.stackObject(objToAdd, key);
 				} catch (Exception e) {
 					throw new SAXException(e);
 				}
+			} else if (localName.equalsIgnoreCase(Constants.TAG_DATA)) {
+				if (null == dataDecoder) {
+					dataDecoder = new Base64Decoder();
+				}
+				dataDecoder.reset();
+				dataDecoder.setSpillThreshold(dataSpillThreshold,
+						dataSpillDirectory);
+				decodingData = true;
 			}
 		}
 	}
@@ -196,12 +414,24 @@ public class PListXMLHandler extends DefaultHandler2 {
 	@Override
 	public void characters(char[] ch, int start, int length)
 			throws SAXException {
-		Log.v(stringer.newBuilder().append(TAG).append("#characters")
-				.toString(),
-				stringer.newBuilder().append(ch).append(Constants.PIPE)
-						.append(start).append(Constants.PIPE).append(length)
-						.append(Constants.PIPE).toString());
-		tempVal.getBuilder().append(new java.lang.String(ch, start, length));
+		if (PListLog.isVerbose()) {
+			PListLog.v(stringer.newBuilder().append(TAG).append("#characters")
+					.toString(), stringer.newBuilder().append(ch, start, length)
+					.append(Constants.PIPE).append(start)
+					.append(Constants.PIPE).append(length)
+					.append(Constants.PIPE).toString());
+		}
+		if (decodingData) {
+			try {
+				dataDecoder.decode(ch, start, length);
+			} catch (IllegalArgumentException e) {
+				throw new SAXException(e);
+			} catch (IOException e) {
+				throw new SAXException(e);
+			}
+		} else {
+			tempVal.getBuilder().append(ch, start, length);
+		}
 	}
 
 	/*
@@ -213,23 +443,26 @@ public class PListXMLHandler extends DefaultHandler2 {
 	@Override
 	public void endElement(java.lang.String uri, java.lang.String localName,
 			java.lang.String qName) throws SAXException {
-		Log.v(stringer.newBuilder().append(TAG).append("#endElement")
-				.toString(),
-				stringer.newBuilder().append("localName|qName|uri|tempVal: ")
-						.append(localName).append(Constants.PIPE).append(qName)
-						.append(Constants.PIPE).append(uri)
-						.append(Constants.PIPE)
-						.append(tempVal.getBuilder().toString()).toString());
+		if (PListLog.isVerbose()) {
+			PListLog.v(stringer.newBuilder().append(TAG).append("#endElement")
+					.toString(), stringer.newBuilder()
+					.append("localName|qName|uri|tempVal: ").append(localName)
+					.append(Constants.PIPE).append(qName)
+					.append(Constants.PIPE).append(uri)
+					.append(Constants.PIPE).append(tempVal.getBuilder())
+					.toString());
+		}
 		if (localName.equalsIgnoreCase(Constants.TAG_KEY)) {
-			key = tempVal.getBuilder().toString().trim();
+			StringBuilder text = tempVal.getBuilder();
+			int start = ValueDecoder.trimStart(text, 0, text.length());
+			key = internKey(text, start,
+					ValueDecoder.trimEnd(text, start, text.length()));
 		} else if (localName.equalsIgnoreCase(Constants.TAG_DICT) || 
 				localName.equalsIgnoreCase(Constants.TAG_PLIST_ARRAY)) {
 			pList.popStack();
 		} else if (!localName.equalsIgnoreCase(Constants.TAG_PLIST)) {
 			try {
-				PListObject objToAdd = pList.buildObject(localName, tempVal
-						.getBuilder().toString());
-				pList.stackObject(objToAdd, key);
+				pList.stackObject(buildValue(localName), key);
 			} catch (Exception e) {
 				throw new SAXException(e);
 			}
@@ -243,4 +476,103 @@ public class PListXMLHandler extends DefaultHandler2 {
 
 	}
 
+	/**
+	 * Build the scalar element localName from the characters collected in
+	 * {@link #tempVal}. Integers, reals, dates, booleans and data are decoded
+	 * straight from the builder; only string values are copied into a
+	 * {@link java.lang.String}. Data has been decoded by {@link #dataDecoder}
+	 * as its characters were reported.
+	 * 
+	 * @param localName
+	 * @return the object built.
+	 * @throws Exception
+	 */
+	private PListObject buildValue(java.lang.String localName)
+			throws Exception {
+		StringBuilder text = tempVal.getBuilder();
+		int length = text.length();
+		if (localName.equalsIgnoreCase(Constants.TAG_STRING)) {
+			if (length <= stringInternLength) {
+				return internString(text, length);
+			}
+			String ret = new String();
+			ret.setValue(text.toString());
+			return ret;
+		} else if (localName.equalsIgnoreCase(Constants.TAG_INTEGER)) {
+			if (shareIntegers) {
+				return Integer.valueOf(text, 0, length);
+			}
+			Integer ret = new Integer();
+			ret.setValue(text, 0, length);
+			return ret;
+		} else if (localName.equalsIgnoreCase(Constants.TAG_REAL)) {
+			Real ret = new Real();
+			ret.setValue(ValueDecoder.parseDouble(text, 0, length));
+			return ret;
+		} else if (localName.equalsIgnoreCase(Constants.TAG_BOOL_TRUE)) {
+			return True.getInstance();
+		} else if (localName.equalsIgnoreCase(Constants.TAG_BOOL_FALSE)) {
+			return False.getInstance();
+		} else if (localName.equalsIgnoreCase(Constants.TAG_DATE)) {
+			Date ret = new Date();
+			long time = ValueDecoder.parseDate(text, 0, length);
+			if (time == ValueDecoder.NOT_A_DATE) {
+				ret.setValue(text.toString());
+			} else {
+				ret.setValue(time);
+			}
+			return ret;
+		} else if (localName.equalsIgnoreCase(Constants.TAG_DATA)) {
+			Data ret = new Data();
+			if (decodingData) {
+				decodingData = false;
+				if (dataDecoder.isSpilled()) {
+					File file = dataDecoder.getSpillFile();
+					ret.setValue(dataDecoder.finishSpilled());
+					pList.addTempFile(file);
+				} else {
+					ret.setValue(dataDecoder.finish(), false);
+				}
+			} else {
+				ret.setValue(ValueDecoder.toBytes(text, 0, length), true);
+			}
+			return ret;
+		}
+		return pList.buildObject(localName, text.toString());
+	}
+
+	/**
+	 * @return the shared node of the string in text.
+	 */
+	private String internString(StringBuilder text, int length) {
+		if (null == strings) {
+			strings = new StringTable();
+		}
+		int slot = strings.add(text, 0, length);
+		String ret = (String) strings.valueAt(slot);
+		if (null == ret) {
+			ret = String.valueOf(strings.keyAt(slot));
+			strings.setValueAt(slot, ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the string shared by all keys equal to the range of text.
+	 */
+	private java.lang.String internKey(StringBuilder text, int start, int end) {
+		if (null == keys) {
+			keys = new StringTable();
+		}
+		int slot = keys.add(text, start, end);
+		java.lang.String ret = (java.lang.String) keys.valueAt(slot);
+		if (null == ret) {
+			// first time in this parse
+			ret = null == keyPool ? keys.keyAt(slot) : keyPool.intern(text,
+					start, end);
+			keys.setValueAt(slot, ret);
+		}
+		return ret;
+	}
+
 }
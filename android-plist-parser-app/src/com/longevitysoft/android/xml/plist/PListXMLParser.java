@@ -12,12 +12,34 @@
  */
 package com.longevitysoft.android.xml.plist;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 
-import com.longevitysoft.android.util.Stringer;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import android.util.Log;
+
+import com.longevitysoft.android.util.PListLog;
+import com.longevitysoft.android.xml.plist.PListXMLHandler.ParseMode;
 
 /**
+ * Parses PList XML documents. All of the stream based overloads hand their
+ * source straight to the selected {@link Engine}, so the document is consumed
+ * incrementally and is never held in memory as a whole.
+ * 
  * @author fbeachler
  * 
  */
@@ -25,11 +47,98 @@ public class PListXMLParser extends BaseXMLParser {
 
 	public static final String TAG = "PListXMLParser";
 
+	/**
+	 * Size of the read buffer placed in front of unbuffered sources.
+	 */
+	public static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * The engines that can drive the {@link PListXMLHandler}. Both build the
+	 * same {@link com.longevitysoft.android.xml.plist.domain.PList}.
+	 * 
+	 * @author fbeachler
+	 * 
+	 */
+	public enum Engine {
+		/**
+		 * The platform {@link javax.xml.parsers.SAXParser}.
+		 */
+		SAX,
+		/**
+		 * The {@link PListXMLTokenizer}, which only understands PList XML and
+		 * reads UTF-8 bytes directly. {@link Reader} sources are always parsed
+		 * with {@link #SAX}.
+		 */
+		PULL
+	};
+
+	/**
+	 * Attributes reported to the handler by the {@link Engine#PULL} engine.
+	 */
+	private static final Attributes NO_ATTRIBUTES = new AttributesImpl();
+
+	/**
+	 * The engine used to parse documents.
+	 */
+	private Engine engine;
+
+	/**
+	 * Key paths to build, null to build the whole document.
+	 */
+	private Collection<java.lang.String> keyPaths;
+
+	/**
+	 * Projection built from {@link #keyPaths}.
+	 */
+	private PListProjection projection;
+
 	/**
 	 * 
 	 */
 	public PListXMLParser() {
 		super();
+		engine = Engine.SAX;
+	}
+
+	/**
+	 * @return the engine
+	 */
+	public Engine getEngine() {
+		return engine;
+	}
+
+	/**
+	 * @param engine
+	 *            the engine to set
+	 */
+	public void setEngine(Engine engine) {
+		this.engine = engine;
+	}
+
+	/**
+	 * @return the key paths to build, or null if whole documents are built.
+	 */
+	public Collection<java.lang.String> getKeyPaths() {
+		return keyPaths;
+	}
+
+	/**
+	 * Only build the given key paths of the documents parsed from now on, see
+	 * {@link PListProjection}. The rest of each document is skipped by a
+	 * {@link PListXMLTokenizer} regardless of the {@link Engine}, and reading
+	 * stops once every path has been found. {@link Reader} sources are always
+	 * parsed in full.
+	 * 
+	 * @param keyPaths
+	 *            dotted key paths, or null to build whole documents.
+	 * @throws IllegalArgumentException
+	 *             if the key paths are rejected by {@link PListProjection}.
+	 */
+	public void setKeyPaths(Collection<java.lang.String> keyPaths) {
+		this.projection = null == keyPaths ? null : new PListProjection(
+				keyPaths);
+		this.keyPaths = null == keyPaths ? null : Collections
+				.unmodifiableList(new ArrayList<java.lang.String>(keyPaths));
 	}
 
 	/**
@@ -38,44 +147,202 @@ public class PListXMLParser extends BaseXMLParser {
 	 * @param xml
 	 */
 	public void parse(String xml) throws IllegalStateException {
-		PListXMLHandler pListHandler = (PListXMLHandler) getHandler();
-		if (null == pListHandler) {
-			throw new IllegalStateException(
-					"handler is null, must set a document handler before calling parse");
-		}
+		PListXMLHandler pListHandler = requireHandler();
 		if (null == xml) {
 			pListHandler.setPlist(null);
 			return;
 		}
-		initParser();
+		if (engine == Engine.PULL || null != projection) {
+			try {
+				InputStream is = new ByteArrayInputStream(xml.getBytes("UTF-8"));
+				if (null != projection) {
+					parseProjection(is);
+				} else {
+					parsePull(is);
+				}
+			} catch (IOException e) {
+				Log.e(
+						stringer.newBuilder().append(TAG).append("#parse")
+								.toString(), "IOException");
+				e.printStackTrace();
+			}
+			return;
+		}
+		requireParser();
 		super.parse(xml);
 	}
 
 	/**
-	 * Parse a PList XML document from an {@link InputStream}.
+	 * Parse a PList XML document from an {@link InputStream}. The stream is
+	 * read incrementally by the SAX parser, which also detects the document
+	 * encoding from the XML declaration. The stream is closed when parsing is
+	 * done.
 	 * 
-	 * @param xml
+	 * @param is
 	 * @throws IOException
 	 */
 	public void parse(InputStream is) throws IllegalStateException, IOException {
-		PListXMLHandler pListHandler = (PListXMLHandler) getHandler();
-		if (null == pListHandler) {
-			throw new IllegalStateException(
-					"handler is null, must set a document handler before calling parse");
-		}
+		PListXMLHandler pListHandler = requireHandler();
 		if (null == is) {
 			pListHandler.setPlist(null);
 			return;
 		}
-		Stringer xml = null;
 		try {
-			xml = Stringer.convert(is);
+			if (null != projection) {
+				parseProjection(is);
+			} else if (engine == Engine.PULL) {
+				parsePull(is);
+			} else {
+				requireParser();
+				super.parse(new InputSource(is));
+			}
 		} catch (IOException e) {
-			throw new IOException(
-					"error reading from input string - is it encoded as UTF-8?");
+			IOException ioe = new IOException(
+					"error reading PList XML from input stream");
+			ioe.initCause(e);
+			throw ioe;
+		} finally {
+			is.close();
+		}
+	}
+
+	/**
+	 * Parse a PList XML document from a {@link Reader}. The reader is consumed
+	 * incrementally and closed when parsing is done.
+	 * 
+	 * @param reader
+	 * @throws IOException
+	 */
+	public void parse(Reader reader) throws IllegalStateException, IOException {
+		PListXMLHandler pListHandler = requireHandler();
+		if (null == reader) {
+			pListHandler.setPlist(null);
+			return;
+		}
+		try {
+			requireParser();
+			super.parse(new InputSource(reader));
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Parse a PList XML document from a {@link ReadableByteChannel}. Bytes are
+	 * pulled from the channel through a buffer of {@link #BUFFER_SIZE} bytes.
+	 * The channel is closed when parsing is done.
+	 * 
+	 * @param channel
+	 * @throws IOException
+	 */
+	public void parse(ReadableByteChannel channel)
+			throws IllegalStateException, IOException {
+		if (null == channel) {
+			requireHandler().setPlist(null);
+			return;
+		}
+		parse(new BufferedInputStream(Channels.newInputStream(channel),
+				BUFFER_SIZE));
+	}
+
+	/**
+	 * Parse a PList XML document from a {@link File}. The file is read through
+	 * a buffer of {@link #BUFFER_SIZE} bytes.
+	 * 
+	 * @param file
+	 * @throws IOException
+	 */
+	public void parse(File file) throws IllegalStateException, IOException {
+		if (null == file) {
+			requireHandler().setPlist(null);
+			return;
+		}
+		parse(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+	}
+
+	/**
+	 * Parse a UTF-8 encoded PList XML document with a {@link PListXMLTokenizer}.
+	 * Its tokens are reported to the handler the same way a SAX parser would.
+	 * 
+	 * @param is
+	 * @throws IOException
+	 */
+	protected void parsePull(InputStream is) throws IOException {
+		PListXMLHandler pListHandler = requireHandler();
+		PListXMLTokenizer tokenizer = new PListXMLTokenizer(is);
+		try {
+			pListHandler.startDocument();
+			int token;
+			while ((token = tokenizer.next()) != PListXMLTokenizer.END_DOCUMENT) {
+				switch (token) {
+				case PListXMLTokenizer.START_TAG:
+					pListHandler.startElement("", tokenizer.getTagName(),
+							tokenizer.getTagName(), NO_ATTRIBUTES);
+					break;
+				case PListXMLTokenizer.END_TAG:
+					pListHandler.endElement("", tokenizer.getTagName(),
+							tokenizer.getTagName());
+					break;
+				case PListXMLTokenizer.TEXT:
+					pListHandler.characters(tokenizer.getTextCharacters(), 0,
+							tokenizer.getTextLength());
+					break;
+				}
+			}
+			pListHandler.endDocument();
+		} catch (SAXException e) {
+			Log.e(stringer.newBuilder().append(TAG).append("#parsePull")
+					.toString(), "SAXException");
+			e.printStackTrace();
+		}
+
+		if (PListLog.isVerbose()) {
+			PListLog.v(stringer.newBuilder().append(TAG).append("#parsePull")
+					.toString(), "done parsing xml");
+		}
+	}
+
+	/**
+	 * Build the key paths set with {@link #setKeyPaths(Collection)} from a
+	 * UTF-8 encoded PList XML document. The result is set on the handler and
+	 * reported to its listener as a whole.
+	 * 
+	 * @param is
+	 * @throws IOException
+	 */
+	protected void parseProjection(InputStream is) throws IOException {
+		PListXMLHandler pListHandler = requireHandler();
+		pListHandler.setPlist(null);
+		try {
+			pListHandler.setPlist(projection.project(new PListEventReader(is)));
+			if (null != pListHandler.getParseListener()) {
+				pListHandler.getParseListener().onPListParseDone(
+						pListHandler.getPlist(), ParseMode.END_TAG);
+			}
+		} catch (SAXException e) {
+			Log.e(stringer.newBuilder().append(TAG)
+					.append("#parseProjection").toString(), "SAXException");
+			e.printStackTrace();
+		}
+
+		if (PListLog.isVerbose()) {
+			PListLog.v(stringer.newBuilder().append(TAG).append("#parseProjection")
+					.toString(), "done parsing xml");
+		}
+	}
+
+	/**
+	 * @return the {@link PListXMLHandler} set on this parser.
+	 * @throws IllegalStateException
+	 *             if no handler has been set.
+	 */
+	private PListXMLHandler requireHandler() throws IllegalStateException {
+		PListXMLHandler pListHandler = (PListXMLHandler) getHandler();
+		if (null == pListHandler) {
+			throw new IllegalStateException(
+					"handler is null, must set a document handler before calling parse");
 		}
-		initParser();
-		super.parse(xml.getBuilder().toString());
+		return pListHandler;
 	}
 
 }
@@ -0,0 +1,635 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.xml.plist;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+
+import org.xml.sax.SAXException;
+
+/**
+ * <p>
+ * A pull tokenizer for PList XML. It reads UTF-8 bytes directly from an
+ * {@link InputStream} and recognizes the dozen elements of the PList DTD
+ * without going through a general purpose XML parser. Element names are
+ * reported as the {@link Constants} tag strings, so no String is created per
+ * tag.
+ * </p>
+ * <p>
+ * Processing instructions, comments and the DOCTYPE are skipped, attributes
+ * are ignored, CDATA sections and the predefined and numeric character
+ * references are decoded into the text. The document is assumed to be UTF-8,
+ * which is the only encoding PList XML is written in.
+ * </p>
+ *
+ * @author fbeachler
+ *
+ */
+public class PListXMLTokenizer {
+
+	public static final java.lang.String TAG = "PListXMLTokenizer";
+
+	/**
+	 * Token types returned by {@link #next()}.
+	 */
+	public static final int END_DOCUMENT = 0;
+	public static final int START_TAG = 1;
+	public static final int END_TAG = 2;
+	public static final int TEXT = 3;
+
+	/**
+	 * Ids of the elements recognized by this tokenizer, returned by
+	 * {@link #getTagId()}.
+	 */
+	public static final int TAG_UNKNOWN = -1;
+	public static final int TAG_PLIST = 0;
+	public static final int TAG_DICT = 1;
+	public static final int TAG_PLIST_ARRAY = 2;
+	public static final int TAG_KEY = 3;
+	public static final int TAG_INTEGER = 4;
+	public static final int TAG_STRING = 5;
+	public static final int TAG_REAL = 6;
+	public static final int TAG_DATE = 7;
+	public static final int TAG_BOOL_TRUE = 8;
+	public static final int TAG_BOOL_FALSE = 9;
+	public static final int TAG_DATA = 10;
+
+	/**
+	 * Tag names indexed by tag id.
+	 */
+	private static final java.lang.String[] TAG_NAMES = { Constants.TAG_PLIST,
+			Constants.TAG_DICT, Constants.TAG_PLIST_ARRAY, Constants.TAG_KEY,
+			Constants.TAG_INTEGER, Constants.TAG_STRING, Constants.TAG_REAL,
+			Constants.TAG_DATE, Constants.TAG_BOOL_TRUE,
+			Constants.TAG_BOOL_FALSE, Constants.TAG_DATA };
+
+	/**
+	 * ASCII bytes of {@link #TAG_NAMES}.
+	 */
+	private static final byte[][] TAG_BYTES = new byte[TAG_NAMES.length][];
+	static {
+		for (int i = 0; i < TAG_NAMES.length; i++) {
+			TAG_BYTES[i] = new byte[TAG_NAMES[i].length()];
+			for (int j = 0; j < TAG_BYTES[i].length; j++) {
+				TAG_BYTES[i][j] = (byte) TAG_NAMES[i].charAt(j);
+			}
+		}
+	}
+
+	private static final int EOF = -1;
+	private static final int BUFFER_SIZE = 8192;
+	private static final int MAX_DEPTH = 16;
+
+	private final InputStream in;
+
+	/**
+	 * Read buffer and its bounds.
+	 */
+	private final byte[] buf;
+	private int pos;
+	private int limit;
+
+	/**
+	 * Decoded text of the current {@link #TEXT} token.
+	 */
+	private char[] text;
+	private int textLength;
+
+	/**
+	 * Raw bytes of the name of the tag being read.
+	 */
+	private byte[] name;
+	private int nameLength;
+
+	/**
+	 * Current tag id and name.
+	 */
+	private int tagId;
+	private java.lang.String tagName;
+
+	/**
+	 * Names of open elements.
+	 */
+	private java.lang.String[] open;
+	private int depth;
+
+	/**
+	 * True when '<' of a tag has been consumed but the tag not yet read.
+	 */
+	private boolean inTag;
+
+	/**
+	 * True when the last start tag was an empty element.
+	 */
+	private boolean pendingEnd;
+
+	/**
+	 * @param in
+	 *            UTF-8 encoded PList XML.
+	 */
+	public PListXMLTokenizer(InputStream in) {
+		this.in = in;
+		buf = new byte[BUFFER_SIZE];
+		text = new char[256];
+		name = new byte[16];
+		open = new java.lang.String[MAX_DEPTH];
+		tagId = TAG_UNKNOWN;
+	}
+
+	/**
+	 * Advance to the next token.
+	 *
+	 * @return one of {@link #START_TAG}, {@link #END_TAG}, {@link #TEXT} or
+	 *         {@link #END_DOCUMENT}.
+	 * @throws IOException
+	 *             if the stream can not be read.
+	 * @throws SAXException
+	 *             if the document is not well-formed.
+	 */
+	public int next() throws IOException, SAXException {
+		if (pendingEnd) {
+			pendingEnd = false;
+			depth--;
+			return END_TAG;
+		}
+		textLength = 0;
+		while (true) {
+			if (!inTag) {
+				int b = read();
+				if (b == EOF) {
+					if (textLength > 0) {
+						return TEXT;
+					}
+					if (depth > 0) {
+						throw new SAXException(
+								"unexpected end of document, unclosed element: "
+										+ open[depth - 1]);
+					}
+					return END_DOCUMENT;
+				}
+				if (b != '<') {
+					readText(b);
+					continue;
+				}
+				inTag = true;
+			}
+			int b = peek();
+			if (b == '?') {
+				skipPast('?', '>');
+				inTag = false;
+			} else if (b == '!') {
+				pos++;
+				readDeclaration();
+				inTag = false;
+			} else if (textLength > 0) {
+				// report the text before this tag first
+				return TEXT;
+			} else {
+				inTag = false;
+				return readTag();
+			}
+		}
+	}
+
+	/**
+	 * Skip the content of the element of the current {@link #START_TAG} up to
+	 * and including its end tag. The skipped bytes are scanned for tags only,
+	 * text is not decoded and the names of nested tags are not checked.
+	 *
+	 * @throws IOException
+	 *             if the stream can not be read.
+	 * @throws SAXException
+	 *             if the document ends before the element does.
+	 */
+	public void skipElement() throws IOException, SAXException {
+		if (pendingEnd) {
+			pendingEnd = false;
+			depth--;
+			return;
+		}
+		textLength = 0;
+		int nested = 0;
+		while (true) {
+			int b = read();
+			if (b == EOF) {
+				throw new SAXException(
+						"unexpected end of document, unclosed element: "
+								+ open[depth - 1]);
+			}
+			if (b != '<') {
+				continue;
+			}
+			b = readRequired();
+			if (b == '?') {
+				skipPast('?', '>');
+			} else if (b == '!') {
+				readDeclaration();
+				// drop the text of a CDATA section
+				textLength = 0;
+			} else if (b == '/') {
+				skipPast('>');
+				if (nested == 0) {
+					depth--;
+					return;
+				}
+				nested--;
+			} else {
+				int prev = b;
+				while (b != '>') {
+					if (b == '"' || b == '\'') {
+						skipPast(b);
+					}
+					prev = b;
+					b = readRequired();
+				}
+				if (prev != '/') {
+					nested++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the id of the current tag, or {@link #TAG_UNKNOWN}.
+	 */
+	public int getTagId() {
+		return tagId;
+	}
+
+	/**
+	 * @return the name of the current tag. Names of recognized tags are the
+	 *         {@link Constants} tag strings.
+	 */
+	public java.lang.String getTagName() {
+		return tagName;
+	}
+
+	/**
+	 * @return the buffer holding the text of the current {@link #TEXT} token.
+	 *         It is reused for every token.
+	 */
+	public char[] getTextCharacters() {
+		return text;
+	}
+
+	/**
+	 * @return the number of chars of the current {@link #TEXT} token.
+	 */
+	public int getTextLength() {
+		return textLength;
+	}
+
+	/**
+	 * @return the text of the current {@link #TEXT} token as a String.
+	 */
+	public java.lang.String getText() {
+		return new java.lang.String(text, 0, textLength);
+	}
+
+	/**
+	 * @return the element nesting depth, counting the current start tag.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	private int read() throws IOException {
+		if (pos < limit) {
+			return buf[pos++] & 0xFF;
+		}
+		if (!fill()) {
+			return EOF;
+		}
+		return buf[pos++] & 0xFF;
+	}
+
+	private int peek() throws IOException {
+		if (pos < limit) {
+			return buf[pos] & 0xFF;
+		}
+		if (!fill()) {
+			return EOF;
+		}
+		return buf[pos] & 0xFF;
+	}
+
+	private boolean fill() throws IOException {
+		int n = in.read(buf, 0, buf.length);
+		while (n == 0) {
+			n = in.read(buf, 0, buf.length);
+		}
+		if (n < 0) {
+			pos = limit = 0;
+			return false;
+		}
+		pos = 0;
+		limit = n;
+		return true;
+	}
+
+	private int readRequired() throws IOException, SAXException {
+		int b = read();
+		if (b == EOF) {
+			throw new SAXException("unexpected end of document");
+		}
+		return b;
+	}
+
+	private void appendText(char c) {
+		if (textLength == text.length) {
+			char[] grown = new char[text.length << 1];
+			System.arraycopy(text, 0, grown, 0, textLength);
+			text = grown;
+		}
+		text[textLength++] = c;
+	}
+
+	private void appendCodePoint(int cp) {
+		if (cp < 0x10000) {
+			appendText((char) cp);
+		} else {
+			cp -= 0x10000;
+			appendText((char) (0xD800 + (cp >> 10)));
+			appendText((char) (0xDC00 + (cp & 0x3FF)));
+		}
+	}
+
+	/**
+	 * Decode character data up to the next '<' into {@link #text}.
+	 *
+	 * @param b
+	 *            the first byte of the text.
+	 */
+	private void readText(int b) throws IOException, SAXException {
+		while (true) {
+			if (b < 0x80) {
+				if (b == '&') {
+					readReference();
+				} else {
+					appendText((char) b);
+				}
+			} else {
+				readMultiByte(b);
+			}
+			// tight loop over the buffered ASCII run
+			while (pos < limit) {
+				int c = buf[pos] & 0xFF;
+				if (c == '<' || c == '&' || c >= 0x80) {
+					break;
+				}
+				appendText((char) c);
+				pos++;
+			}
+			b = peek();
+			if (b == '<' || b == EOF) {
+				return;
+			}
+			pos++;
+		}
+	}
+
+	private void readMultiByte(int b) throws IOException, SAXException {
+		int cp;
+		int extra;
+		if ((b & 0xE0) == 0xC0) {
+			cp = b & 0x1F;
+			extra = 1;
+		} else if ((b & 0xF0) == 0xE0) {
+			cp = b & 0x0F;
+			extra = 2;
+		} else if ((b & 0xF8) == 0xF0) {
+			cp = b & 0x07;
+			extra = 3;
+		} else {
+			throw new SAXException("invalid UTF-8 byte: " + b);
+		}
+		while (extra-- > 0) {
+			int c = readRequired();
+			if ((c & 0xC0) != 0x80) {
+				throw new SAXException("invalid UTF-8 byte: " + c);
+			}
+			cp = (cp << 6) | (c & 0x3F);
+		}
+		if (cp == 0xFEFF && textLength == 0 && depth == 0) {
+			// byte order mark
+			return;
+		}
+		appendCodePoint(cp);
+	}
+
+	/**
+	 * Decode a character reference, the leading '&' has been consumed.
+	 */
+	private void readReference() throws IOException, SAXException {
+		int b = readRequired();
+		if (b == '#') {
+			int radix = 10;
+			b = readRequired();
+			if (b == 'x') {
+				radix = 16;
+				b = readRequired();
+			}
+			int cp = 0;
+			int digits = 0;
+			while (b != ';') {
+				int d = Character.digit((char) b, radix);
+				if (d < 0 || digits > 6) {
+					throw new SAXException("invalid character reference");
+				}
+				cp = cp * radix + d;
+				digits++;
+				b = readRequired();
+			}
+			if (digits == 0 || cp > 0x10FFFF) {
+				throw new SAXException("invalid character reference");
+			}
+			appendCodePoint(cp);
+			return;
+		}
+		int hash = 0;
+		int len = 0;
+		while (b != ';') {
+			if (len == 4) {
+				throw new SAXException("unknown entity reference");
+			}
+			hash = (hash << 8) | b;
+			len++;
+			b = readRequired();
+		}
+		switch (hash) {
+		case ('l' << 8) | 't':
+			appendText('<');
+			break;
+		case ('g' << 8) | 't':
+			appendText('>');
+			break;
+		case ('a' << 16) | ('m' << 8) | 'p':
+			appendText('&');
+			break;
+		case ('q' << 24) | ('u' << 16) | ('o' << 8) | 't':
+			appendText('"');
+			break;
+		case ('a' << 24) | ('p' << 16) | ('o' << 8) | 's':
+			appendText('\'');
+			break;
+		default:
+			throw new SAXException("unknown entity reference");
+		}
+	}
+
+	/**
+	 * Skip a comment or DOCTYPE, or decode a CDATA section into the text. The
+	 * leading "<!" has been consumed.
+	 */
+	private void readDeclaration() throws IOException, SAXException {
+		int b = readRequired();
+		if (b == '-') {
+			if (readRequired() != '-') {
+				throw new SAXException("malformed comment");
+			}
+			// skip to "-->"
+			int dashes = 0;
+			while (true) {
+				b = readRequired();
+				if (b == '>' && dashes >= 2) {
+					return;
+				}
+				dashes = b == '-' ? dashes + 1 : 0;
+			}
+		} else if (b == '[') {
+			for (int i = 0; i < 6; i++) {
+				if (readRequired() != "CDATA[".charAt(i)) {
+					throw new SAXException("malformed CDATA section");
+				}
+			}
+			// copy to "]]>"
+			int brackets = 0;
+			while (true) {
+				b = readRequired();
+				if (b == '>' && brackets >= 2) {
+					textLength -= 2;
+					return;
+				}
+				brackets = b == ']' ? brackets + 1 : 0;
+				if (b < 0x80) {
+					appendText((char) b);
+				} else {
+					readMultiByte(b);
+				}
+			}
+		} else {
+			// DOCTYPE, possibly with an internal subset
+			int brackets = 0;
+			while (true) {
+				if (b == '[') {
+					brackets++;
+				} else if (b == ']') {
+					brackets--;
+				} else if (b == '"' || b == '\'') {
+					skipPast(b);
+				} else if (b == '>' && brackets == 0) {
+					return;
+				}
+				b = readRequired();
+			}
+		}
+	}
+
+	private void skipPast(int end) throws IOException, SAXException {
+		while (readRequired() != end) {
+			// skip
+		}
+	}
+
+	private void skipPast(int first, int second) throws IOException,
+			SAXException {
+		int prev = 0;
+		int b;
+		while (!((b = readRequired()) == second && prev == first)) {
+			prev = b;
+		}
+	}
+
+	/**
+	 * Read a start or end tag, the leading '<' has been consumed.
+	 */
+	private int readTag() throws IOException, SAXException {
+		int b = readRequired();
+		boolean end = b == '/';
+		if (end) {
+			b = readRequired();
+		}
+		nameLength = 0;
+		while (b != '>' && b != '/' && b > ' ') {
+			if (nameLength == name.length) {
+				byte[] grown = new byte[name.length << 1];
+				System.arraycopy(name, 0, grown, 0, nameLength);
+				name = grown;
+			}
+			name[nameLength++] = (byte) b;
+			b = readRequired();
+		}
+		if (nameLength == 0) {
+			throw new SAXException("malformed tag");
+		}
+		lookupTag();
+		// skip attributes
+		boolean empty = false;
+		while (b != '>') {
+			if (b == '"' || b == '\'') {
+				skipPast(b);
+				empty = false;
+			} else {
+				empty = b == '/';
+			}
+			b = readRequired();
+		}
+		if (end) {
+			if (depth == 0 || !tagName.equals(open[depth - 1])) {
+				throw new SAXException("unexpected end tag: " + tagName);
+			}
+			depth--;
+			return END_TAG;
+		}
+		if (depth == open.length) {
+			java.lang.String[] grown = new java.lang.String[open.length << 1];
+			System.arraycopy(open, 0, grown, 0, depth);
+			open = grown;
+		}
+		open[depth++] = tagName;
+		pendingEnd = empty;
+		return START_TAG;
+	}
+
+	private void lookupTag() throws UnsupportedEncodingException {
+		for (int i = 0; i < TAG_BYTES.length; i++) {
+			byte[] candidate = TAG_BYTES[i];
+			if (candidate.length != nameLength) {
+				continue;
+			}
+			int j = 0;
+			while (j < nameLength && (name[j] | 0x20) == candidate[j]) {
+				j++;
+			}
+			if (j == nameLength) {
+				tagId = i;
+				tagName = TAG_NAMES[i];
+				return;
+			}
+		}
+		tagId = TAG_UNKNOWN;
+		tagName = new java.lang.String(name, 0, nameLength, "UTF-8");
+	}
+
+}
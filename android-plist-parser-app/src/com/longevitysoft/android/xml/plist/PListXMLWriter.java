@@ -0,0 +1,562 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.xml.plist;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Data;
+import com.longevitysoft.android.xml.plist.domain.Date;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.Integer;
+import com.longevitysoft.android.xml.plist.domain.PList;
+import com.longevitysoft.android.xml.plist.domain.PListObject;
+import com.longevitysoft.android.xml.plist.domain.PListObjectType;
+import com.longevitysoft.android.xml.plist.domain.Real;
+import com.longevitysoft.android.xml.plist.domain.String;
+
+/**
+ * <p>
+ * Writes a {@link PList} as XML. The tree is encoded to UTF-8 straight into
+ * a byte buffer which is flushed to the target whenever it fills, so no
+ * intermediate strings are built for tags, keys, integers or dates.
+ * </p>
+ * <p>
+ * In pretty mode each element is written on its own line and indented with
+ * tabs, the way Apple tooling writes PLists. In compact mode no whitespace
+ * is written between elements.
+ * </p>
+ * <p>
+ * The buffer is kept between writes, so a writer should be reused for
+ * many documents. It is not thread-safe.
+ * </p>
+ * 
+ * @author fbeachler
+ * 
+ */
+public class PListXMLWriter {
+
+	public static final java.lang.String TAG = "PListXMLWriter";
+
+	/**
+	 * Size of the write buffer.
+	 */
+	public static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * Number of Base64 characters per line of data in pretty mode.
+	 */
+	private static final int DATA_LINE_LENGTH = 68;
+
+	private static final byte[] HEADER = ascii("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+	private static final byte[] DOCTYPE = ascii("<!DOCTYPE plist PUBLIC \"-//Apple//DTD PLIST 1.0//EN\" \"http://www.apple.com/DTDs/PropertyList-1.0.dtd\">");
+	private static final byte[] PLIST_START = ascii("<plist version=\"1.0\">");
+	private static final byte[] PLIST_END = endTag(Constants.TAG_PLIST);
+	private static final byte[] DICT_START = startTag(Constants.TAG_DICT);
+	private static final byte[] DICT_END = endTag(Constants.TAG_DICT);
+	private static final byte[] DICT_EMPTY = emptyTag(Constants.TAG_DICT);
+	private static final byte[] ARRAY_START = startTag(Constants.TAG_PLIST_ARRAY);
+	private static final byte[] ARRAY_END = endTag(Constants.TAG_PLIST_ARRAY);
+	private static final byte[] ARRAY_EMPTY = emptyTag(Constants.TAG_PLIST_ARRAY);
+	private static final byte[] KEY_START = startTag(Constants.TAG_KEY);
+	private static final byte[] KEY_END = endTag(Constants.TAG_KEY);
+	private static final byte[] STRING_START = startTag(Constants.TAG_STRING);
+	private static final byte[] STRING_END = endTag(Constants.TAG_STRING);
+	private static final byte[] INTEGER_START = startTag(Constants.TAG_INTEGER);
+	private static final byte[] INTEGER_END = endTag(Constants.TAG_INTEGER);
+	private static final byte[] REAL_START = startTag(Constants.TAG_REAL);
+	private static final byte[] REAL_END = endTag(Constants.TAG_REAL);
+	private static final byte[] DATE_START = startTag(Constants.TAG_DATE);
+	private static final byte[] DATE_END = endTag(Constants.TAG_DATE);
+	private static final byte[] DATA_START = startTag(Constants.TAG_DATA);
+	private static final byte[] DATA_END = endTag(Constants.TAG_DATA);
+	private static final byte[] TRUE = emptyTag(Constants.TAG_BOOL_TRUE);
+	private static final byte[] FALSE = emptyTag(Constants.TAG_BOOL_FALSE);
+	private static final byte[] AMP = ascii("&amp;");
+	private static final byte[] LT = ascii("&lt;");
+	private static final byte[] GT = ascii("&gt;");
+
+	private static final byte[] BASE64 = ascii("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/");
+
+	private static final byte PAD = '=';
+
+	private static final long MILLIS_PER_DAY = 86400000L;
+
+	private boolean pretty;
+
+	private final byte[] buf;
+	private final ByteBuffer channelBuf;
+	private int pos;
+
+	/**
+	 * The target of the current write, one of these is set.
+	 */
+	private OutputStream os;
+	private WritableByteChannel channel;
+
+	/**
+	 * Creates a compact writer.
+	 */
+	public PListXMLWriter() {
+		this(false);
+	}
+
+	/**
+	 * @param pretty
+	 *            true to indent the output.
+	 */
+	public PListXMLWriter(boolean pretty) {
+		super();
+		this.pretty = pretty;
+		buf = new byte[BUFFER_SIZE];
+		channelBuf = ByteBuffer.wrap(buf);
+	}
+
+	/**
+	 * @return the pretty
+	 */
+	public boolean isPretty() {
+		return pretty;
+	}
+
+	/**
+	 * @param pretty
+	 *            the pretty to set
+	 */
+	public void setPretty(boolean pretty) {
+		this.pretty = pretty;
+	}
+
+	/**
+	 * Write pList to an {@link OutputStream}. The stream is flushed but not
+	 * closed.
+	 * 
+	 * @param pList
+	 *            the PList to write, must have a root element.
+	 * @param os
+	 * @throws IOException
+	 *             if the stream can not be written.
+	 */
+	public void write(PList pList, OutputStream os) throws IOException {
+		this.os = os;
+		try {
+			writeDocument(pList);
+			os.flush();
+		} finally {
+			this.os = null;
+		}
+	}
+
+	/**
+	 * Write pList to a {@link WritableByteChannel}. The channel is not
+	 * closed.
+	 * 
+	 * @param pList
+	 *            the PList to write, must have a root element.
+	 * @param channel
+	 * @throws IOException
+	 *             if the channel can not be written.
+	 */
+	public void write(PList pList, WritableByteChannel channel)
+			throws IOException {
+		this.channel = channel;
+		try {
+			writeDocument(pList);
+		} finally {
+			this.channel = null;
+		}
+	}
+
+	private void writeDocument(PList pList) throws IOException {
+		if (null == pList || null == pList.getRootElement()) {
+			throw new IllegalArgumentException("PList has no root element");
+		}
+		pos = 0;
+		try {
+			write(HEADER);
+			newLine();
+			write(DOCTYPE);
+			newLine();
+			write(PLIST_START);
+			newLine();
+			writeObject(pList.getRootElement(), 0);
+			write(PLIST_END);
+			newLine();
+			flushBuffer();
+		} finally {
+			pos = 0;
+		}
+	}
+
+	/**
+	 * Write obj and, in pretty mode, the newline after it.
+	 * 
+	 * @param depth
+	 *            the nesting depth of obj, the number of tabs it is indented
+	 *            with.
+	 */
+	private void writeObject(PListObject obj, int depth) throws IOException {
+		if (null == obj) {
+			throw new IllegalArgumentException("PList contains a null object");
+		}
+		switch (obj.getType()) {
+		case DICT: {
+			Map<java.lang.String, PListObject> map = ((Dict) obj)
+					.getConfigMap();
+			if (map.isEmpty()) {
+				write(DICT_EMPTY);
+				break;
+			}
+			write(DICT_START);
+			newLine();
+			for (Map.Entry<java.lang.String, PListObject> entry : map
+					.entrySet()) {
+				indent(depth + 1);
+				write(KEY_START);
+				writeText(entry.getKey());
+				write(KEY_END);
+				newLine();
+				indent(depth + 1);
+				writeObject(entry.getValue(), depth + 1);
+			}
+			indent(depth);
+			write(DICT_END);
+			break;
+		}
+		case ARRAY: {
+			Array array = (Array) obj;
+			int size = array.size();
+			if (size == 0) {
+				write(ARRAY_EMPTY);
+				break;
+			}
+			write(ARRAY_START);
+			newLine();
+			PListObjectType primitiveType = array.getPrimitiveType();
+			for (int i = 0; i < size; i++) {
+				indent(depth + 1);
+				if (null == primitiveType) {
+					writeObject(array.get(i), depth + 1);
+				} else {
+					writeElement(array, i, primitiveType);
+				}
+			}
+			indent(depth);
+			write(ARRAY_END);
+			break;
+		}
+		case STRING:
+			write(STRING_START);
+			writeText(((String) obj).getValue());
+			write(STRING_END);
+			break;
+		case INTEGER:
+			write(INTEGER_START);
+			if (((Integer) obj).hasValue() && !((Integer) obj).isLong()) {
+				write(ascii(((Integer) obj).getBigIntegerValue().toString()));
+			} else {
+				writeLong(((Integer) obj).getLongValue());
+			}
+			write(INTEGER_END);
+			break;
+		case REAL:
+			write(REAL_START);
+			writeReal(((Real) obj).getDoubleValue());
+			write(REAL_END);
+			break;
+		case DATE:
+			write(DATE_START);
+			writeDate(((Date) obj).getTime());
+			write(DATE_END);
+			break;
+		case DATA:
+			write(DATA_START);
+			writeData(((Data) obj).getBytes(), depth);
+			write(DATA_END);
+			break;
+		case TRUE:
+			write(TRUE);
+			break;
+		case FALSE:
+			write(FALSE);
+			break;
+		}
+		newLine();
+	}
+
+	/**
+	 * Write element i of an array held as primitives, without creating its
+	 * node, and in pretty mode the newline after it.
+	 */
+	private void writeElement(Array array, int i, PListObjectType type)
+			throws IOException {
+		switch (type) {
+		case INTEGER:
+			write(INTEGER_START);
+			writeLong(array.getLong(i));
+			write(INTEGER_END);
+			break;
+		case REAL:
+			write(REAL_START);
+			writeReal(array.getDouble(i));
+			write(REAL_END);
+			break;
+		default:
+			write(array.getBoolean(i) ? TRUE : FALSE);
+			break;
+		}
+		newLine();
+	}
+
+	/**
+	 * Write str as UTF-8, escaping the characters XML requires.
+	 */
+	private void writeText(java.lang.String str) throws IOException {
+		int len = str.length();
+		for (int i = 0; i < len; i++) {
+			char c = str.charAt(i);
+			if (c < 0x80) {
+				switch (c) {
+				case '&':
+					write(AMP);
+					break;
+				case '<':
+					write(LT);
+					break;
+				case '>':
+					write(GT);
+					break;
+				default:
+					ensure(1);
+					buf[pos++] = (byte) c;
+				}
+			} else if (c < 0x800) {
+				ensure(2);
+				buf[pos++] = (byte) (0xC0 | (c >> 6));
+				buf[pos++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < len
+					&& Character.isLowSurrogate(str.charAt(i + 1))) {
+				int cp = Character.toCodePoint(c, str.charAt(++i));
+				ensure(4);
+				buf[pos++] = (byte) (0xF0 | (cp >> 18));
+				buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+				buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+				buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+			} else {
+				ensure(3);
+				buf[pos++] = (byte) (0xE0 | (c >> 12));
+				buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				buf[pos++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+	}
+
+	/**
+	 * Write val in a form that reads back as the same double.
+	 */
+	private void writeReal(double val) throws IOException {
+		writeText(Double.toString(val));
+	}
+
+	/**
+	 * Write the decimal digits of val.
+	 */
+	private void writeLong(long val) throws IOException {
+		ensure(20);
+		if (val == Long.MIN_VALUE) {
+			// can not be negated
+			write(ascii(Long.toString(val)));
+			return;
+		}
+		if (val < 0) {
+			buf[pos++] = '-';
+			val = -val;
+		}
+		int start = pos;
+		do {
+			buf[pos++] = (byte) ('0' + (val % 10));
+			val /= 10;
+		} while (val != 0);
+		for (int i = start, j = pos - 1; i < j; i++, j--) {
+			byte b = buf[i];
+			buf[i] = buf[j];
+			buf[j] = b;
+		}
+	}
+
+	/**
+	 * Write millis as an ISO 8601 date in UTC, yyyy-MM-ddTHH:mm:ssZ.
+	 */
+	private void writeDate(long millis) throws IOException {
+		long days = millis / MILLIS_PER_DAY;
+		long millisOfDay = millis % MILLIS_PER_DAY;
+		if (millisOfDay < 0) {
+			days--;
+			millisOfDay += MILLIS_PER_DAY;
+		}
+		int secondOfDay = (int) (millisOfDay / 1000);
+		// civil date from days since 1970-01-01, in 400 year eras starting
+		// on March 1st
+		long z = days + 719468;
+		long era = (z >= 0 ? z : z - 146096) / 146097;
+		int dayOfEra = (int) (z - era * 146097);
+		int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524
+				- dayOfEra / 146096) / 365;
+		int dayOfYear = dayOfEra
+				- (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		int mp = (5 * dayOfYear + 2) / 153;
+		int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+		int month = mp < 10 ? mp + 3 : mp - 9;
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+		if (year < 0 || year > 9999) {
+			throw new IllegalArgumentException("date out of range: " + millis);
+		}
+		ensure(20);
+		writeDigits((int) year, 4);
+		buf[pos++] = '-';
+		writeDigits(month, 2);
+		buf[pos++] = '-';
+		writeDigits(day, 2);
+		buf[pos++] = 'T';
+		writeDigits(secondOfDay / 3600, 2);
+		buf[pos++] = ':';
+		writeDigits(secondOfDay / 60 % 60, 2);
+		buf[pos++] = ':';
+		writeDigits(secondOfDay % 60, 2);
+		buf[pos++] = 'Z';
+	}
+
+	/**
+	 * Write val zero padded to width digits. The caller ensures the space.
+	 */
+	private void writeDigits(int val, int width) {
+		for (int i = pos + width - 1; i >= pos; i--) {
+			buf[i] = (byte) ('0' + val % 10);
+			val /= 10;
+		}
+		pos += width;
+	}
+
+	/**
+	 * Write data Base64 encoded. In pretty mode the encoding is broken into
+	 * lines at the indent of the data element.
+	 */
+	private void writeData(byte[] data, int depth) throws IOException {
+		if (data.length == 0) {
+			return;
+		}
+		if (pretty) {
+			newLine();
+			indent(depth);
+		}
+		int lineLength = 0;
+		int len = data.length;
+		for (int i = 0; i < len; i += 3) {
+			if (pretty && lineLength == DATA_LINE_LENGTH) {
+				newLine();
+				indent(depth);
+				lineLength = 0;
+			}
+			int remaining = len - i;
+			int bits = (data[i] & 0xFF) << 16;
+			if (remaining > 1) {
+				bits |= (data[i + 1] & 0xFF) << 8;
+			}
+			if (remaining > 2) {
+				bits |= data[i + 2] & 0xFF;
+			}
+			ensure(4);
+			buf[pos++] = BASE64[bits >>> 18];
+			buf[pos++] = BASE64[(bits >>> 12) & 0x3F];
+			buf[pos++] = remaining > 1 ? BASE64[(bits >>> 6) & 0x3F] : PAD;
+			buf[pos++] = remaining > 2 ? BASE64[bits & 0x3F] : PAD;
+			lineLength += 4;
+		}
+		if (pretty) {
+			newLine();
+			indent(depth);
+		}
+	}
+
+	private void newLine() throws IOException {
+		if (pretty) {
+			ensure(1);
+			buf[pos++] = '\n';
+		}
+	}
+
+	private void indent(int depth) throws IOException {
+		if (pretty) {
+			for (int i = 0; i < depth; i++) {
+				ensure(1);
+				buf[pos++] = '\t';
+			}
+		}
+	}
+
+	private void write(byte[] bytes) throws IOException {
+		ensure(bytes.length);
+		System.arraycopy(bytes, 0, buf, pos, bytes.length);
+		pos += bytes.length;
+	}
+
+	/**
+	 * Make room for n bytes, n must not exceed the buffer size.
+	 */
+	private void ensure(int n) throws IOException {
+		if (pos + n > buf.length) {
+			flushBuffer();
+		}
+	}
+
+	private void flushBuffer() throws IOException {
+		if (pos == 0) {
+			return;
+		}
+		if (null != os) {
+			os.write(buf, 0, pos);
+		} else {
+			channelBuf.clear();
+			channelBuf.limit(pos);
+			while (channelBuf.hasRemaining()) {
+				channel.write(channelBuf);
+			}
+		}
+		pos = 0;
+	}
+
+	private static byte[] startTag(java.lang.String name) {
+		return ascii("<" + name + ">");
+	}
+
+	private static byte[] endTag(java.lang.String name) {
+		return ascii("</" + name + ">");
+	}
+
+	private static byte[] emptyTag(java.lang.String name) {
+		return ascii("<" + name + "/>");
+	}
+
+	private static byte[] ascii(java.lang.String str) {
+		byte[] ret = new byte[str.length()];
+		for (int i = 0; i < ret.length; i++) {
+			ret[i] = (byte) str.charAt(i);
+		}
+		return ret;
+	}
+
+}
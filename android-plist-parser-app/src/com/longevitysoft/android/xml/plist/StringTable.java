@@ -0,0 +1,224 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.xml.plist;
+
+/**
+ * Open addressing hash table of strings, looked up by a range of characters
+ * so that a string that is already in the table is found without creating a
+ * {@link java.lang.String} for the range. Each string may carry a value, such
+ * as a shared node holding it. Not thread safe; parsers keep one per parse.
+ * 
+ * <pre>
+ * int slot = table.add(text, start, end);
+ * java.lang.String str = table.keyAt(slot);
+ * </pre>
+ * 
+ * @author fbeachler
+ * 
+ */
+public final class StringTable {
+
+	public static final java.lang.String TAG = "StringTable";
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private java.lang.String[] keys;
+
+	private int[] hashes;
+
+	private Object[] values;
+
+	private int size;
+
+	public StringTable() {
+		keys = new java.lang.String[INITIAL_CAPACITY];
+		hashes = new int[INITIAL_CAPACITY];
+		values = new Object[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * @return the number of strings in the table.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Remove all strings, keeping the capacity.
+	 */
+	public void clear() {
+		if (size == 0) {
+			return;
+		}
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = null;
+			values[i] = null;
+		}
+		size = 0;
+	}
+
+	/**
+	 * @param cs
+	 * @param start
+	 * @param end
+	 * @return the string in the table equal to the range, added if absent.
+	 */
+	public java.lang.String intern(CharSequence cs, int start, int end) {
+		int slot = add(cs, start, end);
+		// add may have replaced the array
+		return keys[slot];
+	}
+
+	/**
+	 * Find the string equal to a range of characters, adding it if absent.
+	 * 
+	 * @param cs
+	 * @param start
+	 * @param end
+	 * @return the slot of the string, valid until the next call to add.
+	 */
+	public int add(CharSequence cs, int start, int end) {
+		int hash = hash(cs, start, end);
+		int slot = find(hash, cs, start, end);
+		if (null != keys[slot]) {
+			return slot;
+		}
+		if (size + 1 > keys.length >> 1) {
+			rehash();
+			slot = find(hash, cs, start, end);
+		}
+		keys[slot] = cs.subSequence(start, end).toString();
+		hashes[slot] = hash;
+		size++;
+		return slot;
+	}
+
+	/**
+	 * Find the string equal to a range of characters.
+	 * 
+	 * @param cs
+	 * @param start
+	 * @param end
+	 * @return the slot of the string, valid until the next call to add, or
+	 *         -1 if it is not in the table.
+	 */
+	public int indexOf(CharSequence cs, int start, int end) {
+		int slot = find(hash(cs, start, end), cs, start, end);
+		return null == keys[slot] ? -1 : slot;
+	}
+
+	/**
+	 * @return the slot of the string equal to the range, or the empty slot
+	 *         it would be added to.
+	 */
+	private int find(int hash, CharSequence cs, int start, int end) {
+		int mask = keys.length - 1;
+		int slot = mix(hash) & mask;
+		java.lang.String key;
+		while (null != (key = keys[slot])) {
+			if (hashes[slot] == hash && equals(key, cs, start, end)) {
+				break;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * @return the {@link java.lang.String#hashCode()} of the range.
+	 */
+	private static int hash(CharSequence cs, int start, int end) {
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + cs.charAt(i);
+		}
+		return hash;
+	}
+
+	/**
+	 * @param slot
+	 *            returned by {@link #add(CharSequence, int, int)} or
+	 *            {@link #indexOf(CharSequence, int, int)}.
+	 * @return the string in the slot.
+	 */
+	public java.lang.String keyAt(int slot) {
+		return keys[slot];
+	}
+
+	/**
+	 * @param slot
+	 *            returned by {@link #add(CharSequence, int, int)} or
+	 *            {@link #indexOf(CharSequence, int, int)}.
+	 * @return the value carried by the string in the slot, or null.
+	 */
+	public Object valueAt(int slot) {
+		return values[slot];
+	}
+
+	/**
+	 * @param slot
+	 *            returned by {@link #add(CharSequence, int, int)} or
+	 *            {@link #indexOf(CharSequence, int, int)}.
+	 * @param value
+	 *            the value for the string in the slot to carry.
+	 */
+	public void setValueAt(int slot, Object value) {
+		values[slot] = value;
+	}
+
+	private static boolean equals(java.lang.String key, CharSequence cs,
+			int start, int end) {
+		int len = end - start;
+		if (key.length() != len) {
+			return false;
+		}
+		for (int i = 0; i < len; i++) {
+			if (key.charAt(i) != cs.charAt(start + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Spread the bits of a string hash, whose low bits are poor for short
+	 * strings.
+	 */
+	private static int mix(int hash) {
+		hash ^= (hash >>> 20) ^ (hash >>> 12);
+		return hash ^ (hash >>> 7) ^ (hash >>> 4);
+	}
+
+	private void rehash() {
+		java.lang.String[] oldKeys = keys;
+		int[] oldHashes = hashes;
+		Object[] oldValues = values;
+		int capacity = oldKeys.length << 1;
+		keys = new java.lang.String[capacity];
+		hashes = new int[capacity];
+		values = new Object[capacity];
+		int mask = capacity - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (null != oldKeys[i]) {
+				int slot = mix(oldHashes[i]) & mask;
+				while (null != keys[slot]) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				hashes[slot] = oldHashes[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+}
@@ -0,0 +1,544 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.xml.plist;
+
+import java.math.BigInteger;
+
+/**
+ * Decodes PList scalar values straight from a range of characters, so the
+ * text of integer, real, date and data elements never has to be turned into a
+ * {@link java.lang.String} first. Leading and trailing whitespace of a range
+ * is ignored, like {@link java.lang.String#trim()}.
+ * 
+ * @author fbeachler
+ * 
+ */
+public final class ValueDecoder {
+
+	public static final java.lang.String TAG = "ValueDecoder";
+
+	/**
+	 * Returned by {@link #parseDate(CharSequence, int, int)} for text
+	 * that is not an ISO 8601 date.
+	 */
+	public static final long NOT_A_DATE = Long.MIN_VALUE;
+
+	/**
+	 * Most significant digits an unsigned long holds for every value.
+	 */
+	private static final int MAX_DOUBLE_DIGITS = 19;
+
+	/**
+	 * Largest mantissa a double holds exactly, 2^53.
+	 */
+	private static final long MAX_EXACT_DOUBLE_MANTISSA = 1L << 53;
+
+	/**
+	 * Largest power of ten a double holds exactly.
+	 */
+	private static final int MAX_EXACT_DOUBLE_POWER = 22;
+
+	private static final double[] DOUBLE_POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3,
+			1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15,
+			1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	private ValueDecoder() {
+	}
+
+	/**
+	 * @return the index of the first non-whitespace character of the range,
+	 *         or end if there is none.
+	 */
+	public static int trimStart(CharSequence cs, int start, int end) {
+		while (start < end && cs.charAt(start) <= ' ') {
+			start++;
+		}
+		return start;
+	}
+
+	/**
+	 * @return the index after the last non-whitespace character of the
+	 *         range, or start if there is none.
+	 */
+	public static int trimEnd(CharSequence cs, int start, int end) {
+		while (end > start && cs.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		return end;
+	}
+
+	/**
+	 * Parse a decimal integer, or a hexadecimal one prefixed with 0x, with an
+	 * optional sign.
+	 * 
+	 * @param cs
+	 * @param start
+	 * @param end
+	 * @return the value.
+	 * @throws NumberFormatException
+	 *             if the range is not an integer or does not fit in a long.
+	 */
+	public static long parseLong(CharSequence cs, int start, int end)
+			throws NumberFormatException {
+		start = trimStart(cs, start, end);
+		end = trimEnd(cs, start, end);
+		int i = start;
+		boolean negative = false;
+		if (i < end && (cs.charAt(i) == '-' || cs.charAt(i) == '+')) {
+			negative = cs.charAt(i) == '-';
+			i++;
+		}
+		int radix = 10;
+		if (isHexPrefix(cs, i, end)) {
+			radix = 16;
+			i += 2;
+		}
+		if (i == end) {
+			throw invalid("integer", cs, start, end);
+		}
+		// accumulate negatively so Long.MIN_VALUE can be represented
+		long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		long multiplyLimit = limit / radix;
+		long ret = 0;
+		for (; i < end; i++) {
+			int digit = digit(cs.charAt(i), radix);
+			if (digit < 0 || ret < multiplyLimit) {
+				throw invalid("integer", cs, start, end);
+			}
+			ret *= radix;
+			if (ret < limit + digit) {
+				throw invalid("integer", cs, start, end);
+			}
+			ret -= digit;
+		}
+		return negative ? ret : -ret;
+	}
+
+	/**
+	 * Parse an integer of any size, in the forms accepted by
+	 * {@link #parseLong(CharSequence, int, int)}.
+	 * 
+	 * @param cs
+	 * @param start
+	 * @param end
+	 * @return the value.
+	 * @throws NumberFormatException
+	 *             if the range is not an integer.
+	 */
+	public static BigInteger parseBigInteger(CharSequence cs, int start,
+			int end) throws NumberFormatException {
+		start = trimStart(cs, start, end);
+		end = trimEnd(cs, start, end);
+		int i = start;
+		boolean negative = false;
+		if (i < end && (cs.charAt(i) == '-' || cs.charAt(i) == '+')) {
+			negative = cs.charAt(i) == '-';
+			i++;
+		}
+		int radix = 10;
+		if (isHexPrefix(cs, i, end)) {
+			radix = 16;
+			i += 2;
+		}
+		if (i == end) {
+			throw invalid("integer", cs, start, end);
+		}
+		for (int j = i; j < end; j++) {
+			if (digit(cs.charAt(j), radix) < 0) {
+				throw invalid("integer", cs, start, end);
+			}
+		}
+		BigInteger ret = new BigInteger(cs.subSequence(i, end).toString(),
+				radix);
+		return negative ? ret.negate() : ret;
+	}
+
+	private static boolean isHexPrefix(CharSequence cs, int i, int end) {
+		return i + 1 < end && cs.charAt(i) == '0'
+				&& (cs.charAt(i + 1) == 'x' || cs.charAt(i + 1) == 'X');
+	}
+
+	/**
+	 * @return the value of digit c in radix 10 or 16, or -1.
+	 */
+	private static int digit(char c, int radix) {
+		if (c >= '0' && c <= '9') {
+			return c - '0';
+		}
+		if (radix == 16) {
+			if (c >= 'a' && c <= 'f') {
+				return c - 'a' + 10;
+			}
+			if (c >= 'A' && c <= 'F') {
+				return c - 'A' + 10;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Parse a real, correctly rounded to the nearest double. Decimals of up to
+	 * 19 significant digits are converted without allocating: exactly with a
+	 * single multiplication or division when the significand and the power
+	 * of ten are both exact doubles (Clinger's fast path), otherwise with the
+	 * Eisel-Lemire algorithm. The rare inputs neither can decide, and
+	 * anything else such as NaN, Infinity or hex reals, are handed to
+	 * {@link Double#parseDouble(java.lang.String)}.
+	 * 
+	 * @param cs
+	 * @param start
+	 * @param end
+	 * @return the value.
+	 * @throws NumberFormatException
+	 *             if the range is not a real.
+	 */
+	public static double parseDouble(CharSequence cs, int start, int end)
+			throws NumberFormatException {
+		start = trimStart(cs, start, end);
+		end = trimEnd(cs, start, end);
+		int i = start;
+		boolean negative = false;
+		if (i < end && (cs.charAt(i) == '-' || cs.charAt(i) == '+')) {
+			negative = cs.charAt(i) == '-';
+			i++;
+		}
+		// significand as an unsigned long of up to 19 digits, leading zeros
+		// are not counted
+		long significand = 0;
+		int significant = 0;
+		int exponent = 0;
+		int digits = 0;
+		boolean point = false;
+		for (; i < end; i++) {
+			char c = cs.charAt(i);
+			if (c >= '0' && c <= '9') {
+				digits++;
+				if (significant < MAX_DOUBLE_DIGITS) {
+					if (significant > 0 || c != '0') {
+						significand = significand * 10 + (c - '0');
+						significant++;
+					}
+					if (point) {
+						exponent--;
+					}
+				} else {
+					significant++;
+					if (!point) {
+						exponent++;
+					}
+				}
+			} else if (c == '.' && !point) {
+				point = true;
+			} else {
+				break;
+			}
+		}
+		if (i < end && digits > 0
+				&& (cs.charAt(i) == 'e' || cs.charAt(i) == 'E')) {
+			i++;
+			boolean expNegative = false;
+			if (i < end && (cs.charAt(i) == '-' || cs.charAt(i) == '+')) {
+				expNegative = cs.charAt(i) == '-';
+				i++;
+			}
+			int exp = 0;
+			int expDigits = 0;
+			for (; i < end; i++) {
+				int digit = cs.charAt(i) - '0';
+				if (digit < 0 || digit > 9) {
+					break;
+				}
+				if (exp < 100000) {
+					exp = exp * 10 + digit;
+				}
+				expDigits++;
+			}
+			if (0 == expDigits) {
+				// let parseDouble reject it
+				digits = 0;
+			}
+			exponent += expNegative ? -exp : exp;
+		}
+		if (i == end && digits > 0 && significant <= MAX_DOUBLE_DIGITS) {
+			if (significand == 0) {
+				return negative ? -0.0d : 0.0d;
+			}
+			if (significand >= 0 && significand <= MAX_EXACT_DOUBLE_MANTISSA
+					&& exponent >= -MAX_EXACT_DOUBLE_POWER
+					&& exponent <= MAX_EXACT_DOUBLE_POWER) {
+				double ret = exponent < 0 ? significand
+						/ DOUBLE_POWERS_OF_TEN[-exponent] : significand
+						* DOUBLE_POWERS_OF_TEN[exponent];
+				return negative ? -ret : ret;
+			}
+			long bits = eiselLemire(significand, exponent);
+			if (bits != -1) {
+				return Double.longBitsToDouble(negative ? bits
+						| Long.MIN_VALUE : bits);
+			}
+		}
+		return Double.parseDouble(cs.subSequence(start, end).toString());
+	}
+
+	/**
+	 * Convert significand * 10^exponent to the bits of the nearest double
+	 * with the Eisel-Lemire algorithm, see D. Lemire, "Number Parsing at a
+	 * Gigabyte per Second", 2021.
+	 * 
+	 * @param significand
+	 *            a non-zero unsigned significand.
+	 * @param exponent
+	 * @return the bits of the positive double, or -1 if the algorithm can not
+	 *         decide the rounding or the result is not a normal double.
+	 */
+	private static long eiselLemire(long significand, int exponent) {
+		if (exponent < PowersOfFive.MIN_EXPONENT
+				|| exponent > PowersOfFive.MAX_EXPONENT) {
+			return -1;
+		}
+		int index = exponent - PowersOfFive.MIN_EXPONENT;
+		long factor = PowersOfFive.HIGH[index];
+		// floor(log2(10^exponent)) + bias + 63
+		int binaryExponent = ((217706 * exponent) >> 16) + 1024 + 63;
+		int lz = Long.numberOfLeadingZeros(significand);
+		long w = significand << lz;
+		long lower = w * factor;
+		long upper = multiplyHigh(w, factor);
+		if ((upper & 0x1FF) == 0x1FF && unsignedLess(lower + w, lower)) {
+			// the truncated product may be off, refine with the low half
+			long factorLow = PowersOfFive.LOW[index];
+			long secondLow = w * factorLow;
+			long secondHigh = multiplyHigh(w, factorLow);
+			long productLow = lower + secondHigh;
+			long productHigh = upper
+					+ (unsignedLess(productLow, secondHigh) ? 1 : 0);
+			if ((productHigh & 0x1FF) == 0x1FF && productLow + 1 == 0
+					&& unsignedLess(secondLow + w, secondLow)) {
+				return -1;
+			}
+			upper = productHigh;
+			lower = productLow;
+		}
+		int upperBit = (int) (upper >>> 63);
+		long mantissa = upper >>> (upperBit + 9);
+		lz += 1 ^ upperBit;
+		if (lower == 0 && (upper & 0x1FF) == 0 && (mantissa & 3) == 1) {
+			// exactly halfway between two doubles
+			return -1;
+		}
+		mantissa += mantissa & 1;
+		mantissa >>>= 1;
+		if (mantissa >= (1L << 53)) {
+			mantissa = 1L << 52;
+			lz--;
+		}
+		mantissa &= ~(1L << 52);
+		long realExponent = binaryExponent - lz;
+		if (realExponent < 1 || realExponent > 2046) {
+			return -1;
+		}
+		return mantissa | (realExponent << 52);
+	}
+
+	/**
+	 * @return the high 64 bits of the unsigned 128 bit product of a and b.
+	 */
+	private static long multiplyHigh(long a, long b) {
+		long aLow = a & 0xFFFFFFFFL;
+		long aHigh = a >>> 32;
+		long bLow = b & 0xFFFFFFFFL;
+		long bHigh = b >>> 32;
+		long lowLow = aLow * bLow;
+		long highLow = aHigh * bLow;
+		long cross = (lowLow >>> 32) + (highLow & 0xFFFFFFFFL) + aLow * bHigh;
+		return aHigh * bHigh + (highLow >>> 32) + (cross >>> 32);
+	}
+
+	private static boolean unsignedLess(long a, long b) {
+		return (a ^ Long.MIN_VALUE) < (b ^ Long.MIN_VALUE);
+	}
+
+	/**
+	 * 128 bit approximations of the powers of five used by
+	 * {@link ValueDecoder#eiselLemire(long, int)}, normalized so the top bit
+	 * is set. Powers below zero are rounded up, the others truncated. Built
+	 * on first use instead of shipping the 1302 constants.
+	 */
+	private static final class PowersOfFive {
+
+		static final int MIN_EXPONENT = -342;
+		static final int MAX_EXPONENT = 308;
+
+		static final long[] HIGH = new long[MAX_EXPONENT - MIN_EXPONENT + 1];
+		static final long[] LOW = new long[HIGH.length];
+
+		static {
+			BigInteger five = BigInteger.valueOf(5);
+			for (int q = MIN_EXPONENT; q <= MAX_EXPONENT; q++) {
+				BigInteger c;
+				if (q < 0) {
+					BigInteger power = five.pow(-q);
+					int z = power.bitLength();
+					int b = q >= -27 ? z + 127 : 2 * z + 128;
+					c = BigInteger.ONE.shiftLeft(b).divide(power)
+							.add(BigInteger.ONE);
+				} else {
+					c = five.pow(q);
+				}
+				c = c.shiftLeft(128 - c.bitLength());
+				HIGH[q - MIN_EXPONENT] = c.shiftRight(64).longValue();
+				LOW[q - MIN_EXPONENT] = c.longValue();
+			}
+		}
+
+	}
+
+	/**
+	 * Parse an ISO 8601 date of the form yyyy-MM-ddTHH:mm:ss, optionally
+	 * followed by fractional seconds and by Z or a UTC offset of the form
+	 * +HH:mm, +HHmm or +HH. Dates without Z or an offset are in UTC, like the
+	 * dates PLists hold. No calendar is used and nothing is allocated.
+	 * 
+	 * @param cs
+	 * @param start
+	 * @param end
+	 * @return the time in milliseconds since the epoch, or
+	 *         {@link #NOT_A_DATE} if the range is not a valid date in the form
+	 *         above.
+	 */
+	public static long parseDate(CharSequence cs, int start, int end) {
+		start = trimStart(cs, start, end);
+		end = trimEnd(cs, start, end);
+		if (end - start < 19 || cs.charAt(start + 4) != '-'
+				|| cs.charAt(start + 7) != '-' || cs.charAt(start + 10) != 'T'
+				|| cs.charAt(start + 13) != ':' || cs.charAt(start + 16) != ':') {
+			return NOT_A_DATE;
+		}
+		int year = digits(cs, start, 4);
+		int month = digits(cs, start + 5, 2);
+		int day = digits(cs, start + 8, 2);
+		int hour = digits(cs, start + 11, 2);
+		int minute = digits(cs, start + 14, 2);
+		int second = digits(cs, start + 17, 2);
+		if ((year | month | day | hour | minute | second) < 0 || month < 1
+				|| month > 12 || day < 1 || day > daysInMonth(year, month)
+				|| hour > 23 || minute > 59 || second > 59) {
+			return NOT_A_DATE;
+		}
+		int i = start + 19;
+		int millis = 0;
+		if (i < end && cs.charAt(i) == '.') {
+			int scale = 100;
+			int fractionStart = ++i;
+			for (; i < end && cs.charAt(i) >= '0' && cs.charAt(i) <= '9'; i++) {
+				millis += (cs.charAt(i) - '0') * scale;
+				scale /= 10;
+			}
+			if (i == fractionStart) {
+				return NOT_A_DATE;
+			}
+		}
+		int offsetMinutes = 0;
+		if (i < end) {
+			char c = cs.charAt(i);
+			if (c == 'Z' && i + 1 == end) {
+				i++;
+			} else if ((c == '+' || c == '-') && (end - i == 3 || end - i == 5
+					|| (end - i == 6 && cs.charAt(i + 3) == ':'))) {
+				int offsetHours = digits(cs, i + 1, 2);
+				int offsetMins = end - i == 3 ? 0 : digits(cs, end - 2, 2);
+				if ((offsetHours | offsetMins) < 0 || offsetHours > 23
+						|| offsetMins > 59) {
+					return NOT_A_DATE;
+				}
+				offsetMinutes = offsetHours * 60 + offsetMins;
+				if (c == '-') {
+					offsetMinutes = -offsetMinutes;
+				}
+				i = end;
+			}
+		}
+		if (i != end) {
+			return NOT_A_DATE;
+		}
+		long seconds = daysSinceEpoch(year, month, day) * 86400L + hour * 3600
+				+ (minute - offsetMinutes) * 60 + second;
+		return seconds * 1000 + millis;
+	}
+
+	/**
+	 * @return the number of days from 1970-01-01 to the given date of the
+	 *         proleptic Gregorian calendar.
+	 */
+	private static long daysSinceEpoch(int year, int month, int day) {
+		// in 400 year eras starting on March 1st, the inverse of the
+		// computation in PListXMLWriter#writeDate
+		int y = month <= 2 ? year - 1 : year;
+		int era = (y >= 0 ? y : y - 399) / 400;
+		int yearOfEra = y - era * 400;
+		int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5
+				+ day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100
+				+ dayOfYear;
+		return era * 146097L + dayOfEra - 719468;
+	}
+
+	private static int daysInMonth(int year, int month) {
+		if (month == 2) {
+			return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29
+					: 28;
+		}
+		return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+	}
+
+	/**
+	 * Copy a range of Base64 characters to bytes.
+	 * 
+	 * @param cs
+	 * @param start
+	 * @param end
+	 * @return the trimmed range, one byte per character.
+	 */
+	public static byte[] toBytes(CharSequence cs, int start, int end) {
+		start = trimStart(cs, start, end);
+		end = trimEnd(cs, start, end);
+		byte[] ret = new byte[end - start];
+		for (int i = start; i < end; i++) {
+			ret[i - start] = (byte) cs.charAt(i);
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the value of count decimal digits at start, or -1 if one of
+	 *         them is not a digit.
+	 */
+	private static int digits(CharSequence cs, int start, int count) {
+		int ret = 0;
+		for (int i = start; i < start + count; i++) {
+			int digit = cs.charAt(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			ret = ret * 10 + digit;
+		}
+		return ret;
+	}
+
+	private static NumberFormatException invalid(java.lang.String type,
+			CharSequence cs, int start, int end) {
+		return new NumberFormatException(new StringBuilder("invalid ")
+				.append(type).append(": ").append(cs, start, end).toString());
+	}
+
+}
@@ -0,0 +1,137 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.xml.plist.binary;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.PListObject;
+
+/**
+ * An {@link Array} read from a binary PList. Each element is decoded the
+ * first time it is read. The first structural modification copies the whole
+ * array into an {@link ArrayList}.
+ *
+ * @author fbeachler
+ *
+ */
+class BinaryArray extends Array {
+
+	private static final long serialVersionUID = -3525749104462412345L;
+
+	/**
+	 * @param table
+	 *            the table the elements are read from.
+	 * @param refs
+	 *            object references of the elements.
+	 */
+	BinaryArray(ObjectTable table, int[] refs) {
+		super(0);
+		data = new LazyList(table, refs);
+	}
+
+	/**
+	 * A read-through {@link List} over the object table.
+	 */
+	private static class LazyList extends AbstractList<PListObject> {
+
+		private final ObjectTable table;
+		private final int[] refs;
+
+		/**
+		 * Decoded elements.
+		 */
+		private final PListObject[] values;
+		private final boolean[] decoded;
+
+		/**
+		 * Set once the list has been structurally modified.
+		 */
+		private List<PListObject> materialized;
+
+		LazyList(ObjectTable table, int[] refs) {
+			this.table = table;
+			this.refs = refs;
+			values = new PListObject[refs.length];
+			decoded = new boolean[refs.length];
+		}
+
+		private synchronized PListObject valueAt(int index) {
+			if (!decoded[index]) {
+				values[index] = table.decode(refs[index]);
+				decoded[index] = true;
+			}
+			return values[index];
+		}
+
+		private List<PListObject> materialize() {
+			if (null == materialized) {
+				List<PListObject> list = new ArrayList<PListObject>(
+						refs.length);
+				for (int i = 0; i < refs.length; i++) {
+					list.add(valueAt(i));
+				}
+				materialized = list;
+			}
+			return materialized;
+		}
+
+		@Override
+		public PListObject get(int index) {
+			if (null != materialized) {
+				return materialized.get(index);
+			}
+			if (index < 0 || index >= refs.length) {
+				throw new IndexOutOfBoundsException("index=" + index
+						+ " size=" + refs.length);
+			}
+			return valueAt(index);
+		}
+
+		@Override
+		public int size() {
+			if (null != materialized) {
+				return materialized.size();
+			}
+			return refs.length;
+		}
+
+		@Override
+		public synchronized PListObject set(int index, PListObject element) {
+			if (null != materialized) {
+				return materialized.set(index, element);
+			}
+			PListObject ret = get(index);
+			values[index] = element;
+			decoded[index] = true;
+			return ret;
+		}
+
+		@Override
+		public void add(int index, PListObject element) {
+			materialize().add(index, element);
+			modCount++;
+		}
+
+		@Override
+		public PListObject remove(int index) {
+			PListObject ret = materialize().remove(index);
+			modCount++;
+			return ret;
+		}
+
+	}
+
+}
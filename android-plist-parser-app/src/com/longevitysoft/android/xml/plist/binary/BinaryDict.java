@@ -0,0 +1,307 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.xml.plist.binary;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.DictMap;
+import com.longevitysoft.android.xml.plist.domain.PListObject;
+
+/**
+ * A {@link Dict} read from a binary PList. Its keys are decoded the first
+ * time the dict is accessed and each value the first time it is looked up.
+ * The first modification copies the whole dict into a {@link DictMap}.
+ *
+ * @author fbeachler
+ *
+ */
+class BinaryDict extends Dict {
+
+	private static final long serialVersionUID = 6410541826379125478L;
+
+	/**
+	 * @param table
+	 *            the table the members are read from.
+	 * @param keyRefs
+	 *            object references of the keys.
+	 * @param valueRefs
+	 *            object references of the values.
+	 */
+	BinaryDict(ObjectTable table, int[] keyRefs, int[] valueRefs) {
+		super();
+		setConfigMap(new LazyMap(table, keyRefs, valueRefs));
+	}
+
+	/**
+	 * A read-through {@link Map} over the object table. Iterates in key order,
+	 * like the {@link DictMap} a parsed {@link Dict} uses.
+	 */
+	private static class LazyMap extends AbstractMap<java.lang.String, PListObject> {
+
+		private final ObjectTable table;
+		private final int[] keyRefs;
+		private final int[] valueRefs;
+
+		/**
+		 * Keys sorted in natural order, decoded on first access.
+		 */
+		private volatile java.lang.String[] keys;
+
+		/**
+		 * For each entry of keys, the index of its value reference.
+		 */
+		private int[] order;
+
+		/**
+		 * Decoded values, indexed like keys.
+		 */
+		private PListObject[] values;
+		private boolean[] decoded;
+
+		/**
+		 * Set once the map has been modified.
+		 */
+		private Map<java.lang.String, PListObject> materialized;
+
+		LazyMap(ObjectTable table, int[] keyRefs, int[] valueRefs) {
+			this.table = table;
+			this.keyRefs = keyRefs;
+			this.valueRefs = valueRefs;
+		}
+
+		private synchronized void decodeKeys() {
+			if (null != keys) {
+				return;
+			}
+			int n = keyRefs.length;
+			final java.lang.String[] decodedKeys = new java.lang.String[n];
+			boolean sorted = true;
+			for (int i = 0; i < n; i++) {
+				decodedKeys[i] = table.decodeString(keyRefs[i]);
+				if (i > 0 && decodedKeys[i - 1].compareTo(decodedKeys[i]) > 0) {
+					sorted = false;
+				}
+			}
+			int[] sortedOrder = new int[n];
+			java.lang.String[] sortedKeys = decodedKeys;
+			if (sorted) {
+				for (int i = 0; i < n; i++) {
+					sortedOrder[i] = i;
+				}
+			} else {
+				java.lang.Integer[] indexes = new java.lang.Integer[n];
+				for (int i = 0; i < n; i++) {
+					indexes[i] = java.lang.Integer.valueOf(i);
+				}
+				Arrays.sort(indexes, new Comparator<java.lang.Integer>() {
+
+					@Override
+					public int compare(java.lang.Integer a, java.lang.Integer b) {
+						return decodedKeys[a.intValue()]
+								.compareTo(decodedKeys[b.intValue()]);
+					}
+
+				});
+				sortedKeys = new java.lang.String[n];
+				for (int i = 0; i < n; i++) {
+					sortedOrder[i] = indexes[i].intValue();
+					sortedKeys[i] = decodedKeys[sortedOrder[i]];
+				}
+			}
+			values = new PListObject[n];
+			decoded = new boolean[n];
+			order = sortedOrder;
+			keys = sortedKeys;
+		}
+
+		private int indexOf(Object key) {
+			if (!(key instanceof java.lang.String)) {
+				return -1;
+			}
+			decodeKeys();
+			int lo = 0;
+			int hi = keys.length - 1;
+			while (lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+				int cmp = keys[mid].compareTo((java.lang.String) key);
+				if (cmp < 0) {
+					lo = mid + 1;
+				} else if (cmp > 0) {
+					hi = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+			return -1;
+		}
+
+		private synchronized PListObject valueAt(int index) {
+			if (!decoded[index]) {
+				values[index] = table.decode(valueRefs[order[index]]);
+				decoded[index] = true;
+			}
+			return values[index];
+		}
+
+		private Map<java.lang.String, PListObject> materialize() {
+			if (null == materialized) {
+				decodeKeys();
+				DictMap map = new DictMap(keys.length);
+				for (int i = 0; i < keys.length; i++) {
+					map.put(keys[i], valueAt(i));
+				}
+				materialized = map;
+			}
+			return materialized;
+		}
+
+		@Override
+		public PListObject get(Object key) {
+			if (null != materialized) {
+				return materialized.get(key);
+			}
+			int index = indexOf(key);
+			return index < 0 ? null : valueAt(index);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			if (null != materialized) {
+				return materialized.containsKey(key);
+			}
+			return indexOf(key) >= 0;
+		}
+
+		@Override
+		public int size() {
+			if (null != materialized) {
+				return materialized.size();
+			}
+			return keyRefs.length;
+		}
+
+		@Override
+		public PListObject put(java.lang.String key, PListObject value) {
+			return materialize().put(key, value);
+		}
+
+		@Override
+		public PListObject remove(Object key) {
+			return materialize().remove(key);
+		}
+
+		@Override
+		public void clear() {
+			materialize().clear();
+		}
+
+		@Override
+		public Set<Map.Entry<java.lang.String, PListObject>> entrySet() {
+			if (null != materialized) {
+				return materialized.entrySet();
+			}
+			decodeKeys();
+			return new AbstractSet<Map.Entry<java.lang.String, PListObject>>() {
+
+				@Override
+				public Iterator<Map.Entry<java.lang.String, PListObject>> iterator() {
+					return new Iterator<Map.Entry<java.lang.String, PListObject>>() {
+
+						private int next;
+
+						@Override
+						public boolean hasNext() {
+							return next < keys.length;
+						}
+
+						@Override
+						public Map.Entry<java.lang.String, PListObject> next() {
+							if (next >= keys.length) {
+								throw new NoSuchElementException();
+							}
+							return new LazyEntry(next++);
+						}
+
+						@Override
+						public void remove() {
+							throw new UnsupportedOperationException();
+						}
+
+					};
+				}
+
+				@Override
+				public int size() {
+					return keys.length;
+				}
+
+			};
+		}
+
+		/**
+		 * An entry whose value is decoded when it is first read.
+		 */
+		private class LazyEntry implements
+				Map.Entry<java.lang.String, PListObject> {
+
+			private final int index;
+
+			LazyEntry(int index) {
+				this.index = index;
+			}
+
+			@Override
+			public java.lang.String getKey() {
+				return keys[index];
+			}
+
+			@Override
+			public PListObject getValue() {
+				return valueAt(index);
+			}
+
+			@Override
+			public PListObject setValue(PListObject value) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public boolean equals(Object o) {
+				if (!(o instanceof Map.Entry)) {
+					return false;
+				}
+				Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+				return getKey().equals(e.getKey())
+						&& (null == getValue() ? null == e.getValue()
+								: getValue().equals(e.getValue()));
+			}
+
+			@Override
+			public int hashCode() {
+				return getKey().hashCode()
+						^ (null == getValue() ? 0 : getValue().hashCode());
+			}
+
+		}
+
+	}
+
+}
@@ -0,0 +1,157 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.xml.plist.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.longevitysoft.android.xml.plist.domain.PList;
+
+/**
+ * <p>
+ * Reads binary PLists (the "bplist00" format written by Apple tooling).
+ * </p>
+ * <p>
+ * Only the trailer and offset table are read up front. Dicts and arrays are
+ * decoded from the object table when they are first accessed, and their
+ * members one at a time, so reading a single key from a large PList only
+ * decodes the objects on the path to that key. Parsing a
+ * {@link File} maps it into memory instead of reading it onto the heap.
+ * </p>
+ * <p>
+ * The returned {@link PList} reads from the buffer it was parsed from, which
+ * must not be modified while the PList is in use.
+ * </p>
+ *
+ * @author fbeachler
+ *
+ */
+public class BinaryPListParser {
+
+	public static final java.lang.String TAG = "BinaryPListParser";
+
+	/**
+	 * Magic bytes at the start of every binary PList.
+	 */
+	public static final byte[] MAGIC = { 'b', 'p', 'l', 'i', 's', 't', '0',
+			'0' };
+
+	/**
+	 *
+	 */
+	public BinaryPListParser() {
+		super();
+	}
+
+	/**
+	 * Check whether the given bytes start with the binary PList magic.
+	 *
+	 * @param header
+	 *            at least the first 8 bytes of a document.
+	 * @return true if header starts with {@link #MAGIC}.
+	 */
+	public static boolean isBinaryPList(byte[] header) {
+		if (null == header || header.length < MAGIC.length) {
+			return false;
+		}
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (header[i] != MAGIC[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Parse a binary PList file. The file is memory-mapped read-only, so the
+	 * content of an object is only read when it is accessed; parsing reads
+	 * just the headers and references of the objects to check them.
+	 *
+	 * @param file
+	 * @return the parsed {@link PList}.
+	 * @throws IOException
+	 *             if the file can not be read, is not a binary PList or is
+	 *             corrupt.
+	 */
+	public PList parse(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			// the mapping stays valid after the channel is closed
+			return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size()));
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Parse a binary PList from a byte array. The array is not copied.
+	 *
+	 * @param data
+	 * @return the parsed {@link PList}.
+	 * @throws IOException
+	 *             if data is not a binary PList or is corrupt.
+	 */
+	public PList parse(byte[] data) throws IOException {
+		return parse(ByteBuffer.wrap(data));
+	}
+
+	/**
+	 * Parse a binary PList from an {@link InputStream}. The offset table is
+	 * at the end of a binary PList, so the stream is read fully before any
+	 * object can be decoded. The stream is closed when it has been read.
+	 *
+	 * @param is
+	 * @return the parsed {@link PList}.
+	 * @throws IOException
+	 *             if the stream can not be read, is not a binary PList or is
+	 *             corrupt.
+	 */
+	public PList parse(InputStream is) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			byte[] buf = new byte[8192];
+			int n;
+			while ((n = is.read(buf)) != -1) {
+				bytes.write(buf, 0, n);
+			}
+		} finally {
+			is.close();
+		}
+		return parse(bytes.toByteArray());
+	}
+
+	/**
+	 * Parse a binary PList held in a {@link ByteBuffer}. The buffer is read
+	 * with absolute gets only, its position and limit are not changed.
+	 *
+	 * @param buffer
+	 * @return the parsed {@link PList}.
+	 * @throws IOException
+	 *             if buffer does not hold a binary PList or it is corrupt.
+	 */
+	public PList parse(ByteBuffer buffer) throws IOException {
+		ObjectTable table = new ObjectTable(buffer.slice());
+		table.validate();
+		PList pList = new PList();
+		pList.setRootElement(table.decode(table.getTopObject()));
+		return pList;
+	}
+
+}
@@ -0,0 +1,464 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.xml.plist.binary;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Data;
+import com.longevitysoft.android.xml.plist.domain.Date;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.Integer;
+import com.longevitysoft.android.xml.plist.domain.PList;
+import com.longevitysoft.android.xml.plist.domain.PListObject;
+import com.longevitysoft.android.xml.plist.domain.Real;
+import com.longevitysoft.android.xml.plist.domain.String;
+
+/**
+ * <p>
+ * Writes a {@link PList} in the binary "bplist00" format read by
+ * {@link BinaryPListParser} and by Apple tooling.
+ * </p>
+ * <p>
+ * Equal strings (dict keys and string values alike), integers, reals, dates
+ * and data are written once and referenced from every place they occur. A
+ * dict or array instance that appears more than once in the tree is also
+ * written once. Object references and the offset table use the fewest bytes
+ * that can address the written objects.
+ * </p>
+ * 
+ * @author fbeachler
+ * 
+ */
+public class BinaryPListWriter {
+
+	public static final java.lang.String TAG = "BinaryPListWriter";
+
+	/**
+	 * Marker of the boolean true object.
+	 */
+	private static final Object TRUE_KEY = new Object();
+
+	/**
+	 * Marker of the boolean false object.
+	 */
+	private static final Object FALSE_KEY = new Object();
+
+	/**
+	 * Marker of the null object.
+	 */
+	private static final Object NULL_KEY = new Object();
+
+	/**
+	 * Objects in reference order. Scalars are stored as their uniquing key,
+	 * containers as a {@link Container}.
+	 */
+	private List<Object> objects;
+
+	/**
+	 * Reference numbers of scalars by uniquing key.
+	 */
+	private Map<Object, java.lang.Integer> scalarRefs;
+
+	/**
+	 * Reference numbers of containers by instance.
+	 */
+	private Map<PListObject, java.lang.Integer> containerRefs;
+
+	/**
+	 * 
+	 */
+	public BinaryPListWriter() {
+		super();
+	}
+
+	/**
+	 * Write pList to a file, replacing its content.
+	 * 
+	 * @param pList
+	 * @param file
+	 * @throws IOException
+	 *             if the file can not be written.
+	 */
+	public void write(PList pList, File file) throws IOException {
+		OutputStream os = new FileOutputStream(file);
+		try {
+			write(pList, os);
+		} finally {
+			os.close();
+		}
+	}
+
+	/**
+	 * Write pList to a byte array.
+	 * 
+	 * @param pList
+	 * @return the binary PList.
+	 * @throws IOException
+	 */
+	public byte[] toByteArray(PList pList) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		write(pList, bytes);
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Write pList to an {@link OutputStream}. The stream is flushed but not
+	 * closed.
+	 * 
+	 * @param pList
+	 *            the PList to write, must have a root element.
+	 * @param os
+	 * @throws IOException
+	 *             if the stream can not be written.
+	 */
+	public void write(PList pList, OutputStream os) throws IOException {
+		if (null == pList || null == pList.getRootElement()) {
+			throw new IllegalArgumentException("PList has no root element");
+		}
+		objects = new ArrayList<Object>();
+		scalarRefs = new HashMap<Object, java.lang.Integer>();
+		containerRefs = new IdentityHashMap<PListObject, java.lang.Integer>();
+		try {
+			int top = flatten(pList.getRootElement());
+			writeObjects(top, os);
+		} finally {
+			objects = null;
+			scalarRefs = null;
+			containerRefs = null;
+		}
+	}
+
+	/**
+	 * Assign reference numbers to obj and everything under it. Containers
+	 * are numbered before their members, so the root is object 0.
+	 * 
+	 * @return the reference number of obj.
+	 */
+	private int flatten(PListObject obj) {
+		if (null != obj) {
+			switch (obj.getType()) {
+			case DICT:
+			case ARRAY: {
+				java.lang.Integer ref = containerRefs.get(obj);
+				if (null != ref) {
+					return ref.intValue();
+				}
+				int newRef = objects.size();
+				containerRefs.put(obj, java.lang.Integer.valueOf(newRef));
+				Container container = new Container();
+				objects.add(container);
+				if (obj instanceof Dict) {
+					Map<java.lang.String, PListObject> map = ((Dict) obj)
+							.getConfigMap();
+					int n = map.size();
+					container.keyRefs = new int[n];
+					container.valueRefs = new int[n];
+					int i = 0;
+					for (Map.Entry<java.lang.String, PListObject> entry : map
+							.entrySet()) {
+						container.keyRefs[i] = flattenScalar(entry.getKey());
+						container.valueRefs[i] = flatten(entry.getValue());
+						i++;
+					}
+				} else {
+					Array array = (Array) obj;
+					container.valueRefs = new int[array.size()];
+					for (int i = 0; i < container.valueRefs.length; i++) {
+						container.valueRefs[i] = flatten(array.get(i));
+					}
+				}
+				return newRef;
+			}
+			default:
+				break;
+			}
+		}
+		return flattenScalar(uniquingKey(obj));
+	}
+
+	private int flattenScalar(Object key) {
+		java.lang.Integer ref = scalarRefs.get(key);
+		if (null == ref) {
+			ref = java.lang.Integer.valueOf(objects.size());
+			scalarRefs.put(key, ref);
+			objects.add(key);
+		}
+		return ref.intValue();
+	}
+
+	/**
+	 * Map a scalar to a key that is equal for scalars that encode to the
+	 * same bytes.
+	 */
+	private Object uniquingKey(PListObject obj) {
+		if (null == obj) {
+			return NULL_KEY;
+		}
+		switch (obj.getType()) {
+		case TRUE:
+			return TRUE_KEY;
+		case FALSE:
+			return FALSE_KEY;
+		case STRING:
+			return nonNull(((String) obj).getValue(), obj);
+		case INTEGER:
+			if (!((Integer) obj).hasValue()) {
+				throw noValue(obj);
+			}
+			if (!((Integer) obj).isLong()) {
+				return ((Integer) obj).getBigIntegerValue();
+			}
+			return Long.valueOf(((Integer) obj).getLongValue());
+		case REAL:
+			if (!((Real) obj).hasValue()) {
+				throw noValue(obj);
+			}
+			return Double.valueOf(((Real) obj).getDoubleValue());
+		case DATE:
+			if (!((Date) obj).hasValue()) {
+				throw noValue(obj);
+			}
+			return new DateKey(((Date) obj).getTime());
+		case DATA:
+			return ByteBuffer.wrap(nonNull(((Data) obj).getBytes(), obj));
+		default:
+			throw new IllegalArgumentException("can not write PList object: "
+					+ obj.getType());
+		}
+	}
+
+	private static <T> T nonNull(T value, PListObject obj) {
+		if (null == value) {
+			throw noValue(obj);
+		}
+		return value;
+	}
+
+	private static IllegalArgumentException noValue(PListObject obj) {
+		return new IllegalArgumentException("PList " + obj.getType()
+				+ " has no value");
+	}
+
+	/**
+	 * Write the header, the object table, the offset table and the trailer.
+	 */
+	private void writeObjects(int top, OutputStream os) throws IOException {
+		int numObjects = objects.size();
+		int refSize = bytesFor(numObjects - 1);
+		long[] offsets = new long[numObjects];
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				os));
+		// DataOutputStream counts written bytes as an int, keep a long offset
+		long offset = BinaryPListParser.MAGIC.length;
+		out.write(BinaryPListParser.MAGIC);
+		for (int ref = 0; ref < numObjects; ref++) {
+			offsets[ref] = offset;
+			int before = out.size();
+			writeObject(out, objects.get(ref), refSize);
+			offset += out.size() - before;
+		}
+		long offsetTableOffset = offset;
+		int offsetSize = bytesFor(offsetTableOffset);
+		for (int ref = 0; ref < numObjects; ref++) {
+			writeUInt(out, offsets[ref], offsetSize);
+		}
+		// trailer: 5 unused bytes, sort version, then the table layout
+		for (int i = 0; i < 6; i++) {
+			out.writeByte(0);
+		}
+		out.writeByte(offsetSize);
+		out.writeByte(refSize);
+		out.writeLong(numObjects);
+		out.writeLong(top);
+		out.writeLong(offsetTableOffset);
+		out.flush();
+	}
+
+	private void writeObject(DataOutputStream out, Object obj, int refSize)
+			throws IOException {
+		if (obj instanceof Container) {
+			Container container = (Container) obj;
+			int n = container.valueRefs.length;
+			if (null == container.keyRefs) {
+				writeMarker(out, ObjectTable.TYPE_ARRAY, n);
+			} else {
+				writeMarker(out, ObjectTable.TYPE_DICT, n);
+				for (int i = 0; i < n; i++) {
+					writeUInt(out, container.keyRefs[i], refSize);
+				}
+			}
+			for (int i = 0; i < n; i++) {
+				writeUInt(out, container.valueRefs[i], refSize);
+			}
+		} else if (obj instanceof java.lang.String) {
+			writeString(out, (java.lang.String) obj);
+		} else if (obj instanceof Long) {
+			writeInt(out, ((Long) obj).longValue());
+		} else if (obj instanceof BigInteger) {
+			writeBigInt(out, (BigInteger) obj);
+		} else if (obj instanceof Double) {
+			out.writeByte((ObjectTable.TYPE_REAL << 4) | 3);
+			out.writeDouble(((Double) obj).doubleValue());
+		} else if (obj instanceof DateKey) {
+			out.writeByte(0x33);
+			out.writeDouble(((DateKey) obj).millis / 1000d
+					- ObjectTable.CF_EPOCH_SECONDS);
+		} else if (obj instanceof ByteBuffer) {
+			ByteBuffer data = (ByteBuffer) obj;
+			writeMarker(out, ObjectTable.TYPE_DATA, data.remaining());
+			out.write(data.array(), data.arrayOffset() + data.position(),
+					data.remaining());
+		} else if (obj == TRUE_KEY) {
+			out.writeByte(ObjectTable.SIMPLE_TRUE);
+		} else if (obj == FALSE_KEY) {
+			out.writeByte(ObjectTable.SIMPLE_FALSE);
+		} else {
+			out.writeByte(ObjectTable.SIMPLE_NULL);
+		}
+	}
+
+	/**
+	 * Strings with only ASCII characters are written one byte per
+	 * character, others as UTF-16BE.
+	 */
+	private void writeString(DataOutputStream out, java.lang.String str)
+			throws IOException {
+		int len = str.length();
+		boolean ascii = true;
+		for (int i = 0; i < len && ascii; i++) {
+			ascii = str.charAt(i) < 0x80;
+		}
+		if (ascii) {
+			writeMarker(out, ObjectTable.TYPE_ASCII_STRING, len);
+			out.writeBytes(str);
+		} else {
+			writeMarker(out, ObjectTable.TYPE_UTF16_STRING, len);
+			out.writeChars(str);
+		}
+	}
+
+	/**
+	 * Write the marker of a variable length object, followed by an int
+	 * object holding the length when it does not fit the marker.
+	 */
+	private void writeMarker(DataOutputStream out, int type, int length)
+			throws IOException {
+		if (length < 0x0F) {
+			out.writeByte((type << 4) | length);
+		} else {
+			out.writeByte((type << 4) | 0x0F);
+			writeInt(out, length);
+		}
+	}
+
+	/**
+	 * Integers are written in 1, 2 or 4 unsigned bytes when they fit, and
+	 * otherwise (including all negative integers) in 8 signed bytes.
+	 */
+	private void writeInt(DataOutputStream out, long val) throws IOException {
+		int size = val < 0 ? 8 : bytesFor(val);
+		int log2 = size == 1 ? 0 : size == 2 ? 1 : size == 4 ? 2 : 3;
+		out.writeByte((ObjectTable.TYPE_INT << 4) | log2);
+		writeUInt(out, val, size);
+	}
+
+	/**
+	 * Integers that do not fit in a long are written in 16 signed bytes.
+	 */
+	private void writeBigInt(DataOutputStream out, BigInteger val)
+			throws IOException {
+		if (val.bitLength() >= 128) {
+			throw new IllegalArgumentException(
+					"integer does not fit in 128 bits: " + val);
+		}
+		byte[] bytes = val.toByteArray();
+		out.writeByte((ObjectTable.TYPE_INT << 4) | 4);
+		int fill = val.signum() < 0 ? 0xFF : 0;
+		for (int i = bytes.length; i < 16; i++) {
+			out.writeByte(fill);
+		}
+		out.write(bytes);
+	}
+
+	/**
+	 * Write the low size bytes of val, big-endian.
+	 */
+	private static void writeUInt(DataOutputStream out, long val, int size)
+			throws IOException {
+		for (int shift = (size - 1) * 8; shift >= 0; shift -= 8) {
+			out.writeByte((int) (val >>> shift));
+		}
+	}
+
+	/**
+	 * @return the fewest of 1, 2, 4 or 8 bytes that can store the unsigned
+	 *         value val.
+	 */
+	static int bytesFor(long val) {
+		if ((val >>> 8) == 0) {
+			return 1;
+		} else if ((val >>> 16) == 0) {
+			return 2;
+		} else if ((val >>> 32) == 0) {
+			return 4;
+		}
+		return 8;
+	}
+
+	/**
+	 * A dict or array with the reference numbers of its members. Arrays have
+	 * no key references.
+	 */
+	private static class Container {
+		int[] keyRefs;
+		int[] valueRefs;
+	}
+
+	/**
+	 * Uniquing key of a date, kept apart from integers.
+	 */
+	private static class DateKey {
+
+		final long millis;
+
+		DateKey(long millis) {
+			this.millis = millis;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof DateKey && ((DateKey) o).millis == millis;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (millis ^ (millis >>> 32));
+		}
+
+	}
+
+}
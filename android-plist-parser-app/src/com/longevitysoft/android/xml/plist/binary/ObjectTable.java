@@ -0,0 +1,541 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.xml.plist.binary;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+import com.longevitysoft.android.xml.plist.domain.Data;
+import com.longevitysoft.android.xml.plist.domain.Date;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.False;
+import com.longevitysoft.android.xml.plist.domain.Integer;
+import com.longevitysoft.android.xml.plist.domain.PListObject;
+import com.longevitysoft.android.xml.plist.domain.Real;
+import com.longevitysoft.android.xml.plist.domain.String;
+import com.longevitysoft.android.xml.plist.domain.True;
+
+/**
+ * Random access to the object table of a binary PList. Objects are decoded by
+ * reference number straight from the buffer; containers are returned as
+ * shells that decode their members on demand. Since those shells cannot throw
+ * IOException, the parser calls {@link #validate()} first, so decoding a table
+ * that passed it never runs off the object table or into a bad reference.
+ *
+ * @author fbeachler
+ *
+ */
+class ObjectTable {
+
+	/**
+	 * Size of the trailer at the end of a binary PList.
+	 */
+	static final int TRAILER_SIZE = 32;
+
+	/**
+	 * Seconds from the Unix epoch to the Core Foundation epoch,
+	 * 2001-01-01T00:00:00Z.
+	 */
+	static final long CF_EPOCH_SECONDS = 978307200L;
+
+	/**
+	 * Key of the dict a UID object is represented as, the same way plutil
+	 * converts UIDs to XML.
+	 */
+	static final java.lang.String UID_KEY = "CF$UID";
+
+	static final int TYPE_SIMPLE = 0x0;
+	static final int TYPE_INT = 0x1;
+	static final int TYPE_REAL = 0x2;
+	static final int TYPE_DATE = 0x3;
+	static final int TYPE_DATA = 0x4;
+	static final int TYPE_ASCII_STRING = 0x5;
+	static final int TYPE_UTF16_STRING = 0x6;
+	static final int TYPE_UID = 0x8;
+	static final int TYPE_ARRAY = 0xA;
+	static final int TYPE_SET = 0xC;
+	static final int TYPE_DICT = 0xD;
+
+	static final int SIMPLE_NULL = 0x00;
+	static final int SIMPLE_FALSE = 0x08;
+	static final int SIMPLE_TRUE = 0x09;
+
+	private final ByteBuffer buf;
+	private final int offsetSize;
+	private final int refSize;
+	private final int numObjects;
+	private final int topObject;
+	private final int offsetTableOffset;
+
+	/**
+	 * Read and validate the header and trailer.
+	 *
+	 * @param buf
+	 *            the whole binary PList, starting at position 0.
+	 * @throws IOException
+	 *             if buf does not hold a binary PList.
+	 */
+	ObjectTable(ByteBuffer buf) throws IOException {
+		this.buf = buf;
+		int size = buf.limit();
+		if (size < BinaryPListParser.MAGIC.length + TRAILER_SIZE) {
+			throw new IOException("not a binary PList: too short");
+		}
+		for (int i = 0; i < BinaryPListParser.MAGIC.length; i++) {
+			if (buf.get(i) != BinaryPListParser.MAGIC[i]) {
+				throw new IOException("not a binary PList: bad magic");
+			}
+		}
+		int trailer = size - TRAILER_SIZE;
+		offsetSize = buf.get(trailer + 6) & 0xFF;
+		refSize = buf.get(trailer + 7) & 0xFF;
+		long objects = buf.getLong(trailer + 8);
+		long top = buf.getLong(trailer + 16);
+		long tableOffset = buf.getLong(trailer + 24);
+		if (offsetSize < 1 || offsetSize > 8 || refSize < 1 || refSize > 8) {
+			throw new IOException("corrupt binary PList: bad trailer sizes");
+		}
+		if (objects < 1 || objects > trailer || top < 0 || top >= objects
+				|| tableOffset < 8 || tableOffset > trailer
+				|| tableOffset + objects * offsetSize > trailer) {
+			throw new IOException("corrupt binary PList: bad trailer offsets");
+		}
+		numObjects = (int) objects;
+		topObject = (int) top;
+		offsetTableOffset = (int) tableOffset;
+	}
+
+	/**
+	 * @return the reference number of the root object.
+	 */
+	int getTopObject() {
+		return topObject;
+	}
+
+	/**
+	 * @return the number of objects in the table.
+	 */
+	int getNumObjects() {
+		return numObjects;
+	}
+
+	/**
+	 * Check the structure of every object in the table: its offset and marker,
+	 * that its content ends before the offset table, that the objects it
+	 * refers to exist, that dict keys are strings and that no container
+	 * contains itself. Only headers and references are read, not content.
+	 *
+	 * @throws IOException
+	 *             if the table is corrupt.
+	 */
+	void validate() throws IOException {
+		// position and count of the references of each container, -1 if none
+		int[] refsPos = new int[numObjects];
+		int[] refCount = new int[numObjects];
+		int[] lengthSize = new int[1];
+		for (int ref = 0; ref < numObjects; ref++) {
+			int pos = checkedOffsetOf(ref);
+			int marker = buf.get(pos) & 0xFF;
+			long end;
+			refsPos[ref] = -1;
+			switch (marker >> 4) {
+			case TYPE_SIMPLE:
+				if (marker != SIMPLE_NULL && marker != SIMPLE_FALSE
+						&& marker != SIMPLE_TRUE) {
+					throw corrupt("unknown object marker: " + marker);
+				}
+				end = pos + 1;
+				break;
+			case TYPE_INT:
+				if ((marker & 0x0F) > 4) {
+					throw corrupt("bad integer size: " + (marker & 0x0F));
+				}
+				end = pos + 1 + (1 << (marker & 0x0F));
+				break;
+			case TYPE_REAL:
+				if ((marker & 0x0F) != 2 && (marker & 0x0F) != 3) {
+					throw corrupt("bad real size");
+				}
+				end = pos + 1 + (1 << (marker & 0x0F));
+				break;
+			case TYPE_DATE:
+				if (marker != 0x33) {
+					throw corrupt("unknown object marker: " + marker);
+				}
+				end = pos + 9;
+				break;
+			case TYPE_DATA:
+			case TYPE_ASCII_STRING: {
+				long len = checkedLength(pos, lengthSize);
+				end = pos + lengthSize[0] + len;
+				break;
+			}
+			case TYPE_UTF16_STRING: {
+				long len = checkedLength(pos, lengthSize);
+				end = pos + lengthSize[0] + 2 * len;
+				break;
+			}
+			case TYPE_UID:
+				if ((marker & 0x0F) > 7) {
+					throw corrupt("bad UID size");
+				}
+				end = pos + 2 + (marker & 0x0F);
+				break;
+			case TYPE_ARRAY:
+			case TYPE_SET:
+			case TYPE_DICT: {
+				long count = checkedLength(pos, lengthSize);
+				if (marker >> 4 == TYPE_DICT) {
+					count *= 2;
+				}
+				refsPos[ref] = pos + lengthSize[0];
+				end = refsPos[ref] + count * refSize;
+				if (end > offsetTableOffset) {
+					break;
+				}
+				refCount[ref] = (int) count;
+				for (int i = 0; i < count; i++) {
+					long member = readUInt(refsPos[ref] + i * refSize, refSize);
+					if (member < 0 || member >= numObjects) {
+						throw corrupt("object reference out of range: "
+								+ member);
+					}
+					if (marker >> 4 == TYPE_DICT && i < count / 2) {
+						int keyPos = checkedOffsetOf((int) member);
+						int type = (buf.get(keyPos) & 0xFF) >> 4;
+						if (type != TYPE_ASCII_STRING
+								&& type != TYPE_UTF16_STRING) {
+							throw corrupt("dict key is not a string");
+						}
+					}
+				}
+				break;
+			}
+			default:
+				throw corrupt("unknown object marker: " + marker);
+			}
+			if (end > offsetTableOffset) {
+				throw corrupt("object " + ref + " runs past the object table");
+			}
+		}
+		checkAcyclic(refsPos, refCount);
+	}
+
+	/**
+	 * Walk the containers depth first, failing on a container that is its own
+	 * member at any depth. Shared members are fine, cycles are not: a lazy
+	 * shell would recurse forever when walked or frozen.
+	 */
+	private void checkAcyclic(int[] refsPos, int[] refCount) throws IOException {
+		// 0 not visited, 1 on the current path, 2 done
+		byte[] state = new byte[numObjects];
+		int[] path = new int[numObjects];
+		int[] next = new int[numObjects];
+		for (int root = 0; root < numObjects; root++) {
+			if (state[root] != 0 || refsPos[root] < 0) {
+				continue;
+			}
+			int depth = 0;
+			path[0] = root;
+			next[0] = 0;
+			state[root] = 1;
+			while (depth >= 0) {
+				int ref = path[depth];
+				if (next[depth] == refCount[ref]) {
+					state[ref] = 2;
+					depth--;
+					continue;
+				}
+				int member = (int) readUInt(refsPos[ref] + next[depth]++
+						* refSize, refSize);
+				if (state[member] == 1) {
+					throw corrupt("object " + member + " contains itself");
+				}
+				if (state[member] == 0 && refsPos[member] >= 0) {
+					state[member] = 1;
+					path[++depth] = member;
+					next[depth] = 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Like {@link #offsetOf(int)} for a ref known to be in range, failing
+	 * with IOException.
+	 */
+	private int checkedOffsetOf(int ref) throws IOException {
+		long offset = readUInt(offsetTableOffset + ref * offsetSize,
+				offsetSize);
+		if (offset < 8 || offset >= offsetTableOffset) {
+			throw corrupt("object offset out of range: " + offset);
+		}
+		return (int) offset;
+	}
+
+	/**
+	 * Like {@link #readLength(int, int[])}, also checking that the length
+	 * itself lies inside the object table, failing with IOException.
+	 */
+	private int checkedLength(int pos, int[] lengthSize) throws IOException {
+		if ((buf.get(pos) & 0x0F) == 0x0F) {
+			if (pos + 2 > offsetTableOffset) {
+				throw corrupt("object " + pos + " runs past the object table");
+			}
+			int intMarker = buf.get(pos + 1) & 0xFF;
+			if ((intMarker >> 4) != TYPE_INT || (intMarker & 0x0F) > 3) {
+				throw corrupt("bad length marker");
+			}
+			if (pos + 2 + (1 << (intMarker & 0x0F)) > offsetTableOffset) {
+				throw corrupt("object " + pos + " runs past the object table");
+			}
+		}
+		try {
+			return readLength(pos, lengthSize);
+		} catch (IllegalStateException e) {
+			throw corrupt("bad length");
+		}
+	}
+
+	private static IOException corrupt(java.lang.String message) {
+		return new IOException("corrupt binary PList: " + message);
+	}
+
+	/**
+	 * Read a big-endian unsigned integer of up to 8 bytes.
+	 */
+	long readUInt(int pos, int size) {
+		long ret = 0;
+		for (int i = 0; i < size; i++) {
+			ret = (ret << 8) | (buf.get(pos + i) & 0xFF);
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the position of object ref in the buffer.
+	 */
+	int offsetOf(int ref) {
+		if (ref < 0 || ref >= numObjects) {
+			throw new IllegalStateException(
+					"corrupt binary PList: object reference out of range: "
+							+ ref);
+		}
+		long offset = readUInt(offsetTableOffset + ref * offsetSize,
+				offsetSize);
+		if (offset < 8 || offset >= offsetTableOffset) {
+			throw new IllegalStateException(
+					"corrupt binary PList: object offset out of range: "
+							+ offset);
+		}
+		return (int) offset;
+	}
+
+	/**
+	 * Read the length of an object whose marker is at pos. Lengths of 15 or
+	 * more are stored as an int object following the marker.
+	 *
+	 * @param lengthSize
+	 *            receives the number of bytes used by the marker and length.
+	 * @return the length.
+	 */
+	private int readLength(int pos, int[] lengthSize) {
+		int info = buf.get(pos) & 0x0F;
+		if (info != 0x0F) {
+			lengthSize[0] = 1;
+			return info;
+		}
+		int intMarker = buf.get(pos + 1) & 0xFF;
+		if ((intMarker >> 4) != TYPE_INT) {
+			throw new IllegalStateException(
+					"corrupt binary PList: bad length marker");
+		}
+		int intSize = 1 << (intMarker & 0x0F);
+		long len = readUInt(pos + 2, intSize);
+		if (len < 0 || len > java.lang.Integer.MAX_VALUE) {
+			throw new IllegalStateException(
+					"corrupt binary PList: bad length");
+		}
+		lengthSize[0] = 2 + intSize;
+		return (int) len;
+	}
+
+	/**
+	 * Read count object references starting at pos.
+	 */
+	int[] readRefs(int pos, int count) {
+		int[] refs = new int[count];
+		for (int i = 0; i < count; i++) {
+			refs[i] = (int) readUInt(pos + i * refSize, refSize);
+		}
+		return refs;
+	}
+
+	/**
+	 * Decode object ref. Containers are returned as lazy shells.
+	 *
+	 * @param ref
+	 * @return the decoded object, or null for the null object.
+	 */
+	PListObject decode(int ref) {
+		int pos = offsetOf(ref);
+		int marker = buf.get(pos) & 0xFF;
+		int type = marker >> 4;
+		int[] lengthSize = new int[1];
+		switch (type) {
+		case TYPE_SIMPLE:
+			switch (marker) {
+			case SIMPLE_NULL:
+				return null;
+			case SIMPLE_FALSE:
+				return False.getInstance();
+			case SIMPLE_TRUE:
+				return True.getInstance();
+			}
+			break;
+		case TYPE_INT:
+			if (marker == 0x14) {
+				return newBigInteger(pos);
+			}
+			return newInteger(readInt(pos));
+		case TYPE_REAL: {
+			Real real = new Real();
+			real.setValue(readReal(pos));
+			return real;
+		}
+		case TYPE_DATE: {
+			if (marker != 0x33) {
+				break;
+			}
+			Date date = new Date();
+			double seconds = Double.longBitsToDouble(buf.getLong(pos + 1));
+			date.setValue((long) ((CF_EPOCH_SECONDS + seconds) * 1000));
+			return date;
+		}
+		case TYPE_DATA: {
+			int len = readLength(pos, lengthSize);
+			byte[] bytes = new byte[len];
+			ByteBuffer src = buf.duplicate();
+			src.position(pos + lengthSize[0]);
+			src.get(bytes);
+			Data data = new Data();
+			data.setValue(bytes, false);
+			return data;
+		}
+		case TYPE_ASCII_STRING:
+		case TYPE_UTF16_STRING: {
+			String str = new String();
+			str.setValue(readString(pos));
+			return str;
+		}
+		case TYPE_UID: {
+			Dict uid = new Dict();
+			uid.putConfig(UID_KEY,
+					newInteger(readUInt(pos + 1, (marker & 0x0F) + 1)));
+			return uid;
+		}
+		case TYPE_ARRAY:
+		case TYPE_SET: {
+			int len = readLength(pos, lengthSize);
+			return new BinaryArray(this, readRefs(pos + lengthSize[0], len));
+		}
+		case TYPE_DICT: {
+			int len = readLength(pos, lengthSize);
+			int refsPos = pos + lengthSize[0];
+			return new BinaryDict(this, readRefs(refsPos, len), readRefs(
+					refsPos + len * refSize, len));
+		}
+		}
+		throw new IllegalStateException(
+				"corrupt binary PList: unknown object marker: " + marker);
+	}
+
+	/**
+	 * Decode the string object ref, as used for dict keys.
+	 */
+	java.lang.String decodeString(int ref) {
+		int pos = offsetOf(ref);
+		int type = (buf.get(pos) & 0xFF) >> 4;
+		if (type != TYPE_ASCII_STRING && type != TYPE_UTF16_STRING) {
+			throw new IllegalStateException(
+					"corrupt binary PList: dict key is not a string");
+		}
+		return readString(pos);
+	}
+
+	private java.lang.String readString(int pos) {
+		int[] lengthSize = new int[1];
+		int len = readLength(pos, lengthSize);
+		int start = pos + lengthSize[0];
+		char[] chars = new char[len];
+		if ((buf.get(pos) & 0xFF) >> 4 == TYPE_ASCII_STRING) {
+			for (int i = 0; i < len; i++) {
+				chars[i] = (char) (buf.get(start + i) & 0xFF);
+			}
+		} else {
+			for (int i = 0; i < len; i++) {
+				chars[i] = buf.getChar(start + (i << 1));
+			}
+		}
+		return new java.lang.String(chars);
+	}
+
+	private long readInt(int pos) {
+		int size = 1 << (buf.get(pos) & 0x0F);
+		switch (size) {
+		case 1:
+		case 2:
+		case 4:
+			return readUInt(pos + 1, size);
+		case 8:
+			return buf.getLong(pos + 1);
+		case 16:
+			// only lengths are read here, which never need 128 bits
+			return buf.getLong(pos + 9);
+		}
+		throw new IllegalStateException(
+				"corrupt binary PList: bad integer size: " + size);
+	}
+
+	private double readReal(int pos) {
+		switch (buf.get(pos) & 0x0F) {
+		case 2:
+			return buf.getFloat(pos + 1);
+		case 3:
+			return buf.getDouble(pos + 1);
+		}
+		throw new IllegalStateException("corrupt binary PList: bad real size");
+	}
+
+	/**
+	 * 128 bit ints are written for values that do not fit in a signed long,
+	 * such as unsigned 64 bit values.
+	 */
+	private Integer newBigInteger(int pos) {
+		byte[] val = new byte[16];
+		for (int i = 0; i < val.length; i++) {
+			val[i] = buf.get(pos + 1 + i);
+		}
+		Integer ret = new Integer();
+		ret.setValue(new BigInteger(val));
+		return ret;
+	}
+
+	private Integer newInteger(long val) {
+		Integer ret = new Integer();
+		ret.setValue(val);
+		return ret;
+	}
+
+}
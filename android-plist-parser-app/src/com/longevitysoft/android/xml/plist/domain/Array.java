@@ -14,6 +14,7 @@ package com.longevitysoft.android.xml.plist.domain;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
@@ -21,14 +22,20 @@ import java.util.ListIterator;
 /**
  * Represents a PList Array object. Essentially a proxy for a
  * {@link java.util.List} implementation that contains a list of
- * {@link PListObject}s.
+ * {@link PListObject}s. Arrays of integers, reals or booleans can hold their
+ * elements as primitives instead, see {@link #trimToSize()}. Iterators and
+ * sub lists of a frozen array cannot modify it.
  * 
  * @author fbeachler
  * 
  */
 public class Array extends PListObject implements java.util.List<PListObject> {
 
-	private ArrayList<PListObject> data;
+	/**
+	 * The backing list. Subclasses may install their own implementation, for
+	 * example one that creates its elements on demand.
+	 */
+	protected List<PListObject> data;
 
 	/**
 	 * 
@@ -66,6 +73,7 @@ public class Array extends PListObject implements java.util.List<PListObject> {
 	 */
 	@Override
 	public void add(int arg0, PListObject arg1) {
+		checkNotFrozen();
 		data.add(arg0, (PListObject) arg1);
 	}
 
@@ -76,6 +84,7 @@ public class Array extends PListObject implements java.util.List<PListObject> {
 	 */
 	@Override
 	public boolean add(PListObject arg0) {
+		checkNotFrozen();
 		return data.add((PListObject) arg0);
 	}
 
@@ -86,6 +95,7 @@ public class Array extends PListObject implements java.util.List<PListObject> {
 	 */
 	@Override
 	public boolean addAll(Collection<? extends PListObject> arg0) {
+		checkNotFrozen();
 		return data.addAll(arg0);
 	}
 
@@ -96,6 +106,7 @@ public class Array extends PListObject implements java.util.List<PListObject> {
 	 */
 	@Override
 	public boolean addAll(int arg0, Collection<? extends PListObject> arg1) {
+		checkNotFrozen();
 		return data.addAll(arg0, arg1);
 	}
 
@@ -126,7 +137,7 @@ public class Array extends PListObject implements java.util.List<PListObject> {
 	 */
 	@Override
 	public ListIterator<PListObject> listIterator() {
-		return data.listIterator();
+		return readableData().listIterator();
 	}
 
 	/*
@@ -136,7 +147,7 @@ public class Array extends PListObject implements java.util.List<PListObject> {
 	 */
 	@Override
 	public ListIterator<PListObject> listIterator(int arg0) {
-		return data.listIterator(arg0);
+		return readableData().listIterator(arg0);
 	}
 
 	/*
@@ -146,6 +157,7 @@ public class Array extends PListObject implements java.util.List<PListObject> {
 	 */
 	@Override
 	public PListObject remove(int arg0) {
+		checkNotFrozen();
 		return data.remove(arg0);
 	}
 
@@ -156,6 +168,7 @@ public class Array extends PListObject implements java.util.List<PListObject> {
 	 */
 	@Override
 	public boolean remove(Object arg0) {
+		checkNotFrozen();
 		return data.remove(arg0);
 	}
 
@@ -166,6 +179,7 @@ public class Array extends PListObject implements java.util.List<PListObject> {
 	 */
 	@Override
 	public boolean removeAll(Collection<?> arg0) {
+		checkNotFrozen();
 		return data.remove(arg0);
 	}
 
@@ -176,6 +190,7 @@ public class Array extends PListObject implements java.util.List<PListObject> {
 	 */
 	@Override
 	public boolean retainAll(Collection<?> arg0) {
+		checkNotFrozen();
 		return data.retainAll(arg0);
 	}
 
@@ -186,6 +201,7 @@ public class Array extends PListObject implements java.util.List<PListObject> {
 	 */
 	@Override
 	public PListObject set(int arg0, PListObject arg1) {
+		checkNotFrozen();
 		return data.set(arg0, arg1);
 	}
 
@@ -196,7 +212,7 @@ public class Array extends PListObject implements java.util.List<PListObject> {
 	 */
 	@Override
 	public List<PListObject> subList(int arg0, int arg1) {
-		return data.subList(arg0, arg1);
+		return readableData().subList(arg0, arg1);
 	}
 
 	/*
@@ -224,6 +240,7 @@ public class Array extends PListObject implements java.util.List<PListObject> {
 	 * @see {@link java.util.ArrayList#clear()}
 	 */
 	public void clear() {
+		checkNotFrozen();
 		data.clear();
 	}
 
@@ -231,7 +248,7 @@ public class Array extends PListObject implements java.util.List<PListObject> {
 	 * @see {@link java.util.ArrayList#clone()}
 	 */
 	public Object clone() {
-		return data.clone();
+		return new ArrayList<PListObject>(data);
 	}
 
 	/**
@@ -265,6 +282,174 @@ public class Array extends PListObject implements java.util.List<PListObject> {
 		return data.get(index);
 	}
 
+	/**
+	 * Get the value of an {@link Integer} element without boxing it.
+	 * 
+	 * @param index
+	 * @return the value of the element at index.
+	 * @throws ClassCastException
+	 *             if the element is not an {@link Integer}.
+	 * @throws IllegalStateException
+	 *             if the element has no value or it does not fit in a long.
+	 */
+	public long getLong(int index) {
+		if (data instanceof PrimitiveArrayList) {
+			return ((PrimitiveArrayList) data).getLong(index);
+		}
+		return ((Integer) data.get(index)).getLongValue();
+	}
+
+	/**
+	 * Get the value of a {@link Real} or {@link Integer} element without
+	 * boxing it.
+	 * 
+	 * @param index
+	 * @return the value of the element at index.
+	 * @throws ClassCastException
+	 *             if the element is not a {@link Real} or {@link Integer}.
+	 * @throws IllegalStateException
+	 *             if the element has no value.
+	 */
+	public double getDouble(int index) {
+		if (data instanceof PrimitiveArrayList) {
+			return ((PrimitiveArrayList) data).getDouble(index);
+		}
+		PListObject obj = data.get(index);
+		if (obj instanceof Integer) {
+			return ((Integer) obj).getDoubleValue();
+		}
+		return ((Real) obj).getDoubleValue();
+	}
+
+	/**
+	 * Get the value of a {@link True} or {@link False} element.
+	 * 
+	 * @param index
+	 * @return the value of the element at index.
+	 * @throws ClassCastException
+	 *             if the element is not a {@link True} or {@link False}.
+	 */
+	public boolean getBoolean(int index) {
+		if (data instanceof PrimitiveArrayList) {
+			return ((PrimitiveArrayList) data).getBoolean(index);
+		}
+		return PrimitiveArrayList.toBoolean(data.get(index));
+	}
+
+	/**
+	 * Copy the values of the elements, which must all be {@link Integer}s,
+	 * into a new array.
+	 * 
+	 * @return the values.
+	 * @throws ClassCastException
+	 *             if an element is not an {@link Integer}.
+	 * @throws IllegalStateException
+	 *             if an element has no value.
+	 */
+	public long[] toLongArray() {
+		if (data instanceof PrimitiveArrayList) {
+			return ((PrimitiveArrayList) data).toLongArray();
+		}
+		long[] ret = new long[data.size()];
+		for (int i = 0; i < ret.length; i++) {
+			ret[i] = getLong(i);
+		}
+		return ret;
+	}
+
+	/**
+	 * Copy the values of the elements, which must all be {@link Real}s or
+	 * {@link Integer}s, into a new array.
+	 * 
+	 * @return the values.
+	 * @throws ClassCastException
+	 *             if an element is not a {@link Real} or {@link Integer}.
+	 * @throws IllegalStateException
+	 *             if an element has no value.
+	 */
+	public double[] toDoubleArray() {
+		if (data instanceof PrimitiveArrayList) {
+			return ((PrimitiveArrayList) data).toDoubleArray();
+		}
+		double[] ret = new double[data.size()];
+		for (int i = 0; i < ret.length; i++) {
+			ret[i] = getDouble(i);
+		}
+		return ret;
+	}
+
+	/**
+	 * @return {@link PListObjectType#INTEGER} or {@link PListObjectType#REAL}
+	 *         if the elements are held as primitive longs or doubles,
+	 *         {@link PListObjectType#TRUE} if they are held as bits, which
+	 *         stand for {@link True} and {@link False} elements, and null if
+	 *         they are held as nodes.
+	 */
+	public PListObjectType getPrimitiveType() {
+		if (data instanceof PrimitiveArrayList) {
+			return ((PrimitiveArrayList) data).getPrimitiveType();
+		}
+		return null;
+	}
+
+	/**
+	 * Release unused capacity. If every element is an unfrozen
+	 * {@link Integer}, every element an unfrozen {@link Real} or every
+	 * element a shared boolean, the elements are from then on held as
+	 * primitives, see {@link #getPrimitiveType()}; the nodes of the elements
+	 * are created again when they are read through the
+	 * {@link java.util.List} interface. Arrays holding frozen nodes, such as
+	 * the shared integers of {@link Integer#valueOf(long)}, keep their nodes.
+	 * Called on each {@link Array} of a parsed {@link PList} once its end tag
+	 * is read.
+	 */
+	public void trimToSize() {
+		if (!isFrozen() && data instanceof ArrayList) {
+			List<PListObject> compact = PrimitiveArrayList.of(data);
+			if (null != compact) {
+				data = compact;
+			} else {
+				((ArrayList<PListObject>) data).trimToSize();
+			}
+		}
+	}
+
+	/**
+	 * Trim the array and freeze its elements too. A backing list that creates
+	 * its elements on demand is replaced by one holding all of them.
+	 * 
+	 * @see com.longevitysoft.android.xml.plist.domain.PListObject#freeze()
+	 */
+	@Override
+	void freeze() {
+		if (isFrozen()) {
+			return;
+		}
+		if (!(data instanceof ArrayList)
+				&& !(data instanceof PrimitiveArrayList)) {
+			data = new ArrayList<PListObject>(data);
+		}
+		trimToSize();
+		if (data instanceof PrimitiveArrayList) {
+			((PrimitiveArrayList) data).freeze();
+		} else {
+			for (int i = 0; i < data.size(); i++) {
+				PListObject obj = data.get(i);
+				if (null != obj) {
+					obj.freeze();
+				}
+			}
+		}
+		super.freeze();
+	}
+
+	/**
+	 * @return the backing list, read-only if this array is frozen.
+	 */
+	private List<PListObject> readableData() {
+		return isFrozen() ? Collections.unmodifiableList(data) : data;
+	}
+
 	/**
 	 * @see {@link java.util.ArrayList#indexOf(Object)}
 	 */
@@ -276,7 +461,7 @@ public class Array extends PListObject implements java.util.List<PListObject> {
 	 * @see {@link java.util.ArrayList#iterator()}
 	 */
 	public Iterator<PListObject> iterator() {
-		return data.iterator();
+		return readableData().iterator();
 	}
 
 	/**
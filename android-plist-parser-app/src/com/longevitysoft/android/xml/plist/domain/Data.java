@@ -15,19 +15,47 @@
  */
 package com.longevitysoft.android.xml.plist.domain;
 
-import net.sf.migbase64.Base64;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
 
-import com.longevitysoft.android.util.Stringer;
+import net.sf.migbase64.Base64;
 
 /**
- * Represents a simple PList data element. The value is stored as a raw string.
+ * Represents a simple PList data element. The value is stored either as the
+ * Base64 encoded text it was parsed from or as the binary value it was set
+ * to. Encoded text is decoded the first time the binary value is read, and
+ * only the decoded bytes are kept from then on, so repeated reads through
+ * {@link #getBytes()}, {@link #asByteBuffer()} or {@link #openStream()} do not
+ * decode again. Large values can also be held in a {@link ByteBuffer} outside
+ * the heap, such as a mapped file, see {@link #setValue(ByteBuffer)}.
+ * <p>
+ * A frozen value is decoded when it is frozen and read without locking. It
+ * may be shared, so {@link #getBytes()} returns a copy of it; read it in
+ * place with {@link #asByteBuffer()} or {@link #openStream()}.
+ * </p>
  */
 public class Data extends PListObject implements
 		IPListSimpleObject<java.lang.String> {
 
-	protected Stringer dataStringer;
+	/**
+	 * Base64 encoded value, null once it has been decoded.
+	 */
 	protected byte[] rawData;
 
+	/**
+	 * Decoded value, null until it has been decoded.
+	 */
+	protected byte[] bytes;
+
+	/**
+	 * Decoded value held outside the heap, null unless set with
+	 * {@link #setValue(ByteBuffer)}.
+	 */
+	protected transient ByteBuffer buffer;
+
 	/**
 	 * 
 	 */
@@ -35,12 +63,11 @@ public class Data extends PListObject implements
 
 	public Data() {
 		setType(PListObjectType.DATA);
-		dataStringer = new Stringer();
 	}
 
 	/**
-	 * Get the raw Base64 encoded data value on this object. Assumes the data
-	 * has already been encoded.
+	 * Get the Base64 decoded data value on this object as a string in the
+	 * platform charset.
 	 * 
 	 * @see com.longevitysoft.android.xml.plist.PListXMLHandler.PList.
 	 *      IPListSimpleObject#getValue()
@@ -51,26 +78,144 @@ public class Data extends PListObject implements
 	}
 
 	/**
-	 * Get the raw Base64 encoded data value on this object. Assumes the data
-	 * has already been encoded.
+	 * Get the data value on this object as a string.
 	 * 
 	 * @param decode
-	 *            - if true, the result is Base64 decoded before being returned.
-	 *            NOTE: this calls {@link Base64#decodeFast(byte[])} which
-	 *            expects the raw encoded data to be on one line (no line
-	 *            separators). To change this behavior, subclass and override.
+	 *            - if true, the Base64 decoded value is returned as a string in
+	 *            the platform charset, otherwise the Base64 encoded value
+	 *            (without line separators).
 	 * 
 	 * @see com.longevitysoft.android.xml.plist.PListXMLHandler.PList.
 	 *      IPListSimpleObject#getValue()
 	 */
 	public java.lang.String getValue(boolean decode) {
-		dataStringer.newBuilder();
-		if (decode) {
-			return dataStringer.getBuilder()
-					.append(new java.lang.String(Base64.decodeFast(rawData)))
-					.toString();
-		} else {
-			return dataStringer.getBuilder().append(rawData).toString();
+		byte[] val = decode ? getBytes() : getEncodedBytes();
+		if (null == val) {
+			return null;
+		}
+		return new java.lang.String(val);
+	}
+
+	/**
+	 * Get the decoded binary value of this object. The value is decoded on the
+	 * first call and the same array is returned from then on, it must not be
+	 * modified. The value of a frozen object, and a value held in a buffer
+	 * (see {@link #isMapped()}), are copied on every call instead; use
+	 * {@link #asByteBuffer()} or {@link #openStream()} to read them in place.
+	 * 
+	 * @return the Base64 decoded bytes, or null if no value is set.
+	 */
+	public byte[] getBytes() {
+		ByteBuffer held = heldBuffer();
+		if (null != held) {
+			byte[] ret = new byte[held.capacity()];
+			held.duplicate().get(ret);
+			return ret;
+		}
+		byte[] ret = decodedBytes();
+		return isFrozen() && null != ret ? ret.clone() : ret;
+	}
+
+	/**
+	 * @return a read-only buffer over the decoded value, or null if no value
+	 *         is set.
+	 */
+	public ByteBuffer asByteBuffer() {
+		ByteBuffer held = heldBuffer();
+		if (null != held) {
+			return held.asReadOnlyBuffer();
+		}
+		byte[] val = decodedBytes();
+		if (null == val) {
+			return null;
+		}
+		return ByteBuffer.wrap(val).asReadOnlyBuffer();
+	}
+
+	/**
+	 * @return a stream reading the decoded value, or null if no value is set.
+	 */
+	public InputStream openStream() {
+		ByteBuffer held = heldBuffer();
+		if (null != held) {
+			return new BufferInputStream(held.asReadOnlyBuffer());
+		}
+		byte[] val = decodedBytes();
+		if (null == val) {
+			return null;
+		}
+		return new ByteArrayInputStream(val);
+	}
+
+	/**
+	 * @return true if the value is held in a buffer set with
+	 *         {@link #setValue(ByteBuffer)}.
+	 */
+	public boolean isMapped() {
+		return null != heldBuffer();
+	}
+
+	/**
+	 * @return the buffer the value is held in, or null.
+	 */
+	private ByteBuffer heldBuffer() {
+		if (isFrozen()) {
+			return buffer;
+		}
+		synchronized (this) {
+			return buffer;
+		}
+	}
+
+	/**
+	 * Decode the value if it has not been yet, unless it is held in a buffer.
+	 * 
+	 * @return the decoded value held by this object, which must not be handed
+	 *         out if it is frozen, or null.
+	 */
+	byte[] decodedBytes() {
+		if (isFrozen()) {
+			// decoded by freeze()
+			return bytes;
+		}
+		synchronized (this) {
+			if (null == bytes && null != rawData) {
+				bytes = Base64.decode(rawData);
+				rawData = null;
+			}
+			return bytes;
+		}
+	}
+
+	/**
+	 * @return the Base64 encoded value (without line separators), or null if
+	 *         no value is set.
+	 */
+	private byte[] getEncodedBytes() {
+		if (!isFrozen()) {
+			synchronized (this) {
+				if (null != rawData) {
+					return rawData;
+				}
+			}
+		}
+		byte[] val = isMapped() ? getBytes() : decodedBytes();
+		if (null == val) {
+			return null;
+		}
+		return Base64.encodeToByte(val, false);
+	}
+
+	/**
+	 * Decode the value first, so it is read without locking from then on.
+	 * 
+	 * @see com.longevitysoft.android.xml.plist.domain.PListObject#freeze()
+	 */
+	@Override
+	synchronized void freeze() {
+		if (!isFrozen()) {
+			decodedBytes();
+			super.freeze();
 		}
 	}
 
@@ -93,40 +238,135 @@ public class Data extends PListObject implements
 	 * Sets the data value on this object.
 	 * 
 	 * @param val
-	 *            - unencoded data to set
+	 *            - data to set, its bytes in the platform charset are used.
 	 * @param encoded
 	 *            - flag true if val is Base64 encoded already. If false, val is
-	 *            encoded (without line seperators) before being stored.
+	 *            stored as the decoded value.
 	 * 
 	 * @see com.longevitysoft.android.xml.plist.PListXMLHandler.PList.
 	 *      IPListSimpleObject#setValue(java.lang.Object)
 	 */
 	public void setValue(java.lang.String val, boolean encoded) {
-		if (!encoded) {
-			rawData = Base64.encodeToByte(val.getBytes(), false);
-		} else {
-			rawData = val.getBytes();
-		}
+		setValue(val.getBytes(), encoded);
 	}
 
 	/**
-	 * Sets the data value on this object.
+	 * Sets the data value on this object. The array is not copied.
 	 * 
 	 * @param val
-	 *            - unencoded data to set
+	 *            - data to set
 	 * @param encoded
 	 *            - flag true if val is Base64 encoded already. If false, val is
-	 *            encoded (without line seperators) before being stored.
+	 *            stored as the decoded value.
 	 * 
 	 * @see com.longevitysoft.android.xml.plist.PListXMLHandler.PList.
 	 *      IPListSimpleObject#setValue(java.lang.Object)
 	 */
-	public void setValue(byte[] val, boolean encoded) {
-		if (!encoded) {
-			rawData = Base64.encodeToByte(val, false);
-		} else {
+	public synchronized void setValue(byte[] val, boolean encoded) {
+		checkNotFrozen();
+		if (encoded) {
 			rawData = val;
+			bytes = null;
+		} else {
+			rawData = null;
+			bytes = val;
+		}
+		buffer = null;
+	}
+
+	/**
+	 * Sets the decoded data value on this object to the remaining bytes of a
+	 * buffer, typically a mapped file too large to be held on the heap. The
+	 * buffer is not copied, and must not be modified while it is set.
+	 * 
+	 * @param val
+	 *            - decoded data to set
+	 */
+	public synchronized void setValue(ByteBuffer val) {
+		checkNotFrozen();
+		rawData = null;
+		bytes = null;
+		buffer = null == val ? null : val.slice().asReadOnlyBuffer();
+	}
+
+	/**
+	 * A value held in a buffer is written as decoded bytes.
+	 */
+	private synchronized void writeObject(ObjectOutputStream out)
+			throws IOException {
+		if (null == buffer) {
+			out.defaultWriteObject();
+			return;
 		}
+		bytes = getBytes();
+		try {
+			out.defaultWriteObject();
+		} finally {
+			bytes = null;
+		}
+	}
+
+	/**
+	 * Reads a {@link ByteBuffer}.
+	 */
+	private static class BufferInputStream extends InputStream {
+
+		private final ByteBuffer buf;
+
+		BufferInputStream(ByteBuffer buf) {
+			this.buf = buf;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.io.InputStream#read()
+		 */
+		@Override
+		public int read() {
+			return buf.hasRemaining() ? buf.get() & 0xFF : -1;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.io.InputStream#read(byte[], int, int)
+		 */
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			if (!buf.hasRemaining()) {
+				return -1;
+			}
+			len = Math.min(len, buf.remaining());
+			buf.get(b, off, len);
+			return len;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.io.InputStream#skip(long)
+		 */
+		@Override
+		public long skip(long n) {
+			int skipped = (int) Math.max(0, Math.min(n, buf.remaining()));
+			buf.position(buf.position() + skipped);
+			return skipped;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.io.InputStream#available()
+		 */
+		@Override
+		public int available() {
+			return buf.remaining();
+		}
+
 	}
 
-}
\ No newline at end of file
+}
@@ -12,14 +12,12 @@
  */
 package com.longevitysoft.android.xml.plist.domain;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Scanner;
-
-import android.util.Log;
+import com.longevitysoft.android.xml.plist.ValueDecoder;
 
 /**
- * Represents a simple plist date elements.
+ * Represents a simple plist date elements. The value is held as milliseconds
+ * since the epoch; {@link #getValue()} creates a {@link java.util.Date} on
+ * each call, use {@link #getTime()} to read it without allocating.
  */
 public class Date extends PListObject implements
 		IPListSimpleObject<java.util.Date> {
@@ -27,23 +25,22 @@ public class Date extends PListObject implements
 	/**
 	 * 
 	 */
-	private static final long serialVersionUID = 3846688440069431376L;
+	private static final long serialVersionUID = 6668477104401295479L;
 
 	private static final java.lang.String TAG = "Date";
 
 	/**
-	 * The parsed date object.
+	 * The value in milliseconds since the epoch, if {@link #hasValue} is set.
 	 */
-	protected java.util.Date date;
+	protected long time;
 
 	/**
-	 * Used for parsing ISO dates.
+	 * True once a value has been set.
 	 */
-	private SimpleDateFormat iso8601Format;
+	protected boolean hasValue;
 
 	public Date() {
 		setType(PListObjectType.DATE);
-		iso8601Format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
 	}
 
 	/*
@@ -54,7 +51,39 @@ public class Date extends PListObject implements
 	 */
 	@Override
 	public java.util.Date getValue() {
-		return (java.util.Date) date;
+		if (!hasValue) {
+			return null;
+		}
+		return new java.util.Date(time);
+	}
+
+	/**
+	 * @return true if a value has been set.
+	 */
+	public boolean hasValue() {
+		return hasValue;
+	}
+
+	/**
+	 * @return the value in milliseconds since the epoch.
+	 * @throws IllegalStateException
+	 *             if no value has been set.
+	 */
+	public long getTime() {
+		if (!hasValue) {
+			throw new IllegalStateException("date has no value");
+		}
+		return time;
+	}
+
+	/**
+	 * @param time
+	 *            the value to set, in milliseconds since the epoch.
+	 */
+	public void setValue(long time) {
+		checkNotFrozen();
+		this.time = time;
+		this.hasValue = true;
 	}
 
 	/*
@@ -66,33 +95,40 @@ public class Date extends PListObject implements
 	 */
 	@Override
 	public void setValue(java.util.Date val) {
-		this.date = val;
+		checkNotFrozen();
+		if (null == val) {
+			this.time = 0;
+			this.hasValue = false;
+		} else {
+			setValue(val.getTime());
+		}
 	}
 
-	/*
-	 * (non-Javadoc)
+	/**
+	 * Set the value from an ISO 8601 date, see
+	 * {@link ValueDecoder#parseDate(CharSequence, int, int)}, which is in UTC
+	 * unless it has an offset. Any other text is parsed by
+	 * {@link java.util.Date#parse(java.lang.String)}.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if val is not a date.
 	 * 
 	 * @see
 	 * com.longevitysoft.android.xml.plist.domain.IPListSimpleObject#setValue
 	 * (java.lang.String)
 	 */
 	@Override
+	@SuppressWarnings("deprecation")
 	public void setValue(java.lang.String val) {
-		// sniff date
 		if (null == val || val.length() < 1) {
-			this.date = null;
+			setValue((java.util.Date) null);
 			return;
 		}
-		Scanner scanner = new java.util.Scanner(val).useDelimiter("-");
-		if (scanner.hasNextInt()) {
-			try {
-				this.date = iso8601Format.parse(val);
-			} catch (ParseException e) {
-				Log.e(TAG, new StringBuilder("#setValue - error parsing val=")
-						.append(val).toString(), e);
-			}
-		} else {
-			this.date = new java.util.Date(java.util.Date.parse(val.trim()));
+		long parsed = ValueDecoder.parseDate(val, 0, val.length());
+		if (parsed == ValueDecoder.NOT_A_DATE) {
+			// dates written by other tools, such as RFC 822 dates
+			parsed = java.util.Date.parse(val.trim());
 		}
+		setValue(parsed);
 	}
-}
\ No newline at end of file
+}
@@ -15,11 +15,18 @@ package com.longevitysoft.android.xml.plist.domain;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
-import java.util.StringTokenizer;
-import java.util.TreeMap;
 
 /**
- * Represents a PList Dict object.
+ * Represents a PList Dict object. Entries are held in a {@link DictMap}
+ * unless another map is set with {@link #setConfigMap(Map)}. A frozen dict
+ * holds its entries in a frozen {@link DictMap}.
+ * <p>
+ * Every accessor taking a dotted key as a java.lang.String looks it up like
+ * {@link #getConfigurationObject(java.lang.String)}: through dicts only,
+ * stopping at the first value that is not a dict. The overloads taking a
+ * {@link KeyPath} look it up like {@link KeyPath#resolve(PListObject)}, which
+ * also indexes into arrays.
+ * </p>
  * 
  * @author fbeachler
  */
@@ -34,7 +41,7 @@ public class Dict extends PListObject {
 	protected Map<java.lang.String, PListObject> configMap;
 
 	public Dict() {
-		configMap = new TreeMap<java.lang.String, PListObject>();
+		configMap = new DictMap();
 		setType(PListObjectType.DICT);
 	}
 
@@ -45,16 +52,22 @@ public class Dict extends PListObject {
 	 * @param value
 	 */
 	public void putConfig(java.lang.String key, PListObject value) {
+		checkNotFrozen();
 		configMap.put(key, value);
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see java.lang.Object#toString()
+	/**
+	 * Sort the entries and release unused capacity, if the dict is backed by
+	 * a {@link DictMap}.
 	 */
+	public void trimToSize() {
+		if (configMap instanceof DictMap) {
+			((DictMap) configMap).trimToSize();
+		}
+	}
+
 	/**
-	 * @return the configMap
+	 * @return the configMap, iterated in key order.
 	 */
 	public Map<java.lang.String, PListObject> getConfigMap() {
 		return configMap;
@@ -65,15 +78,47 @@ public class Dict extends PListObject {
 	 *            the configMap to set
 	 */
 	public void setConfigMap(Map<java.lang.String, PListObject> configMap) {
+		checkNotFrozen();
 		this.configMap = configMap;
 	}
 
+	/**
+	 * Freeze the entries and their values too. Entries held in another map
+	 * than a {@link DictMap} are copied into one.
+	 * 
+	 * @see com.longevitysoft.android.xml.plist.domain.PListObject#freeze()
+	 */
+	@Override
+	void freeze() {
+		if (isFrozen()) {
+			return;
+		}
+		DictMap map;
+		if (configMap instanceof DictMap) {
+			map = (DictMap) configMap;
+		} else {
+			map = new DictMap(configMap.size());
+			map.putAll(configMap);
+		}
+		map.freeze();
+		for (int i = 0; i < map.size(); i++) {
+			PListObject value = map.valueAt(i);
+			if (null != value) {
+				value.freeze();
+			}
+		}
+		configMap = map;
+		super.freeze();
+	}
+
 	/**
 	 * Utility method which tokenizes the given keyName using the "." delimiter
 	 * and then looks up each token in the configuration dictionary. If the
 	 * token key points to a dictionary then it proceeds to the next token key
 	 * and looks up value of the token key in the dictionary it found from the
-	 * previous token key.
+	 * previous token key. A dotted key that has been compiled with
+	 * {@link KeyPath#compile(java.lang.String)} is looked up with its cached
+	 * segments.
 	 * 
 	 * @param key
 	 *            The fully qualified key text.
@@ -82,24 +127,58 @@ public class Dict extends PListObject {
 	 */
 	@SuppressWarnings("unchecked")
 	public <E extends PListObject> E getConfigurationObject(java.lang.String key) {
-		StringTokenizer st = new StringTokenizer(key, DOT);
-
-		if (st.hasMoreTokens()) {
-			Map<java.lang.String, PListObject> dict = configMap;
-			Object obj;
-			while (st.hasMoreTokens()) {
-				java.lang.String token = st.nextToken();
-				obj = dict.get(token);
+		if (key.indexOf(DOT) < 0) {
+			return (E) configMap.get(key);
+		}
+		Map<java.lang.String, PListObject> dict = configMap;
+		KeyPath path = KeyPath.cached(key);
+		if (null != path) {
+			for (int i = 0; i < path.size(); i++) {
+				Object obj = dict.get(path.getSegment(i));
 				if (obj instanceof Dict) {
 					dict = ((Dict) obj).getConfigMap();
 					continue;
 				}
 				return (E) obj;
 			}
+			return (E) configMap.get(key);
+		}
+		// not compiled, walk the segments without compiling the key, which
+		// would fill the cache with one-off keys
+		int start = 0;
+		while (start < key.length()) {
+			int end = key.indexOf(DOT, start);
+			if (end < 0) {
+				end = key.length();
+			}
+			if (end > start) {
+				Object obj = dict.get(key.substring(start, end));
+				if (obj instanceof Dict) {
+					dict = ((Dict) obj).getConfigMap();
+				} else {
+					return (E) obj;
+				}
+			}
+			start = end + 1;
 		}
 		return (E) configMap.get(key);
 	}
 
+	/**
+	 * Look up a compiled key path in this dict, see
+	 * {@link KeyPath#resolve(PListObject)}. Unlike the String overload, every
+	 * segment must be found, and numeric segments index into arrays.
+	 * 
+	 * @param path
+	 *            The compiled key path.
+	 * @return The Object value at the given path, or null if the path does not
+	 *         exist.
+	 */
+	@SuppressWarnings("unchecked")
+	public <E extends PListObject> E getConfigurationObject(KeyPath path) {
+		return (E) path.resolve(this);
+	}
+
 	/**
 	 * Get an String configuration value for the given key.
 	 * 
@@ -182,6 +261,232 @@ public class Dict extends PListObject {
 		return (Array) getConfigurationObject(key);
 	}
 
+	/**
+	 * Get a String configuration value at the given path.
+	 * 
+	 * @param path
+	 *            The compiled key path.
+	 * @return The String value at the specified path.
+	 */
+	public String getConfiguration(KeyPath path) {
+		return (String) getConfigurationObject(path);
+	}
+
+	/**
+	 * Get a String configuration value at the given path. If there is no value
+	 * at the path, then return the default value.
+	 * 
+	 * @param path
+	 *            The compiled key path.
+	 * @param defaultValue
+	 *            The default value to return if the path has no value.
+	 * @return The String value at the specified path, or defaultValue.
+	 */
+	public String getConfigurationWithDefault(KeyPath path, String defaultValue) {
+		String value = getConfiguration(path);
+		if (value == null) {
+			return defaultValue;
+		}
+
+		return value;
+	}
+
+	/**
+	 * Get an Integer configuration value at the given path.
+	 * 
+	 * @param path
+	 *            The compiled key path.
+	 * @return The Integer value at the specified path.
+	 */
+	public Integer getConfigurationInteger(KeyPath path) {
+		return (Integer) getConfigurationObject(path);
+	}
+
+	/**
+	 * Get an Integer configuration value at the given path. If there is no
+	 * value at the path, then return the default value.
+	 * 
+	 * @param path
+	 *            The compiled key path.
+	 * @param defaultValue
+	 *            The default value to return if the path has no value.
+	 * @return The Integer value at the specified path, or defaultValue.
+	 */
+	public Integer getConfigurationIntegerWithDefault(KeyPath path,
+			Integer defaultValue) {
+		Integer value = getConfigurationInteger(path);
+		if (value == null) {
+			return defaultValue;
+		}
+
+		return value;
+	}
+
+	/**
+	 * Get an Array configuration value at the given path.
+	 * 
+	 * @param path
+	 *            The compiled key path.
+	 * @return The Array value at the specified path.
+	 */
+	public Array getConfigurationArray(KeyPath path) {
+		return (Array) getConfigurationObject(path);
+	}
+
+	/**
+	 * Get an int value for the given key without boxing it.
+	 * 
+	 * @param key
+	 *            The dotted key, looked up like
+	 *            {@link #getConfigurationObject(java.lang.String)}.
+	 * @param defaultValue
+	 *            The value to return if the path does not hold an
+	 *            {@link Integer} that fits in an int.
+	 * @return The int value at the path, or defaultValue.
+	 */
+	public int getInt(java.lang.String key, int defaultValue) {
+		return toInt(getConfigurationObject(key), defaultValue);
+	}
+
+	/**
+	 * Get an int value at the given path without boxing it.
+	 * 
+	 * @param path
+	 *            The compiled key path.
+	 * @param defaultValue
+	 *            The value to return if the path does not hold an
+	 *            {@link Integer} that fits in an int.
+	 * @return The int value at the path, or defaultValue.
+	 */
+	public int getInt(KeyPath path, int defaultValue) {
+		return toInt(path.resolve(this), defaultValue);
+	}
+
+	private static int toInt(PListObject obj, int defaultValue) {
+		if (obj instanceof Integer && ((Integer) obj).isLong()) {
+			long value = ((Integer) obj).getLongValue();
+			if (value >= java.lang.Integer.MIN_VALUE
+					&& value <= java.lang.Integer.MAX_VALUE) {
+				return (int) value;
+			}
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * Get a long value for the given key without boxing it.
+	 * 
+	 * @param key
+	 *            The dotted key, looked up like
+	 *            {@link #getConfigurationObject(java.lang.String)}.
+	 * @param defaultValue
+	 *            The value to return if the path does not hold an
+	 *            {@link Integer} that fits in a long.
+	 * @return The long value at the path, or defaultValue.
+	 */
+	public long getLong(java.lang.String key, long defaultValue) {
+		return toLong(getConfigurationObject(key), defaultValue);
+	}
+
+	/**
+	 * Get a long value at the given path without boxing it.
+	 * 
+	 * @param path
+	 *            The compiled key path.
+	 * @param defaultValue
+	 *            The value to return if the path does not hold an
+	 *            {@link Integer} that fits in a long.
+	 * @return The long value at the path, or defaultValue.
+	 */
+	public long getLong(KeyPath path, long defaultValue) {
+		return toLong(path.resolve(this), defaultValue);
+	}
+
+	private static long toLong(PListObject obj, long defaultValue) {
+		if (obj instanceof Integer && ((Integer) obj).isLong()) {
+			return ((Integer) obj).getLongValue();
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * Get a double value for the given key without boxing it.
+	 * 
+	 * @param key
+	 *            The dotted key, looked up like
+	 *            {@link #getConfigurationObject(java.lang.String)}.
+	 * @param defaultValue
+	 *            The value to return if the path does not hold a
+	 *            {@link Real} or {@link Integer}.
+	 * @return The double value at the path, or defaultValue.
+	 */
+	public double getDouble(java.lang.String key, double defaultValue) {
+		return toDouble(getConfigurationObject(key), defaultValue);
+	}
+
+	/**
+	 * Get a double value at the given path without boxing it.
+	 * 
+	 * @param path
+	 *            The compiled key path.
+	 * @param defaultValue
+	 *            The value to return if the path does not hold a
+	 *            {@link Real} or {@link Integer}.
+	 * @return The double value at the path, or defaultValue.
+	 */
+	public double getDouble(KeyPath path, double defaultValue) {
+		return toDouble(path.resolve(this), defaultValue);
+	}
+
+	private static double toDouble(PListObject obj, double defaultValue) {
+		if (obj instanceof Real && ((Real) obj).hasValue()) {
+			return ((Real) obj).getDoubleValue();
+		}
+		if (obj instanceof Integer && ((Integer) obj).hasValue()) {
+			return ((Integer) obj).getDoubleValue();
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * Get a boolean value for the given key.
+	 * 
+	 * @param key
+	 *            The dotted key, looked up like
+	 *            {@link #getConfigurationObject(java.lang.String)}.
+	 * @param defaultValue
+	 *            The value to return if the path does not hold a
+	 *            {@link True} or {@link False}.
+	 * @return The boolean value at the path, or defaultValue.
+	 */
+	public boolean getBoolean(java.lang.String key, boolean defaultValue) {
+		return toBoolean(getConfigurationObject(key), defaultValue);
+	}
+
+	/**
+	 * Get a boolean value at the given path.
+	 * 
+	 * @param path
+	 *            The compiled key path.
+	 * @param defaultValue
+	 *            The value to return if the path does not hold a
+	 *            {@link True} or {@link False}.
+	 * @return The boolean value at the path, or defaultValue.
+	 */
+	public boolean getBoolean(KeyPath path, boolean defaultValue) {
+		return toBoolean(path.resolve(this), defaultValue);
+	}
+
+	private static boolean toBoolean(PListObject obj, boolean defaultValue) {
+		if (obj instanceof True) {
+			return true;
+		}
+		if (obj instanceof False) {
+			return false;
+		}
+		return defaultValue;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -0,0 +1,539 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.xml.plist.domain;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * <p>
+ * The {@link Map} behind a {@link Dict}. Keys and values are held in two
+ * parallel arrays kept in key order, so an entry costs two array slots
+ * instead of a tree node, and lookups are a binary search over one array.
+ * Iteration is in key order, like a {@link java.util.TreeMap}.
+ * </p>
+ * <p>
+ * Keys put in order, as they appear in PLists written by Apple tooling, are
+ * appended. Keys put out of order are appended too and found through an
+ * open addressing hash index until the map is next iterated or
+ * {@link #trimToSize()} is called, which sort the arrays once. A map that has
+ * been sorted is not modified by reads, so it can be read from several
+ * threads once it is no longer being changed.
+ * </p>
+ * <p>
+ * The map of a frozen {@link Dict} is sorted, trimmed and frozen itself:
+ * modifying it throws {@link UnsupportedOperationException}.
+ * </p>
+ * 
+ * @author fbeachler
+ * 
+ */
+public class DictMap extends AbstractMap<java.lang.String, PListObject>
+		implements Serializable {
+
+	private static final long serialVersionUID = 2590354781268946211L;
+
+	public static final java.lang.String TAG = "DictMap";
+
+	private static final int DEFAULT_CAPACITY = 4;
+
+	/**
+	 * Maps out of key order with up to this many entries are searched
+	 * linearly instead of through a hash index.
+	 */
+	private static final int MAX_LINEAR_SIZE = 8;
+
+	/**
+	 * Arrays shorter than this are sorted by insertion.
+	 */
+	private static final int INSERTION_SORT_SIZE = 7;
+
+	private java.lang.String[] keys;
+	private PListObject[] values;
+	private int size;
+
+	/**
+	 * True while keys[0..size) is in ascending order.
+	 */
+	private boolean sorted;
+
+	/**
+	 * Open addressing table of entry index + 1, 0 for an empty slot. Only
+	 * kept while the map is not sorted and has more than
+	 * {@link #MAX_LINEAR_SIZE} entries.
+	 */
+	private int[] index;
+
+	/**
+	 * True once the map can no longer be modified.
+	 */
+	private boolean frozen;
+
+	private transient int modCount;
+
+	/**
+	 * 
+	 */
+	public DictMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity
+	 *            the number of entries to allocate room for.
+	 */
+	public DictMap(int capacity) {
+		super();
+		keys = new java.lang.String[capacity];
+		values = new PListObject[capacity];
+		sorted = true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#size()
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#containsKey(java.lang.Object)
+	 */
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#get(java.lang.Object)
+	 */
+	@Override
+	public PListObject get(Object key) {
+		int i = indexOf(key);
+		return i < 0 ? null : values[i];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public PListObject put(java.lang.String key, PListObject value) {
+		checkNotFrozen();
+		if (null == key) {
+			throw new NullPointerException("key is null");
+		}
+		if (sorted && (size == 0 || keys[size - 1].compareTo(key) < 0)) {
+			append(key, value);
+			return null;
+		}
+		int i = indexOf(key);
+		if (i >= 0) {
+			PListObject ret = values[i];
+			values[i] = value;
+			return ret;
+		}
+		sorted = false;
+		append(key, value);
+		if (size > MAX_LINEAR_SIZE) {
+			if (null == index || size * 2 > index.length) {
+				buildIndex();
+			} else {
+				insertIndex(size - 1);
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#remove(java.lang.Object)
+	 */
+	@Override
+	public PListObject remove(Object key) {
+		checkNotFrozen();
+		int i = indexOf(key);
+		return i < 0 ? null : removeAt(i);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#clear()
+	 */
+	@Override
+	public void clear() {
+		checkNotFrozen();
+		for (int i = 0; i < size; i++) {
+			keys[i] = null;
+			values[i] = null;
+		}
+		size = 0;
+		sorted = true;
+		index = null;
+		modCount++;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#entrySet()
+	 */
+	@Override
+	public Set<Map.Entry<java.lang.String, PListObject>> entrySet() {
+		return new EntrySet();
+	}
+
+	/**
+	 * Sort the entries if needed and release unused capacity. Called on each
+	 * {@link Dict} of a parsed {@link PList} once its end tag is read.
+	 */
+	public void trimToSize() {
+		if (frozen) {
+			return;
+		}
+		ensureSorted();
+		if (keys.length != size) {
+			java.lang.String[] newKeys = new java.lang.String[size];
+			PListObject[] newValues = new PListObject[size];
+			System.arraycopy(keys, 0, newKeys, 0, size);
+			System.arraycopy(values, 0, newValues, 0, size);
+			keys = newKeys;
+			values = newValues;
+		}
+	}
+
+	/**
+	 * Sort and trim the map and prevent any further modification of it.
+	 */
+	void freeze() {
+		trimToSize();
+		frozen = true;
+	}
+
+	/**
+	 * @return true if the map can no longer be modified.
+	 */
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	/**
+	 * @return the key of entry i in key order.
+	 */
+	java.lang.String keyAt(int i) {
+		ensureSorted();
+		return keys[i];
+	}
+
+	/**
+	 * @return the value of entry i in key order.
+	 */
+	PListObject valueAt(int i) {
+		ensureSorted();
+		return values[i];
+	}
+
+	private void checkNotFrozen() {
+		if (frozen) {
+			throw new UnsupportedOperationException(
+					"frozen dict cannot be modified");
+		}
+	}
+
+	/**
+	 * @return the position of key in the arrays, or -1.
+	 */
+	private int indexOf(Object key) {
+		if (!(key instanceof java.lang.String)) {
+			return -1;
+		}
+		if (sorted) {
+			int lo = 0;
+			int hi = size - 1;
+			while (lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+				int cmp = keys[mid].compareTo((java.lang.String) key);
+				if (cmp < 0) {
+					lo = mid + 1;
+				} else if (cmp > 0) {
+					hi = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+			return -1;
+		}
+		if (null == index) {
+			for (int i = 0; i < size; i++) {
+				if (keys[i].equals(key)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+		int mask = index.length - 1;
+		for (int slot = hash(key) & mask; index[slot] != 0; slot = (slot + 1)
+				& mask) {
+			if (keys[index[slot] - 1].equals(key)) {
+				return index[slot] - 1;
+			}
+		}
+		return -1;
+	}
+
+	private void append(java.lang.String key, PListObject value) {
+		if (size == keys.length) {
+			int capacity = size < DEFAULT_CAPACITY ? DEFAULT_CAPACITY : size
+					+ (size >> 1);
+			java.lang.String[] newKeys = new java.lang.String[capacity];
+			PListObject[] newValues = new PListObject[capacity];
+			System.arraycopy(keys, 0, newKeys, 0, size);
+			System.arraycopy(values, 0, newValues, 0, size);
+			keys = newKeys;
+			values = newValues;
+		}
+		keys[size] = key;
+		values[size] = value;
+		size++;
+		modCount++;
+	}
+
+	private PListObject removeAt(int i) {
+		PListObject ret = values[i];
+		int moved = size - i - 1;
+		if (moved > 0) {
+			System.arraycopy(keys, i + 1, keys, i, moved);
+			System.arraycopy(values, i + 1, values, i, moved);
+		}
+		size--;
+		keys[size] = null;
+		values[size] = null;
+		if (!sorted) {
+			index = null;
+			if (size > MAX_LINEAR_SIZE) {
+				buildIndex();
+			}
+		}
+		modCount++;
+		return ret;
+	}
+
+	private static int hash(Object key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	private void buildIndex() {
+		int capacity = java.lang.Integer.highestOneBit(size) << 2;
+		index = new int[capacity];
+		for (int i = 0; i < size; i++) {
+			insertIndex(i);
+		}
+	}
+
+	private void insertIndex(int i) {
+		int mask = index.length - 1;
+		int slot = hash(keys[i]) & mask;
+		while (index[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		index[slot] = i + 1;
+	}
+
+	/**
+	 * Sort the arrays by key if they are not in order.
+	 */
+	private void ensureSorted() {
+		if (sorted) {
+			return;
+		}
+		java.lang.String[] srcKeys = new java.lang.String[size];
+		PListObject[] srcValues = new PListObject[size];
+		System.arraycopy(keys, 0, srcKeys, 0, size);
+		System.arraycopy(values, 0, srcValues, 0, size);
+		mergeSort(srcKeys, srcValues, keys, values, 0, size);
+		sorted = true;
+		index = null;
+		modCount++;
+	}
+
+	/**
+	 * Sort src[lo..hi) into dst[lo..hi). Both ranges hold the same entries on
+	 * entry, src is used as scratch space.
+	 */
+	private static void mergeSort(java.lang.String[] srcKeys,
+			PListObject[] srcValues, java.lang.String[] dstKeys,
+			PListObject[] dstValues, int lo, int hi) {
+		if (hi - lo < INSERTION_SORT_SIZE) {
+			for (int i = lo + 1; i < hi; i++) {
+				java.lang.String key = dstKeys[i];
+				PListObject value = dstValues[i];
+				int j = i;
+				for (; j > lo && dstKeys[j - 1].compareTo(key) > 0; j--) {
+					dstKeys[j] = dstKeys[j - 1];
+					dstValues[j] = dstValues[j - 1];
+				}
+				dstKeys[j] = key;
+				dstValues[j] = value;
+			}
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		mergeSort(dstKeys, dstValues, srcKeys, srcValues, lo, mid);
+		mergeSort(dstKeys, dstValues, srcKeys, srcValues, mid, hi);
+		for (int i = lo, p = lo, q = mid; i < hi; i++) {
+			if (q >= hi || (p < mid && srcKeys[p].compareTo(srcKeys[q]) <= 0)) {
+				dstKeys[i] = srcKeys[p];
+				dstValues[i] = srcValues[p++];
+			} else {
+				dstKeys[i] = srcKeys[q];
+				dstValues[i] = srcValues[q++];
+			}
+		}
+	}
+
+	/**
+	 * The entries of the map, in key order.
+	 */
+	private class EntrySet extends
+			AbstractSet<Map.Entry<java.lang.String, PListObject>> {
+
+		@Override
+		public Iterator<Map.Entry<java.lang.String, PListObject>> iterator() {
+			ensureSorted();
+			return new EntryIterator();
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public void clear() {
+			DictMap.this.clear();
+		}
+
+	}
+
+	private class EntryIterator implements
+			Iterator<Map.Entry<java.lang.String, PListObject>> {
+
+		private int next;
+		private int last = -1;
+		private int expectedModCount = modCount;
+
+		@Override
+		public boolean hasNext() {
+			return next < size;
+		}
+
+		@Override
+		public Map.Entry<java.lang.String, PListObject> next() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (next >= size) {
+				throw new NoSuchElementException();
+			}
+			last = next++;
+			return new Entry(last);
+		}
+
+		@Override
+		public void remove() {
+			checkNotFrozen();
+			if (last < 0) {
+				throw new IllegalStateException();
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			removeAt(last);
+			next = last;
+			last = -1;
+			expectedModCount = modCount;
+		}
+
+	}
+
+	/**
+	 * An entry that reads and writes through to the arrays.
+	 */
+	private class Entry implements Map.Entry<java.lang.String, PListObject> {
+
+		private final int i;
+
+		Entry(int i) {
+			this.i = i;
+		}
+
+		@Override
+		public java.lang.String getKey() {
+			return keys[i];
+		}
+
+		@Override
+		public PListObject getValue() {
+			return values[i];
+		}
+
+		@Override
+		public PListObject setValue(PListObject value) {
+			checkNotFrozen();
+			PListObject ret = values[i];
+			values[i] = value;
+			return ret;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return getKey().equals(e.getKey())
+					&& (null == getValue() ? null == e.getValue()
+							: getValue().equals(e.getValue()));
+		}
+
+		@Override
+		public int hashCode() {
+			return getKey().hashCode()
+					^ (null == getValue() ? 0 : getValue().hashCode());
+		}
+
+		@Override
+		public java.lang.String toString() {
+			return getKey() + "=" + getValue();
+		}
+
+	}
+
+}
@@ -13,7 +13,8 @@
 package com.longevitysoft.android.xml.plist.domain;
 
 /**
- * Represents a simple plist false element.
+ * Represents a simple plist false element. It holds no value of its own, so
+ * parsers share the frozen instance returned by {@link #getInstance()}.
  */
 public class False extends PListObject implements IPListSimpleObject<Boolean> {
 
@@ -22,10 +23,23 @@ public class False extends PListObject implements IPListSimpleObject<Boolean> {
 	 */
 	private static final long serialVersionUID = -8533886020773567552L;
 
+	private static final False INSTANCE = new False();
+
+	static {
+		INSTANCE.freeze();
+	}
+
 	public False() {
 		setType(PListObjectType.FALSE);
 	}
 
+	/**
+	 * @return the shared, frozen instance.
+	 */
+	public static False getInstance() {
+		return INSTANCE;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -34,7 +48,7 @@ public class False extends PListObject implements IPListSimpleObject<Boolean> {
 	 */
 	@Override
 	public Boolean getValue() {
-		return new Boolean(false);
+		return Boolean.FALSE;
 	}
 
 	/*
@@ -61,4 +75,11 @@ public class False extends PListObject implements IPListSimpleObject<Boolean> {
 		// noop
 	}
 
-}
\ No newline at end of file
+	/**
+	 * The shared instance stays the only frozen one when deserialized.
+	 */
+	private Object readResolve() {
+		return isFrozen() ? INSTANCE : this;
+	}
+
+}
@@ -12,23 +12,115 @@
  */
 package com.longevitysoft.android.xml.plist.domain;
 
+import java.math.BigInteger;
+
+import com.longevitysoft.android.xml.plist.ValueDecoder;
+
 /**
- * Represents a simple plist int element.
+ * Represents a simple plist int element. The value is held as a primitive
+ * long; {@link #getValue()} boxes it on each call, use {@link #getLongValue()}
+ * or {@link #getIntValue()} to read it without allocating. Values that do not
+ * fit in a long, such as unsigned 64 bit values above {@link Long#MAX_VALUE},
+ * are held as a {@link BigInteger}, see {@link #isLong()}.
  */
 public class Integer extends PListObject implements
 		IPListSimpleObject<java.lang.Integer> {
 
-	protected java.lang.Integer intgr;
+	/**
+	 * The value, if {@link #hasValue} is set.
+	 */
+	protected long value;
+
+	/**
+	 * True once a value has been set.
+	 */
+	protected boolean hasValue;
+
+	/**
+	 * The value if it does not fit in a long, otherwise null.
+	 */
+	protected BigInteger bigValue;
 
 	/**
 	 * 
 	 */
-	private static final long serialVersionUID = -5952071046933925529L;
+	private static final long serialVersionUID = -8386497565367981837L;
+
+	/**
+	 * The smallest value {@link #valueOf(long)} shares.
+	 */
+	public static final int CACHE_LOW = -128;
+
+	/**
+	 * The largest value {@link #valueOf(long)} shares.
+	 */
+	public static final int CACHE_HIGH = 1023;
 
 	public Integer() {
 		setType(PListObjectType.INTEGER);
 	}
 
+	/**
+	 * Get a frozen integer holding val. Values from {@link #CACHE_LOW} to
+	 * {@link #CACHE_HIGH} are shared, others are allocated.
+	 * 
+	 * @param val
+	 * @return the frozen integer.
+	 */
+	public static Integer valueOf(long val) {
+		if (val >= CACHE_LOW && val <= CACHE_HIGH) {
+			return Cache.VALUES[(int) val - CACHE_LOW];
+		}
+		return frozen(val);
+	}
+
+	/**
+	 * Get a frozen integer holding the value of a range of characters, see
+	 * {@link #setValue(CharSequence, int, int)} and {@link #valueOf(long)}.
+	 * 
+	 * @param cs
+	 * @param start
+	 * @param end
+	 * @return the frozen integer.
+	 * @throws NumberFormatException
+	 *             if the range is not an integer.
+	 */
+	public static Integer valueOf(CharSequence cs, int start, int end)
+			throws NumberFormatException {
+		long val;
+		try {
+			val = ValueDecoder.parseLong(cs, start, end);
+		} catch (NumberFormatException e) {
+			Integer ret = new Integer();
+			ret.setValue(ValueDecoder.parseBigInteger(cs, start, end));
+			ret.freeze();
+			return ret;
+		}
+		return valueOf(val);
+	}
+
+	private static Integer frozen(long val) {
+		Integer ret = new Integer();
+		ret.setValue(val);
+		ret.freeze();
+		return ret;
+	}
+
+	/**
+	 * Created on first use of {@link Integer#valueOf(long)}.
+	 */
+	private static final class Cache {
+
+		static final Integer[] VALUES = new Integer[CACHE_HIGH - CACHE_LOW + 1];
+
+		static {
+			for (int i = 0; i < VALUES.length; i++) {
+				VALUES[i] = frozen(CACHE_LOW + i);
+			}
+		}
+
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -37,7 +129,132 @@ public class Integer extends PListObject implements
 	 */
 	@Override
 	public java.lang.Integer getValue() {
-		return intgr;
+		if (!hasValue) {
+			return null;
+		}
+		return java.lang.Integer.valueOf(getIntValue());
+	}
+
+	/**
+	 * @return true if a value has been set.
+	 */
+	public boolean hasValue() {
+		return hasValue;
+	}
+
+	/**
+	 * @return true if a value has been set and it fits in a long.
+	 */
+	public boolean isLong() {
+		return hasValue && null == bigValue;
+	}
+
+	/**
+	 * @return the value.
+	 * @throws IllegalStateException
+	 *             if no value has been set or it does not fit in a long.
+	 */
+	public long getLongValue() {
+		if (!hasValue) {
+			throw new IllegalStateException("integer has no value");
+		}
+		if (null != bigValue) {
+			throw new IllegalStateException(
+					"integer does not fit in a long: " + bigValue);
+		}
+		return value;
+	}
+
+	/**
+	 * @return the value, or null if no value has been set.
+	 */
+	public BigInteger getBigIntegerValue() {
+		if (!hasValue) {
+			return null;
+		}
+		return null == bigValue ? BigInteger.valueOf(value) : bigValue;
+	}
+
+	/**
+	 * @return the value, rounded to the nearest double.
+	 * @throws IllegalStateException
+	 *             if no value has been set.
+	 */
+	public double getDoubleValue() {
+		if (!hasValue) {
+			throw new IllegalStateException("integer has no value");
+		}
+		return null == bigValue ? value : bigValue.doubleValue();
+	}
+
+	/**
+	 * @return the value.
+	 * @throws IllegalStateException
+	 *             if no value has been set or it does not fit in an int.
+	 */
+	public int getIntValue() {
+		long val = getLongValue();
+		if (val < java.lang.Integer.MIN_VALUE
+				|| val > java.lang.Integer.MAX_VALUE) {
+			throw new IllegalStateException(
+					"integer does not fit in an int: " + val);
+		}
+		return (int) val;
+	}
+
+	/**
+	 * @param val
+	 *            the value to set
+	 */
+	public void setValue(long val) {
+		checkNotFrozen();
+		this.value = val;
+		this.bigValue = null;
+		this.hasValue = true;
+	}
+
+	/**
+	 * @param val
+	 *            the value to set, held as a long if it fits in one.
+	 */
+	public void setValue(BigInteger val) {
+		checkNotFrozen();
+		if (null == val) {
+			this.value = 0;
+			this.bigValue = null;
+			this.hasValue = false;
+		} else if (val.bitLength() < 64) {
+			setValue(val.longValue());
+		} else {
+			this.value = 0;
+			this.bigValue = val;
+			this.hasValue = true;
+		}
+	}
+
+	/**
+	 * Set the value from a range of characters, see
+	 * {@link ValueDecoder#parseLong(CharSequence, int, int)}. Values that do
+	 * not fit in a long are held as a {@link BigInteger}.
+	 * 
+	 * @param cs
+	 * @param start
+	 * @param end
+	 * @throws NumberFormatException
+	 *             if the range is not an integer.
+	 */
+	public void setValue(CharSequence cs, int start, int end)
+			throws NumberFormatException {
+		checkNotFrozen();
+		long val;
+		try {
+			val = ValueDecoder.parseLong(cs, start, end);
+		} catch (NumberFormatException e) {
+			// out of range, or not an integer which this throws again
+			setValue(ValueDecoder.parseBigInteger(cs, start, end));
+			return;
+		}
+		setValue(val);
 	}
 
 	/*
@@ -49,11 +266,16 @@ public class Integer extends PListObject implements
 	 */
 	@Override
 	public void setValue(java.lang.Integer val) {
-		this.intgr = val;
+		if (null == val) {
+			setValue((BigInteger) null);
+		} else {
+			setValue(val.longValue());
+		}
 	}
 
-	/*
-	 * (non-Javadoc)
+	/**
+	 * Set the value from its text, see
+	 * {@link #setValue(CharSequence, int, int)}.
 	 * 
 	 * @see
 	 * com.longevitysoft.android.xml.plist.domain.IPListSimpleObject#setValue
@@ -61,8 +283,7 @@ public class Integer extends PListObject implements
 	 */
 	@Override
 	public void setValue(java.lang.String val) {
-		this.intgr = new java.lang.Integer(java.lang.Integer.parseInt(val
-				.trim()));
+		setValue(val, 0, val.length());
 	}
 
-}
\ No newline at end of file
+}
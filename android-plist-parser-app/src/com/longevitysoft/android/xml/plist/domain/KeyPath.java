@@ -0,0 +1,192 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.xml.plist.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * A dotted key path, such as <code>items.3.name</code>, split into its
+ * segments once so it can be looked up repeatedly without tokenizing. A
+ * segment selects the entry of that key in a {@link Dict}, or, if it is a
+ * non-negative decimal number, the element at that index of an {@link Array}.
+ * </p>
+ * <p>
+ * Key paths are immutable. Paths compiled with {@link #compile(java.lang.String)}
+ * are cached, so compiling the same path again usually returns the same
+ * instance. The cache is emptied once it holds {@link #MAX_CACHED_PATHS}
+ * paths, so paths compiled only once do not stay in it for good.
+ * </p>
+ * 
+ * @author fbeachler
+ * 
+ */
+public final class KeyPath {
+
+	public static final java.lang.String TAG = "KeyPath";
+
+	/**
+	 * Maximum number of compiled paths kept in the cache.
+	 */
+	public static final int MAX_CACHED_PATHS = 1024;
+
+	private static final ConcurrentHashMap<java.lang.String, KeyPath> CACHE = new ConcurrentHashMap<java.lang.String, KeyPath>();
+
+	private final java.lang.String path;
+	private final java.lang.String[] segments;
+
+	/**
+	 * Array index of each segment, -1 for segments that are not a number.
+	 */
+	private final int[] indexes;
+
+	private KeyPath(java.lang.String path) {
+		this.path = path;
+		List<java.lang.String> tokens = new ArrayList<java.lang.String>();
+		StringTokenizer st = new StringTokenizer(path, Dict.DOT);
+		while (st.hasMoreTokens()) {
+			tokens.add(st.nextToken());
+		}
+		segments = tokens.toArray(new java.lang.String[tokens.size()]);
+		indexes = new int[segments.length];
+		for (int i = 0; i < segments.length; i++) {
+			indexes[i] = parseIndex(segments[i]);
+		}
+	}
+
+	/**
+	 * Compile a dotted key path. Empty segments are ignored, as they are by
+	 * {@link Dict#getConfigurationObject(java.lang.String)}.
+	 * 
+	 * @param path
+	 * @return the compiled path.
+	 * @throws IllegalArgumentException
+	 *             if path is null.
+	 */
+	public static KeyPath compile(java.lang.String path) {
+		if (null == path) {
+			throw new IllegalArgumentException("key path is null");
+		}
+		KeyPath ret = CACHE.get(path);
+		if (null == ret) {
+			ret = new KeyPath(path);
+			if (CACHE.size() >= MAX_CACHED_PATHS) {
+				CACHE.clear();
+			}
+			KeyPath cached = CACHE.putIfAbsent(path, ret);
+			if (null != cached) {
+				ret = cached;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @param path
+	 * @return the compiled path from the cache, or null if it is not cached.
+	 */
+	static KeyPath cached(java.lang.String path) {
+		return CACHE.get(path);
+	}
+
+	/**
+	 * @return the number of segments.
+	 */
+	public int size() {
+		return segments.length;
+	}
+
+	/**
+	 * @param i
+	 * @return segment i of the path.
+	 */
+	public java.lang.String getSegment(int i) {
+		return segments[i];
+	}
+
+	/**
+	 * Look up the path from root.
+	 * 
+	 * @param root
+	 *            the object the first segment is looked up in.
+	 * @return the object at the end of the path, or null if a segment is not
+	 *         found or a segment before the last does not select a
+	 *         {@link Dict} or {@link Array}.
+	 */
+	public PListObject resolve(PListObject root) {
+		PListObject obj = root;
+		for (int i = 0; i < segments.length && null != obj; i++) {
+			if (obj instanceof Dict) {
+				obj = ((Dict) obj).getConfigMap().get(segments[i]);
+			} else if (obj instanceof Array && indexes[i] >= 0) {
+				Array array = (Array) obj;
+				obj = indexes[i] < array.size() ? array.get(indexes[i]) : null;
+			} else {
+				return null;
+			}
+		}
+		return obj;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof KeyPath && path.equals(((KeyPath) o).path);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return path.hashCode();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public java.lang.String toString() {
+		return path;
+	}
+
+	/**
+	 * @return segment as an array index, or -1 if it is not a number.
+	 */
+	private static int parseIndex(java.lang.String segment) {
+		if (segment.length() > 9) {
+			return -1;
+		}
+		int ret = 0;
+		for (int i = 0; i < segment.length(); i++) {
+			char c = segment.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			ret = ret * 10 + (c - '0');
+		}
+		return ret;
+	}
+
+}
@@ -12,18 +12,38 @@
  */
 package com.longevitysoft.android.xml.plist.domain;
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Stack;
 
-import android.util.Log;
-
+import com.longevitysoft.android.util.PListLog;
 import com.longevitysoft.android.util.Stringer;
 import com.longevitysoft.android.xml.plist.Constants;
 
 /**
  * A PList class contains the objects and methods used to build and access a
  * PList. TODO: refactor so this meets the contract stated above
+ * <p>
+ * {@link Data} values too large for the heap may be held in temporary files
+ * owned by the PList, see {@link #addTempFile(File)}. They are deleted by
+ * {@link #close()}, after which those values must no longer be read.
+ * </p>
+ * <p>
+ * A PList built with {@link #setShareSubtrees(boolean)} freezes each
+ * {@link Dict} and {@link Array} as it is popped off the stack, and shares
+ * one instance of each set of equal ones, see
+ * {@link #getSharedSubtreeCount()} and {@link #getSharedSubtreeBytes()}.
+ * </p>
+ * <p>
+ * A PList is not thread safe. Once built, it can be frozen into a snapshot
+ * that any number of threads may read without synchronization, see
+ * {@link #freeze()}.
+ * </p>
  */
-public class PList {
+public class PList implements Closeable {
 
 	public static final java.lang.String TAG = "PList";
 
@@ -34,13 +54,51 @@ public class PList {
 	 */
 	private PListObject root;
 
+	/**
+	 * True if this PList is a snapshot returned by {@link #freeze()}.
+	 */
+	private final boolean frozen;
+
+	/**
+	 * The root of a snapshot. Final, so the frozen tree it refers to is
+	 * visible to every thread that can see the snapshot.
+	 */
+	private final PListObject frozenRoot;
+
 	private boolean stackCtxInDict;
 	private boolean stackCtxInArray;
 	private int stackCtxNestedDepth;
 	// TODO - replace with some type of Map
 	private Stack<PListObject> stack;
 
+	/**
+	 * Temporary files deleted by {@link #close()}, null until one is added.
+	 */
+	private List<File> tempFiles;
+
+	/**
+	 * Equal containers popped so far, null unless subtrees are shared.
+	 */
+	private SubtreeTable subtrees;
+
+	/**
+	 * Keys of the containers on the stack, kept while subtrees are shared so
+	 * a container can be replaced in its parent.
+	 */
+	private Stack<java.lang.String> stackKeys;
+
 	public PList() {
+		this(false, null);
+	}
+
+	/**
+	 * @param frozen
+	 * @param frozenRoot
+	 *            the root of a snapshot, already frozen.
+	 */
+	private PList(boolean frozen, PListObject frozenRoot) {
+		this.frozen = frozen;
+		this.frozenRoot = frozenRoot;
 		stringer = new Stringer();
 		stackCtxInDict = false;
 		stackCtxInArray = false;
@@ -52,7 +110,7 @@ public class PList {
 	 * @return the PList root config element
 	 */
 	public PListObject getRootElement() {
-		return root;
+		return frozen ? frozenRoot : root;
 	}
 
 	/**
@@ -60,9 +118,109 @@ public class PList {
 	 *            the PList root object to set
 	 */
 	public void setRootElement(PListObject root) {
+		checkNotFrozen();
 		this.root = root;
 	}
 
+	/**
+	 * Freeze the tree of this PList and return a snapshot of it. Every
+	 * {@link Array} of the tree is trimmed, with its elements held as
+	 * primitives where they can be, every {@link Dict} holds a sorted, trimmed
+	 * {@link DictMap}, elements and values read lazily from a binary PList are
+	 * all read, and no object of the tree can be modified from then on.
+	 * <p>
+	 * The snapshot holds its root in a final field, so it may be handed to
+	 * other threads in any way, even through a plain field, and read by all
+	 * of them without synchronization. This PList can still be read, but its
+	 * tree is frozen as well, and it hands the temporary files it owns over
+	 * to the snapshot.
+	 * </p>
+	 * 
+	 * @return the snapshot, or this PList if it is one.
+	 * @throws IllegalStateException
+	 *             if objects are still stacked onto this PList.
+	 */
+	public PList freeze() {
+		if (frozen) {
+			return this;
+		}
+		if (!stack.isEmpty()) {
+			throw new IllegalStateException(
+					"a PList cannot be frozen while it is built");
+		}
+		if (null != root) {
+			root.freeze();
+		}
+		PList ret = new PList(true, root);
+		synchronized (this) {
+			// ret is not shared yet, its final frozenRoot publishes it
+			ret.tempFiles = tempFiles;
+			tempFiles = null;
+		}
+		return ret;
+	}
+
+	/**
+	 * @return true if this PList is a snapshot returned by {@link #freeze()}.
+	 */
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	/**
+	 * @throws UnsupportedOperationException
+	 *             if this PList is frozen.
+	 */
+	private void checkNotFrozen() {
+		if (frozen) {
+			throw new UnsupportedOperationException(
+					"frozen PList cannot be modified");
+		}
+	}
+
+	/**
+	 * Share equal subtrees while this PList is built: each {@link Dict} and
+	 * {@link Array} is frozen when it is popped, and replaced by an equal one
+	 * popped before if there is one. Set before the first object is stacked.
+	 * 
+	 * @param share
+	 *            true to share subtrees, false (the default) to keep every
+	 *            container.
+	 */
+	public void setShareSubtrees(boolean share) {
+		checkNotFrozen();
+		if (share && null == subtrees) {
+			subtrees = new SubtreeTable();
+			stackKeys = new Stack<java.lang.String>();
+		} else if (!share) {
+			subtrees = null;
+			stackKeys = null;
+		}
+	}
+
+	/**
+	 * @return true if equal subtrees are shared while this PList is built.
+	 */
+	public boolean isShareSubtrees() {
+		return null != subtrees;
+	}
+
+	/**
+	 * @return the number of containers replaced by an equal one while this
+	 *         PList was built.
+	 */
+	public int getSharedSubtreeCount() {
+		return null == subtrees ? 0 : subtrees.getSharedCount();
+	}
+
+	/**
+	 * @return an estimate of the heap the containers replaced by an equal one
+	 *         would have taken, in bytes.
+	 */
+	public long getSharedSubtreeBytes() {
+		return null == subtrees ? 0 : subtrees.getSharedBytes();
+	}
+
 	/**
 	 * @param pList
 	 * @param stackCtxNestedDepth
@@ -92,12 +250,14 @@ public class PList {
 	 */
 	private void attachPListObjToDictParent(PListObject obj,
 			java.lang.String key) {
-		Log.v(stringer.newBuilder().append(TAG)
-				.append("#attachPListObjToDictParent").toString(),
-				stringer.newBuilder().append("key|obj-type|obj: ").append(key)
-						.append(Constants.PIPE).append(obj.getType())
-						.append(Constants.PIPE).append(obj.toString())
-						.append(Constants.PIPE).toString());
+		if (PListLog.isVerbose()) {
+			// obj is not rendered, that would walk its whole subtree
+			PListLog.v(stringer.newBuilder().append(TAG)
+					.append("#attachPListObjToDictParent").toString(),
+					stringer.newBuilder().append("key|obj-type: ").append(key)
+							.append(Constants.PIPE).append(obj.getType())
+							.append(Constants.PIPE).toString());
+		}
 		Dict parent = (Dict) stack.pop();
 		parent.putConfig(key, obj);
 		stack.push(parent);
@@ -110,12 +270,13 @@ public class PList {
 	 */
 	private void attachPListObjToArrayParent(Stack<PListObject> stack,
 			PListObject obj) {
-		Log.v(stringer.newBuilder().append(TAG)
-				.append("#attachPListObjToArrayParent").toString(),
-				stringer.newBuilder().append("obj-type|obj: ")
-						.append(Constants.PIPE).append(obj.getType())
-						.append(Constants.PIPE).append(obj.toString())
-						.append(Constants.PIPE).toString());
+		if (PListLog.isVerbose()) {
+			PListLog.v(stringer.newBuilder().append(TAG)
+					.append("#attachPListObjToArrayParent").toString(),
+					stringer.newBuilder().append("obj-type: ")
+							.append(Constants.PIPE).append(obj.getType())
+							.append(Constants.PIPE).toString());
+		}
 		Array parent = (Array) stack.pop();
 		parent.add(obj);
 		stack.push(parent);
@@ -139,6 +300,7 @@ public class PList {
 	 */
 	public void stackObject(PListObject obj, java.lang.String key)
 			throws Exception {
+		checkNotFrozen();
 		if (null == key && stackCtxInDict) {
 			throw new Exception(
 					"PList objects with Dict parents require a key.");
@@ -153,6 +315,9 @@ public class PList {
 		case DICT:
 			attachPListObjToParent(obj, key);
 			stack.push(obj);
+			if (null != stackKeys) {
+				stackKeys.push(key);
+			}
 			stackCtxInArray = false;
 			stackCtxInDict = true;
 			stackCtxNestedDepth++;
@@ -160,6 +325,9 @@ public class PList {
 		case ARRAY:
 			attachPListObjToParent(obj, key);
 			stack.push(obj);
+			if (null != stackKeys) {
+				stackKeys.push(key);
+			}
 			stackCtxInArray = true;
 			stackCtxInDict = false;
 			stackCtxNestedDepth++;
@@ -181,6 +349,11 @@ public class PList {
 			return null;
 		}
 		PListObject ret = stack.pop();
+		if (ret.getType() == PListObjectType.DICT) {
+			((Dict) ret).trimToSize();
+		} else if (ret.getType() == PListObjectType.ARRAY) {
+			((Array) ret).trimToSize();
+		}
 		stackCtxNestedDepth--;
 		if (!stack.isEmpty()) {
 			switch (stack.lastElement().getType()) {
@@ -197,9 +370,37 @@ public class PList {
 			stackCtxInArray = false;
 			stackCtxInDict = false;
 		}
+		if (null != subtrees) {
+			ret = share(ret, stackKeys.pop());
+		}
 		return ret;
 	}
 
+	/**
+	 * Freeze a popped container and replace it in its parent by an equal one
+	 * popped before, if there is one.
+	 * 
+	 * @return the container now in the parent.
+	 */
+	private PListObject share(PListObject container, java.lang.String key) {
+		container.freeze();
+		if (stack.isEmpty()) {
+			// the root is never equal to another container
+			return container;
+		}
+		PListObject shared = subtrees.share(container);
+		if (shared != container) {
+			PListObject parent = stack.lastElement();
+			if (parent.getType() == PListObjectType.DICT) {
+				((Dict) parent).putConfig(key, shared);
+			} else {
+				Array array = (Array) parent;
+				array.set(array.size() - 1, shared);
+			}
+		}
+		return shared;
+	}
+
 	/**
 	 * Build a {@PListObject} from a string that matches one of
 	 * the tags defined in {@link Constants}.
@@ -232,9 +433,9 @@ public class PList {
 			ret = new Date();
 			((Date) ret).setValue(value);
 		} else if (tag.equalsIgnoreCase(Constants.TAG_BOOL_FALSE)) {
-			ret = new False();
+			ret = False.getInstance();
 		} else if (tag.equalsIgnoreCase(Constants.TAG_BOOL_TRUE)) {
-			ret = new True();
+			ret = True.getInstance();
 		} else if (tag.equalsIgnoreCase(Constants.TAG_DATA)) {
 			ret = new Data();
 			((Data) ret).setValue(value.trim(), true);
@@ -246,6 +447,53 @@ public class PList {
 		return ret;
 	}
 
+	/**
+	 * Have a temporary file deleted when this PList is closed, such as the
+	 * file a {@link Data} value has been spilled to.
+	 * 
+	 * @param file
+	 */
+	public synchronized void addTempFile(File file) {
+		if (null == tempFiles) {
+			tempFiles = new ArrayList<File>();
+		}
+		tempFiles.add(file);
+	}
+
+	/**
+	 * @return the number of temporary files owned by this PList.
+	 */
+	public synchronized int getTempFileCount() {
+		return null == tempFiles ? 0 : tempFiles.size();
+	}
+
+	/**
+	 * Delete the temporary files owned by this PList. Values held in them must
+	 * no longer be read.
+	 * 
+	 * @throws IOException
+	 *             if a file could not be deleted, the others are deleted
+	 *             anyway.
+	 * 
+	 * @see java.io.Closeable#close()
+	 */
+	public synchronized void close() throws IOException {
+		if (null == tempFiles) {
+			return;
+		}
+		File failed = null;
+		for (File file : tempFiles) {
+			if (!file.delete() && file.exists()) {
+				failed = file;
+			}
+		}
+		tempFiles = null;
+		if (null != failed) {
+			throw new IOException("could not delete temporary file: "
+					+ failed);
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -253,10 +501,11 @@ public class PList {
 	 */
 	@Override
 	public java.lang.String toString() {
-		if (null == root) {
+		PListObject ret = getRootElement();
+		if (null == ret) {
 			return null;
 		}
-		return root.toString();
+		return ret.toString();
 	}
 
 }
\ No newline at end of file
@@ -16,6 +16,12 @@ import java.io.Serializable;
 
 /**
  * A PListObject is an object which has a valid {@link PListObjectType}.
+ * <p>
+ * Some objects are frozen so they can be shared, such as the instances
+ * returned by {@link True#getInstance()} and {@link Integer#valueOf(long)}.
+ * Setting the value or type of a frozen object throws
+ * {@link UnsupportedOperationException}.
+ * </p>
  */
 public class PListObject extends Object implements Cloneable,
 		Serializable {
@@ -27,6 +33,11 @@ public class PListObject extends Object implements Cloneable,
 
 	private PListObjectType type;
 
+	/**
+	 * True once this object can no longer be modified.
+	 */
+	private boolean frozen;
+
 	/**
 	 * @return the type
 	 */
@@ -39,7 +50,35 @@ public class PListObject extends Object implements Cloneable,
 	 *            the type to set
 	 */
 	public void setType(PListObjectType type) {
+		checkNotFrozen();
 		this.type = type;
 	}
 
+	/**
+	 * @return true if this object can no longer be modified, for example
+	 *         because it is shared.
+	 */
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	/**
+	 * Prevent any further modification of this object and of the objects it
+	 * contains.
+	 */
+	void freeze() {
+		frozen = true;
+	}
+
+	/**
+	 * @throws UnsupportedOperationException
+	 *             if this object is frozen.
+	 */
+	protected void checkNotFrozen() {
+		if (frozen) {
+			throw new UnsupportedOperationException("frozen " + type
+					+ " cannot be modified");
+		}
+	}
+
 }
\ No newline at end of file
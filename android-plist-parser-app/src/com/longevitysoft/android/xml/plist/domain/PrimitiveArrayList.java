@@ -0,0 +1,551 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.xml.plist.domain;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>
+ * The elements of an {@link Array} whose elements all have the same scalar
+ * type, held as primitives: a long[] for {@link Integer}s, a double[] for
+ * {@link Real}s and a bit set for {@link True} and {@link False}.
+ * </p>
+ * <p>
+ * The list still holds {@link PListObject}s: the node of an element is
+ * created the first time it is read through the {@link List} interface and
+ * kept, so it can be modified like any other node and every read returns
+ * the same node. Reading through
+ * {@link Array#getLong(int)}, {@link Array#getDouble(int)},
+ * {@link Array#getBoolean(int)} and the bulk accessors does not create
+ * nodes. The first structural modification copies the elements into an
+ * {@link ArrayList}.
+ * </p>
+ * <p>
+ * Freezing the list creates the nodes of all elements not read yet, frozen,
+ * so reading a frozen list is a plain array read. Integers are then shared
+ * through {@link Integer#valueOf(long)}.
+ * </p>
+ * 
+ * @author fbeachler
+ * 
+ */
+abstract class PrimitiveArrayList extends AbstractList<PListObject> implements
+		Serializable {
+
+	private static final long serialVersionUID = -8713372036625290175L;
+
+	protected final int size;
+
+	/**
+	 * Nodes created for the elements, null until one is. Set without a lock,
+	 * so concurrent readers agree on the node of an element.
+	 */
+	private AtomicReferenceArray<PListObject> nodes;
+
+	/**
+	 * The node of every element, set when the list is frozen.
+	 */
+	private PListObject[] frozenNodes;
+
+	/**
+	 * Set once the list has been structurally modified.
+	 */
+	private List<PListObject> materialized;
+
+	/**
+	 * True once the list can no longer be modified.
+	 */
+	private boolean frozen;
+
+	PrimitiveArrayList(int size) {
+		this.size = size;
+	}
+
+	/**
+	 * Store the elements of list as primitives, if they allow it.
+	 * 
+	 * @param list
+	 * @return the primitive list, or null if list is empty or its elements
+	 *         are not all unfrozen integers that fit in a long, all unfrozen
+	 *         reals with a value or all shared booleans. Frozen nodes may be
+	 *         shared or held elsewhere, so they are kept as they are.
+	 */
+	static PrimitiveArrayList of(List<PListObject> list) {
+		int size = list.size();
+		if (size == 0 || null == list.get(0)) {
+			return null;
+		}
+		Class<?> type = list.get(0).getClass();
+		if (type == Integer.class) {
+			long[] values = new long[size];
+			for (int i = 0; i < size; i++) {
+				PListObject obj = list.get(i);
+				if (null == obj || obj.getClass() != Integer.class
+						|| obj.isFrozen() || !((Integer) obj).isLong()) {
+					return null;
+				}
+				values[i] = ((Integer) obj).getLongValue();
+			}
+			return new Longs(values);
+		}
+		if (type == Real.class) {
+			double[] values = new double[size];
+			for (int i = 0; i < size; i++) {
+				PListObject obj = list.get(i);
+				if (null == obj || obj.getClass() != Real.class
+						|| obj.isFrozen() || !((Real) obj).hasValue()) {
+					return null;
+				}
+				values[i] = ((Real) obj).getDoubleValue();
+			}
+			return new Doubles(values);
+		}
+		if (type == True.class || type == False.class) {
+			long[] bits = new long[(size + 63) >> 6];
+			for (int i = 0; i < size; i++) {
+				PListObject obj = list.get(i);
+				if (obj == True.getInstance()) {
+					bits[i >> 6] |= 1L << i;
+				} else if (obj != False.getInstance()) {
+					return null;
+				}
+			}
+			return new Booleans(bits, size);
+		}
+		return null;
+	}
+
+	/**
+	 * @return the type the elements are stored as: {@link PListObjectType#INTEGER},
+	 *         {@link PListObjectType#REAL} or, for booleans,
+	 *         {@link PListObjectType#TRUE}. Null once the list has been
+	 *         structurally modified.
+	 */
+	PListObjectType getPrimitiveType() {
+		return null == materialized ? getStoredType() : null;
+	}
+
+	abstract PListObjectType getStoredType();
+
+	/**
+	 * @return a new node for the primitive at index.
+	 */
+	abstract PListObject newNode(int index);
+
+	/**
+	 * @return a frozen node for the primitive at index.
+	 */
+	PListObject newFrozenNode(int index) {
+		PListObject ret = newNode(index);
+		ret.freeze();
+		return ret;
+	}
+
+	/**
+	 * @return true if obj can be stored in this list as a primitive.
+	 */
+	abstract boolean accepts(PListObject obj);
+
+	/**
+	 * Store the value of obj, which this list accepts, at index.
+	 */
+	abstract void store(int index, PListObject obj);
+
+	long longAt(int index) {
+		throw new ClassCastException("array element " + index + " is a "
+				+ getStoredType() + ", not an INTEGER");
+	}
+
+	double doubleAt(int index) {
+		throw new ClassCastException("array element " + index + " is a "
+				+ getStoredType() + ", not a REAL");
+	}
+
+	boolean booleanAt(int index) {
+		throw new ClassCastException("array element " + index + " is a "
+				+ getStoredType() + ", not a boolean");
+	}
+
+	/**
+	 * @return the node created for index, or null.
+	 */
+	private PListObject nodeIfCreated(int index) {
+		if (frozen) {
+			return frozenNodes[index];
+		}
+		AtomicReferenceArray<PListObject> created = nodes;
+		return null == created ? null : created.get(index);
+	}
+
+	private PListObject nodeAt(int index) {
+		if (frozen) {
+			return frozenNodes[index];
+		}
+		AtomicReferenceArray<PListObject> created = nodes;
+		if (null == created) {
+			created = createNodes();
+		}
+		PListObject node = created.get(index);
+		if (null == node) {
+			// another reader may have created it meanwhile, theirs wins
+			created.compareAndSet(index, null, newNode(index));
+			node = created.get(index);
+		}
+		return node;
+	}
+
+	private synchronized AtomicReferenceArray<PListObject> createNodes() {
+		if (null == nodes) {
+			nodes = new AtomicReferenceArray<PListObject>(size);
+		}
+		return nodes;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("index=" + index + " size="
+					+ size);
+		}
+	}
+
+	private List<PListObject> materialize() {
+		if (null == materialized) {
+			List<PListObject> list = new ArrayList<PListObject>(size);
+			for (int i = 0; i < size; i++) {
+				list.add(nodeAt(i));
+			}
+			materialized = list;
+			nodes = null;
+		}
+		return materialized;
+	}
+
+	long getLong(int index) {
+		if (null != materialized) {
+			return ((Integer) materialized.get(index)).getLongValue();
+		}
+		checkIndex(index);
+		PListObject node = nodeIfCreated(index);
+		return null == node ? longAt(index) : ((Integer) node).getLongValue();
+	}
+
+	double getDouble(int index) {
+		if (null != materialized) {
+			PListObject obj = materialized.get(index);
+			if (obj instanceof Integer) {
+				return ((Integer) obj).getDoubleValue();
+			}
+			return ((Real) obj).getDoubleValue();
+		}
+		checkIndex(index);
+		PListObject node = nodeIfCreated(index);
+		if (null == node) {
+			return doubleAt(index);
+		} else if (node instanceof Integer) {
+			return ((Integer) node).getDoubleValue();
+		}
+		return ((Real) node).getDoubleValue();
+	}
+
+	boolean getBoolean(int index) {
+		if (null != materialized) {
+			return toBoolean(materialized.get(index));
+		}
+		checkIndex(index);
+		PListObject node = nodeIfCreated(index);
+		return null == node ? booleanAt(index) : toBoolean(node);
+	}
+
+	static boolean toBoolean(PListObject obj) {
+		if (obj instanceof True) {
+			return true;
+		} else if (obj instanceof False) {
+			return false;
+		}
+		throw new ClassCastException("array element is a " + obj.getType()
+				+ ", not a boolean");
+	}
+
+	long[] toLongArray() {
+		int n = size();
+		long[] ret = new long[n];
+		for (int i = 0; i < n; i++) {
+			ret[i] = getLong(i);
+		}
+		return ret;
+	}
+
+	double[] toDoubleArray() {
+		int n = size();
+		double[] ret = new double[n];
+		for (int i = 0; i < n; i++) {
+			ret[i] = getDouble(i);
+		}
+		return ret;
+	}
+
+	/**
+	 * Freeze the nodes created so far, create the others frozen and prevent
+	 * any further modification.
+	 */
+	synchronized void freeze() {
+		if (frozen) {
+			return;
+		}
+		if (null != materialized) {
+			for (PListObject obj : materialized) {
+				if (null != obj) {
+					obj.freeze();
+				}
+			}
+		} else {
+			PListObject[] all = new PListObject[size];
+			for (int i = 0; i < size; i++) {
+				PListObject node = null == nodes ? null : nodes.get(i);
+				if (null == node) {
+					node = newFrozenNode(i);
+				} else {
+					node.freeze();
+				}
+				all[i] = node;
+			}
+			frozenNodes = all;
+		}
+		frozen = true;
+	}
+
+	private void checkNotFrozen() {
+		if (frozen) {
+			throw new UnsupportedOperationException(
+					"frozen array cannot be modified");
+		}
+	}
+
+	/**
+	 * @return true if the primitives are all the list holds, no node has
+	 *         been created and it has not been modified.
+	 */
+	boolean isPristine() {
+		return null == materialized && null == nodes;
+	}
+
+	@Override
+	public PListObject get(int index) {
+		if (null != materialized) {
+			return materialized.get(index);
+		}
+		checkIndex(index);
+		return nodeAt(index);
+	}
+
+	@Override
+	public int size() {
+		if (null != materialized) {
+			return materialized.size();
+		}
+		return size;
+	}
+
+	@Override
+	public synchronized PListObject set(int index, PListObject element) {
+		checkNotFrozen();
+		if (null == materialized && null != element && accepts(element)) {
+			PListObject ret = get(index);
+			store(index, element);
+			nodes.set(index, element);
+			return ret;
+		}
+		return materialize().set(index, element);
+	}
+
+	@Override
+	public synchronized void add(int index, PListObject element) {
+		checkNotFrozen();
+		materialize().add(index, element);
+		modCount++;
+	}
+
+	@Override
+	public synchronized PListObject remove(int index) {
+		checkNotFrozen();
+		PListObject ret = materialize().remove(index);
+		modCount++;
+		return ret;
+	}
+
+	/**
+	 * Integers stored as longs.
+	 */
+	static class Longs extends PrimitiveArrayList {
+
+		private static final long serialVersionUID = 4209338414950316297L;
+
+		private final long[] values;
+
+		Longs(long[] values) {
+			super(values.length);
+			this.values = values;
+		}
+
+		@Override
+		PListObjectType getStoredType() {
+			return PListObjectType.INTEGER;
+		}
+
+		@Override
+		PListObject newNode(int index) {
+			Integer ret = new Integer();
+			ret.setValue(values[index]);
+			return ret;
+		}
+
+		@Override
+		PListObject newFrozenNode(int index) {
+			return Integer.valueOf(values[index]);
+		}
+
+		@Override
+		boolean accepts(PListObject obj) {
+			return obj.getClass() == Integer.class
+					&& ((Integer) obj).isLong();
+		}
+
+		@Override
+		void store(int index, PListObject obj) {
+			values[index] = ((Integer) obj).getLongValue();
+		}
+
+		@Override
+		long longAt(int index) {
+			return values[index];
+		}
+
+		@Override
+		double doubleAt(int index) {
+			return values[index];
+		}
+
+		@Override
+		long[] toLongArray() {
+			if (isPristine()) {
+				return values.clone();
+			}
+			return super.toLongArray();
+		}
+
+	}
+
+	/**
+	 * Reals stored as doubles.
+	 */
+	static class Doubles extends PrimitiveArrayList {
+
+		private static final long serialVersionUID = -2218937013587240633L;
+
+		private final double[] values;
+
+		Doubles(double[] values) {
+			super(values.length);
+			this.values = values;
+		}
+
+		@Override
+		PListObjectType getStoredType() {
+			return PListObjectType.REAL;
+		}
+
+		@Override
+		PListObject newNode(int index) {
+			Real ret = new Real();
+			ret.setValue(values[index]);
+			return ret;
+		}
+
+		@Override
+		boolean accepts(PListObject obj) {
+			return obj.getClass() == Real.class && ((Real) obj).hasValue();
+		}
+
+		@Override
+		void store(int index, PListObject obj) {
+			values[index] = ((Real) obj).getDoubleValue();
+		}
+
+		@Override
+		double doubleAt(int index) {
+			return values[index];
+		}
+
+		@Override
+		double[] toDoubleArray() {
+			if (isPristine()) {
+				return values.clone();
+			}
+			return super.toDoubleArray();
+		}
+
+	}
+
+	/**
+	 * Booleans stored one bit each.
+	 */
+	static class Booleans extends PrimitiveArrayList {
+
+		private static final long serialVersionUID = 6622381954312078913L;
+
+		private final long[] bits;
+
+		Booleans(long[] bits, int size) {
+			super(size);
+			this.bits = bits;
+		}
+
+		@Override
+		PListObjectType getStoredType() {
+			return PListObjectType.TRUE;
+		}
+
+		@Override
+		PListObject newNode(int index) {
+			if (booleanAt(index)) {
+				return True.getInstance();
+			}
+			return False.getInstance();
+		}
+
+		@Override
+		boolean accepts(PListObject obj) {
+			return obj.getClass() == True.class || obj.getClass() == False.class;
+		}
+
+		@Override
+		void store(int index, PListObject obj) {
+			if (obj.getClass() == True.class) {
+				bits[index >> 6] |= 1L << index;
+			} else {
+				bits[index >> 6] &= ~(1L << index);
+			}
+		}
+
+		@Override
+		boolean booleanAt(int index) {
+			return (bits[index >> 6] & (1L << index)) != 0;
+		}
+
+	}
+
+}
@@ -12,18 +12,29 @@
  */
 package com.longevitysoft.android.xml.plist.domain;
 
+import com.longevitysoft.android.xml.plist.ValueDecoder;
+
 /**
- * Represents a simple plist real element.
+ * Represents a simple plist real element. The value is held as a primitive
+ * double; {@link #getValue()} boxes it on each call, use
+ * {@link #getDoubleValue()} to read it without allocating.
  */
 public class Real extends PListObject implements IPListSimpleObject<Float> {
 
-	// TODO: Double?
-	protected Float real;
+	/**
+	 * The value, if {@link #hasValue} is set.
+	 */
+	protected double value;
+
+	/**
+	 * True once a value has been set.
+	 */
+	protected boolean hasValue;
 
 	/**
 	 * 
 	 */
-	private static final long serialVersionUID = -4204214862534504729L;
+	private static final long serialVersionUID = -8603443204635002015L;
 
 	public Real() {
 		setType(PListObjectType.REAL);
@@ -37,7 +48,39 @@ public class Real extends PListObject implements IPListSimpleObject<Float> {
 	 */
 	@Override
 	public Float getValue() {
-		return real;
+		if (!hasValue) {
+			return null;
+		}
+		return Float.valueOf((float) value);
+	}
+
+	/**
+	 * @return true if a value has been set.
+	 */
+	public boolean hasValue() {
+		return hasValue;
+	}
+
+	/**
+	 * @return the value.
+	 * @throws IllegalStateException
+	 *             if no value has been set.
+	 */
+	public double getDoubleValue() {
+		if (!hasValue) {
+			throw new IllegalStateException("real has no value");
+		}
+		return value;
+	}
+
+	/**
+	 * @param val
+	 *            the value to set
+	 */
+	public void setValue(double val) {
+		checkNotFrozen();
+		this.value = val;
+		this.hasValue = true;
 	}
 
 	/*
@@ -49,11 +92,18 @@ public class Real extends PListObject implements IPListSimpleObject<Float> {
 	 */
 	@Override
 	public void setValue(Float val) {
-		this.real = val;
+		checkNotFrozen();
+		if (null == val) {
+			this.value = 0;
+			this.hasValue = false;
+		} else {
+			setValue(val.doubleValue());
+		}
 	}
 
-	/*
-	 * (non-Javadoc)
+	/**
+	 * Set the value from its text, see
+	 * {@link ValueDecoder#parseDouble(CharSequence, int, int)}.
 	 * 
 	 * @see
 	 * com.longevitysoft.android.xml.plist.domain.IPListSimpleObject#setValue
@@ -61,6 +111,6 @@ public class Real extends PListObject implements IPListSimpleObject<Float> {
 	 */
 	@Override
 	public void setValue(java.lang.String val) {
-		this.real = new Float(Float.parseFloat(val.trim()));
+		setValue(ValueDecoder.parseDouble(val, 0, val.length()));
 	}
-}
\ No newline at end of file
+}
@@ -21,6 +21,17 @@ public class String extends PListObject implements
 		str = new Stringer();
 	}
 
+	/**
+	 * @param val
+	 * @return a new frozen string holding val, which may be shared.
+	 */
+	public static String valueOf(java.lang.String val) {
+		String ret = new String();
+		ret.setValue(val);
+		ret.freeze();
+		return ret;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -41,7 +52,21 @@ public class String extends PListObject implements
 	 */
 	@Override
 	public void setValue(java.lang.String val) {
+		checkNotFrozen();
 		str.newBuilder().append(val);
 	}
 
+	/**
+	 * Release the unused capacity of the value too.
+	 * 
+	 * @see com.longevitysoft.android.xml.plist.domain.PListObject#freeze()
+	 */
+	@Override
+	void freeze() {
+		if (!isFrozen()) {
+			str.getBuilder().trimToSize();
+			super.freeze();
+		}
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,325 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.xml.plist.domain;
+
+import java.util.Arrays;
+
+/**
+ * Hash table of frozen containers by structure, which {@link PList} uses to
+ * share equal subtrees while it is built. Containers are added bottom up, so
+ * the containers inside one have been shared already and are compared by
+ * identity; only the scalars are compared by value. The memory saved is
+ * estimated from the shallow sizes of the objects a shared container
+ * replaces, on a 32 bit VM.
+ * 
+ * @author fbeachler
+ * 
+ */
+final class SubtreeTable {
+
+	public static final java.lang.String TAG = "SubtreeTable";
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private PListObject[] containers = new PListObject[INITIAL_CAPACITY];
+
+	private int[] hashes = new int[INITIAL_CAPACITY];
+
+	private int size;
+
+	private int sharedCount;
+
+	private long sharedBytes;
+
+	/**
+	 * @return the number of containers replaced by an equal one.
+	 */
+	int getSharedCount() {
+		return sharedCount;
+	}
+
+	/**
+	 * @return the estimated number of bytes the replaced containers took.
+	 */
+	long getSharedBytes() {
+		return sharedBytes;
+	}
+
+	/**
+	 * @param container
+	 *            a frozen {@link Dict} or {@link Array} whose containers have
+	 *            been shared already.
+	 * @return the container in the table equal to container, which is added
+	 *         if there is none.
+	 */
+	PListObject share(PListObject container) {
+		int hash = hash(container);
+		int mask = containers.length - 1;
+		int slot = mix(hash) & mask;
+		PListObject other;
+		while (null != (other = containers[slot])) {
+			if (hashes[slot] == hash && equal(other, container)) {
+				sharedCount++;
+				sharedBytes += savedSize(container, other);
+				return other;
+			}
+			slot = (slot + 1) & mask;
+		}
+		if (size + 1 > containers.length >> 1) {
+			rehash();
+			mask = containers.length - 1;
+			slot = mix(hash) & mask;
+			while (null != containers[slot]) {
+				slot = (slot + 1) & mask;
+			}
+		}
+		containers[slot] = container;
+		hashes[slot] = hash;
+		size++;
+		return container;
+	}
+
+	private static int hash(PListObject container) {
+		int ret = container.getType().ordinal();
+		if (container instanceof Dict) {
+			DictMap map = (DictMap) ((Dict) container).getConfigMap();
+			for (int i = 0; i < map.size(); i++) {
+				ret = 31 * ret + map.keyAt(i).hashCode();
+				ret = 31 * ret + childHash(map.valueAt(i));
+			}
+			return ret;
+		}
+		Array array = (Array) container;
+		PListObjectType primitiveType = array.getPrimitiveType();
+		for (int i = 0; i < array.size(); i++) {
+			if (null == primitiveType) {
+				ret = 31 * ret + childHash(array.data.get(i));
+			} else if (primitiveType == PListObjectType.INTEGER) {
+				ret = 31 * ret + longHash(array.getLong(i));
+			} else if (primitiveType == PListObjectType.REAL) {
+				ret = 31 * ret
+						+ longHash(Double.doubleToLongBits(array.getDouble(i)));
+			} else {
+				ret = 31 * ret + (array.getBoolean(i) ? 1231 : 1237);
+			}
+		}
+		return ret;
+	}
+
+	private static boolean equal(PListObject a, PListObject b) {
+		if (a.getClass() != b.getClass()) {
+			return false;
+		}
+		if (a instanceof Dict) {
+			DictMap aMap = (DictMap) ((Dict) a).getConfigMap();
+			DictMap bMap = (DictMap) ((Dict) b).getConfigMap();
+			if (aMap.size() != bMap.size()) {
+				return false;
+			}
+			for (int i = 0; i < aMap.size(); i++) {
+				if (!aMap.keyAt(i).equals(bMap.keyAt(i))
+						|| !childEqual(aMap.valueAt(i), bMap.valueAt(i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+		Array aArray = (Array) a;
+		Array bArray = (Array) b;
+		PListObjectType primitiveType = aArray.getPrimitiveType();
+		if (aArray.size() != bArray.size()
+				|| primitiveType != bArray.getPrimitiveType()) {
+			return false;
+		}
+		for (int i = 0; i < aArray.size(); i++) {
+			boolean same;
+			if (null == primitiveType) {
+				same = childEqual(aArray.data.get(i), bArray.data.get(i));
+			} else if (primitiveType == PListObjectType.INTEGER) {
+				same = aArray.getLong(i) == bArray.getLong(i);
+			} else if (primitiveType == PListObjectType.REAL) {
+				same = Double.doubleToLongBits(aArray.getDouble(i)) == Double
+						.doubleToLongBits(bArray.getDouble(i));
+			} else {
+				same = aArray.getBoolean(i) == bArray.getBoolean(i);
+			}
+			if (!same) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isContainer(PListObject obj) {
+		return obj instanceof Dict || obj instanceof Array;
+	}
+
+	private static int childHash(PListObject obj) {
+		if (null == obj) {
+			return 0;
+		} else if (isContainer(obj)) {
+			return System.identityHashCode(obj);
+		}
+		int ret = obj.getType().ordinal();
+		if (obj instanceof Integer) {
+			Integer val = (Integer) obj;
+			return 31 * ret
+					+ (null == val.bigValue ? longHash(val.value) : val.bigValue
+							.hashCode());
+		} else if (obj instanceof Real) {
+			return 31 * ret
+					+ longHash(Double.doubleToLongBits(((Real) obj).value));
+		} else if (obj instanceof Date) {
+			return 31 * ret + longHash(((Date) obj).time);
+		} else if (obj instanceof String) {
+			CharSequence chars = ((String) obj).str.getBuilder();
+			for (int i = 0; i < chars.length(); i++) {
+				ret = 31 * ret + chars.charAt(i);
+			}
+			return ret;
+		} else if (obj instanceof Data) {
+			Data data = (Data) obj;
+			if (data.isMapped()) {
+				return System.identityHashCode(obj);
+			}
+			return 31 * ret + Arrays.hashCode(data.decodedBytes());
+		}
+		return ret;
+	}
+
+	private static boolean childEqual(PListObject a, PListObject b) {
+		if (a == b) {
+			return true;
+		} else if (null == a || null == b || a.getClass() != b.getClass()
+				|| isContainer(a)) {
+			return false;
+		}
+		if (a instanceof Integer) {
+			Integer x = (Integer) a;
+			Integer y = (Integer) b;
+			return x.hasValue == y.hasValue
+					&& x.value == y.value
+					&& (null == x.bigValue ? null == y.bigValue : x.bigValue
+							.equals(y.bigValue));
+		} else if (a instanceof Real) {
+			Real x = (Real) a;
+			Real y = (Real) b;
+			return x.hasValue == y.hasValue
+					&& Double.doubleToLongBits(x.value) == Double
+							.doubleToLongBits(y.value);
+		} else if (a instanceof Date) {
+			Date x = (Date) a;
+			Date y = (Date) b;
+			return x.hasValue == y.hasValue && x.time == y.time;
+		} else if (a instanceof String) {
+			CharSequence x = ((String) a).str.getBuilder();
+			CharSequence y = ((String) b).str.getBuilder();
+			if (x.length() != y.length()) {
+				return false;
+			}
+			for (int i = 0; i < x.length(); i++) {
+				if (x.charAt(i) != y.charAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		} else if (a instanceof Data) {
+			Data x = (Data) a;
+			Data y = (Data) b;
+			// mapped values are too large to compare
+			return !x.isMapped() && !y.isMapped()
+					&& Arrays.equals(x.decodedBytes(), y.decodedBytes());
+		}
+		// True and False
+		return true;
+	}
+
+	private static int longHash(long val) {
+		return (int) (val ^ (val >>> 32));
+	}
+
+	/**
+	 * @return the estimated size of container and of the scalars it holds
+	 *         that its equal other does not share.
+	 */
+	private static long savedSize(PListObject container, PListObject other) {
+		if (container instanceof Dict) {
+			DictMap map = (DictMap) ((Dict) container).getConfigMap();
+			DictMap otherMap = (DictMap) ((Dict) other).getConfigMap();
+			long ret = 80 + 8 * map.size();
+			for (int i = 0; i < map.size(); i++) {
+				if (map.valueAt(i) != otherMap.valueAt(i)) {
+					ret += scalarSize(map.valueAt(i));
+				}
+			}
+			return ret;
+		}
+		Array array = (Array) container;
+		PListObjectType primitiveType = array.getPrimitiveType();
+		int n = array.size();
+		if (primitiveType == PListObjectType.TRUE) {
+			return 60 + 8 * ((n + 63) >> 6);
+		} else if (null != primitiveType) {
+			return 60 + 8 * n;
+		}
+		long ret = 52 + 4 * n;
+		for (int i = 0; i < n; i++) {
+			if (array.data.get(i) != ((Array) other).data.get(i)) {
+				ret += scalarSize(array.data.get(i));
+			}
+		}
+		return ret;
+	}
+
+	private static long scalarSize(PListObject obj) {
+		if (null == obj || obj instanceof True || obj instanceof False) {
+			return 0;
+		} else if (obj instanceof Integer) {
+			return 32;
+		} else if (obj instanceof String) {
+			return 68 + 2 * ((String) obj).str.getBuilder().capacity();
+		} else if (obj instanceof Data) {
+			byte[] bytes = ((Data) obj).decodedBytes();
+			return 36 + (null == bytes ? 0 : bytes.length);
+		}
+		return 24;
+	}
+
+	/**
+	 * Spread the bits of a hash, whose low bits are poor for small values.
+	 */
+	private static int mix(int hash) {
+		hash ^= (hash >>> 20) ^ (hash >>> 12);
+		return hash ^ (hash >>> 7) ^ (hash >>> 4);
+	}
+
+	private void rehash() {
+		PListObject[] oldContainers = containers;
+		int[] oldHashes = hashes;
+		int capacity = oldContainers.length << 1;
+		containers = new PListObject[capacity];
+		hashes = new int[capacity];
+		int mask = capacity - 1;
+		for (int i = 0; i < oldContainers.length; i++) {
+			if (null != oldContainers[i]) {
+				int slot = mix(oldHashes[i]) & mask;
+				while (null != containers[slot]) {
+					slot = (slot + 1) & mask;
+				}
+				containers[slot] = oldContainers[i];
+				hashes[slot] = oldHashes[i];
+			}
+		}
+	}
+
+}
@@ -1,7 +1,8 @@
 package com.longevitysoft.android.xml.plist.domain;
 
 /**
- * Represents a simple plist true element.
+ * Represents a simple plist true element. It holds no value of its own, so
+ * parsers share the frozen instance returned by {@link #getInstance()}.
  */
 public class True extends PListObject implements IPListSimpleObject<Boolean> {
 
@@ -10,10 +11,23 @@ public class True extends PListObject implements IPListSimpleObject<Boolean> {
 	 */
 	private static final long serialVersionUID = -3560354198720649001L;
 
+	private static final True INSTANCE = new True();
+
+	static {
+		INSTANCE.freeze();
+	}
+
 	public True() {
 		setType(PListObjectType.TRUE);
 	}
 
+	/**
+	 * @return the shared, frozen instance.
+	 */
+	public static True getInstance() {
+		return INSTANCE;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -22,7 +36,7 @@ public class True extends PListObject implements IPListSimpleObject<Boolean> {
 	 */
 	@Override
 	public Boolean getValue() {
-		return new Boolean(true);
+		return Boolean.TRUE;
 	}
 
 	/*
@@ -49,4 +63,11 @@ public class True extends PListObject implements IPListSimpleObject<Boolean> {
 		// noop
 	}
 
-}
\ No newline at end of file
+	/**
+	 * The shared instance stays the only frozen one when deserialized.
+	 */
+	private Object readResolve() {
+		return isFrozen() ? INSTANCE : this;
+	}
+
+}
@@ -17,12 +17,15 @@ import junit.framework.TestSuite;
 import android.test.suitebuilder.TestSuiteBuilder;
 
 /**
- * A test suite that contains all tests for the plist parser.
+ * A test suite that contains all tests for the plist parser, except the
+ * benchmarks, see {@link com.longevitysoft.android.test.plist.perf.AllBenchmarks}.
  */
 public class AllTests extends TestSuite {
 
 	public static Test suite() {
 		return new TestSuiteBuilder(AllTests.class)
-				.includeAllPackagesUnderHere().build();
+				.includeAllPackagesUnderHere()
+				.excludePackages("com.longevitysoft.android.test.plist.perf")
+				.build();
 	}
 }
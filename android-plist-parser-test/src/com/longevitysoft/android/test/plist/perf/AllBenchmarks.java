@@ -0,0 +1,32 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import android.test.suitebuilder.TestSuiteBuilder;
+
+/**
+ * A test suite that contains the benchmarks and long running tests of the
+ * plist parser. They log their measurements and only check that the results
+ * are correct. They take long, so they are not part of
+ * {@link com.longevitysoft.android.test.plist.AllTests} and are run on their
+ * own.
+ */
+public class AllBenchmarks extends TestSuite {
+
+	public static Test suite() {
+		return new TestSuiteBuilder(AllBenchmarks.class)
+				.includeAllPackagesUnderHere().build();
+	}
+}
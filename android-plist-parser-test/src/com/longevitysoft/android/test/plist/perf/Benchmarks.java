@@ -0,0 +1,38 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+/**
+ * Helpers shared by the benchmarks.
+ * 
+ * @author fbeachler
+ * 
+ */
+final class Benchmarks {
+
+	private Benchmarks() {
+		super();
+	}
+
+	/**
+	 * @return the bytes of heap in use after collecting garbage.
+	 */
+	static long usedMemory() {
+		Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++) {
+			System.gc();
+		}
+		return rt.totalMemory() - rt.freeMemory();
+	}
+
+}
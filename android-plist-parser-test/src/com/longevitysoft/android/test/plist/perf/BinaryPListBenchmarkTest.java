@@ -0,0 +1,101 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.PListXMLParser.Engine;
+import com.longevitysoft.android.xml.plist.binary.BinaryPListParser;
+import com.longevitysoft.android.xml.plist.binary.BinaryPListWriter;
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.PList;
+
+/**
+ * Logs the size and load time of a record style document written as binary
+ * by {@link BinaryPListWriter}, against the same document as XML.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class BinaryPListBenchmarkTest extends TestCase {
+
+	public static final String TAG = "BinaryPListBenchmarkTest";
+
+	private static final int RECORDS = 5000;
+	private static final int WARMUP = 3;
+	private static final int RUNS = 10;
+
+	private static PList parseXML(byte[] doc) throws IOException {
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		parser.setEngine(Engine.PULL);
+		parser.parse(new ByteArrayInputStream(doc));
+		return handler.getPlist();
+	}
+
+	/**
+	 * Read one value of every record, so lazily decoded records are paid for.
+	 */
+	private static void readAll(PList pList) {
+		Array records = (Array) pList.getRootElement();
+		assertEquals(RECORDS, records.size());
+		for (int i = 0; i < RECORDS; i++) {
+			assertNotNull(((Dict) records.get(i)).getConfiguration("name"));
+		}
+	}
+
+	private long time(byte[] doc, boolean binary) throws IOException {
+		long start = System.nanoTime();
+		if (binary) {
+			readAll(new BinaryPListParser().parse(doc));
+		} else {
+			readAll(parseXML(doc));
+		}
+		return System.nanoTime() - start;
+	}
+
+	private long average(byte[] doc, boolean binary) throws IOException {
+		for (int i = 0; i < WARMUP; i++) {
+			time(doc, binary);
+		}
+		long total = 0;
+		for (int i = 0; i < RUNS; i++) {
+			total += time(doc, binary);
+		}
+		return total / RUNS;
+	}
+
+	public void testSizeAndLoadTime() throws IOException {
+		byte[] xml = ParserEngineBenchmarkTest.buildRecords(RECORDS);
+		byte[] binary = new BinaryPListWriter().toByteArray(parseXML(xml));
+		long xmlNanos = average(xml, false);
+		long binaryNanos = average(binary, true);
+		Log.i(TAG,
+				new StringBuilder("xml=").append(xml.length / 1024)
+						.append("KB binary=").append(binary.length / 1024)
+						.append("KB xmlLoad=").append(xmlNanos / 1000000)
+						.append("ms binaryLoad=")
+						.append(binaryNanos / 1000000).append("ms")
+						.toString());
+		assertTrue(binary.length < xml.length);
+	}
+
+}
@@ -0,0 +1,94 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import net.sf.migbase64.Base64;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import android.os.Debug;
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.Constants;
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.domain.Data;
+
+/**
+ * Logs the bytes allocated parsing a data element of {@link #SIZE} bytes,
+ * reported to a {@link PListXMLHandler} in chunks of {@link #CHUNK}
+ * characters, against collecting its text and decoding it once it has ended
+ * as was done before data was decoded while it is read.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class DataDecodeBenchmarkTest extends TestCase {
+
+	public static final String TAG = "DataDecodeBenchmarkTest";
+
+	private static final int SIZE = 4 * 1024 * 1024;
+
+	private static final int CHUNK = 8192;
+
+	private static final Attributes NO_ATTRIBUTES = new AttributesImpl();
+
+	public void testStreamingDecode() throws SAXException {
+		byte[] payload = new byte[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			payload[i] = (byte) (i * 31);
+		}
+		char[] ch = Base64.encodeToString(payload, true).toCharArray();
+
+		PListXMLHandler handler = new PListXMLHandler();
+		Debug.startAllocCounting();
+		Debug.resetThreadAllocSize();
+		handler.startDocument();
+		handler.startElement("", Constants.TAG_PLIST, Constants.TAG_PLIST,
+				NO_ATTRIBUTES);
+		handler.startElement("", Constants.TAG_DATA, Constants.TAG_DATA,
+				NO_ATTRIBUTES);
+		for (int start = 0; start < ch.length; start += CHUNK) {
+			handler.characters(ch, start, Math.min(CHUNK, ch.length - start));
+		}
+		handler.endElement("", Constants.TAG_DATA, Constants.TAG_DATA);
+		handler.endElement("", Constants.TAG_PLIST, Constants.TAG_PLIST);
+		long streamingAllocated = Debug.getThreadAllocSize();
+
+		Debug.resetThreadAllocSize();
+		StringBuilder text = new StringBuilder();
+		for (int start = 0; start < ch.length; start += CHUNK) {
+			text.append(ch, start, Math.min(CHUNK, ch.length - start));
+		}
+		byte[] collected = Base64.decode(text.toString().trim().getBytes());
+		long collectedAllocated = Debug.getThreadAllocSize();
+		Debug.stopAllocCounting();
+
+		Data data = (Data) handler.getPlist().getRootElement();
+		Log.i(TAG,
+				new StringBuilder("decoded=").append(SIZE / 1024)
+						.append("KB encoded=").append(ch.length / 1024)
+						.append("KB allocated: streaming=")
+						.append(streamingAllocated / 1024)
+						.append("KB collected=")
+						.append(collectedAllocated / 1024).append("KB")
+						.toString());
+		assertTrue(Arrays.equals(payload, data.getBytes()));
+		assertTrue(Arrays.equals(payload, collected));
+	}
+
+}
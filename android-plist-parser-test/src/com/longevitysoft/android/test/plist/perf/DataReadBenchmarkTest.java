@@ -0,0 +1,88 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import junit.framework.TestCase;
+import net.sf.migbase64.Base64;
+import android.os.Debug;
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.domain.Data;
+
+/**
+ * Logs the time and bytes allocated by {@link #READS} reads of a parsed
+ * {@link Data} of {@link #SIZE} bytes through {@link Data#getBytes()}, against
+ * decoding the Base64 text on every read as was done before values were
+ * decoded once.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class DataReadBenchmarkTest extends TestCase {
+
+	public static final String TAG = "DataReadBenchmarkTest";
+
+	private static final int SIZE = 64 * 1024;
+
+	private static final int READS = 200;
+
+	public void testRepeatedReads() {
+		byte[] payload = new byte[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			payload[i] = (byte) (i * 31);
+		}
+		String encoded = Base64.encodeToString(payload, true);
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		parser.parse("<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\"><data>"
+				+ encoded + "</data></plist>");
+		Data data = (Data) handler.getPlist().getRootElement();
+		byte[] encodedBytes = encoded.getBytes();
+
+		Debug.startAllocCounting();
+		Debug.resetThreadAllocSize();
+		long start = System.nanoTime();
+		long sum = 0;
+		for (int i = 0; i < READS; i++) {
+			sum += data.getBytes()[i];
+		}
+		long cachedTime = System.nanoTime() - start;
+		long cachedAllocated = Debug.getThreadAllocSize();
+
+		Debug.resetThreadAllocSize();
+		start = System.nanoTime();
+		long decodedSum = 0;
+		for (int i = 0; i < READS; i++) {
+			decodedSum += Base64.decode(encodedBytes)[i];
+		}
+		long decodeTime = System.nanoTime() - start;
+		long decodeAllocated = Debug.getThreadAllocSize();
+		Debug.stopAllocCounting();
+
+		Log.i(TAG,
+				new StringBuilder("size=").append(SIZE / 1024)
+						.append("KB reads=").append(READS)
+						.append(" decode once: ").append(cachedTime / 1000)
+						.append("us ").append(cachedAllocated / 1024)
+						.append("KB decode per read: ")
+						.append(decodeTime / 1000).append("us ")
+						.append(decodeAllocated / 1024).append("KB")
+						.toString());
+		assertEquals(decodedSum, sum);
+		assertEquals(SIZE, data.getBytes().length);
+	}
+
+}
@@ -0,0 +1,116 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import net.sf.migbase64.Base64;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import android.os.Debug;
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.Constants;
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.domain.Data;
+import com.longevitysoft.android.xml.plist.domain.PList;
+
+/**
+ * Logs the heap retained by a parsed data element of {@link #SIZE} bytes and
+ * the bytes allocated parsing it, kept on the heap and spilled to a temporary
+ * file.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class DataSpillBenchmarkTest extends TestCase {
+
+	public static final String TAG = "DataSpillBenchmarkTest";
+
+	private static final int SIZE = 16 * 1024 * 1024;
+
+	private static final int CHUNK = 8192;
+
+	private static final int THRESHOLD = 1024 * 1024;
+
+	private static final Attributes NO_ATTRIBUTES = new AttributesImpl();
+
+	private static PList parse(PListXMLHandler handler, char[] ch)
+			throws SAXException {
+		handler.startDocument();
+		handler.startElement("", Constants.TAG_PLIST, Constants.TAG_PLIST,
+				NO_ATTRIBUTES);
+		handler.startElement("", Constants.TAG_DATA, Constants.TAG_DATA,
+				NO_ATTRIBUTES);
+		for (int start = 0; start < ch.length; start += CHUNK) {
+			handler.characters(ch, start, Math.min(CHUNK, ch.length - start));
+		}
+		handler.endElement("", Constants.TAG_DATA, Constants.TAG_DATA);
+		handler.endElement("", Constants.TAG_PLIST, Constants.TAG_PLIST);
+		PList ret = handler.getPlist();
+		handler.setPlist(null);
+		return ret;
+	}
+
+	public void testSpill() throws SAXException, IOException {
+		byte[] payload = new byte[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			payload[i] = (byte) (i * 31);
+		}
+		char[] ch = Base64.encodeToString(payload, true).toCharArray();
+		PListXMLHandler handler = new PListXMLHandler();
+
+		long before = Benchmarks.usedMemory();
+		Debug.startAllocCounting();
+		Debug.resetThreadAllocSize();
+		PList onHeap = parse(handler, ch);
+		long heapAllocated = Debug.getThreadAllocSize();
+		long heapRetained = Benchmarks.usedMemory() - before;
+		assertTrue(Arrays.equals(payload,
+				((Data) onHeap.getRootElement()).getBytes()));
+		onHeap = null;
+
+		handler.setDataSpillThreshold(THRESHOLD, null);
+		before = Benchmarks.usedMemory();
+		Debug.resetThreadAllocSize();
+		long start = System.nanoTime();
+		PList spilled = parse(handler, ch);
+		long spillTime = System.nanoTime() - start;
+		long spillAllocated = Debug.getThreadAllocSize();
+		Debug.stopAllocCounting();
+		long spillRetained = Benchmarks.usedMemory() - before;
+		Data data = (Data) spilled.getRootElement();
+		assertTrue(data.isMapped());
+		assertEquals(payload[SIZE - 1], data.asByteBuffer().get(SIZE - 1));
+
+		Log.i(TAG,
+				new StringBuilder("decoded=").append(SIZE / 1024)
+						.append("KB retained: heap=")
+						.append(heapRetained / 1024).append("KB spilled=")
+						.append(spillRetained / 1024)
+						.append("KB allocated: heap=")
+						.append(heapAllocated / 1024).append("KB spilled=")
+						.append(spillAllocated / 1024)
+						.append("KB spill time=")
+						.append(spillTime / 1000000).append("ms").toString());
+		assertTrue(Arrays.equals(payload, data.getBytes()));
+		spilled.close();
+		assertEquals(0, spilled.getTempFileCount());
+	}
+
+}
@@ -0,0 +1,123 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Scanner;
+
+import junit.framework.TestCase;
+import android.os.Debug;
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.ValueDecoder;
+import com.longevitysoft.android.xml.plist.domain.Date;
+
+/**
+ * Logs the time and bytes allocated setting {@link #DATES} ISO 8601 dates on
+ * {@link Date} nodes, against the same dates parsed the way they were before
+ * dates were stored as epoch millis, with a {@link Scanner} and a
+ * {@link SimpleDateFormat} per node.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class DateParseBenchmarkTest extends TestCase {
+
+	public static final String TAG = "DateParseBenchmarkTest";
+
+	private static final int DATES = 20000;
+
+	private static final int WARMUP = 2;
+
+	/**
+	 * Parse val the way it was parsed before epoch millis.
+	 */
+	private static java.util.Date legacyParse(String val)
+			throws ParseException {
+		Scanner scanner = new Scanner(val).useDelimiter("-");
+		if (scanner.hasNextInt()) {
+			return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss").parse(val);
+		}
+		return null;
+	}
+
+	public void testParseDates() throws ParseException {
+		String[] vals = new String[DATES];
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < DATES; i++) {
+			sb.setLength(0);
+			sb.append(1990 + i % 30).append('-').append(10 + i % 3)
+					.append('-').append(10 + i % 19).append('T')
+					.append(10 + i % 14).append(':').append(10 + i % 50)
+					.append(':').append(10 + i % 49).append('Z');
+			vals[i] = sb.toString();
+		}
+		Date[] dates = new Date[DATES];
+		for (int i = 0; i < DATES; i++) {
+			dates[i] = new Date();
+		}
+
+		long sum = 0;
+		for (int run = 0; run < WARMUP; run++) {
+			for (int i = 0; i < DATES; i++) {
+				sum += legacyParse(vals[i]).getTime();
+				dates[i].setValue(vals[i]);
+			}
+		}
+
+		Debug.startAllocCounting();
+		Debug.resetThreadAllocSize();
+		long start = System.nanoTime();
+		long legacySum = 0;
+		for (int i = 0; i < DATES; i++) {
+			legacySum += legacyParse(vals[i]).getTime();
+		}
+		long legacyTime = System.nanoTime() - start;
+		long legacyAllocated = Debug.getThreadAllocSize();
+
+		Debug.resetThreadAllocSize();
+		start = System.nanoTime();
+		long epochSum = 0;
+		for (int i = 0; i < DATES; i++) {
+			dates[i].setValue(vals[i]);
+			epochSum += dates[i].getTime();
+		}
+		long epochTime = System.nanoTime() - start;
+		long epochAllocated = Debug.getThreadAllocSize();
+
+		Debug.resetThreadAllocSize();
+		start = System.nanoTime();
+		long decodedSum = 0;
+		for (int i = 0; i < DATES; i++) {
+			decodedSum += ValueDecoder.parseDate(vals[i], 0, vals[i].length());
+		}
+		long decodeTime = System.nanoTime() - start;
+		long decodeAllocated = Debug.getThreadAllocSize();
+		Debug.stopAllocCounting();
+
+		Log.i(TAG,
+				new StringBuilder("dates=").append(DATES)
+						.append(" legacy=").append(legacyTime / DATES)
+						.append("ns ").append(legacyAllocated / DATES)
+						.append("B setValue=").append(epochTime / DATES)
+						.append("ns ").append(epochAllocated / DATES)
+						.append("B parseDate=").append(decodeTime / DATES)
+						.append("ns ").append(decodeAllocated / DATES)
+						.append("B").toString());
+		assertEquals(epochSum, decodedSum);
+		// the legacy parse is in local time, only check it ran
+		assertTrue(0 != sum && 0 != legacySum);
+	}
+
+}
@@ -0,0 +1,86 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.DictMap;
+import com.longevitysoft.android.xml.plist.domain.Integer;
+import com.longevitysoft.android.xml.plist.domain.PListObject;
+
+/**
+ * Compares the heap retained by {@link #DICTS} small dicts backed by a
+ * {@link DictMap} against the same dicts backed by a {@link TreeMap}. Both
+ * sets of dicts share their keys and values, so only the cost of the dict
+ * structures is measured.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class DictMemoryBenchmarkTest extends TestCase {
+
+	public static final String TAG = "DictMemoryBenchmarkTest";
+
+	private static final int DICTS = 100000;
+	private static final String[] KEYS = { "id", "name", "size", "type" };
+
+	private static Dict[] build(PListObject[] values, boolean treeMap) {
+		Dict[] ret = new Dict[DICTS];
+		for (int i = 0; i < DICTS; i++) {
+			Dict dict = new Dict();
+			if (treeMap) {
+				dict.setConfigMap(new TreeMap<String, PListObject>());
+			}
+			for (int k = 0; k < KEYS.length; k++) {
+				dict.putConfig(KEYS[k], values[k]);
+			}
+			dict.trimToSize();
+			ret[i] = dict;
+		}
+		return ret;
+	}
+
+	public void testDictMemory() {
+		PListObject[] values = new PListObject[KEYS.length];
+		for (int k = 0; k < KEYS.length; k++) {
+			Integer val = new Integer();
+			val.setValue(java.lang.Integer.valueOf(k));
+			values[k] = val;
+		}
+		long before = Benchmarks.usedMemory();
+		Dict[] treeDicts = build(values, true);
+		long treeBytes = Benchmarks.usedMemory() - before;
+		before = Benchmarks.usedMemory();
+		Dict[] compactDicts = build(values, false);
+		long compactBytes = Benchmarks.usedMemory() - before;
+		int entries = DICTS * KEYS.length;
+		Log.i(TAG,
+				new StringBuilder("dicts=").append(DICTS).append(" entries=")
+						.append(entries).append(" TreeMap=")
+						.append(treeBytes / 1024).append("KB (")
+						.append(treeBytes / entries).append("B/entry) DictMap=")
+						.append(compactBytes / 1024).append("KB (")
+						.append(compactBytes / entries).append("B/entry)")
+						.toString());
+		for (int i = 0; i < DICTS; i += 997) {
+			Map<String, PListObject> expected = treeDicts[i].getConfigMap();
+			assertEquals(expected, compactDicts[i].getConfigMap());
+		}
+	}
+
+}
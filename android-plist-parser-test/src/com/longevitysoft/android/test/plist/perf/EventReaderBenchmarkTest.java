@@ -0,0 +1,164 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import junit.framework.TestCase;
+
+import org.xml.sax.SAXException;
+
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.PListEventReader;
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.PListXMLParser.Engine;
+import com.longevitysoft.android.xml.plist.domain.Array;
+
+/**
+ * Compares peak heap use of iterating a large record document with
+ * {@link PListEventReader} against building its tree.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class EventReaderBenchmarkTest extends TestCase {
+
+	public static final String TAG = "EventReaderBenchmarkTest";
+
+	/**
+	 * Generates an array of record dicts. Live heap is sampled, after a GC,
+	 * every time another {@link #SAMPLE_INTERVAL} records have been handed to
+	 * the reader.
+	 */
+	protected static class RecordInputStream extends InputStream {
+
+		private static final byte[] HEAD = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\"><array>"
+				.getBytes();
+		private static final byte[] RECORD = ("<dict><key>id</key><integer>7</integer>"
+				+ "<key>name</key><string>record</string>"
+				+ "<key>tags</key><array><string>a</string><string>b</string></array></dict>")
+				.getBytes();
+		private static final byte[] TAIL = "</array></plist>".getBytes();
+		private static final int SAMPLE_INTERVAL = 1024;
+
+		private final Runtime rt = Runtime.getRuntime();
+		private final long records;
+		private long record;
+		private int pos;
+		private long peak;
+
+		public RecordInputStream(long records) {
+			this.records = records;
+			// start at the document head
+			record = -1;
+		}
+
+		public long getPeak() {
+			return peak;
+		}
+
+		private byte[] current() {
+			if (record < 0) {
+				return HEAD;
+			}
+			return record < records ? RECORD : TAIL;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (record > records) {
+				return -1;
+			}
+			int n = 0;
+			while (n < len && record <= records) {
+				byte[] src = current();
+				int cnt = Math.min(len - n, src.length - pos);
+				System.arraycopy(src, pos, b, off + n, cnt);
+				n += cnt;
+				pos += cnt;
+				if (pos == src.length) {
+					pos = 0;
+					record++;
+					if (record % SAMPLE_INTERVAL == 0) {
+						System.gc();
+						peak = Math.max(peak, rt.totalMemory() - rt.freeMemory());
+					}
+				}
+			}
+			return n;
+		}
+	}
+
+	private static long settledHeap() {
+		Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return rt.totalMemory() - rt.freeMemory();
+	}
+
+	private long iterate(long records) throws IOException, SAXException {
+		long base = settledHeap();
+		RecordInputStream is = new RecordInputStream(records);
+		PListEventReader reader = new PListEventReader(is);
+		long values = 0;
+		int event;
+		while ((event = reader.next()) != PListEventReader.END_DOCUMENT) {
+			if (event == PListEventReader.VALUE) {
+				values++;
+			}
+		}
+		reader.close();
+		assertEquals(records * 4, values);
+		return is.getPeak() - base;
+	}
+
+	private long buildTree(long records) throws IOException {
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		parser.setEngine(Engine.PULL);
+		long base = settledHeap();
+		RecordInputStream is = new RecordInputStream(records);
+		parser.parse(is);
+		assertEquals(records,
+				((Array) handler.getPlist().getRootElement()).size());
+		return is.getPeak() - base;
+	}
+
+	/**
+	 * Logs peak live heap growth for growing documents. The event reader
+	 * figures should stay roughly constant while the tree figures grow with
+	 * the document.
+	 */
+	public void testPeakHeapByRecords() throws IOException, SAXException {
+		for (int records = 2048; records <= 32768; records *= 4) {
+			long events = iterate(records);
+			long tree = buildTree(records);
+			Log.i(TAG, new StringBuilder("records=").append(records)
+					.append(" events-live-peak=").append(events / 1024)
+					.append("KB tree-live-peak=").append(tree / 1024)
+					.append("KB").toString());
+		}
+	}
+
+}
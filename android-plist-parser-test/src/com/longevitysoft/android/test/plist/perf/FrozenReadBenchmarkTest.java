@@ -0,0 +1,124 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import junit.framework.TestCase;
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.PList;
+
+/**
+ * Reads {@link #KEYS} settings of a shared configuration from
+ * {@link #THREADS} threads, and logs the time per read from a frozen
+ * snapshot without synchronization against reads of the mutable PList under
+ * a lock, as it had to be shared before.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class FrozenReadBenchmarkTest extends TestCase {
+
+	public static final String TAG = "FrozenReadBenchmarkTest";
+
+	private static final int THREADS = 4;
+
+	private static final int KEYS = 200;
+
+	private static final int READS = 200000;
+
+	private static PList parse() {
+		StringBuilder xml = new StringBuilder(
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\"><dict>");
+		for (int i = 0; i < KEYS; i++) {
+			xml.append("<key>setting").append(i).append("</key><integer>")
+					.append(i).append("</integer>");
+		}
+		xml.append("</dict></plist>");
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		parser.parse(xml.toString());
+		return handler.getPlist();
+	}
+
+	/**
+	 * @return the time taken by all threads to read, in ns, or -1 if a read
+	 *         returned a wrong value.
+	 */
+	private static long read(final PList pList, final Object lock,
+			final String[] keys) throws InterruptedException {
+		final boolean[] failed = new boolean[1];
+		Thread[] threads = new Thread[THREADS];
+		for (int t = 0; t < THREADS; t++) {
+			final int offset = t;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < READS; i++) {
+						int k = (i + offset) % KEYS;
+						int value;
+						if (null == lock) {
+							value = ((Dict) pList.getRootElement()).getInt(
+									keys[k], -1);
+						} else {
+							synchronized (lock) {
+								value = ((Dict) pList.getRootElement())
+										.getInt(keys[k], -1);
+							}
+						}
+						if (value != k) {
+							failed[0] = true;
+						}
+					}
+				}
+			};
+		}
+		long start = System.nanoTime();
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		long ret = System.nanoTime() - start;
+		return failed[0] ? -1 : ret;
+	}
+
+	public void testReadThroughput() throws Exception {
+		String[] keys = new String[KEYS];
+		for (int i = 0; i < KEYS; i++) {
+			keys[i] = "setting" + i;
+		}
+		PList mutable = parse();
+		PList snapshot = parse().freeze();
+		// warm up
+		read(snapshot, null, keys);
+		read(mutable, mutable, keys);
+
+		long frozenNs = read(snapshot, null, keys);
+		long lockedNs = read(mutable, mutable, keys);
+		long reads = (long) THREADS * READS;
+		Log.i(TAG,
+				new StringBuilder("threads=").append(THREADS)
+						.append(" reads=").append(reads).append(" frozen=")
+						.append(frozenNs / reads).append("ns/read locked=")
+						.append(lockedNs / reads).append("ns/read")
+						.toString());
+		assertTrue(frozenNs > 0);
+		assertTrue(lockedNs > 0);
+	}
+
+}
@@ -0,0 +1,107 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import junit.framework.TestCase;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import android.os.Debug;
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.Constants;
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.domain.Array;
+
+/**
+ * Logs the bytes {@link PListXMLHandler} allocates per element of each type.
+ * The handler is fed SAX events directly, so only what it allocates itself is
+ * counted: the domain object and its value, plus a {@link String} for string
+ * values.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class HandlerAllocationBenchmarkTest extends TestCase {
+
+	public static final String TAG = "HandlerAllocationBenchmarkTest";
+
+	private static final int ELEMENTS = 100000;
+	private static final int WARMUP = 3;
+	private static final int RUNS = 5;
+
+	private static final Attributes NO_ATTRIBUTES = new AttributesImpl();
+
+	/**
+	 * Parse an array of {@link #ELEMENTS} tag elements with the given text,
+	 * reported in chunks of at most 4 characters.
+	 * 
+	 * @return the bytes allocated per element.
+	 */
+	private static long allocatedPerElement(PListXMLHandler handler,
+			String tag, String text) throws SAXException {
+		char[] ch = text.toCharArray();
+		for (int i = 0; i < WARMUP; i++) {
+			parse(handler, tag, ch);
+		}
+		Debug.startAllocCounting();
+		Debug.resetThreadAllocSize();
+		for (int i = 0; i < RUNS; i++) {
+			parse(handler, tag, ch);
+		}
+		long allocated = Debug.getThreadAllocSize();
+		Debug.stopAllocCounting();
+		Array array = (Array) handler.getPlist().getRootElement();
+		assertEquals(ELEMENTS, array.size());
+		return allocated / RUNS / ELEMENTS;
+	}
+
+	private static void parse(PListXMLHandler handler, String tag, char[] ch)
+			throws SAXException {
+		handler.startDocument();
+		handler.startElement("", Constants.TAG_PLIST, Constants.TAG_PLIST,
+				NO_ATTRIBUTES);
+		handler.startElement("", Constants.TAG_PLIST_ARRAY,
+				Constants.TAG_PLIST_ARRAY, NO_ATTRIBUTES);
+		for (int i = 0; i < ELEMENTS; i++) {
+			handler.startElement("", tag, tag, NO_ATTRIBUTES);
+			for (int start = 0; start < ch.length; start += 4) {
+				handler.characters(ch, start, Math.min(4, ch.length - start));
+			}
+			handler.endElement("", tag, tag);
+		}
+		handler.endElement("", Constants.TAG_PLIST_ARRAY,
+				Constants.TAG_PLIST_ARRAY);
+		handler.endElement("", Constants.TAG_PLIST, Constants.TAG_PLIST);
+	}
+
+	public void testAllocationPerElement() throws SAXException {
+		PListXMLHandler handler = new PListXMLHandler();
+		String[][] elements = { { Constants.TAG_INTEGER, "1234567" },
+				{ Constants.TAG_REAL, "3.14159" },
+				{ Constants.TAG_BOOL_TRUE, "" },
+				{ Constants.TAG_DATE, "2011-01-18T12:34:56Z" },
+				{ Constants.TAG_DATA, "Zm9vYmFy" },
+				{ Constants.TAG_STRING, "foobar" } };
+		StringBuilder msg = new StringBuilder("elements=").append(ELEMENTS);
+		for (String[] element : elements) {
+			msg.append(' ').append(element[0]).append('=')
+					.append(allocatedPerElement(handler, element[0],
+							element[1])).append("B");
+		}
+		Log.i(TAG, msg.toString());
+	}
+
+}
@@ -0,0 +1,185 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import junit.framework.TestCase;
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.PListParsers;
+import com.longevitysoft.android.xml.plist.PListReference;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.PList;
+
+/**
+ * Reloads a configuration of {@link #KEYS} settings {@link #RELOADS} times
+ * while {@link #THREADS} threads read it, and logs the reload latency and
+ * the longest a reader waited for a read, through a {@link PListReference}
+ * against a PList replaced under a lock held while the file is parsed, as
+ * configurations were reloaded before.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class HotReloadBenchmarkTest extends TestCase {
+
+	public static final String TAG = "HotReloadBenchmarkTest";
+
+	private static final int THREADS = 4;
+
+	private static final int KEYS = 2000;
+
+	private static final int RELOADS = 20;
+
+	private File file;
+
+	private volatile boolean stop;
+
+	private PList locked;
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see junit.framework.TestCase#setUp()
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		file = File.createTempFile("reload", ".plist");
+		StringBuilder xml = new StringBuilder(
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\"><dict>");
+		for (int i = 0; i < KEYS; i++) {
+			xml.append("<key>setting").append(i).append("</key><integer>")
+					.append(i).append("</integer>");
+		}
+		xml.append("</dict></plist>");
+		FileOutputStream os = new FileOutputStream(file);
+		try {
+			os.write(xml.toString().getBytes("UTF-8"));
+		} finally {
+			os.close();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see junit.framework.TestCase#tearDown()
+	 */
+	@Override
+	protected void tearDown() throws Exception {
+		file.delete();
+		super.tearDown();
+	}
+
+	private abstract class Reader extends Thread {
+
+		long maxWaitNanos;
+		long reads;
+		boolean failed;
+
+		abstract PList read();
+
+		@Override
+		public void run() {
+			while (!stop) {
+				long start = System.nanoTime();
+				PList pList = read();
+				long wait = System.nanoTime() - start;
+				if (wait > maxWaitNanos) {
+					maxWaitNanos = wait;
+				}
+				int k = (int) (reads++ % KEYS);
+				if (((Dict) pList.getRootElement()).getInt("setting" + k, -1) != k) {
+					failed = true;
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * @return the longest wait of a reader, in ns.
+	 */
+	private long stopReaders(Reader[] readers) throws InterruptedException {
+		stop = true;
+		long ret = 0;
+		for (Reader reader : readers) {
+			reader.join();
+			assertFalse(reader.failed);
+			assertTrue(reader.reads > 0);
+			ret = Math.max(ret, reader.maxWaitNanos);
+		}
+		stop = false;
+		return ret;
+	}
+
+	public void testReloadStalls() throws Exception {
+		final PListReference ref = new PListReference(file);
+		ref.reload();
+		Reader[] readers = new Reader[THREADS];
+		for (int t = 0; t < THREADS; t++) {
+			readers[t] = new Reader() {
+				@Override
+				PList read() {
+					return ref.get();
+				}
+			};
+			readers[t].start();
+		}
+		for (int i = 0; i < RELOADS; i++) {
+			ref.reload();
+		}
+		long referenceWait = stopReaders(readers);
+
+		locked = PListParsers.parse(file);
+		final Object lock = new Object();
+		for (int t = 0; t < THREADS; t++) {
+			readers[t] = new Reader() {
+				@Override
+				PList read() {
+					synchronized (lock) {
+						return locked;
+					}
+				}
+			};
+			readers[t].start();
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < RELOADS; i++) {
+			synchronized (lock) {
+				locked = PListParsers.parse(file);
+			}
+		}
+		long lockedReloadNanos = (System.nanoTime() - start) / RELOADS;
+		long lockedWait = stopReaders(readers);
+
+		Log.i(TAG,
+				new StringBuilder("reloads=").append(RELOADS)
+						.append(" reference: reload avg=")
+						.append(ref.getAverageReloadNanos() / 1000)
+						.append("us max=")
+						.append(ref.getMaxReloadNanos() / 1000)
+						.append("us reader wait max=")
+						.append(referenceWait / 1000)
+						.append("us; locked: reload avg=")
+						.append(lockedReloadNanos / 1000)
+						.append("us reader wait max=")
+						.append(lockedWait / 1000).append("us").toString());
+		assertEquals(RELOADS + 1, ref.getReloadCount());
+		assertEquals(0, ref.getFailureCount());
+	}
+
+}
@@ -0,0 +1,170 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import android.os.Debug;
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.domain.Integer;
+
+/**
+ * Logs the time and bytes allocated setting {@link #VALUES} integers on
+ * {@link Integer} nodes from a character buffer, against copying each into a
+ * {@link String} for {@link java.lang.Integer#parseInt(String)} and boxing it,
+ * as integers were parsed before they were held as longs. Values beyond the
+ * int range, which the legacy path could not parse, are compared against
+ * {@link Long#decode(String)} instead.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class IntegerParseBenchmarkTest extends TestCase {
+
+	public static final String TAG = "IntegerParseBenchmarkTest";
+
+	private static final int VALUES = 100000;
+
+	private static final int WARMUP = 3;
+
+	private static long parseAll(Integer[] nodes, StringBuilder text,
+			int[] ends) {
+		long sum = 0;
+		int start = 0;
+		for (int i = 0; i < ends.length; i++) {
+			nodes[i].setValue(text, start, ends[i]);
+			sum += nodes[i].getLongValue();
+			start = ends[i];
+		}
+		return sum;
+	}
+
+	private static long parseAllLegacy(StringBuilder text, int[] ends) {
+		long sum = 0;
+		int start = 0;
+		for (int i = 0; i < ends.length; i++) {
+			java.lang.Integer val = new java.lang.Integer(
+					java.lang.Integer.parseInt(text.substring(start, ends[i])
+							.trim()));
+			sum += val.intValue();
+			start = ends[i];
+		}
+		return sum;
+	}
+
+	private static long parseAllDecode(StringBuilder text, int[] ends) {
+		long sum = 0;
+		int start = 0;
+		for (int i = 0; i < ends.length; i++) {
+			sum += Long.decode(text.substring(start, ends[i]).trim())
+					.longValue();
+			start = ends[i];
+		}
+		return sum;
+	}
+
+	private static Integer[] nodes() {
+		Integer[] ret = new Integer[VALUES];
+		for (int i = 0; i < VALUES; i++) {
+			ret[i] = new Integer();
+		}
+		return ret;
+	}
+
+	public void testParseInts() {
+		Random random = new Random(20);
+		StringBuilder text = new StringBuilder();
+		int[] ends = new int[VALUES];
+		for (int i = 0; i < VALUES; i++) {
+			text.append(' ').append(random.nextInt());
+			ends[i] = text.length();
+		}
+		Integer[] nodes = nodes();
+		long sum = 0;
+		for (int run = 0; run < WARMUP; run++) {
+			sum += parseAll(nodes, text, ends) - parseAllLegacy(text, ends);
+		}
+		Debug.startAllocCounting();
+		Debug.resetThreadAllocSize();
+		long start = System.nanoTime();
+		long fast = parseAll(nodes, text, ends);
+		long fastTime = System.nanoTime() - start;
+		long fastAllocated = Debug.getThreadAllocSize();
+		Debug.resetThreadAllocSize();
+		start = System.nanoTime();
+		long legacy = parseAllLegacy(text, ends);
+		long legacyTime = System.nanoTime() - start;
+		long legacyAllocated = Debug.getThreadAllocSize();
+		Debug.stopAllocCounting();
+
+		Log.i(TAG,
+				new StringBuilder("ints=").append(VALUES)
+						.append(" setValue=").append(fastTime / VALUES)
+						.append("ns ").append(fastAllocated / VALUES)
+						.append("B legacy=").append(legacyTime / VALUES)
+						.append("ns ").append(legacyAllocated / VALUES)
+						.append("B").toString());
+		assertEquals(0, sum);
+		assertEquals(legacy, fast);
+	}
+
+	public void testParseLongs() {
+		Random random = new Random(64);
+		StringBuilder text = new StringBuilder();
+		int[] ends = new int[VALUES];
+		for (int i = 0; i < VALUES; i++) {
+			long val = random.nextLong();
+			text.append(' ');
+			if (i % 2 == 0) {
+				text.append(val);
+			} else {
+				if (val < 0) {
+					text.append('-');
+				}
+				text.append("0x").append(
+						Long.toHexString(val < 0 ? -(val >> 1) : val));
+			}
+			ends[i] = text.length();
+		}
+		Integer[] nodes = nodes();
+		long sum = 0;
+		for (int run = 0; run < WARMUP; run++) {
+			sum += parseAll(nodes, text, ends) - parseAllDecode(text, ends);
+		}
+		Debug.startAllocCounting();
+		Debug.resetThreadAllocSize();
+		long start = System.nanoTime();
+		long fast = parseAll(nodes, text, ends);
+		long fastTime = System.nanoTime() - start;
+		long fastAllocated = Debug.getThreadAllocSize();
+		Debug.resetThreadAllocSize();
+		start = System.nanoTime();
+		long decoded = parseAllDecode(text, ends);
+		long decodeTime = System.nanoTime() - start;
+		long decodeAllocated = Debug.getThreadAllocSize();
+		Debug.stopAllocCounting();
+
+		Log.i(TAG,
+				new StringBuilder("longs=").append(VALUES)
+						.append(" setValue=").append(fastTime / VALUES)
+						.append("ns ").append(fastAllocated / VALUES)
+						.append("B Long.decode=").append(decodeTime / VALUES)
+						.append("ns ").append(decodeAllocated / VALUES)
+						.append("B").toString());
+		assertEquals(0, sum);
+		assertEquals(decoded, fast);
+	}
+
+}
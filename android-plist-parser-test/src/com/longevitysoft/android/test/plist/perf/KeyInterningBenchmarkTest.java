@@ -0,0 +1,132 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.KeyPool;
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.PListObject;
+
+/**
+ * Parses {@link #DOCUMENTS} documents of {@link #RECORDS} dicts with the same
+ * keys through one {@link KeyPool}, and logs the number of distinct key
+ * strings they hold and the heap those take, against the same dicts holding
+ * a new string for every key as they did before keys were interned.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class KeyInterningBenchmarkTest extends TestCase {
+
+	public static final String TAG = "KeyInterningBenchmarkTest";
+
+	private static final int RECORDS = 20000;
+
+	private static final int DOCUMENTS = 3;
+
+	private static final String[] KEYS = { "identifier", "displayName",
+			"createdAt", "enabled", "category" };
+
+	/**
+	 * @return new dicts with the entries of the records, using fresh keys if
+	 *         copyKeys.
+	 */
+	private static Dict[] copy(Array[] docs, boolean copyKeys) {
+		Dict[] ret = new Dict[DOCUMENTS * RECORDS];
+		int n = 0;
+		for (Array doc : docs) {
+			for (int i = 0; i < doc.size(); i++) {
+				Dict dict = new Dict();
+				Iterator<Map.Entry<String, PListObject>> it = ((Dict) doc
+						.get(i)).getConfigMap().entrySet().iterator();
+				while (it.hasNext()) {
+					Map.Entry<String, PListObject> e = it.next();
+					String key = copyKeys ? new String(e.getKey()
+							.toCharArray()) : e.getKey();
+					dict.putConfig(key, e.getValue());
+				}
+				dict.trimToSize();
+				ret[n++] = dict;
+			}
+		}
+		return ret;
+	}
+
+	public void testKeyMemory() {
+		StringBuilder xml = new StringBuilder(
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\"><array>");
+		for (int i = 0; i < RECORDS; i++) {
+			xml.append("<dict>");
+			for (int k = 0; k < KEYS.length; k++) {
+				xml.append("<key>").append(KEYS[k])
+						.append("</key><integer>").append(k)
+						.append("</integer>");
+			}
+			xml.append("</dict>");
+		}
+		xml.append("</array></plist>");
+		KeyPool pool = new KeyPool();
+		Array[] docs = new Array[DOCUMENTS];
+		for (int d = 0; d < DOCUMENTS; d++) {
+			PListXMLParser parser = new PListXMLParser();
+			PListXMLHandler handler = new PListXMLHandler();
+			handler.setKeyPool(pool);
+			parser.setHandler(handler);
+			parser.parse(xml.toString());
+			docs[d] = (Array) handler.getPlist().getRootElement();
+		}
+		xml = null;
+
+		Map<String, Boolean> distinct = new IdentityHashMap<String, Boolean>();
+		for (Array doc : docs) {
+			for (int i = 0; i < doc.size(); i++) {
+				Iterator<String> it = ((Dict) doc.get(i)).getConfigMap()
+						.keySet().iterator();
+				while (it.hasNext()) {
+					distinct.put(it.next(), Boolean.TRUE);
+				}
+			}
+		}
+
+		long before = Benchmarks.usedMemory();
+		Dict[] interned = copy(docs, false);
+		long internedBytes = Benchmarks.usedMemory() - before;
+		before = Benchmarks.usedMemory();
+		Dict[] fresh = copy(docs, true);
+		long freshBytes = Benchmarks.usedMemory() - before;
+
+		int keys = DOCUMENTS * RECORDS * KEYS.length;
+		Log.i(TAG,
+				new StringBuilder("keys=").append(keys).append(" distinct=")
+						.append(distinct.size()).append(" interned=")
+						.append(internedBytes / 1024).append("KB fresh=")
+						.append(freshBytes / 1024).append("KB (")
+						.append((freshBytes - internedBytes) / keys)
+						.append("B/key)").toString());
+		assertEquals(KEYS.length, distinct.size());
+		assertEquals(KEYS.length, pool.size());
+		for (int i = 0; i < interned.length; i += 997) {
+			assertEquals(fresh[i].getConfigMap(), interned[i].getConfigMap());
+		}
+	}
+
+}
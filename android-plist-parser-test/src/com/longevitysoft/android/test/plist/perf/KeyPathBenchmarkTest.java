@@ -0,0 +1,157 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import java.util.Map;
+import java.util.StringTokenizer;
+
+import junit.framework.TestCase;
+import android.os.Debug;
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.Integer;
+import com.longevitysoft.android.xml.plist.domain.KeyPath;
+import com.longevitysoft.android.xml.plist.domain.PListObject;
+
+/**
+ * Logs the time and bytes allocated per lookup of a three segment key path:
+ * tokenized on every call as {@link Dict#getConfigurationObject(String)} used
+ * to, through the String accessor for a path that is not compiled and for
+ * one that is, and through a compiled {@link KeyPath}.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class KeyPathBenchmarkTest extends TestCase {
+
+	public static final String TAG = "KeyPathBenchmarkTest";
+
+	private static final String PATH = "server.http.port";
+
+	/**
+	 * The same segments as {@link #PATH}, never compiled.
+	 */
+	private static final String UNCOMPILED_PATH = "server..http.port";
+	private static final int LOOKUPS = 1000000;
+	private static final int WARMUP = 3;
+
+	private interface Lookup {
+		PListObject get(Dict root);
+	}
+
+	/**
+	 * The lookup {@link Dict#getConfigurationObject(String)} did before key
+	 * paths were compiled.
+	 */
+	private static PListObject tokenized(Dict root, String key) {
+		StringTokenizer st = new StringTokenizer(key, Dict.DOT);
+		Map<String, PListObject> dict = root.getConfigMap();
+		while (st.hasMoreTokens()) {
+			PListObject obj = dict.get(st.nextToken());
+			if (obj instanceof Dict) {
+				dict = ((Dict) obj).getConfigMap();
+				continue;
+			}
+			return obj;
+		}
+		return root.getConfigMap().get(key);
+	}
+
+	private static Dict build() {
+		Dict root = new Dict();
+		for (int i = 0; i < 16; i++) {
+			Dict server = new Dict();
+			for (int j = 0; j < 16; j++) {
+				Dict http = new Dict();
+				for (int k = 0; k < 16; k++) {
+					Integer val = new Integer();
+					val.setValue(java.lang.Integer.valueOf(k));
+					http.putConfig("key" + k, val);
+				}
+				Integer port = new Integer();
+				port.setValue(java.lang.Integer.valueOf(8080));
+				http.putConfig("port", port);
+				server.putConfig("http" + j, http);
+			}
+			server.putConfig("http", server.getConfigMap().get("http0"));
+			root.putConfig("server" + i, server);
+		}
+		root.putConfig("server", root.getConfigMap().get("server0"));
+		return root;
+	}
+
+	private static String run(Dict root, Lookup lookup) {
+		for (int i = 0; i < WARMUP; i++) {
+			for (int j = 0; j < LOOKUPS; j++) {
+				lookup.get(root);
+			}
+		}
+		Debug.startAllocCounting();
+		Debug.resetThreadAllocSize();
+		long start = System.nanoTime();
+		for (int j = 0; j < LOOKUPS; j++) {
+			assertNotNull(lookup.get(root));
+		}
+		long elapsed = System.nanoTime() - start;
+		long allocated = Debug.getThreadAllocSize();
+		Debug.stopAllocCounting();
+		return new StringBuilder().append(elapsed / LOOKUPS).append("ns/")
+				.append(allocated / LOOKUPS).append("B").toString();
+	}
+
+	public void testLookups() {
+		final Dict root = build();
+		final KeyPath path = KeyPath.compile(PATH);
+		assertEquals(java.lang.Integer.valueOf(8080), root
+				.getConfigurationInteger(path).getValue());
+		String tokenized = run(root, new Lookup() {
+
+			@Override
+			public PListObject get(Dict root) {
+				return tokenized(root, PATH);
+			}
+
+		});
+		String uncompiled = run(root, new Lookup() {
+
+			@Override
+			public PListObject get(Dict root) {
+				return root.getConfigurationObject(UNCOMPILED_PATH);
+			}
+
+		});
+		String string = run(root, new Lookup() {
+
+			@Override
+			public PListObject get(Dict root) {
+				return root.getConfigurationObject(PATH);
+			}
+
+		});
+		String compiled = run(root, new Lookup() {
+
+			@Override
+			public PListObject get(Dict root) {
+				return root.getConfigurationObject(path);
+			}
+
+		});
+		Log.i(TAG, new StringBuilder("lookups=").append(LOOKUPS)
+				.append(" tokenized=").append(tokenized)
+				.append(" uncompiled=").append(uncompiled).append(" string=")
+				.append(string).append(" compiled=").append(compiled)
+				.toString());
+	}
+
+}
@@ -0,0 +1,97 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import junit.framework.TestCase;
+import android.util.Log;
+
+import com.longevitysoft.android.util.PListLog;
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+
+/**
+ * Logs the parse time of documents of growing nesting depth with verbose
+ * logging off. Time per level should stay roughly constant, i.e. parse time
+ * grows linearly with depth.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class NestedParseBenchmarkTest extends TestCase {
+
+	public static final String TAG = "NestedParseBenchmarkTest";
+
+	private static final int WARMUP = 3;
+	private static final int RUNS = 10;
+
+	/**
+	 * Build a chain of depth dicts, each holding a few values and the next
+	 * dict.
+	 */
+	private static String buildNested(int depth) {
+		StringBuilder sb = new StringBuilder(
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<plist version=\"1.0\">\n");
+		for (int i = 0; i < depth; i++) {
+			sb.append("<dict>\n\t<key>name</key>\n\t<string>level ").append(i)
+					.append("</string>\n\t<key>level</key>\n\t<integer>")
+					.append(i).append("</integer>\n\t<key>tags</key>\n")
+					.append("\t<array><string>a</string><string>b</string></array>\n")
+					.append("\t<key>child</key>\n");
+		}
+		sb.append("<true/>\n");
+		for (int i = 0; i < depth; i++) {
+			sb.append("</dict>\n");
+		}
+		return sb.append("</plist>\n").toString();
+	}
+
+	private long time(String xml, int depth) {
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		long start = System.nanoTime();
+		parser.parse(xml);
+		long elapsed = System.nanoTime() - start;
+		Dict dict = (Dict) handler.getPlist().getRootElement();
+		for (int i = 1; i < depth; i++) {
+			dict = (Dict) dict.getConfigMap().get("child");
+		}
+		assertEquals(Integer.valueOf(depth - 1),
+				((com.longevitysoft.android.xml.plist.domain.Integer) dict
+						.getConfigMap().get("level")).getValue());
+		return elapsed;
+	}
+
+	public void testParseTimeByDepth() {
+		assertFalse(PListLog.isVerbose());
+
+		for (int depth = 64; depth <= 1024; depth *= 2) {
+			String xml = buildNested(depth);
+			for (int i = 0; i < WARMUP; i++) {
+				time(xml, depth);
+			}
+			long total = 0;
+			for (int i = 0; i < RUNS; i++) {
+				total += time(xml, depth);
+			}
+			long nanos = total / RUNS;
+			Log.i(TAG,
+					new StringBuilder("depth=").append(depth)
+							.append(" parse=").append(nanos / 1000)
+							.append("us per-level=").append(nanos / depth)
+							.append("ns").toString());
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import com.longevitysoft.android.test.plist.xml.ValueDecoderTest;
+import com.longevitysoft.android.xml.plist.ValueDecoder;
+
+/**
+ * Checks {@link ValueDecoder#parseDouble(CharSequence, int, int)} against
+ * {@link Double#parseDouble(String)} over millions of inputs, too many for
+ * {@link ValueDecoderTest}.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class ParseDoubleSweepTest extends TestCase {
+
+	public void testRoundTrip() {
+		Random random = new Random(19);
+		for (int i = 0; i < 500000; i++) {
+			double val = Double.longBitsToDouble(random.nextLong());
+			if (Double.isNaN(val) || Double.isInfinite(val)) {
+				continue;
+			}
+			String text = Double.toString(val);
+			assertEquals(text, Double.doubleToRawLongBits(val),
+					Double.doubleToRawLongBits(ValueDecoder.parseDouble(text,
+							0, text.length())));
+		}
+	}
+
+	public void testRandomDigits() {
+		Random random = new Random(23);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 500000; i++) {
+			sb.setLength(0);
+			int digits = 1 + random.nextInt(22);
+			for (int j = 0; j < digits; j++) {
+				sb.append((char) ('0' + random.nextInt(10)));
+				if (j == 0 && digits > 1) {
+					sb.append('.');
+				}
+			}
+			sb.append('e').append(random.nextInt(680) - 345);
+			ValueDecoderTest.assertParsesLikeJdk(sb);
+		}
+	}
+
+	/**
+	 * Every significand of up to 4 digits at every exponent where doubles
+	 * are normal or subnormal.
+	 */
+	public void testExhaustive() {
+		StringBuilder sb = new StringBuilder();
+		for (int exponent = -330; exponent <= 310; exponent++) {
+			for (int significand = 1; significand < 10000; significand++) {
+				sb.setLength(0);
+				sb.append(significand).append('e').append(exponent);
+				ValueDecoderTest.assertParsesLikeJdk(sb);
+			}
+		}
+	}
+
+	/**
+	 * Every 4099th float, as the shortest decimal that reads back as it.
+	 */
+	public void testFloats() {
+		for (long bits = 0; bits <= 0x7F7FFFFFL; bits += 4099) {
+			ValueDecoderTest.assertParsesLikeJdk(Float.toString(Float
+					.intBitsToFloat((int) bits)));
+		}
+	}
+
+}
@@ -0,0 +1,104 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.PListXMLParser.Engine;
+import com.longevitysoft.android.xml.plist.domain.Array;
+
+/**
+ * Logs the throughput of the {@link Engine#SAX} and {@link Engine#PULL}
+ * engines of {@link PListXMLParser} on a record style document.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class ParserEngineBenchmarkTest extends TestCase {
+
+	public static final String TAG = "ParserEngineBenchmarkTest";
+
+	private static final int RECORDS = 5000;
+	private static final int WARMUP = 3;
+	private static final int RUNS = 10;
+
+	/**
+	 * Build a document holding an array of {@link #RECORDS} dicts.
+	 */
+	public static byte[] buildRecords(int records) throws IOException {
+		StringBuilder sb = new StringBuilder(
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+						+ "<!DOCTYPE plist PUBLIC \"-//Apple//DTD PLIST 1.0//EN\" \"http://www.apple.com/DTDs/PropertyList-1.0.dtd\">\n"
+						+ "<plist version=\"1.0\">\n<array>\n");
+		for (int i = 0; i < records; i++) {
+			sb.append("\t<dict>\n");
+			sb.append("\t\t<key>id</key>\n\t\t<integer>").append(i)
+					.append("</integer>\n");
+			sb.append("\t\t<key>name</key>\n\t\t<string>record &amp; ")
+					.append(i).append("</string>\n");
+			sb.append("\t\t<key>score</key>\n\t\t<real>").append(i * 0.25)
+					.append("</real>\n");
+			sb.append("\t\t<key>enabled</key>\n\t\t<")
+					.append(i % 2 == 0 ? "true" : "false").append("/>\n");
+			sb.append("\t\t<key>created</key>\n\t\t<date>2012-02-24T10:10:00Z</date>\n");
+			sb.append("\t\t<key>tags</key>\n\t\t<array>\n\t\t\t<string>a</string>\n\t\t\t<string>b</string>\n\t\t</array>\n");
+			sb.append("\t</dict>\n");
+		}
+		sb.append("</array>\n</plist>\n");
+		return sb.toString().getBytes("UTF-8");
+	}
+
+	private long time(byte[] doc, Engine engine) throws IOException {
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		parser.setEngine(engine);
+		long start = System.nanoTime();
+		parser.parse(new ByteArrayInputStream(doc));
+		long elapsed = System.nanoTime() - start;
+		assertEquals(RECORDS,
+				((Array) handler.getPlist().getRootElement()).size());
+		return elapsed;
+	}
+
+	private double throughput(byte[] doc, Engine engine) throws IOException {
+		for (int i = 0; i < WARMUP; i++) {
+			time(doc, engine);
+		}
+		long total = 0;
+		for (int i = 0; i < RUNS; i++) {
+			total += time(doc, engine);
+		}
+		// MB per second
+		return (doc.length * (double) RUNS / (1024 * 1024))
+				/ (total / 1000000000.0);
+	}
+
+	public void testThroughput() throws IOException {
+		byte[] doc = buildRecords(RECORDS);
+		double sax = throughput(doc, Engine.SAX);
+		double pull = throughput(doc, Engine.PULL);
+		Log.i(TAG,
+				new StringBuilder("document=").append(doc.length / 1024)
+						.append("KB SAX=").append(Math.round(sax * 10) / 10.0)
+						.append("MB/s PULL=").append(Math.round(pull * 10) / 10.0)
+						.append("MB/s").toString());
+	}
+
+}
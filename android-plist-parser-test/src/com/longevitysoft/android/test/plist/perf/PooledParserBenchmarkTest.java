@@ -0,0 +1,95 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import junit.framework.TestCase;
+import android.util.Log;
+
+import com.longevitysoft.android.test.plist.xml.PListXMLParserTest;
+import com.longevitysoft.android.xml.plist.PListParsers;
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.domain.PList;
+
+/**
+ * Logs the throughput of parsing small documents on several threads with
+ * {@link PListParsers}, against creating a {@link PListXMLParser} and
+ * {@link PListXMLHandler} per document.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class PooledParserBenchmarkTest extends TestCase {
+
+	public static final String TAG = "PooledParserBenchmarkTest";
+
+	private static final int THREADS = 4;
+	private static final int PARSES = 2000;
+
+	private static PList parseFresh(String xml) {
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		parser.parse(xml);
+		return handler.getPlist();
+	}
+
+	/**
+	 * @return parses per second over all threads.
+	 */
+	private long throughput(final boolean pooled) throws InterruptedException {
+		final String xml = PListXMLParserTest.VALID_WORKFLOW_VERSION_PLIST;
+		final int[] failures = new int[1];
+		Thread[] threads = new Thread[THREADS];
+		long start = System.nanoTime();
+		for (int t = 0; t < THREADS; t++) {
+			threads[t] = new Thread() {
+
+				@Override
+				public void run() {
+					for (int i = 0; i < PARSES; i++) {
+						PList pList = pooled ? PListParsers.parse(xml)
+								: parseFresh(xml);
+						if (null == pList || null == pList.getRootElement()) {
+							synchronized (failures) {
+								failures[0]++;
+							}
+						}
+					}
+				}
+
+			};
+			threads[t].start();
+		}
+		for (int t = 0; t < THREADS; t++) {
+			threads[t].join();
+		}
+		long elapsed = System.nanoTime() - start;
+		assertEquals(0, failures[0]);
+		return THREADS * PARSES * 1000000000L / elapsed;
+	}
+
+	public void testConcurrentThroughput() throws InterruptedException {
+		// warm up both
+		throughput(false);
+		throughput(true);
+		long fresh = throughput(false);
+		long pooled = throughput(true);
+		Log.i(TAG,
+				new StringBuilder("threads=").append(THREADS)
+						.append(" fresh=").append(fresh)
+						.append("/s pooled=").append(pooled).append("/s")
+						.toString());
+	}
+
+}
@@ -0,0 +1,76 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import junit.framework.TestCase;
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Integer;
+import com.longevitysoft.android.xml.plist.domain.PListObjectType;
+
+/**
+ * Logs the heap retained by an array of {@link #ELEMENTS} integers held as
+ * {@link Integer} nodes and, after {@link Array#trimToSize()}, as a long[],
+ * and the time {@link Array#toLongArray()} takes for each.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class PrimitiveArrayBenchmarkTest extends TestCase {
+
+	public static final String TAG = "PrimitiveArrayBenchmarkTest";
+
+	private static final int ELEMENTS = 1000000;
+
+	private static long timeToLongArray(Array array) {
+		long sum = 0;
+		for (int i = 0; i < 3; i++) {
+			sum += array.toLongArray().length;
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < 10; i++) {
+			sum += array.toLongArray()[i];
+		}
+		assertTrue(sum > 0);
+		return (System.nanoTime() - start) / 10;
+	}
+
+	public void testIntegerArray() {
+		long before = Benchmarks.usedMemory();
+		Array array = new Array(ELEMENTS);
+		for (int i = 0; i < ELEMENTS; i++) {
+			Integer val = new Integer();
+			val.setValue(1000 + i);
+			array.add(val);
+		}
+		long nodeBytes = Benchmarks.usedMemory() - before;
+		long nodeTime = timeToLongArray(array);
+
+		// what the parser does when the end tag of an array is read
+		array.trimToSize();
+		long primitiveBytes = Benchmarks.usedMemory() - before;
+		assertEquals(PListObjectType.INTEGER, array.getPrimitiveType());
+		long primitiveTime = timeToLongArray(array);
+
+		Log.i(TAG,
+				new StringBuilder("elements=").append(ELEMENTS)
+						.append(" retained: nodes=").append(nodeBytes / 1024)
+						.append("KB long[]=").append(primitiveBytes / 1024)
+						.append("KB toLongArray: nodes=")
+						.append(nodeTime / 1000).append("us long[]=")
+						.append(primitiveTime / 1000).append("us").toString());
+		assertEquals(1000L + ELEMENTS - 1, array.getLong(ELEMENTS - 1));
+	}
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import junit.framework.TestCase;
+import android.os.Debug;
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Integer;
+import com.longevitysoft.android.xml.plist.domain.PListObject;
+import com.longevitysoft.android.xml.plist.domain.Real;
+
+/**
+ * Logs the heap retained by {@link #ELEMENTS} integer and real nodes against
+ * the same values held the way they were before primitive storage, and the bytes allocated summing them with
+ * {@link Array#getDouble(int)} against the boxed getValue().
+ * 
+ * @author fbeachler
+ * 
+ */
+public class PrimitiveValueBenchmarkTest extends TestCase {
+
+	public static final String TAG = "PrimitiveValueBenchmarkTest";
+
+	private static final int ELEMENTS = 200000;
+
+	/**
+	 * An integer node as it was before primitive storage.
+	 */
+	private static class BoxedInteger extends PListObject {
+
+		private static final long serialVersionUID = 1L;
+
+		java.lang.Integer value;
+
+	}
+
+	/**
+	 * A real node as it was before primitive storage.
+	 */
+	private static class BoxedReal extends PListObject {
+
+		private static final long serialVersionUID = 1L;
+
+		Float value;
+
+	}
+
+	public void testPrimitiveValues() {
+		long before = Benchmarks.usedMemory();
+		PListObject[] primitive = new PListObject[ELEMENTS];
+		for (int i = 0; i < ELEMENTS; i++) {
+			if (i % 2 == 0) {
+				Integer val = new Integer();
+				val.setValue(1000 + i);
+				primitive[i] = val;
+			} else {
+				Real val = new Real();
+				val.setValue(i + 0.5);
+				primitive[i] = val;
+			}
+		}
+		long primitiveBytes = Benchmarks.usedMemory() - before;
+
+		before = Benchmarks.usedMemory();
+		PListObject[] boxed = new PListObject[ELEMENTS];
+		for (int i = 0; i < ELEMENTS; i++) {
+			if (i % 2 == 0) {
+				BoxedInteger val = new BoxedInteger();
+				val.value = new java.lang.Integer(1000 + i);
+				boxed[i] = val;
+			} else {
+				BoxedReal val = new BoxedReal();
+				val.value = new Float(i + 0.5f);
+				boxed[i] = val;
+			}
+		}
+		long boxedBytes = Benchmarks.usedMemory() - before;
+
+		Array array = new Array(ELEMENTS);
+		for (int i = 0; i < ELEMENTS; i++) {
+			array.add(primitive[i]);
+		}
+		Debug.startAllocCounting();
+		Debug.resetThreadAllocSize();
+		double sum = 0;
+		for (int i = 0; i < ELEMENTS; i++) {
+			sum += array.getDouble(i);
+		}
+		long primitiveAllocated = Debug.getThreadAllocSize();
+		Debug.resetThreadAllocSize();
+		double boxedSum = 0;
+		for (int i = 0; i < ELEMENTS; i++) {
+			if (i % 2 == 0) {
+				boxedSum += ((Integer) array.get(i)).getValue().intValue();
+			} else {
+				boxedSum += ((Real) array.get(i)).getValue().floatValue();
+			}
+		}
+		long boxedAllocated = Debug.getThreadAllocSize();
+		Debug.stopAllocCounting();
+
+		Log.i(TAG,
+				new StringBuilder("elements=").append(ELEMENTS)
+						.append(" retained: primitive=")
+						.append(primitiveBytes / ELEMENTS)
+						.append("B/element boxed nodes=")
+						.append(boxedBytes / ELEMENTS)
+						.append("B/element read: primitive=")
+						.append(primitiveAllocated / ELEMENTS)
+						.append("B/element getValue()=")
+						.append(boxedAllocated / ELEMENTS).append("B/element")
+						.toString());
+		assertEquals(sum, boxedSum, 0);
+		assertEquals(ELEMENTS, boxed.length);
+	}
+
+}
@@ -0,0 +1,109 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.PListXMLParser.Engine;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+
+/**
+ * Logs the time to read a handful of key paths from a large dict with
+ * {@link PListXMLParser#setKeyPaths(java.util.Collection)}, against parsing
+ * the whole document.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class ProjectionBenchmarkTest extends TestCase {
+
+	public static final String TAG = "ProjectionBenchmarkTest";
+
+	private static final int SECTIONS = 5000;
+	private static final int WARMUP = 3;
+	private static final int RUNS = 10;
+
+	/**
+	 * Build a dict of {@link #SECTIONS} section dicts.
+	 */
+	private static byte[] buildSections() throws IOException {
+		StringBuilder sb = new StringBuilder(
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<plist version=\"1.0\">\n<dict>\n");
+		for (int i = 0; i < SECTIONS; i++) {
+			sb.append("\t<key>section").append(i).append("</key>\n\t<dict>\n");
+			sb.append("\t\t<key>id</key>\n\t\t<integer>").append(i)
+					.append("</integer>\n");
+			sb.append("\t\t<key>title</key>\n\t\t<string>Section &amp; ")
+					.append(i).append("</string>\n");
+			sb.append("\t\t<key>items</key>\n\t\t<array>\n\t\t\t<string>a</string>\n\t\t\t<string>b</string>\n\t\t</array>\n");
+			sb.append("\t</dict>\n");
+		}
+		sb.append("</dict>\n</plist>\n");
+		return sb.toString().getBytes("UTF-8");
+	}
+
+	private long time(byte[] doc, List<String> keyPaths) throws IOException {
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		parser.setEngine(Engine.PULL);
+		parser.setKeyPaths(keyPaths);
+		long start = System.nanoTime();
+		parser.parse(new ByteArrayInputStream(doc));
+		long elapsed = System.nanoTime() - start;
+		Dict root = (Dict) handler.getPlist().getRootElement();
+		assertEquals(Integer.valueOf(SECTIONS / 2),
+				root.getConfigurationInteger("section" + SECTIONS / 2 + ".id")
+						.getValue());
+		return elapsed;
+	}
+
+	private long average(byte[] doc, List<String> keyPaths) throws IOException {
+		for (int i = 0; i < WARMUP; i++) {
+			time(doc, keyPaths);
+		}
+		long total = 0;
+		for (int i = 0; i < RUNS; i++) {
+			total += time(doc, keyPaths);
+		}
+		return total / RUNS;
+	}
+
+	public void testProjection() throws IOException {
+		byte[] doc = buildSections();
+		List<String> early = Arrays.asList("section1.id", "section10.title",
+				"section100", "section" + SECTIONS / 2 + ".id");
+		List<String> late = Arrays.asList("section1.id", "section10.title",
+				"section" + SECTIONS / 2 + ".id", "section" + (SECTIONS - 1)
+						+ ".items");
+		long full = average(doc, null);
+		long half = average(doc, early);
+		long whole = average(doc, late);
+		Log.i(TAG,
+				new StringBuilder("document=").append(doc.length / 1024)
+						.append("KB full=").append(full / 1000)
+						.append("us projected-stop-halfway=")
+						.append(half / 1000)
+						.append("us projected-read-to-end=")
+						.append(whole / 1000).append("us").toString());
+	}
+
+}
@@ -0,0 +1,125 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import android.os.Debug;
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.ValueDecoder;
+
+/**
+ * Logs the time and bytes allocated parsing {@link #VALUES} reals from a
+ * character buffer with {@link ValueDecoder#parseDouble(CharSequence, int, int)},
+ * against copying each into a {@link String} for
+ * {@link Double#parseDouble(String)}, and for {@link Float#parseFloat(String)}
+ * as reals were parsed before they were held as doubles. Short reals take the
+ * exact fast path, reals of 17 digits the Eisel-Lemire path.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class RealParseBenchmarkTest extends TestCase {
+
+	public static final String TAG = "RealParseBenchmarkTest";
+
+	private static final int VALUES = 100000;
+
+	private static final int WARMUP = 3;
+
+	private static String run(String label, StringBuilder text, int[] ends) {
+		double fast = 0;
+		double jdk = 0;
+		float legacy = 0;
+		for (int run = 0; run < WARMUP; run++) {
+			fast += parseAll(text, ends);
+			jdk += parseAllJdk(text, ends);
+			legacy += parseAllLegacy(text, ends);
+		}
+		Debug.startAllocCounting();
+		Debug.resetThreadAllocSize();
+		long start = System.nanoTime();
+		fast = parseAll(text, ends);
+		long fastTime = System.nanoTime() - start;
+		long fastAllocated = Debug.getThreadAllocSize();
+		Debug.resetThreadAllocSize();
+		start = System.nanoTime();
+		jdk = parseAllJdk(text, ends);
+		long jdkTime = System.nanoTime() - start;
+		long jdkAllocated = Debug.getThreadAllocSize();
+		start = System.nanoTime();
+		legacy = parseAllLegacy(text, ends);
+		long legacyTime = System.nanoTime() - start;
+		Debug.stopAllocCounting();
+		assertEquals(jdk, fast, 0);
+		assertTrue(0 != legacy);
+		return new StringBuilder(label).append(": parseDouble=")
+				.append(fastTime / VALUES).append("ns ")
+				.append(fastAllocated / VALUES).append("B Double=")
+				.append(jdkTime / VALUES).append("ns ")
+				.append(jdkAllocated / VALUES).append("B Float=")
+				.append(legacyTime / VALUES).append("ns").toString();
+	}
+
+	private static double parseAll(StringBuilder text, int[] ends) {
+		double sum = 0;
+		int start = 0;
+		for (int i = 0; i < ends.length; i++) {
+			sum += ValueDecoder.parseDouble(text, start, ends[i]);
+			start = ends[i];
+		}
+		return sum;
+	}
+
+	private static double parseAllJdk(StringBuilder text, int[] ends) {
+		double sum = 0;
+		int start = 0;
+		for (int i = 0; i < ends.length; i++) {
+			sum += Double.parseDouble(text.substring(start, ends[i]).trim());
+			start = ends[i];
+		}
+		return sum;
+	}
+
+	private static float parseAllLegacy(StringBuilder text, int[] ends) {
+		float sum = 0;
+		int start = 0;
+		for (int i = 0; i < ends.length; i++) {
+			sum += Float.valueOf(
+					Float.parseFloat(text.substring(start, ends[i]).trim()))
+					.floatValue();
+			start = ends[i];
+		}
+		return sum;
+	}
+
+	public void testParseReals() {
+		Random random = new Random(17);
+		StringBuilder shortReals = new StringBuilder();
+		StringBuilder longReals = new StringBuilder();
+		int[] shortEnds = new int[VALUES];
+		int[] longEnds = new int[VALUES];
+		for (int i = 0; i < VALUES; i++) {
+			shortReals.append(' ').append(random.nextInt(100000) / 100.0);
+			shortEnds[i] = shortReals.length();
+			longReals.append(' ').append(random.nextDouble() * 1000);
+			longEnds[i] = longReals.length();
+		}
+		Log.i(TAG, new StringBuilder("values=").append(VALUES).append(' ')
+				.append(run("short", shortReals, shortEnds)).append(' ')
+				.append(run("17 digits", longReals, longEnds)).toString());
+	}
+
+}
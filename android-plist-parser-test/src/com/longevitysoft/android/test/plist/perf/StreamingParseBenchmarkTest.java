@@ -0,0 +1,175 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import junit.framework.TestCase;
+import android.util.Log;
+
+import com.longevitysoft.android.util.Stringer;
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.domain.Array;
+
+/**
+ * Compares peak heap use of {@link PListXMLParser#parse(InputStream)} against
+ * buffering the whole document into a String first. The documents are
+ * generated on the fly and are mostly comments, so the parsed tree stays tiny
+ * and the heap growth is the cost of reading the input.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class StreamingParseBenchmarkTest extends TestCase {
+
+	public static final String TAG = "StreamingParseBenchmarkTest";
+
+	private static final int MB = 1024 * 1024;
+
+	/**
+	 * Generates a PList XML document of a given size, padded with comments.
+	 * Live heap is sampled, after a GC, every time another
+	 * {@link #SAMPLE_INTERVAL} chunks have been handed to the reader.
+	 */
+	protected static class PaddedPListInputStream extends InputStream {
+
+		private static final byte[] HEAD = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\"><array>"
+				.getBytes();
+		private static final int SAMPLE_INTERVAL = 256;
+		private static final byte[] TAIL = "</array></plist>".getBytes();
+		private static final byte[] CHUNK;
+		static {
+			StringBuilder sb = new StringBuilder("<true/><!--");
+			while (sb.length() < 1021) {
+				sb.append(' ');
+			}
+			CHUNK = sb.append("-->").toString().getBytes();
+		}
+
+		private final Runtime rt = Runtime.getRuntime();
+		private final long chunks;
+		private long chunk;
+		private int pos;
+		private long peak;
+
+		public PaddedPListInputStream(long size) {
+			chunks = size / CHUNK.length;
+			// start at the document head
+			chunk = -1;
+		}
+
+		public long getPeak() {
+			return peak;
+		}
+
+		public long getChunks() {
+			return chunks;
+		}
+
+		private byte[] current() {
+			if (chunk < 0) {
+				return HEAD;
+			}
+			return chunk < chunks ? CHUNK : TAIL;
+		}
+
+		private void sample() {
+			System.gc();
+			long used = rt.totalMemory() - rt.freeMemory();
+			if (used > peak) {
+				peak = used;
+			}
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (chunk > chunks) {
+				return -1;
+			}
+			int n = 0;
+			while (n < len && chunk <= chunks) {
+				byte[] src = current();
+				int cnt = Math.min(len - n, src.length - pos);
+				System.arraycopy(src, pos, b, off + n, cnt);
+				n += cnt;
+				pos += cnt;
+				if (pos == src.length) {
+					pos = 0;
+					chunk++;
+					if (chunk % SAMPLE_INTERVAL == 0) {
+						sample();
+					}
+				}
+			}
+			return n;
+		}
+	}
+
+	private static long settledHeap() {
+		Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return rt.totalMemory() - rt.freeMemory();
+	}
+
+	private long parseStreaming(long size) throws IOException {
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		long base = settledHeap();
+		PaddedPListInputStream is = new PaddedPListInputStream(size);
+		parser.parse(is);
+		assertEquals(is.getChunks(),
+				((Array) handler.getPlist().getRootElement()).size());
+		return is.getPeak() - base;
+	}
+
+	private long parseBuffered(long size) throws IOException {
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		long base = settledHeap();
+		PaddedPListInputStream is = new PaddedPListInputStream(size);
+		parser.parse(Stringer.convert(is).getBuilder().toString());
+		assertEquals(is.getChunks(),
+				((Array) handler.getPlist().getRootElement()).size());
+		return is.getPeak() - base;
+	}
+
+	/**
+	 * Logs peak live heap growth for growing inputs. The streaming figures should
+	 * stay roughly constant while the buffered ones grow with the input.
+	 * 
+	 * @throws IOException
+	 */
+	public void testPeakHeapByInputSize() throws IOException {
+		for (int size = MB; size <= 16 * MB; size *= 4) {
+			long streaming = parseStreaming(size);
+			long buffered = parseBuffered(size);
+			Log.i(TAG, new StringBuilder("input=").append(size / MB)
+					.append("MB streaming-live-peak=").append(streaming / 1024)
+					.append("KB buffered-live-peak=").append(buffered / 1024)
+					.append("KB").toString());
+		}
+	}
+
+}
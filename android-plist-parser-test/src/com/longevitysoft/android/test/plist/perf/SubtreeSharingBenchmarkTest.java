@@ -0,0 +1,108 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import junit.framework.TestCase;
+import android.util.Log;
+
+import com.longevitysoft.android.test.plist.xml.PListXMLTokenizerTest;
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.PList;
+
+/**
+ * Parses a document of {@link #RECORDS} dicts that each repeat one of a few
+ * style dicts and permission arrays, and logs the heap the parsed tree
+ * retains with equal subtrees shared against one holding every subtree.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class SubtreeSharingBenchmarkTest extends TestCase {
+
+	public static final String TAG = "SubtreeSharingBenchmarkTest";
+
+	private static final int RECORDS = 10000;
+
+	private static final int STYLES = 4;
+
+	private static PList parse(String xml, boolean share) {
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		handler.setShareSubtrees(share);
+		parser.setHandler(handler);
+		parser.parse(xml);
+		return handler.getPlist();
+	}
+
+	public void testSharedSubtreeMemory() {
+		StringBuilder xml = new StringBuilder(
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\"><array>");
+		for (int i = 0; i < RECORDS; i++) {
+			int s = i % STYLES;
+			xml.append("<dict><key>id</key><integer>").append(i)
+					.append("</integer><key>style</key><dict>")
+					.append("<key>font</key><string>Helvetica</string>")
+					.append("<key>size</key><integer>").append(10 + s)
+					.append("</integer><key>color</key><string>#33").append(s)
+					.append("3333</string><key>bold</key><true/>")
+					.append("<key>padding</key><array><real>4.5</real><real>")
+					.append(s).append("</real></array></dict>")
+					.append("<key>permissions</key><array>")
+					.append("<string>read</string><string>write</string>");
+			if (s == 0) {
+				xml.append("<string>admin</string>");
+			}
+			xml.append("</array></dict>");
+		}
+		xml.append("</array></plist>");
+		String doc = xml.toString();
+		xml = null;
+
+		long before = Benchmarks.usedMemory();
+		PList shared = parse(doc, true);
+		long sharedBytes = Benchmarks.usedMemory() - before;
+		before = Benchmarks.usedMemory();
+		PList plain = parse(doc, false);
+		long plainBytes = Benchmarks.usedMemory() - before;
+
+		Log.i(TAG,
+				new StringBuilder("records=").append(RECORDS)
+						.append(" shared=").append(sharedBytes / 1024)
+						.append("KB plain=").append(plainBytes / 1024)
+						.append("KB subtrees=")
+						.append(shared.getSharedSubtreeCount())
+						.append(" estimate=")
+						.append(shared.getSharedSubtreeBytes() / 1024)
+						.append("KB").toString());
+		Array sharedRoot = (Array) shared.getRootElement();
+		Array plainRoot = (Array) plain.getRootElement();
+		assertEquals(RECORDS, sharedRoot.size());
+		// style, its padding and permissions are shared beyond the first
+		// STYLES records, and 2 of the distinct paddings or permissions are
+		// equal to one before
+		assertEquals(3 * (RECORDS - STYLES) + STYLES - 2,
+				shared.getSharedSubtreeCount());
+		for (int i = 0; i < RECORDS; i += 997) {
+			Dict a = (Dict) sharedRoot.get(i);
+			Dict b = (Dict) plainRoot.get(i);
+			PListXMLTokenizerTest.assertSameTree(b, a);
+			assertSame(a.getConfigurationObject("style"),
+					((Dict) sharedRoot.get(i % STYLES))
+							.getConfigurationObject("style"));
+		}
+	}
+
+}
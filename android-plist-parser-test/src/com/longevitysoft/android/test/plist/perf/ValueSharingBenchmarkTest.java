@@ -0,0 +1,100 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import junit.framework.TestCase;
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.PList;
+
+/**
+ * Compares the heap retained by a document of {@link #RECORDS} dicts of
+ * repetitive values parsed with every value in its own node, against the
+ * same document parsed with shared integers and interned short strings.
+ * Booleans are shared in both.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class ValueSharingBenchmarkTest extends TestCase {
+
+	public static final String TAG = "ValueSharingBenchmarkTest";
+
+	private static final int RECORDS = 20000;
+
+	private static final String[] STATES = { "YES", "NO", "", "pending" };
+
+	private static PList parse(String xml, boolean share) {
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		if (share) {
+			handler.setShareIntegers(true);
+			handler.setStringInternLength(16);
+		}
+		parser.setHandler(handler);
+		parser.parse(xml);
+		return handler.getPlist();
+	}
+
+	public void testSharedValueMemory() {
+		StringBuilder xml = new StringBuilder(
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\"><array>");
+		for (int i = 0; i < RECORDS; i++) {
+			xml.append("<dict><key>id</key><integer>").append(i)
+					.append("</integer><key>rank</key><integer>")
+					.append(i % 10).append("</integer><key>count</key><integer>0</integer>")
+					.append("<key>state</key><string>")
+					.append(STATES[i % STATES.length])
+					.append("</string><key>enabled</key>")
+					.append(i % 3 == 0 ? "<false/>" : "<true/>")
+					.append("</dict>");
+		}
+		xml.append("</array></plist>");
+		String doc = xml.toString();
+		xml = null;
+		// warm up the parser and load the shared nodes
+		parse(doc, true);
+
+		long before = Benchmarks.usedMemory();
+		PList own = parse(doc, false);
+		long ownBytes = Benchmarks.usedMemory() - before;
+		before = Benchmarks.usedMemory();
+		PList shared = parse(doc, true);
+		long sharedBytes = Benchmarks.usedMemory() - before;
+
+		Log.i(TAG,
+				new StringBuilder("records=").append(RECORDS)
+						.append(" own nodes=").append(ownBytes / 1024)
+						.append("KB shared=").append(sharedBytes / 1024)
+						.append("KB").toString());
+		Array ownRoot = (Array) own.getRootElement();
+		Array sharedRoot = (Array) shared.getRootElement();
+		assertEquals(RECORDS, sharedRoot.size());
+		for (int i = 0; i < RECORDS; i += 101) {
+			Dict expected = (Dict) ownRoot.get(i);
+			Dict actual = (Dict) sharedRoot.get(i);
+			assertEquals(expected.getLong("id", -1), actual.getLong("id", -2));
+			assertEquals(expected.getLong("rank", -1),
+					actual.getLong("rank", -2));
+			assertEquals(expected.getBoolean("enabled", false),
+					actual.getBoolean("enabled", true));
+			assertEquals(expected.getConfiguration("state").getValue(), actual
+					.getConfiguration("state").getValue());
+		}
+	}
+
+}
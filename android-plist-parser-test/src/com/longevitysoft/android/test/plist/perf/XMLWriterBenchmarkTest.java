@@ -0,0 +1,94 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.perf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import junit.framework.TestCase;
+import android.os.Debug;
+import android.util.Log;
+
+import com.longevitysoft.android.xml.plist.PListXMLWriter;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.Integer;
+import com.longevitysoft.android.xml.plist.domain.PList;
+
+/**
+ * Logs the time and the bytes allocated by {@link PListXMLWriter} writing a
+ * dict of {@link #ENTRIES} entries.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class XMLWriterBenchmarkTest extends TestCase {
+
+	public static final String TAG = "XMLWriterBenchmarkTest";
+
+	private static final int ENTRIES = 100000;
+	private static final int WARMUP = 3;
+	private static final int RUNS = 10;
+
+	/**
+	 * Counts and discards what is written.
+	 */
+	private static class CountingOutputStream extends OutputStream {
+
+		long count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+
+	}
+
+	public void testWriteLargeDict() throws IOException {
+		Dict root = new Dict();
+		for (int i = 0; i < ENTRIES; i++) {
+			Integer val = new Integer();
+			val.setValue(java.lang.Integer.valueOf(i));
+			root.putConfig("key" + i, val);
+		}
+		PList pList = new PList();
+		pList.setRootElement(root);
+		PListXMLWriter writer = new PListXMLWriter(true);
+		CountingOutputStream os = new CountingOutputStream();
+		for (int i = 0; i < WARMUP; i++) {
+			writer.write(pList, os);
+		}
+		os.count = 0;
+		Debug.startAllocCounting();
+		Debug.resetThreadAllocSize();
+		long start = System.nanoTime();
+		for (int i = 0; i < RUNS; i++) {
+			writer.write(pList, os);
+		}
+		long elapsed = (System.nanoTime() - start) / RUNS;
+		int allocated = Debug.getThreadAllocSize() / RUNS;
+		Debug.stopAllocCounting();
+		Log.i(TAG,
+				new StringBuilder("entries=").append(ENTRIES)
+						.append(" document=").append(os.count / RUNS / 1024)
+						.append("KB write=").append(elapsed / 1000000)
+						.append("ms allocated=").append(allocated)
+						.append("B").toString());
+		assertTrue(os.count > 0);
+	}
+
+}
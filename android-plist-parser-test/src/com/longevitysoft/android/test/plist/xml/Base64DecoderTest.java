@@ -0,0 +1,110 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import net.sf.migbase64.Base64;
+
+import com.longevitysoft.android.xml.plist.Base64Decoder;
+
+/**
+ * Tests {@link Base64Decoder} against {@link Base64}.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class Base64DecoderTest extends TestCase {
+
+	private Base64Decoder decoder;
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see junit.framework.TestCase#setUp()
+	 */
+	protected void setUp() throws Exception {
+		super.setUp();
+		decoder = new Base64Decoder();
+	}
+
+	private byte[] decode(java.lang.String text, int chunk)
+			throws IOException {
+		char[] ch = text.toCharArray();
+		for (int start = 0; start < ch.length; start += chunk) {
+			decoder.decode(ch, start, Math.min(chunk, ch.length - start));
+		}
+		return decoder.finish();
+	}
+
+	public void testEveryChunkSize() throws IOException {
+		Random random = new Random(7);
+		for (int len = 0; len < 40; len++) {
+			byte[] bytes = new byte[len];
+			random.nextBytes(bytes);
+			java.lang.String text = Base64.encodeToString(bytes, false);
+			for (int chunk = 1; chunk <= text.length() + 1; chunk++) {
+				assertTrue(len + "/" + chunk,
+						Arrays.equals(bytes, decode(text, chunk)));
+			}
+		}
+	}
+
+	public void testLineBreaksAndWhitespace() throws IOException {
+		byte[] bytes = new byte[300];
+		new Random(11).nextBytes(bytes);
+		java.lang.String text = "\n\t" + Base64.encodeToString(bytes, true)
+				+ "\r\n  ";
+		assertTrue(Arrays.equals(bytes, decode(text, 7)));
+	}
+
+	public void testWithoutPadding() throws IOException {
+		assertEquals("f", new java.lang.String(decode("Zg", 1)));
+		assertEquals("fo", new java.lang.String(decode("Zm8", 2)));
+		assertEquals("fo", new java.lang.String(decode("Zm8=", 2)));
+	}
+
+	public void testEmpty() throws IOException {
+		assertEquals(0, decode("", 1).length);
+		assertEquals(0, decode(" \n ", 1).length);
+	}
+
+	public void testInvalid() throws IOException {
+		try {
+			decode("Zm9v!mFy", 3);
+			fail("invalid character must be rejected");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		decoder.reset();
+		try {
+			decode("Zg==Zg==", 8);
+			fail("data after padding must be rejected");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		decoder.reset();
+		try {
+			decode("Zm9vY", 8);
+			fail("truncated data must be rejected");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		// usable again after an error
+		assertEquals("foobar", new java.lang.String(decode("Zm9vYmFy", 3)));
+	}
+
+}
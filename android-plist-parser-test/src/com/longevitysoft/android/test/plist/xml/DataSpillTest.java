@@ -0,0 +1,167 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import net.sf.migbase64.Base64;
+
+import com.longevitysoft.android.xml.plist.Base64Decoder;
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Data;
+import com.longevitysoft.android.xml.plist.domain.PList;
+
+/**
+ * Tests spilling large {@link Data} values to temporary files.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class DataSpillTest extends TestCase {
+
+	private static final int THRESHOLD = 100 * 1024;
+
+	private File dir;
+
+	private byte[] large;
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see junit.framework.TestCase#setUp()
+	 */
+	protected void setUp() throws Exception {
+		super.setUp();
+		dir = File.createTempFile("DataSpillTest", "");
+		dir.delete();
+		dir.mkdir();
+		large = new byte[THRESHOLD * 3 + 1];
+		for (int i = 0; i < large.length; i++) {
+			large[i] = (byte) (i * 7);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see junit.framework.TestCase#tearDown()
+	 */
+	protected void tearDown() throws Exception {
+		File[] files = dir.listFiles();
+		for (int i = 0; null != files && i < files.length; i++) {
+			files[i].delete();
+		}
+		dir.delete();
+		super.tearDown();
+	}
+
+	private PList parse(java.lang.String body) {
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		handler.setDataSpillThreshold(THRESHOLD, dir);
+		parser.setHandler(handler);
+		parser.parse("<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\">"
+				+ body + "</plist>");
+		return handler.getPlist();
+	}
+
+	public void testLargeValueIsSpilled() throws Exception {
+		PList pList = parse("<array><data>"
+				+ Base64.encodeToString(large, true)
+				+ "</data><data>Zm9vYmFy</data></array>");
+		Array array = (Array) pList.getRootElement();
+		Data spilled = (Data) array.get(0);
+		Data small = (Data) array.get(1);
+		assertTrue(spilled.isMapped());
+		assertFalse(small.isMapped());
+		assertEquals("foobar", small.getValue());
+		assertEquals(1, pList.getTempFileCount());
+		assertEquals(1, dir.listFiles().length);
+
+		assertTrue(Arrays.equals(large, spilled.getBytes()));
+		ByteBuffer buf = spilled.asByteBuffer();
+		assertTrue(buf.isReadOnly());
+		assertEquals(large.length, buf.remaining());
+		assertEquals(large[large.length - 1], buf.get(large.length - 1));
+
+		InputStream is = spilled.openStream();
+		byte[] read = new byte[large.length];
+		int off = 0;
+		int n;
+		while ((n = is.read(read, off, read.length - off)) > 0) {
+			off += n;
+		}
+		assertEquals(large.length, off);
+		assertEquals(-1, is.read());
+		assertTrue(Arrays.equals(large, read));
+
+		pList.close();
+		assertEquals(0, pList.getTempFileCount());
+		assertEquals(0, dir.listFiles().length);
+	}
+
+	public void testDisabledByDefault() {
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		parser.parse("<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\"><data>"
+				+ Base64.encodeToString(large, false) + "</data></plist>");
+		Data data = (Data) handler.getPlist().getRootElement();
+		assertFalse(data.isMapped());
+		assertTrue(Arrays.equals(large, data.getBytes()));
+	}
+
+	public void testEveryLength() throws Exception {
+		Base64Decoder decoder = new Base64Decoder();
+		decoder.setSpillThreshold(10, dir);
+		for (int len = 0; len < 80; len++) {
+			byte[] bytes = new byte[len];
+			System.arraycopy(large, 0, bytes, 0, len);
+			char[] ch = Base64.encodeToString(bytes, false).toCharArray();
+			decoder.reset();
+			for (int start = 0; start < ch.length; start += 5) {
+				decoder.decode(ch, start, Math.min(5, ch.length - start));
+			}
+			byte[] decoded;
+			if (decoder.isSpilled()) {
+				File file = decoder.getSpillFile();
+				ByteBuffer buf = decoder.finishSpilled();
+				decoded = new byte[buf.remaining()];
+				buf.get(decoded);
+				assertTrue(file.delete());
+			} else {
+				decoded = decoder.finish();
+			}
+			assertTrue(len + "", Arrays.equals(bytes, decoded));
+		}
+	}
+
+	public void testResetDeletesSpillFile() throws Exception {
+		Base64Decoder decoder = new Base64Decoder();
+		decoder.setSpillThreshold(0, dir);
+		char[] ch = Base64.encodeToString(large, false).toCharArray();
+		decoder.decode(ch, 0, ch.length);
+		assertTrue(decoder.isSpilled());
+		assertEquals(1, dir.listFiles().length);
+		decoder.reset();
+		assertFalse(decoder.isSpilled());
+		assertEquals(0, dir.listFiles().length);
+	}
+
+}
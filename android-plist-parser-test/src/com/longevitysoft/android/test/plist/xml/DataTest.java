@@ -0,0 +1,100 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
+import junit.framework.TestCase;
+
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.domain.Data;
+
+/**
+ * Tests the decode-once binary accessors of {@link Data}.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class DataTest extends TestCase {
+
+	private static Data parse(java.lang.String encoded) {
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		parser.parse("<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\"><data>"
+				+ encoded + "</data></plist>");
+		return (Data) handler.getPlist().getRootElement();
+	}
+
+	public void testGetBytesDecodesOnce() {
+		Data data = parse("\n\tZm9vYmFy\n");
+		byte[] bytes = data.getBytes();
+		assertEquals("foobar", new java.lang.String(bytes));
+		assertSame(bytes, data.getBytes());
+		assertEquals("foobar", data.getValue());
+	}
+
+	public void testAsByteBuffer() {
+		Data data = parse("AAEC/w==");
+		ByteBuffer buf = data.asByteBuffer();
+		assertTrue(buf.isReadOnly());
+		assertEquals(4, buf.remaining());
+		assertEquals(0, buf.get(0));
+		assertEquals(1, buf.get(1));
+		assertEquals(2, buf.get(2));
+		assertEquals((byte) 0xFF, buf.get(3));
+		try {
+			buf.put(0, (byte) 1);
+			fail("buffer must be read-only");
+		} catch (ReadOnlyBufferException e) {
+			// expected
+		}
+		// each call returns an independent position
+		buf.get();
+		assertEquals(4, data.asByteBuffer().remaining());
+	}
+
+	public void testOpenStream() throws Exception {
+		Data data = parse("Zm9vYmFy");
+		InputStream is = data.openStream();
+		byte[] read = new byte[16];
+		int n = is.read(read);
+		assertEquals(6, n);
+		assertEquals("foobar", new java.lang.String(read, 0, n));
+		assertEquals(-1, is.read());
+	}
+
+	public void testEncodedValue() {
+		Data data = new Data();
+		data.setValue("foobar".getBytes(), false);
+		assertEquals("Zm9vYmFy", data.getValue(false));
+		assertEquals("foobar", data.getValue(true));
+
+		data = parse("Zm9v\nYmFy");
+		assertEquals("foobar", data.getValue());
+		assertEquals("Zm9vYmFy", data.getValue(false));
+	}
+
+	public void testUnset() {
+		Data data = new Data();
+		assertNull(data.getBytes());
+		assertNull(data.asByteBuffer());
+		assertNull(data.openStream());
+		assertNull(data.getValue());
+		assertNull(data.getValue(false));
+	}
+
+}
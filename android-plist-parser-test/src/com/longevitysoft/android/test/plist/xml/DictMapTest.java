@@ -0,0 +1,210 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.DictMap;
+import com.longevitysoft.android.xml.plist.domain.Integer;
+import com.longevitysoft.android.xml.plist.domain.PListObject;
+
+/**
+ * Tests {@link DictMap} against a {@link TreeMap}.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class DictMapTest extends TestCase {
+
+	private static Integer newInteger(int val) {
+		Integer ret = new Integer();
+		ret.setValue(java.lang.Integer.valueOf(val));
+		return ret;
+	}
+
+	private static void assertSameMap(Map<String, PListObject> expected,
+			DictMap actual) {
+		assertEquals(expected.size(), actual.size());
+		for (String key : expected.keySet()) {
+			assertTrue(key, actual.containsKey(key));
+			assertSame(key, expected.get(key), actual.get(key));
+		}
+		assertEquals(new ArrayList<String>(expected.keySet()),
+				new ArrayList<String>(actual.keySet()));
+		assertEquals(expected, actual);
+		assertEquals(expected.hashCode(), actual.hashCode());
+	}
+
+	public void testEmpty() {
+		DictMap map = new DictMap();
+		assertEquals(0, map.size());
+		assertTrue(map.isEmpty());
+		assertNull(map.get("a"));
+		assertNull(map.remove("a"));
+		assertFalse(map.containsKey(null));
+		assertFalse(map.entrySet().iterator().hasNext());
+	}
+
+	public void testPutInOrder() {
+		DictMap map = new DictMap();
+		Map<String, PListObject> expected = new TreeMap<String, PListObject>();
+		for (int i = 0; i < 1000; i++) {
+			String key = String.format("key%04d", i);
+			Integer val = newInteger(i);
+			assertNull(map.put(key, val));
+			expected.put(key, val);
+		}
+		assertSameMap(expected, map);
+	}
+
+	public void testPutReplaces() {
+		DictMap map = new DictMap();
+		Integer a = newInteger(1);
+		Integer b = newInteger(2);
+		map.put("b", a);
+		map.put("a", a);
+		assertSame(a, map.put("b", b));
+		assertSame(a, map.put("a", b));
+		assertEquals(2, map.size());
+		assertSame(b, map.get("a"));
+		assertSame(b, map.get("b"));
+	}
+
+	public void testNullKey() {
+		try {
+			new DictMap().put(null, newInteger(1));
+			fail("expected NullPointerException");
+		} catch (NullPointerException e) {
+			// expected
+		}
+	}
+
+	public void testRandomOperations() {
+		Random random = new Random(7);
+		for (int round = 0; round < 50; round++) {
+			DictMap map = new DictMap();
+			Map<String, PListObject> expected = new TreeMap<String, PListObject>();
+			int keys = 1 + random.nextInt(round < 25 ? 12 : 500);
+			for (int i = 0; i < keys * 3; i++) {
+				String key = "k" + random.nextInt(keys);
+				switch (random.nextInt(4)) {
+				case 0:
+					assertSame(expected.remove(key), map.remove(key));
+					break;
+				case 1:
+					assertSame(expected.get(key), map.get(key));
+					break;
+				default:
+					Integer val = newInteger(i);
+					assertSame(expected.put(key, val), map.put(key, val));
+				}
+				assertEquals(expected.size(), map.size());
+			}
+			assertSameMap(expected, map);
+			map.trimToSize();
+			assertSameMap(expected, map);
+		}
+	}
+
+	public void testIteratorRemove() {
+		DictMap map = new DictMap();
+		Map<String, PListObject> expected = new TreeMap<String, PListObject>();
+		for (int i = 20; i > 0; i--) {
+			Integer val = newInteger(i);
+			map.put("k" + i, val);
+			expected.put("k" + i, val);
+		}
+		Iterator<String> it = map.keySet().iterator();
+		Iterator<String> expectedIt = expected.keySet().iterator();
+		int i = 0;
+		while (it.hasNext()) {
+			assertEquals(expectedIt.next(), it.next());
+			if (i++ % 3 == 0) {
+				it.remove();
+				expectedIt.remove();
+			}
+		}
+		assertSameMap(expected, map);
+	}
+
+	public void testIteratorFailFast() {
+		DictMap map = new DictMap();
+		map.put("a", newInteger(1));
+		map.put("b", newInteger(2));
+		Iterator<String> it = map.keySet().iterator();
+		it.next();
+		map.put("c", newInteger(3));
+		try {
+			it.next();
+			fail("expected ConcurrentModificationException");
+		} catch (ConcurrentModificationException e) {
+			// expected
+		}
+	}
+
+	public void testEntrySetValue() {
+		DictMap map = new DictMap();
+		Integer a = newInteger(1);
+		Integer b = newInteger(2);
+		map.put("a", a);
+		Map.Entry<String, PListObject> entry = map.entrySet().iterator()
+				.next();
+		assertSame(a, entry.setValue(b));
+		assertSame(b, map.get("a"));
+	}
+
+	public void testClear() {
+		DictMap map = new DictMap();
+		for (int i = 0; i < 20; i++) {
+			map.put("k" + (20 - i), newInteger(i));
+		}
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertNull(map.get("k1"));
+		map.put("b", newInteger(1));
+		map.put("a", newInteger(2));
+		List<String> keys = new ArrayList<String>(map.keySet());
+		assertEquals("a", keys.get(0));
+		assertEquals("b", keys.get(1));
+	}
+
+	public void testParsedDictIsSorted() {
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		parser.parse("<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\"><dict>"
+				+ "<key>b</key><integer>2</integer>"
+				+ "<key>c</key><integer>3</integer>"
+				+ "<key>a</key><integer>1</integer></dict></plist>");
+		Dict dict = (Dict) handler.getPlist().getRootElement();
+		assertTrue(dict.getConfigMap() instanceof DictMap);
+		List<String> keys = new ArrayList<String>(dict.getConfigMap().keySet());
+		assertEquals("a", keys.get(0));
+		assertEquals("b", keys.get(1));
+		assertEquals("c", keys.get(2));
+		assertEquals(1, dict.getConfigurationInteger("a").getValue()
+				.intValue());
+	}
+
+}
@@ -0,0 +1,265 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.binary.BinaryPListParser;
+import com.longevitysoft.android.xml.plist.binary.BinaryPListWriter;
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.DictMap;
+import com.longevitysoft.android.xml.plist.domain.Integer;
+import com.longevitysoft.android.xml.plist.domain.PList;
+import com.longevitysoft.android.xml.plist.domain.PListObject;
+import com.longevitysoft.android.xml.plist.domain.PListObjectType;
+
+/**
+ * Tests {@link PList#freeze()}.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class FrozenPListTest extends TestCase {
+
+	private static final String DOC = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\"><dict>"
+			+ "<key>name</key><string>config</string>"
+			+ "<key>version</key><integer>3</integer>"
+			+ "<key>ratio</key><real>0.75</real>"
+			+ "<key>updated</key><date>2011-03-01T12:00:00Z</date>"
+			+ "<key>blob</key><data>AQID</data>"
+			+ "<key>ports</key><array><integer>80</integer><integer>443</integer></array>"
+			+ "<key>hosts</key><array><dict><key>host</key><string>a</string></dict>"
+			+ "<dict><key>host</key><string>b</string></dict></array>"
+			+ "</dict></plist>";
+
+	private static PList parse() {
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		parser.parse(DOC);
+		return handler.getPlist();
+	}
+
+	private static void assertFrozen(Runnable mutation) {
+		try {
+			mutation.run();
+			fail("expected UnsupportedOperationException");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	private static void assertDeeplyFrozen(PListObject obj) {
+		assertTrue(obj.getType() + " not frozen", obj.isFrozen());
+		if (obj.getType() == PListObjectType.DICT) {
+			Map<String, PListObject> map = ((Dict) obj).getConfigMap();
+			assertTrue(map instanceof DictMap);
+			assertTrue(((DictMap) map).isFrozen());
+			Iterator<PListObject> it = map.values().iterator();
+			while (it.hasNext()) {
+				assertDeeplyFrozen(it.next());
+			}
+		} else if (obj.getType() == PListObjectType.ARRAY) {
+			Iterator<PListObject> it = ((Array) obj).iterator();
+			while (it.hasNext()) {
+				assertDeeplyFrozen(it.next());
+			}
+		}
+	}
+
+	public void testFreeze() {
+		PList pList = parse();
+		PList snapshot = pList.freeze();
+		assertNotSame(pList, snapshot);
+		assertTrue(snapshot.isFrozen());
+		assertFalse(pList.isFrozen());
+		assertSame(snapshot, snapshot.freeze());
+		assertSame(pList.getRootElement(), snapshot.getRootElement());
+		assertDeeplyFrozen(snapshot.getRootElement());
+		PListXMLTokenizerTest.assertSameTree(parse().getRootElement(),
+				snapshot.getRootElement());
+		Dict root = (Dict) snapshot.getRootElement();
+		assertEquals(PListObjectType.INTEGER, root.getConfigurationArray(
+				"ports").getPrimitiveType());
+		assertEquals(443, root.getConfigurationArray("ports").getLong(1));
+		assertEquals("config", root.getConfiguration("name").getValue());
+		assertEquals(snapshot.toString(), pList.toString());
+	}
+
+	public void testFrozenIsImmutable() {
+		final PList snapshot = parse().freeze();
+		final Dict root = (Dict) snapshot.getRootElement();
+		final Array hosts = root.getConfigurationArray("hosts");
+		assertFrozen(new Runnable() {
+			public void run() {
+				snapshot.setRootElement(new Dict());
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				try {
+					snapshot.stackObject(new Dict(), null);
+				} catch (UnsupportedOperationException e) {
+					throw e;
+				} catch (Exception e) {
+					fail(e.toString());
+				}
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				root.setConfigMap(new DictMap());
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				root.getConfigMap().put("name", new Integer());
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				hosts.set(0, new Dict());
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				((Dict) hosts.get(1)).putConfig("host", new Integer());
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				root.getConfiguration("name").setValue("other");
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				root.getConfigurationInteger("version").setValue(4L);
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				root.getConfigurationArray("ports").set(0, new Integer());
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				((com.longevitysoft.android.xml.plist.domain.Data) root
+						.getConfigurationObject("blob")).setValue(
+						new byte[] { 0 }, false);
+			}
+		});
+		assertEquals(3, root.getInt("version", 0));
+		assertEquals(2, hosts.size());
+	}
+
+	public void testFrozenDataNotExposed() throws Exception {
+		Dict root = (Dict) parse().freeze().getRootElement();
+		com.longevitysoft.android.xml.plist.domain.Data blob = root
+				.getConfigurationObject("blob");
+		byte[] bytes = blob.getBytes();
+		assertEquals(3, bytes.length);
+		assertNotSame(bytes, blob.getBytes());
+		bytes[0] = 42;
+		assertEquals(1, blob.getBytes()[0]);
+		assertEquals(1, blob.asByteBuffer().get(0));
+		assertTrue(blob.asByteBuffer().isReadOnly());
+		assertEquals(1, blob.openStream().read());
+		assertEquals("AQID", blob.getValue(false));
+		assertFalse(blob.isMapped());
+	}
+
+	public void testFreezeWhileBuilding() throws Exception {
+		PList pList = new PList();
+		pList.stackObject(new Dict(), null);
+		try {
+			pList.freeze();
+			fail("expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		pList.popStack();
+		assertTrue(pList.freeze().getRootElement().isFrozen());
+	}
+
+	public void testFreezeEmpty() {
+		PList snapshot = new PList().freeze();
+		assertTrue(snapshot.isFrozen());
+		assertNull(snapshot.getRootElement());
+		assertNull(snapshot.toString());
+	}
+
+	public void testFreezeBinary() throws Exception {
+		byte[] bytes = new BinaryPListWriter().toByteArray(parse());
+		PList pList = new BinaryPListParser().parse(bytes);
+		PList snapshot = pList.freeze();
+		assertDeeplyFrozen(snapshot.getRootElement());
+		PListXMLTokenizerTest.assertSameTree(parse().getRootElement(),
+				snapshot.getRootElement());
+	}
+
+	public void testFreezeHandsOverTempFiles() throws Exception {
+		File file = File.createTempFile("frozen", ".tmp");
+		PList pList = parse();
+		pList.addTempFile(file);
+		PList snapshot = pList.freeze();
+		assertEquals(0, pList.getTempFileCount());
+		assertEquals(1, snapshot.getTempFileCount());
+		pList.close();
+		assertTrue(file.exists());
+		snapshot.close();
+		assertFalse(file.exists());
+	}
+
+	/**
+	 * A snapshot reads the same from several threads at once.
+	 */
+	public void testConcurrentReads() throws Exception {
+		final PList snapshot = parse().freeze();
+		final int[] failures = new int[1];
+		Thread[] readers = new Thread[4];
+		for (int t = 0; t < readers.length; t++) {
+			readers[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 2000; i++) {
+						Dict root = (Dict) snapshot.getRootElement();
+						Array hosts = root.getConfigurationArray("hosts");
+						if (root.getConfigurationArray("ports").getLong(0) != 80
+								|| !"b".equals(((Dict) hosts.get(1))
+										.getConfiguration("host").getValue())
+								|| root.getConfigMap().size() != 7) {
+							synchronized (failures) {
+								failures[0]++;
+							}
+						}
+					}
+				}
+			};
+		}
+		for (Thread reader : readers) {
+			reader.start();
+		}
+		for (Thread reader : readers) {
+			reader.join();
+		}
+		assertEquals(0, failures[0]);
+	}
+
+}
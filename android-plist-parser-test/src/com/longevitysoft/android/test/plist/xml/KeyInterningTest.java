@@ -0,0 +1,178 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.longevitysoft.android.xml.plist.KeyPool;
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.StringTable;
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+
+/**
+ * Tests the interning of dict keys by {@link PListXMLHandler}, within a parse
+ * and across parses through a {@link KeyPool}.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class KeyInterningTest extends TestCase {
+
+	private static final String DOC = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\"><array>"
+			+ "<dict><key>id</key><integer>1</integer><key>name</key><string>a</string></dict>"
+			+ "<dict><key> id </key><integer>2</integer><key>name</key><string>b</string></dict>"
+			+ "<dict><key>id</key><integer>3</integer><key>other</key><dict><key>name</key><string>c</string></dict></dict>"
+			+ "</array></plist>";
+
+	private PListXMLParser parser;
+
+	private PListXMLHandler handler;
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see junit.framework.TestCase#setUp()
+	 */
+	protected void setUp() throws Exception {
+		super.setUp();
+		parser = new PListXMLParser();
+		handler = new PListXMLHandler();
+		parser.setHandler(handler);
+	}
+
+	private Array parse() {
+		parser.parse(DOC);
+		return (Array) handler.getPlist().getRootElement();
+	}
+
+	/**
+	 * @return the key of dict equal to name.
+	 */
+	private static String key(Dict dict, String name) {
+		Iterator<String> it = dict.getConfigMap().keySet().iterator();
+		while (it.hasNext()) {
+			String key = it.next();
+			if (key.equals(name)) {
+				return key;
+			}
+		}
+		fail("no key " + name);
+		return null;
+	}
+
+	public void testKeysInternedPerParse() {
+		assertNull(handler.getKeyPool());
+		Array root = parse();
+		Dict first = (Dict) root.get(0);
+		Dict second = (Dict) root.get(1);
+		Dict nested = ((Dict) root.get(2)).getConfigurationObject("other");
+		assertSame(key(first, "id"), key(second, "id"));
+		assertSame(key(first, "id"), key((Dict) root.get(2), "id"));
+		assertSame(key(first, "name"), key(second, "name"));
+		assertSame(key(first, "name"), key(nested, "name"));
+		assertEquals("b", second.getConfiguration("name").getValue());
+
+		Array again = parse();
+		assertNotSame(key(first, "id"), key((Dict) again.get(0), "id"));
+	}
+
+	public void testKeyPool() {
+		KeyPool pool = new KeyPool();
+		handler.setKeyPool(pool);
+		assertSame(pool, handler.getKeyPool());
+		Array root = parse();
+		assertEquals(3, pool.size());
+		Array again = parse();
+		assertSame(key((Dict) root.get(0), "id"),
+				key((Dict) again.get(1), "id"));
+
+		PListXMLHandler other = new PListXMLHandler();
+		other.setKeyPool(pool);
+		PListXMLParser otherParser = new PListXMLParser();
+		otherParser.setHandler(other);
+		otherParser.parse(DOC);
+		Array otherRoot = (Array) other.getPlist().getRootElement();
+		assertSame(key((Dict) root.get(0), "name"),
+				key((Dict) otherRoot.get(1), "name"));
+		assertEquals(3, pool.size());
+	}
+
+	public void testKeyPoolFull() {
+		KeyPool pool = new KeyPool(2);
+		assertEquals(2, pool.getMaxSize());
+		String id = pool.intern("id", 0, 2);
+		assertSame(id, pool.intern("xid", 1, 3));
+		pool.intern("name", 0, 4);
+		StringBuilder text = new StringBuilder("other");
+		String other = pool.intern(text, 0, 5);
+		assertEquals("other", other);
+		assertNotSame(other, pool.intern(text, 0, 5));
+		assertEquals(2, pool.size());
+
+		// keys are still shared within a parse
+		handler.setKeyPool(pool);
+		Array root = parse();
+		assertSame(id, key((Dict) root.get(1), "id"));
+		assertSame(key((Dict) root.get(2), "other"), key((Dict) root.get(2),
+				"other"));
+
+		pool.clear();
+		assertEquals(0, pool.size());
+		assertNotSame(id, pool.intern(new StringBuilder("id"), 0, 2));
+	}
+
+	public void testKeyPoolConcurrent() throws InterruptedException {
+		final KeyPool pool = new KeyPool();
+		final List<String> results = new ArrayList<String>();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread() {
+				public void run() {
+					String last = null;
+					for (int i = 0; i < 2000; i++) {
+						String key = "key" + (i % 100);
+						last = pool.intern(key, 0, key.length());
+					}
+					synchronized (results) {
+						results.add(last);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (int t = 0; t < threads.length; t++) {
+			threads[t].join();
+		}
+		assertEquals(100, pool.size());
+		assertEquals(threads.length, results.size());
+		for (int t = 1; t < results.size(); t++) {
+			assertSame(results.get(0), results.get(t));
+		}
+	}
+
+	public void testStringTableIndexOf() {
+		StringTable table = new StringTable();
+		assertEquals(-1, table.indexOf("id", 0, 2));
+		int slot = table.add("id", 0, 2);
+		assertEquals(slot, table.indexOf("(id)", 1, 3));
+		assertEquals(-1, table.indexOf("i", 0, 1));
+		assertEquals(1, table.size());
+	}
+
+}
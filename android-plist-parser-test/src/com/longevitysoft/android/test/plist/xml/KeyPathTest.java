@@ -0,0 +1,181 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml;
+
+import junit.framework.TestCase;
+
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.KeyPath;
+import com.longevitysoft.android.xml.plist.domain.String;
+
+/**
+ * Tests {@link KeyPath} and the {@link Dict} accessors that take one.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class KeyPathTest extends TestCase {
+
+	private static final java.lang.String DOC = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\"><dict>"
+			+ "<key>name</key><string>root</string>"
+			+ "<key>count</key><integer>3</integer>"
+			+ "<key>a.b</key><string>dotted</string>"
+			+ "<key>thumb</key><dict><key>ID</key><integer>152</integer>"
+			+ "<key>uri</key><string>http://www.google.com</string></dict>"
+			+ "<key>items</key><array>"
+			+ "<dict><key>name</key><string>zero</string></dict>"
+			+ "<string>one</string>"
+			+ "<array><integer>20</integer><integer>21</integer></array>"
+			+ "<dict><key>name</key><string>three</string></dict>"
+			+ "</array></dict></plist>";
+
+	private Dict root;
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see junit.framework.TestCase#setUp()
+	 */
+	protected void setUp() throws Exception {
+		super.setUp();
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		parser.parse(DOC);
+		root = (Dict) handler.getPlist().getRootElement();
+	}
+
+	public void testCompile() {
+		KeyPath path = KeyPath.compile("items.3..name.");
+		assertEquals(3, path.size());
+		assertEquals("items", path.getSegment(0));
+		assertEquals("3", path.getSegment(1));
+		assertEquals("name", path.getSegment(2));
+		assertEquals("items.3..name.", path.toString());
+		assertEquals(0, KeyPath.compile("").size());
+	}
+
+	public void testCompileCached() {
+		assertSame(KeyPath.compile("thumb.uri"), KeyPath.compile("thumb.uri"));
+		assertEquals(KeyPath.compile("thumb.uri"), KeyPath.compile(new StringBuilder(
+				"thumb.").append("uri").toString()));
+	}
+
+	public void testCompileCacheFull() {
+		for (int i = 0; i < KeyPath.MAX_CACHED_PATHS + 10; i++) {
+			KeyPath.compile("full." + i);
+		}
+		assertSame(KeyPath.compile("thumb.uri"), KeyPath.compile("thumb.uri"));
+		assertEquals(2, KeyPath.compile("full.0").size());
+	}
+
+	public void testCompileNull() {
+		try {
+			KeyPath.compile(null);
+			fail("expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testDictSegments() {
+		assertEquals("root", root.getConfiguration(KeyPath.compile("name"))
+				.getValue());
+		assertEquals(java.lang.Integer.valueOf(152), root
+				.getConfigurationInteger(KeyPath.compile("thumb.ID"))
+				.getValue());
+		assertEquals("http://www.google.com",
+				root.getConfiguration(KeyPath.compile("thumb.uri")).getValue());
+		assertNull(root.getConfigurationObject(KeyPath.compile("thumb.missing")));
+		assertNull(root.getConfigurationObject(KeyPath.compile("missing.ID")));
+	}
+
+	public void testArraySegments() {
+		assertEquals("zero", root.getConfiguration(
+				KeyPath.compile("items.0.name")).getValue());
+		assertEquals("one", root.getConfiguration(KeyPath.compile("items.1"))
+				.getValue());
+		assertEquals(java.lang.Integer.valueOf(21), root
+				.getConfigurationInteger(KeyPath.compile("items.2.1"))
+				.getValue());
+		assertEquals("three", root.getConfiguration(
+				KeyPath.compile("items.3.name")).getValue());
+		assertNull(root.getConfigurationObject(KeyPath.compile("items.4")));
+		assertNull(root.getConfigurationObject(KeyPath.compile("items.x")));
+		assertNull(root.getConfigurationObject(KeyPath.compile("items.2147483648")));
+	}
+
+	public void testThroughScalar() {
+		assertNull(root.getConfigurationObject(KeyPath.compile("name.x")));
+		assertNull(root.getConfigurationObject(KeyPath.compile("items.1.x")));
+	}
+
+	public void testEmptyPath() {
+		assertSame(root, root.getConfigurationObject(KeyPath.compile("")));
+	}
+
+	public void testDefaults() {
+		String def = new String();
+		def.setValue("default");
+		assertSame(def, root.getConfigurationWithDefault(
+				KeyPath.compile("missing"), def));
+		assertEquals("root", root.getConfigurationWithDefault(
+				KeyPath.compile("name"), def).getValue());
+		assertNull(root.getConfigurationIntegerWithDefault(
+				KeyPath.compile("missing"), null));
+		Array items = root.getConfigurationArray(KeyPath.compile("items"));
+		assertEquals(4, items.size());
+	}
+
+	public void testStringLookupsUnchanged() {
+		assertEquals(java.lang.Integer.valueOf(152), root
+				.getConfigurationInteger("thumb.ID").getValue());
+		// a scalar part way along a dotted key is returned
+		assertEquals("root", root.getConfiguration("name.x").getValue());
+		// the dotted key itself is looked up when every segment is a dict
+		assertNull(root.getConfigurationObject("thumb."));
+		assertNull(root.getConfigurationObject("a.b"));
+		assertTrue(root.getConfigurationObject("items.3") instanceof Array);
+	}
+
+	public void testStringLookupsCompiledOrNot() {
+		// dot placements no other test compiles
+		java.lang.String[] keys = { "thumb..ID", "name..x", "thumb..",
+				".thumb..uri.", "a..b", "items..3", "....." };
+		Object[] uncompiled = new Object[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			uncompiled[i] = root.getConfigurationObject(keys[i]);
+		}
+		for (int i = 0; i < keys.length; i++) {
+			KeyPath.compile(keys[i]);
+			assertSame(keys[i], uncompiled[i],
+					root.getConfigurationObject(keys[i]));
+		}
+		assertNotNull(uncompiled[3]);
+	}
+
+	public void testTypedStringLookups() {
+		// the typed String overloads resolve like getConfigurationObject
+		assertEquals(152, root.getInt("thumb.ID", -1));
+		assertEquals(-1, root.getInt("items.2.1", -1));
+		assertEquals(21, root.getInt(KeyPath.compile("items.2.1"), -1));
+		assertEquals(152L, root.getLong("thumb.ID.x", -1));
+		assertEquals(-1L, root.getLong(KeyPath.compile("thumb.ID.x"), -1));
+		assertEquals(152.0, root.getDouble("thumb..ID", -1), 0);
+		assertFalse(root.getBoolean("items.0", false));
+	}
+
+}
@@ -0,0 +1,236 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import org.xml.sax.SAXException;
+
+import com.longevitysoft.android.xml.plist.PListEventReader;
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.PListObject;
+import com.longevitysoft.android.xml.plist.domain.PListObjectType;
+
+/**
+ * Tests {@link PListEventReader}.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class PListEventReaderTest extends TestCase {
+
+	private static PListEventReader reader(String xml) throws IOException {
+		return new PListEventReader(new ByteArrayInputStream(
+				xml.getBytes("UTF-8")));
+	}
+
+	/**
+	 * Build a tree from the events of reader.
+	 */
+	private static PListObject build(PListEventReader reader)
+			throws IOException, SAXException {
+		PListObject[] stack = new PListObject[16];
+		int depth = 0;
+		PListObject root = null;
+		int event;
+		while ((event = reader.next()) != PListEventReader.END_DOCUMENT) {
+			PListObject obj = null;
+			switch (event) {
+			case PListEventReader.START_DICT:
+				obj = new Dict();
+				break;
+			case PListEventReader.START_ARRAY:
+				obj = new Array();
+				break;
+			case PListEventReader.VALUE:
+				obj = reader.getValue();
+				break;
+			case PListEventReader.END_DICT:
+			case PListEventReader.END_ARRAY:
+				depth--;
+				break;
+			}
+			if (null == obj) {
+				continue;
+			}
+			if (depth == 0) {
+				root = obj;
+			} else if (stack[depth - 1] instanceof Dict) {
+				((Dict) stack[depth - 1]).putConfig(reader.getKey(), obj);
+			} else {
+				((Array) stack[depth - 1]).add(obj);
+			}
+			if (event != PListEventReader.VALUE) {
+				stack[depth++] = obj;
+			}
+		}
+		return root;
+	}
+
+	public void testEvents() throws IOException, SAXException {
+		PListEventReader reader = reader(PListXMLParserTest.VALID_PLIST_ARRAY_ROOT);
+		assertEquals(-1, reader.getEvent());
+		assertEquals(PListEventReader.START_ARRAY, reader.next());
+		assertEquals(1, reader.getDepth());
+		assertEquals(PListEventReader.START_DICT, reader.next());
+		assertNull(reader.getKey());
+		assertEquals(PListEventReader.KEY, reader.next());
+		assertEquals("foo", reader.getKey());
+		assertEquals(PListEventReader.VALUE, reader.next());
+		assertEquals("foo", reader.getKey());
+		assertEquals(PListObjectType.STRING, reader.getValue().getType());
+		assertEquals("1.0",
+				((com.longevitysoft.android.xml.plist.domain.String) reader
+						.getValue()).getValue());
+		assertEquals(PListEventReader.END_DICT, reader.next());
+		assertNull(reader.getValue());
+		assertEquals(PListEventReader.START_DICT, reader.next());
+		assertEquals(PListEventReader.KEY, reader.next());
+		assertEquals(PListEventReader.VALUE, reader.next());
+		assertEquals(PListEventReader.END_DICT, reader.next());
+		assertEquals(PListEventReader.END_ARRAY, reader.next());
+		assertEquals(0, reader.getDepth());
+		assertEquals(PListEventReader.END_DOCUMENT, reader.next());
+		assertEquals(PListEventReader.END_DOCUMENT, reader.next());
+		reader.close();
+	}
+
+	public void testTypedValues() throws IOException, SAXException {
+		PListEventReader reader = reader(PListXMLParserTest.VALID_PLIST_ARRAY_ROOT_NESTED_DICT);
+		assertEquals(PListEventReader.START_ARRAY, reader.next());
+		assertEquals(PListEventReader.START_DICT, reader.next());
+		assertEquals(PListEventReader.KEY, reader.next());
+		assertEquals(PListEventReader.VALUE, reader.next());
+		assertEquals(PListEventReader.KEY, reader.next());
+		assertEquals("parent_id", reader.getKey());
+		assertEquals(PListEventReader.VALUE, reader.next());
+		assertEquals(
+				Integer.valueOf(1),
+				((com.longevitysoft.android.xml.plist.domain.Integer) reader
+						.getValue()).getValue());
+	}
+
+	public void testSameTreeAsParser() throws IOException, SAXException {
+		for (int i = 0; i < PListXMLTokenizerTest.FIXTURES.length; i++) {
+			PListXMLParser parser = new PListXMLParser();
+			parser.setHandler(new PListXMLHandler());
+			parser.parse(PListXMLTokenizerTest.FIXTURES[i]);
+			PListObject expected = ((PListXMLHandler) parser.getHandler())
+					.getPlist().getRootElement();
+			PListXMLTokenizerTest.assertSameTree(expected,
+					build(reader(PListXMLTokenizerTest.FIXTURES[i])));
+		}
+	}
+
+	public void testSkip() throws IOException, SAXException {
+		PListEventReader reader = reader(PListXMLParserTest.VALID_PLIST_DICT_ROOT_NESTED_DICT);
+		assertEquals(PListEventReader.KEY, reader.next());
+		assertEquals(PListEventReader.START_DICT, reader.next());
+		assertEquals(PListEventReader.KEY, reader.next());
+		assertEquals("ID", reader.getKey());
+		reader.skip();
+		assertEquals(PListEventReader.KEY, reader.next());
+		assertEquals("title", reader.getKey());
+		assertEquals(PListEventReader.VALUE, reader.next());
+		assertEquals(PListEventReader.KEY, reader.next());
+		assertEquals("thumb", reader.getKey());
+		reader.skip();
+		assertEquals(PListEventReader.KEY, reader.next());
+		assertEquals("order", reader.getKey());
+		assertEquals(1, reader.getDepth());
+		assertEquals(PListEventReader.VALUE, reader.next());
+		assertEquals(PListEventReader.KEY, reader.next());
+		assertEquals(PListEventReader.VALUE, reader.next());
+		assertEquals(PListEventReader.END_DICT, reader.next());
+
+		reader = reader(PListXMLParserTest.VALID_PLIST_ARRAY_ROOT_NESTED_ARRAY);
+		assertEquals(PListEventReader.START_ARRAY, reader.next());
+		assertEquals(PListEventReader.START_ARRAY, reader.next());
+		reader.skip();
+		assertEquals(PListEventReader.START_ARRAY, reader.next());
+		assertEquals(PListEventReader.VALUE, reader.next());
+		assertEquals("baz",
+				((com.longevitysoft.android.xml.plist.domain.String) reader
+						.getValue()).getValue());
+	}
+
+	public void testEmptyContainers() throws IOException, SAXException {
+		PListEventReader reader = reader("<plist><dict><key>a</key><array/><key>b</key><dict></dict></dict></plist>");
+		assertEquals(PListEventReader.START_DICT, reader.next());
+		assertEquals(PListEventReader.KEY, reader.next());
+		assertEquals(PListEventReader.START_ARRAY, reader.next());
+		assertEquals("a", reader.getKey());
+		assertEquals(PListEventReader.END_ARRAY, reader.next());
+		assertEquals(PListEventReader.KEY, reader.next());
+		assertEquals(PListEventReader.START_DICT, reader.next());
+		assertEquals(PListEventReader.END_DICT, reader.next());
+		assertEquals(PListEventReader.END_DICT, reader.next());
+		assertEquals(PListEventReader.END_DOCUMENT, reader.next());
+	}
+
+	public void testPaddedKeys() throws IOException, SAXException {
+		String xml = "<plist><dict><key> name </key><string>x</string>"
+				+ "<key>\n\tinner\n</key><dict><key> id </key><integer>7</integer></dict></dict></plist>";
+		PListEventReader reader = reader(xml);
+		assertEquals(PListEventReader.START_DICT, reader.next());
+		assertEquals(PListEventReader.KEY, reader.next());
+		assertEquals("name", reader.getKey());
+
+		PListXMLParser parser = new PListXMLParser();
+		parser.setHandler(new PListXMLHandler());
+		parser.parse(xml);
+		PListObject expected = ((PListXMLHandler) parser.getHandler())
+				.getPlist().getRootElement();
+		PListXMLTokenizerTest.assertSameTree(expected, build(reader(xml)));
+	}
+
+	public void testMemberWithoutKey() throws IOException {
+		PListEventReader reader = reader("<plist><dict><string>a</string></dict></plist>");
+		try {
+			while (reader.next() != PListEventReader.END_DOCUMENT) {
+				// read
+			}
+		} catch (SAXException e) {
+			return;
+		}
+		fail("expected exception not thrown");
+	}
+
+	public void testMalformedValues() throws IOException {
+		String[] values = { "<integer>12x</integer>", "<real>1.2.3</real>",
+				"<date>not a date</date>" };
+		for (int i = 0; i < values.length; i++) {
+			PListEventReader reader = reader("<plist><array>" + values[i]
+					+ "</array></plist>");
+			try {
+				while (reader.next() != PListEventReader.END_DOCUMENT) {
+					// read
+				}
+				fail("expected exception not thrown: " + values[i]);
+			} catch (SAXException e) {
+				String tag = values[i].substring(1, values[i].indexOf('>'));
+				assertTrue(e.getMessage(), e.getMessage().contains(tag));
+				assertTrue(e.getMessage(),
+						e.getMessage().contains(values[i].substring(
+								tag.length() + 2, values[i].indexOf("</"))));
+			}
+		}
+	}
+
+}
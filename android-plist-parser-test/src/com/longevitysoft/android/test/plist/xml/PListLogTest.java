@@ -0,0 +1,99 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.longevitysoft.android.util.PListLog;
+import com.longevitysoft.android.util.PListLogger;
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+
+/**
+ * Tests {@link PListLog} tracing of the parser.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class PListLogTest extends TestCase {
+
+	/**
+	 * Records the messages it is given.
+	 */
+	private static class RecordingLogger implements PListLogger {
+
+		final boolean verbose;
+		final List<String> messages = new ArrayList<String>();
+
+		RecordingLogger(boolean verbose) {
+			this.verbose = verbose;
+		}
+
+		@Override
+		public boolean isVerbose() {
+			return verbose;
+		}
+
+		@Override
+		public void v(String tag, String msg) {
+			messages.add(tag + " " + msg);
+		}
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see junit.framework.TestCase#tearDown()
+	 */
+	protected void tearDown() throws Exception {
+		PListLog.setLogger(null);
+		super.tearDown();
+	}
+
+	private static void parse() {
+		PListXMLParser parser = new PListXMLParser();
+		parser.setHandler(new PListXMLHandler());
+		parser.parse(PListXMLParserTest.VALID_PLIST_ARRAY_ROOT_NESTED_DICT);
+	}
+
+	public void testOffByDefault() {
+		assertNull(PListLog.getLogger());
+		assertFalse(PListLog.isVerbose());
+	}
+
+	public void testVerbose() {
+		RecordingLogger logger = new RecordingLogger(true);
+		PListLog.setLogger(logger);
+		assertTrue(PListLog.isVerbose());
+		parse();
+		assertFalse(logger.messages.isEmpty());
+		for (int i = 0; i < logger.messages.size(); i++) {
+			// attached containers are not rendered
+			assertTrue(logger.messages.get(i).indexOf("workflow_answers=") < 0);
+		}
+	}
+
+	public void testNotVerbose() {
+		RecordingLogger logger = new RecordingLogger(false);
+		PListLog.setLogger(logger);
+		assertFalse(PListLog.isVerbose());
+		parse();
+		PListLog.v("tag", "msg");
+		assertTrue(logger.messages.isEmpty());
+	}
+
+}
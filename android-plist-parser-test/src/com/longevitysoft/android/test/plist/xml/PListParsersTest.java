@@ -0,0 +1,115 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.longevitysoft.android.xml.plist.PListParsers;
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.domain.PList;
+
+/**
+ * Tests {@link PListParsers}.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class PListParsersTest extends TestCase {
+
+	private static PList expected(String xml) {
+		PListXMLParser parser = new PListXMLParser();
+		parser.setHandler(new PListXMLHandler());
+		parser.parse(xml);
+		return ((PListXMLHandler) parser.getHandler()).getPlist();
+	}
+
+	public void testParse() throws IOException {
+		for (int i = 0; i < PListXMLTokenizerTest.FIXTURES.length; i++) {
+			String xml = PListXMLTokenizerTest.FIXTURES[i];
+			PList expected = expected(xml);
+			PListXMLTokenizerTest.assertSameTree(expected.getRootElement(),
+					PListParsers.parse(xml).getRootElement());
+			PListXMLTokenizerTest.assertSameTree(expected.getRootElement(),
+					PListParsers.parse(new StringReader(xml))
+							.getRootElement());
+			PListXMLTokenizerTest.assertSameTree(
+					expected.getRootElement(),
+					PListParsers.parse(
+							new ByteArrayInputStream(xml.getBytes("UTF-8")))
+							.getRootElement());
+		}
+	}
+
+	public void testParseNull() throws IOException {
+		assertNull(PListParsers.parse((String) null));
+		assertNull(PListParsers.parse((StringReader) null));
+	}
+
+	public void testParseAfterInvalid() {
+		PList invalid = PListParsers.parse(PListXMLParserTest.INVALID_PLIST);
+		assertNull(null == invalid ? null : invalid.getRootElement());
+		PListXMLTokenizerTest.assertSameTree(
+				expected(PListXMLParserTest.VALID_WORKFLOW_PLIST)
+						.getRootElement(),
+				PListParsers.parse(PListXMLParserTest.VALID_WORKFLOW_PLIST)
+						.getRootElement());
+	}
+
+	public void testConcurrentParse() throws InterruptedException {
+		final String[] fixtures = PListXMLTokenizerTest.FIXTURES;
+		final List<Throwable> failures = Collections
+				.synchronizedList(new ArrayList<Throwable>());
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			final int offset = t;
+			threads[t] = new Thread() {
+
+				@Override
+				public void run() {
+					try {
+						// domain objects are not safe to read concurrently,
+						// so each thread compares against its own trees
+						PList[] expected = new PList[fixtures.length];
+						for (int i = 0; i < fixtures.length; i++) {
+							expected[i] = expected(fixtures[i]);
+						}
+						for (int i = 0; i < 100; i++) {
+							int f = (i + offset) % fixtures.length;
+							PListXMLTokenizerTest.assertSameTree(
+									expected[f].getRootElement(), PListParsers
+											.parse(fixtures[f])
+											.getRootElement());
+						}
+					} catch (Throwable e) {
+						failures.add(e);
+					}
+				}
+
+			};
+			threads[t].start();
+		}
+		for (int t = 0; t < threads.length; t++) {
+			threads[t].join();
+		}
+		assertEquals(failures.toString(), 0, failures.size());
+	}
+
+}
@@ -0,0 +1,222 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+import junit.framework.TestCase;
+
+import org.xml.sax.SAXException;
+
+import com.longevitysoft.android.xml.plist.PListEventReader;
+import com.longevitysoft.android.xml.plist.PListProjection;
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.KeyPath;
+import com.longevitysoft.android.xml.plist.domain.PList;
+
+/**
+ * Tests {@link PListProjection} and key path parsing with
+ * {@link PListXMLParser#setKeyPaths(Collection)}.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class PListProjectionTest extends TestCase {
+
+	/**
+	 * Counts the bytes read from a byte array.
+	 */
+	private static class CountingInputStream extends ByteArrayInputStream {
+
+		CountingInputStream(byte[] buf) {
+			super(buf);
+		}
+
+		int getRead() {
+			return pos;
+		}
+
+	}
+
+	private static PList project(String xml, String... keyPaths)
+			throws IOException, SAXException {
+		return new PListProjection(Arrays.asList(keyPaths))
+				.project(new PListEventReader(new ByteArrayInputStream(xml
+						.getBytes("UTF-8"))));
+	}
+
+	public void testProjectPaths() throws IOException, SAXException {
+		PList actual = project(
+				PListXMLParserTest.VALID_PLIST_DICT_ROOT_NESTED_DICT, "ID",
+				"thumb.uri", "missing.key");
+		Dict root = (Dict) actual.getRootElement();
+		assertEquals(2, root.getConfigMap().size());
+		assertEquals("901", root.getConfiguration("ID").getValue());
+		assertEquals("http://www.google.com",
+				root.getConfiguration("thumb.uri").getValue());
+		assertEquals(1, ((Dict) root.getConfigurationObject("thumb"))
+				.getConfigMap().size());
+	}
+
+	public void testProjectSubtree() throws IOException, SAXException {
+		PList actual = project(
+				PListXMLParserTest.VALID_PLIST_DICT_ROOT_NESTED_DICT, "thumb",
+				"thumb.ID");
+		Dict root = (Dict) actual.getRootElement();
+		assertEquals(1, root.getConfigMap().size());
+		assertEquals(Integer.valueOf(152),
+				root.getConfigurationInteger("thumb.ID").getValue());
+		assertEquals("http://www.google.com",
+				root.getConfiguration("thumb.uri").getValue());
+	}
+
+	public void testSkipsUnselectedContent() throws IOException, SAXException {
+		String xml = "<plist><dict>"
+				+ "<key>a</key><dict><key>x</key><array><string>1</string><true/><dict/></array>"
+				+ "<key>y</key><string><![CDATA[</dict>]]></string>"
+				+ "<!-- <dict> --><key z=\"/\">z</key><data attr='>'>Zm9v</data></dict>"
+				+ "<key>b</key><array><integer>1</integer></array>"
+				+ "<key>c</key><string>found</string></dict></plist>";
+		PList actual = project(xml, "c", "a.missing");
+		Dict root = (Dict) actual.getRootElement();
+		assertEquals(1, root.getConfigMap().size());
+		assertEquals("found", root.getConfiguration("c").getValue());
+	}
+
+	public void testStopsWhenAllPathsFound() throws IOException,
+			SAXException {
+		StringBuilder sb = new StringBuilder(
+				"<plist><dict><key>wanted</key><array><string>v</string></array>");
+		for (int i = 0; i < 10000; i++) {
+			sb.append("<key>k").append(i).append("</key><string>v</string>");
+		}
+		// never read, so never found malformed
+		sb.append("<dict></array>");
+		byte[] doc = sb.toString().getBytes("UTF-8");
+		CountingInputStream is = new CountingInputStream(doc);
+		PList actual = new PListProjection(Arrays.asList("wanted"))
+				.project(new PListEventReader(is));
+		assertEquals(1, ((Array) ((Dict) actual.getRootElement())
+				.getConfigurationObject("wanted")).size());
+		assertTrue(is.getRead() < doc.length / 10);
+	}
+
+	public void testPaddedKeys() throws IOException, SAXException {
+		String xml = "<plist><dict><key> name </key><string>x</string>"
+				+ "<key>\n\tinner\n</key><dict><key> id </key><integer>7</integer></dict></dict></plist>";
+		Dict root = (Dict) project(xml, "name", "inner.id").getRootElement();
+		assertEquals(2, root.getConfigMap().size());
+		assertEquals("x", root.getConfiguration("name").getValue());
+		assertEquals(Integer.valueOf(7),
+				root.getConfigurationInteger("inner.id").getValue());
+	}
+
+	public void testArrayIndexes() throws IOException, SAXException {
+		String xml = "<plist><dict><key>items</key><array>"
+				+ "<dict><key>name</key><string>zero</string></dict>"
+				+ "<string>one</string>"
+				+ "<array><integer>20</integer><integer>21</integer></array>"
+				+ "<dict><key>name</key><string>three</string><key>id</key><integer>3</integer></dict>"
+				+ "</array><key>other</key><string>x</string></dict></plist>";
+		Dict root = (Dict) project(xml, "items.3.name", "items.1",
+				"items.2.1", "items.9").getRootElement();
+		assertEquals(1, root.getConfigMap().size());
+		Array items = root.getConfigurationArray("items");
+		assertEquals(4, items.size());
+		assertNull(items.get(0));
+		assertEquals("one", root.getConfiguration(KeyPath.compile("items.1"))
+				.getValue());
+		assertEquals(Integer.valueOf(21),
+				root.getConfigurationInteger(KeyPath.compile("items.2.1"))
+						.getValue());
+		assertEquals(2, ((Array) items.get(2)).size());
+		assertNull(((Array) items.get(2)).get(0));
+		assertEquals("three", root.getConfiguration(
+				KeyPath.compile("items.3.name")).getValue());
+		assertEquals(1, ((Dict) items.get(3)).getConfigMap().size());
+	}
+
+	public void testStopsInsideArray() throws IOException, SAXException {
+		StringBuilder sb = new StringBuilder(
+				"<plist><dict><key>list</key><array><string>a</string><string>b</string>");
+		for (int i = 0; i < 10000; i++) {
+			sb.append("<string>v</string>");
+		}
+		sb.append("<dict></array>");
+		byte[] doc = sb.toString().getBytes("UTF-8");
+		CountingInputStream is = new CountingInputStream(doc);
+		PList actual = new PListProjection(Arrays.asList("list.1"))
+				.project(new PListEventReader(is));
+		assertEquals("b", ((Dict) actual.getRootElement()).getConfiguration(
+				KeyPath.compile("list.1")).getValue());
+		assertTrue(is.getRead() < doc.length / 10);
+	}
+
+	public void testSameArrayElementTwice() {
+		try {
+			new PListProjection(Arrays.asList("items.3", "items.03.name"));
+		} catch (IllegalArgumentException e) {
+			return;
+		}
+		fail("expected exception not thrown");
+	}
+
+	public void testNonDictRoot() throws IOException, SAXException {
+		assertNull(project(PListXMLParserTest.VALID_PLIST_ARRAY_ROOT, "foo")
+				.getRootElement());
+	}
+
+	public void testNoKeyPaths() {
+		try {
+			new PListProjection(new ArrayList<String>());
+		} catch (IllegalArgumentException e) {
+			return;
+		}
+		fail("expected exception not thrown");
+	}
+
+	public void testParserKeyPaths() throws IOException {
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		parser.setKeyPaths(Arrays.asList("thumb.ID", "order"));
+		assertEquals(Arrays.asList("thumb.ID", "order"), parser.getKeyPaths());
+		parser.parse(PListXMLParserTest.VALID_PLIST_DICT_ROOT_NESTED_DICT);
+		Dict root = (Dict) handler.getPlist().getRootElement();
+		assertEquals(2, root.getConfigMap().size());
+		assertEquals(Integer.valueOf(2), root.getConfigurationInteger("order")
+				.getValue());
+
+		InputStream is = new ByteArrayInputStream(
+				PListXMLParserTest.VALID_PLIST_DICT_ROOT_NESTED_DICT
+						.getBytes("UTF-8"));
+		parser.parse(is);
+		root = (Dict) handler.getPlist().getRootElement();
+		assertEquals(Integer.valueOf(152),
+				root.getConfigurationInteger("thumb.ID").getValue());
+
+		parser.setKeyPaths(null);
+		parser.parse(PListXMLParserTest.VALID_PLIST_DICT_ROOT_NESTED_DICT);
+		root = (Dict) handler.getPlist().getRootElement();
+		assertEquals(5, root.getConfigMap().size());
+	}
+
+}
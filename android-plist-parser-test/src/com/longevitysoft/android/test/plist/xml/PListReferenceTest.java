@@ -0,0 +1,241 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import com.longevitysoft.android.xml.plist.PListParsers;
+import com.longevitysoft.android.xml.plist.PListReference;
+import com.longevitysoft.android.xml.plist.binary.BinaryPListWriter;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.PList;
+
+/**
+ * Tests {@link PListReference}.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class PListReferenceTest extends TestCase {
+
+	private File file;
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see junit.framework.TestCase#setUp()
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		file = File.createTempFile("reference", ".plist");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see junit.framework.TestCase#tearDown()
+	 */
+	@Override
+	protected void tearDown() throws Exception {
+		file.delete();
+		super.tearDown();
+	}
+
+	private static String doc(int version) {
+		StringBuilder ret = new StringBuilder(
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\"><dict>");
+		ret.append("<key>version</key><integer>").append(version)
+				.append("</integer><key>check</key><integer>")
+				.append(version).append("</integer>");
+		for (int i = 0; i < version % 3; i++) {
+			ret.append("<key>pad").append(i).append("</key><true/>");
+		}
+		return ret.append("</dict></plist>").toString();
+	}
+
+	private void write(byte[] data) throws IOException {
+		long modified = file.lastModified();
+		FileOutputStream os = new FileOutputStream(file);
+		try {
+			os.write(data);
+		} finally {
+			os.close();
+		}
+		// the clock may not have ticked since the last write
+		file.setLastModified(Math.max(modified + 1000,
+				System.currentTimeMillis()));
+	}
+
+	private void write(String xml) throws IOException {
+		write(xml.getBytes("UTF-8"));
+	}
+
+	private static int version(PList pList) {
+		return ((Dict) pList.getRootElement()).getInt("version", -1);
+	}
+
+	public void testReload() throws Exception {
+		PListReference ref = new PListReference(file);
+		assertNull(ref.get());
+		assertEquals(0, ref.getReloadCount());
+		write(doc(1));
+		PList first = ref.reload();
+		assertSame(first, ref.get());
+		assertTrue(first.isFrozen());
+		assertTrue(first.getRootElement().isFrozen());
+		assertEquals(1, version(first));
+		assertEquals(1, ref.getReloadCount());
+		assertTrue(ref.getLastReloadNanos() > 0);
+		assertEquals(ref.getLastReloadNanos(), ref.getMaxReloadNanos());
+		assertEquals(ref.getLastReloadNanos(), ref.getAverageReloadNanos());
+		assertTrue(ref.getLastReloadTime() > 0);
+		assertNull(ref.getLastError());
+
+		assertFalse(ref.reloadIfModified());
+		assertSame(first, ref.get());
+		write(doc(2));
+		assertTrue(ref.reloadIfModified());
+		assertEquals(2, version(ref.get()));
+		// readers of the previous version are not affected
+		assertEquals(1, version(first));
+		assertEquals(2, ref.getReloadCount());
+		assertEquals(0, ref.getFailureCount());
+	}
+
+	public void testIncompleteVersionKept() throws Exception {
+		PListReference ref = new PListReference(file);
+		write(doc(1));
+		PList first = ref.reload();
+		String next = doc(2);
+		write(next.substring(0, next.length() / 2));
+		try {
+			ref.reloadIfModified();
+			fail("expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+		assertSame(first, ref.get());
+		assertEquals(1, ref.getFailureCount());
+		assertNotNull(ref.getLastError());
+		// the same version is not tried again
+		assertFalse(ref.reloadIfModified());
+		write(next);
+		assertTrue(ref.reloadIfModified());
+		assertEquals(2, version(ref.get()));
+		assertEquals(1, ref.getFailureCount());
+	}
+
+	public void testMissingFile() throws Exception {
+		PListReference ref = new PListReference(file);
+		file.delete();
+		try {
+			ref.reload();
+			fail("expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+		assertNull(ref.get());
+		assertEquals(1, ref.getFailureCount());
+		try {
+			new PListReference(null);
+			fail("expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testReloadBinary() throws Exception {
+		write(new BinaryPListWriter().toByteArray(PListParsers.parse(doc(5))));
+		PListReference ref = new PListReference(file);
+		PList pList = ref.reload();
+		assertTrue(pList.getRootElement().isFrozen());
+		assertEquals(5, version(pList));
+	}
+
+	public void testWatching() throws Exception {
+		PListReference ref = new PListReference(file);
+		write(doc(1));
+		ref.startWatching(10);
+		try {
+			assertTrue(ref.isWatching());
+			long deadline = System.currentTimeMillis() + 5000;
+			while ((null == ref.get() || version(ref.get()) != 1)
+					&& System.currentTimeMillis() < deadline) {
+				Thread.sleep(5);
+			}
+			assertEquals(1, version(ref.get()));
+			write(doc(2));
+			while (version(ref.get()) != 2
+					&& System.currentTimeMillis() < deadline) {
+				Thread.sleep(5);
+			}
+			assertEquals(2, version(ref.get()));
+		} finally {
+			ref.stopWatching();
+		}
+		assertFalse(ref.isWatching());
+	}
+
+	/**
+	 * Readers always see a complete version while versions are reloaded.
+	 */
+	public void testConcurrentReadsDuringReloads() throws Exception {
+		final PListReference ref = new PListReference(file);
+		write(doc(0));
+		ref.reload();
+		final boolean[] stop = new boolean[1];
+		final int[] failures = new int[1];
+		Thread[] readers = new Thread[4];
+		for (int t = 0; t < readers.length; t++) {
+			readers[t] = new Thread() {
+				@Override
+				public void run() {
+					while (true) {
+						synchronized (stop) {
+							if (stop[0]) {
+								return;
+							}
+						}
+						Dict root = (Dict) ref.get().getRootElement();
+						if (root.getInt("version", -1) != root.getInt(
+								"check", -2)) {
+							synchronized (failures) {
+								failures[0]++;
+							}
+						}
+					}
+				}
+			};
+			readers[t].start();
+		}
+		for (int v = 1; v <= 30; v++) {
+			write(doc(v));
+			assertTrue(ref.reloadIfModified());
+		}
+		synchronized (stop) {
+			stop[0] = true;
+		}
+		for (Thread reader : readers) {
+			reader.join();
+		}
+		assertEquals(0, failures[0]);
+		assertEquals(30, version(ref.get()));
+		assertEquals(31, ref.getReloadCount());
+	}
+
+}
@@ -15,6 +15,8 @@ package com.longevitysoft.android.test.plist.xml;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.channels.Channels;
 import java.util.Date;
 
 import junit.framework.TestCase;
@@ -511,8 +513,8 @@ public class PListXMLParserTest extends TestCase {
 		parser.parse(VALID_PLIST_ISO8601_DATE_ROOT);
 		PList actualPList = ((PListXMLHandler) parser.getHandler()).getPlist();
 		assertNotNull(actualPList);
-		// 2012-02-24T10:10:00Z
-		assertEquals(new Date("Fri, 24 Feb 2012 10:10:00 GMT-0700"),
+		// 2012-02-24T10:10:00Z, in UTC
+		assertEquals(new Date("Fri, 24 Feb 2012 10:10:00 GMT"),
 				((com.longevitysoft.android.xml.plist.domain.Date) actualPList
 						.getRootElement()).getValue());
 	}
@@ -613,4 +615,45 @@ public class PListXMLParserTest extends TestCase {
 		assertEquals(2, ((Array) actualPList.getRootElement()).size());
 	}
 
+	/**
+	 * Test method for
+	 * {@link com.longevitysoft.android.plist.xml.PListXMLParser#parse(java.io.Reader)}
+	 * .
+	 * 
+	 * @throws IOException
+	 * @throws IllegalStateException
+	 */
+	public void testParseValidXMLWorkflowAsReader()
+			throws IllegalStateException, IOException {
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		parser.parse(new StringReader(VALID_WORKFLOW_PLIST));
+		PList actualPList = ((PListXMLHandler) parser.getHandler()).getPlist();
+		assertNotNull(actualPList);
+		assertEquals(6, ((Dict) actualPList.getRootElement())
+				.getConfigurationArray("workflow_answers").size());
+		assertEquals(3, ((Dict) actualPList.getRootElement())
+				.getConfigurationArray("workflow_tasks").size());
+	}
+
+	/**
+	 * Test method for
+	 * {@link com.longevitysoft.android.plist.xml.PListXMLParser#parse(java.nio.channels.ReadableByteChannel)}
+	 * .
+	 * 
+	 * @throws IOException
+	 * @throws IllegalStateException
+	 */
+	public void testParseValidPListArrayRootAsChannel()
+			throws IllegalStateException, IOException {
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		InputStream bas = new ByteArrayInputStream(
+				VALID_PLIST_ARRAY_ROOT.getBytes());
+		parser.parse(Channels.newChannel(bas));
+		PList actualPList = ((PListXMLHandler) parser.getHandler()).getPlist();
+		assertNotNull(actualPList);
+		assertEquals(2, ((Array) actualPList.getRootElement()).size());
+	}
+
 }
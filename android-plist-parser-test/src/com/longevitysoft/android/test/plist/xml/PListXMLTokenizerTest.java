@@ -0,0 +1,173 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.xml.sax.SAXException;
+
+import com.longevitysoft.android.xml.plist.Constants;
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.PListXMLParser.Engine;
+import com.longevitysoft.android.xml.plist.PListXMLTokenizer;
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.IPListSimpleObject;
+import com.longevitysoft.android.xml.plist.domain.PList;
+import com.longevitysoft.android.xml.plist.domain.PListObject;
+
+/**
+ * Tests {@link PListXMLTokenizer} and the {@link Engine#PULL} engine of
+ * {@link PListXMLParser}.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class PListXMLTokenizerTest extends TestCase {
+
+	/**
+	 * Fixtures from {@link PListXMLParserTest} parsed by both engines.
+	 */
+	public static final String[] FIXTURES = {
+			PListXMLParserTest.VALID_WORKFLOW_VERSION_PLIST,
+			PListXMLParserTest.VALID_WORKFLOW_PLIST,
+			PListXMLParserTest.VALID_PLIST_ARRAY_ROOT,
+			PListXMLParserTest.VALID_PLIST_ARRAY_ROOT_NESTED_ARRAY,
+			PListXMLParserTest.VALID_PLIST_ARRAY_ROOT_NESTED_DICT,
+			PListXMLParserTest.VALID_PLIST_DICT_ROOT_NESTED_DICT,
+			PListXMLParserTest.VALID_PLIST_STRING_ROOT,
+			PListXMLParserTest.VALID_PLIST_DATA_ROOT,
+			PListXMLParserTest.VALID_PLIST_DATE_ROOT,
+			PListXMLParserTest.VALID_PLIST_ISO8601_DATE_ROOT,
+			PListXMLParserTest.VALID_PLIST_REAL_ROOT,
+			PListXMLParserTest.VALID_PLIST_INTEGER_ROOT,
+			PListXMLParserTest.VALID_PLIST_TRUE_ROOT,
+			PListXMLParserTest.VALID_PLIST_FALSE_ROOT };
+
+	private PListXMLTokenizer tokenizer(String xml) throws IOException {
+		return new PListXMLTokenizer(new ByteArrayInputStream(
+				xml.getBytes("UTF-8")));
+	}
+
+	private PList parse(String xml, Engine engine) {
+		PListXMLParser parser = new PListXMLParser();
+		parser.setHandler(new PListXMLHandler());
+		parser.setEngine(engine);
+		parser.parse(xml);
+		return ((PListXMLHandler) parser.getHandler()).getPlist();
+	}
+
+	/**
+	 * Assert two trees have the same structure, types and values.
+	 */
+	@SuppressWarnings("rawtypes")
+	public static void assertSameTree(PListObject expected, PListObject actual) {
+		assertEquals(expected.getType(), actual.getType());
+		if (expected instanceof Dict) {
+			Map<String, PListObject> e = ((Dict) expected).getConfigMap();
+			Map<String, PListObject> a = ((Dict) actual).getConfigMap();
+			assertEquals(e.keySet(), a.keySet());
+			Iterator<String> it = e.keySet().iterator();
+			while (it.hasNext()) {
+				String key = it.next();
+				assertSameTree(e.get(key), a.get(key));
+			}
+		} else if (expected instanceof Array) {
+			assertEquals(((Array) expected).size(), ((Array) actual).size());
+			for (int i = 0; i < ((Array) expected).size(); i++) {
+				assertSameTree(((Array) expected).get(i),
+						((Array) actual).get(i));
+			}
+		} else {
+			assertEquals(((IPListSimpleObject) expected).getValue(),
+					((IPListSimpleObject) actual).getValue());
+		}
+	}
+
+	public void testTokens() throws IOException, SAXException {
+		PListXMLTokenizer t = tokenizer(PListXMLParserTest.VALID_WORKFLOW_VERSION_PLIST);
+		assertEquals(PListXMLTokenizer.START_TAG, t.next());
+		assertSame(Constants.TAG_PLIST, t.getTagName());
+		assertEquals(PListXMLTokenizer.START_TAG, t.next());
+		assertEquals(PListXMLTokenizer.TAG_DICT, t.getTagId());
+		assertEquals(PListXMLTokenizer.START_TAG, t.next());
+		assertEquals(PListXMLTokenizer.TAG_KEY, t.getTagId());
+		assertEquals(PListXMLTokenizer.TEXT, t.next());
+		assertEquals("Galaxy Zoo Hubble primary classification workflow",
+				t.getText());
+		assertEquals(PListXMLTokenizer.END_TAG, t.next());
+		assertEquals(PListXMLTokenizer.TAG_KEY, t.getTagId());
+		assertEquals(PListXMLTokenizer.START_TAG, t.next());
+		assertEquals(PListXMLTokenizer.TAG_STRING, t.getTagId());
+		assertEquals(PListXMLTokenizer.TEXT, t.next());
+		assertEquals("1.0", t.getText());
+		assertEquals(PListXMLTokenizer.END_TAG, t.next());
+		assertEquals(PListXMLTokenizer.END_TAG, t.next());
+		assertEquals(PListXMLTokenizer.END_TAG, t.next());
+		assertEquals(PListXMLTokenizer.TAG_PLIST, t.getTagId());
+		assertEquals(PListXMLTokenizer.END_DOCUMENT, t.next());
+	}
+
+	public void testEmptyElement() throws IOException, SAXException {
+		PListXMLTokenizer t = tokenizer("<plist version=\"1.0\"><true /></plist>");
+		assertEquals(PListXMLTokenizer.START_TAG, t.next());
+		assertEquals(PListXMLTokenizer.START_TAG, t.next());
+		assertEquals(PListXMLTokenizer.TAG_BOOL_TRUE, t.getTagId());
+		assertEquals(PListXMLTokenizer.END_TAG, t.next());
+		assertEquals(PListXMLTokenizer.TAG_BOOL_TRUE, t.getTagId());
+		assertEquals(PListXMLTokenizer.END_TAG, t.next());
+		assertEquals(PListXMLTokenizer.END_DOCUMENT, t.next());
+	}
+
+	public void testTextDecoding() throws IOException, SAXException {
+		PListXMLTokenizer t = tokenizer("<string>a&lt;b&amp;&#99;&#x64;<!-- skip --><![CDATA[<e>]]]>\u00e9\u20ac\ud83d\ude00</string>");
+		assertEquals(PListXMLTokenizer.START_TAG, t.next());
+		assertEquals(PListXMLTokenizer.TEXT, t.next());
+		assertEquals("a<b&cd<e>]\u00e9\u20ac\ud83d\ude00", t.getText());
+		assertEquals(PListXMLTokenizer.END_TAG, t.next());
+	}
+
+	public void testMismatchedEndTag() throws IOException {
+		PListXMLTokenizer t = tokenizer("<plist><dict></array></plist>");
+		try {
+			while (t.next() != PListXMLTokenizer.END_DOCUMENT) {
+				// read
+			}
+		} catch (SAXException e) {
+			return;
+		}
+		fail("expected exception not thrown");
+	}
+
+	public void testPullEngineBuildsSameTree() {
+		for (int i = 0; i < FIXTURES.length; i++) {
+			PList sax = parse(FIXTURES[i], Engine.SAX);
+			PList pull = parse(FIXTURES[i], Engine.PULL);
+			assertNotNull(pull);
+			assertSameTree(sax.getRootElement(), pull.getRootElement());
+		}
+	}
+
+	public void testPullEngineInvalidPList() {
+		PList actual = parse(PListXMLParserTest.INVALID_PLIST, Engine.PULL);
+		assertNotNull(actual);
+		assertNull(actual.getRootElement());
+	}
+
+}
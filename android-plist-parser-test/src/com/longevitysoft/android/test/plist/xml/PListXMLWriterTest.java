@@ -0,0 +1,185 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+import junit.framework.TestCase;
+
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.PListXMLWriter;
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Data;
+import com.longevitysoft.android.xml.plist.domain.Date;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.Integer;
+import com.longevitysoft.android.xml.plist.domain.PList;
+import com.longevitysoft.android.xml.plist.domain.PListObject;
+import com.longevitysoft.android.xml.plist.domain.Real;
+import com.longevitysoft.android.xml.plist.domain.True;
+
+/**
+ * Tests {@link PListXMLWriter}.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class PListXMLWriterTest extends TestCase {
+
+	private static final String PROLOG = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+			+ "<!DOCTYPE plist PUBLIC \"-//Apple//DTD PLIST 1.0//EN\" \"http://www.apple.com/DTDs/PropertyList-1.0.dtd\">\n"
+			+ "<plist version=\"1.0\">\n";
+
+	private static PList parse(String xml) {
+		PListXMLParser parser = new PListXMLParser();
+		parser.setHandler(new PListXMLHandler());
+		parser.parse(xml);
+		return ((PListXMLHandler) parser.getHandler()).getPlist();
+	}
+
+	private static PList pList(PListObject root) {
+		PList ret = new PList();
+		ret.setRootElement(root);
+		return ret;
+	}
+
+	private static com.longevitysoft.android.xml.plist.domain.String string(
+			String val) {
+		com.longevitysoft.android.xml.plist.domain.String ret = new com.longevitysoft.android.xml.plist.domain.String();
+		ret.setValue(val);
+		return ret;
+	}
+
+	private static String write(PList pList, boolean pretty)
+			throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		new PListXMLWriter(pretty).write(pList, os);
+		return os.toString("UTF-8");
+	}
+
+	public void testRoundTrip() throws IOException {
+		for (int i = 0; i < PListXMLTokenizerTest.FIXTURES.length; i++) {
+			String fixture = PListXMLTokenizerTest.FIXTURES[i];
+			if (fixture.indexOf("<date>") >= 0) {
+				// the parser reads dates in the default time zone
+				continue;
+			}
+			PList expected = parse(fixture);
+			PListXMLTokenizerTest.assertSameTree(expected.getRootElement(),
+					parse(write(expected, false)).getRootElement());
+			PListXMLTokenizerTest.assertSameTree(expected.getRootElement(),
+					parse(write(expected, true)).getRootElement());
+		}
+	}
+
+	public void testPretty() throws IOException {
+		Dict root = new Dict();
+		root.putConfig("name", string("Galaxy"));
+		Array items = new Array();
+		items.add(new True());
+		items.add(new Array());
+		root.putConfig("items", items);
+		Data blob = new Data();
+		blob.setValue("foobar".getBytes(), false);
+		root.putConfig("blob", blob);
+		assertEquals(PROLOG + "<dict>\n" + "\t<key>blob</key>\n"
+				+ "\t<data>\n\tZm9vYmFy\n\t</data>\n" + "\t<key>items</key>\n"
+				+ "\t<array>\n\t\t<true/>\n\t\t<array/>\n\t</array>\n"
+				+ "\t<key>name</key>\n" + "\t<string>Galaxy</string>\n"
+				+ "</dict>\n" + "</plist>\n", write(pList(root), true));
+	}
+
+	public void testCompact() throws IOException {
+		Array root = new Array();
+		Integer integer = new Integer();
+		integer.setValue(java.lang.Integer.valueOf(-42));
+		root.add(integer);
+		root.add(new Dict());
+		assertEquals(PROLOG.replace("\n", "")
+				+ "<array><integer>-42</integer><dict/></array></plist>",
+				write(pList(root), false));
+	}
+
+	public void testEscaping() throws IOException {
+		String val = "a<b&c>d \u00e9\u20ac\ud83d\ude00";
+		String written = write(pList(string(val)), false);
+		assertTrue(written
+				.indexOf("<string>a&lt;b&amp;c&gt;d \u00e9\u20ac\ud83d\ude00</string>") > 0);
+		assertEquals(val, ((com.longevitysoft.android.xml.plist.domain.String) parse(
+				written).getRootElement()).getValue());
+	}
+
+	public void testReals() throws IOException {
+		double[] values = { (double) 1.1f, 0.1, -2.5, 0.0, -0.0, 1e300,
+				Double.MIN_VALUE, Double.MAX_VALUE, (double) Float.MAX_VALUE,
+				(double) Float.MIN_VALUE, 123456789.123, 42 };
+		Array root = new Array();
+		for (double val : values) {
+			Real real = new Real();
+			real.setValue(val);
+			root.add(real);
+		}
+		for (int pretty = 0; pretty < 2; pretty++) {
+			Array actual = (Array) parse(write(pList(root), pretty == 1))
+					.getRootElement();
+			assertEquals(values.length, actual.size());
+			for (int i = 0; i < values.length; i++) {
+				assertEquals(Double.toString(values[i]),
+						Double.doubleToLongBits(values[i]),
+						Double.doubleToLongBits(actual.getDouble(i)));
+			}
+		}
+	}
+
+	public void testDates() throws IOException {
+		Date date = new Date();
+		date.setValue(new java.util.Date(1330078200000L));
+		assertTrue(write(pList(date), false).indexOf(
+				"<date>2012-02-24T10:10:00Z</date>") > 0);
+		date.setValue(new java.util.Date(-1L));
+		assertTrue(write(pList(date), false).indexOf(
+				"<date>1969-12-31T23:59:59Z</date>") > 0);
+		date.setValue(new java.util.Date(951782400000L));
+		assertTrue(write(pList(date), false).indexOf(
+				"<date>2000-02-29T00:00:00Z</date>") > 0);
+	}
+
+	public void testWriteToChannel() throws IOException {
+		Array root = new Array();
+		for (int i = 0; i < PListXMLWriter.BUFFER_SIZE; i++) {
+			root.add(string("item " + i));
+		}
+		PList pList = pList(root);
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		PListXMLWriter writer = new PListXMLWriter(true);
+		writer.write(pList, Channels.newChannel(os));
+		assertEquals(write(pList, true), os.toString("UTF-8"));
+		// the buffer is reused
+		os.reset();
+		writer.write(pList, os);
+		assertEquals(write(pList, true), os.toString("UTF-8"));
+	}
+
+	public void testWriteNoRoot() throws IOException {
+		try {
+			write(new PList(), false);
+		} catch (IllegalArgumentException e) {
+			return;
+		}
+		fail("expected exception not thrown");
+	}
+
+}
@@ -0,0 +1,244 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+import junit.framework.TestCase;
+
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.PListXMLWriter;
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.False;
+import com.longevitysoft.android.xml.plist.domain.Integer;
+import com.longevitysoft.android.xml.plist.domain.PList;
+import com.longevitysoft.android.xml.plist.domain.PListObject;
+import com.longevitysoft.android.xml.plist.domain.PListObjectType;
+import com.longevitysoft.android.xml.plist.domain.Real;
+import com.longevitysoft.android.xml.plist.domain.String;
+import com.longevitysoft.android.xml.plist.domain.True;
+
+/**
+ * Tests {@link Array}s that hold their elements as primitives.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class PrimitiveArrayTest extends TestCase {
+
+	private static final java.lang.String HEAD = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\">";
+	private static final java.lang.String TAIL = "</plist>";
+
+	private static PList parse(java.lang.String body) {
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		parser.parse(HEAD + body + TAIL);
+		return handler.getPlist();
+	}
+
+	private static Array parseArray(java.lang.String elements) {
+		return (Array) parse("<array>" + elements + "</array>")
+				.getRootElement();
+	}
+
+	private static Integer newInteger(long val) {
+		Integer ret = new Integer();
+		ret.setValue(val);
+		return ret;
+	}
+
+	public void testIntegers() {
+		Array array = parseArray("<integer>1</integer><integer>-2</integer><integer>9876543210</integer>");
+		assertEquals(PListObjectType.INTEGER, array.getPrimitiveType());
+		assertEquals(3, array.size());
+		assertEquals(-2L, array.getLong(1));
+		assertEquals(9876543210.0, array.getDouble(2), 0);
+		long[] values = array.toLongArray();
+		assertEquals(3, values.length);
+		assertEquals(1L, values[0]);
+		assertEquals(9876543210L, values[2]);
+		values[0] = 5;
+		assertEquals(1L, array.getLong(0));
+		double[] doubles = array.toDoubleArray();
+		assertEquals(-2.0, doubles[1], 0);
+		try {
+			array.getBoolean(0);
+			fail("expected ClassCastException");
+		} catch (ClassCastException e) {
+			// expected
+		}
+	}
+
+	public void testReals() {
+		Array array = parseArray("<real>0.5</real><real>-1.25</real>");
+		assertEquals(PListObjectType.REAL, array.getPrimitiveType());
+		double[] values = array.toDoubleArray();
+		assertEquals(0.5, values[0], 0);
+		assertEquals(-1.25, values[1], 0);
+		try {
+			array.getLong(0);
+			fail("expected ClassCastException");
+		} catch (ClassCastException e) {
+			// expected
+		}
+		try {
+			array.toLongArray();
+			fail("expected ClassCastException");
+		} catch (ClassCastException e) {
+			// expected
+		}
+	}
+
+	public void testBooleans() {
+		StringBuilder xml = new StringBuilder();
+		for (int i = 0; i < 130; i++) {
+			xml.append(i % 3 == 0 ? "<true/>" : "<false/>");
+		}
+		Array array = parseArray(xml.toString());
+		assertEquals(PListObjectType.TRUE, array.getPrimitiveType());
+		assertEquals(130, array.size());
+		for (int i = 0; i < 130; i++) {
+			assertEquals(i % 3 == 0, array.getBoolean(i));
+			assertEquals(i % 3 == 0 ? True.class : False.class, array.get(i)
+					.getClass());
+		}
+	}
+
+	public void testMixedAndEmptyStayNodes() {
+		assertNull(parseArray("<integer>1</integer><real>2.0</real>")
+				.getPrimitiveType());
+		assertNull(parseArray("<string>a</string>").getPrimitiveType());
+		assertNull(parseArray("").getPrimitiveType());
+		Array nested = parseArray("<array><integer>1</integer></array><integer>2</integer>");
+		assertNull(nested.getPrimitiveType());
+		assertEquals(PListObjectType.INTEGER,
+				((Array) nested.get(0)).getPrimitiveType());
+		Array mixed = parseArray("<integer>1</integer><real>2.5</real>");
+		assertEquals(2.5, mixed.getDouble(1), 0);
+		assertEquals(1L, mixed.getLong(0));
+		assertEquals(1.0, mixed.toDoubleArray()[0], 0);
+	}
+
+	public void testListView() {
+		Array array = parseArray("<integer>10</integer><integer>20</integer><integer>30</integer>");
+		PListObject first = array.get(0);
+		assertSame(first, array.get(0));
+		assertEquals(java.lang.Integer.valueOf(10), ((Integer) first).getValue());
+		long sum = 0;
+		for (Iterator<PListObject> it = array.iterator(); it.hasNext();) {
+			sum += ((Integer) it.next()).getLongValue();
+		}
+		assertEquals(60, sum);
+		// a change to a node is seen by the primitive accessors
+		((Integer) first).setValue(11L);
+		assertEquals(11L, array.getLong(0));
+		assertEquals(11L, array.toLongArray()[0]);
+	}
+
+	public void testSet() {
+		Array array = parseArray("<integer>10</integer><integer>20</integer>");
+		Integer replacement = newInteger(25);
+		PListObject old = array.set(1, replacement);
+		assertEquals(20L, ((Integer) old).getLongValue());
+		assertSame(replacement, array.get(1));
+		assertEquals(25L, array.getLong(1));
+		assertEquals(PListObjectType.INTEGER, array.getPrimitiveType());
+		String str = new String();
+		str.setValue("x");
+		array.set(0, str);
+		assertNull(array.getPrimitiveType());
+		assertSame(str, array.get(0));
+		assertEquals(25L, array.getLong(1));
+	}
+
+	public void testStructuralModification() {
+		Array array = parseArray("<real>1.5</real><real>2.5</real>");
+		Real real = new Real();
+		real.setValue(3.5);
+		array.add(real);
+		assertNull(array.getPrimitiveType());
+		assertEquals(3, array.size());
+		assertEquals(3.5, array.getDouble(2), 0);
+		array.remove(0);
+		assertEquals(2, array.size());
+		assertEquals(2.5, array.toDoubleArray()[0], 0);
+	}
+
+	public void testProgrammaticArrayNotConverted() {
+		Array array = new Array();
+		array.add(newInteger(1));
+		array.add(newInteger(2));
+		assertNull(array.getPrimitiveType());
+		assertEquals(2, array.toLongArray()[1]);
+		array.trimToSize();
+		assertEquals(PListObjectType.INTEGER, array.getPrimitiveType());
+	}
+
+	public void testFrozenReadsAreStable() {
+		PList pList = parse("<array><integer>10</integer><integer>20</integer><integer>9876543210</integer></array>");
+		Array array = (Array) pList.getRootElement();
+		PListObject read = array.get(2);
+		Array frozen = (Array) pList.freeze().getRootElement();
+		assertEquals(PListObjectType.INTEGER, frozen.getPrimitiveType());
+		assertSame(read, frozen.get(2));
+		assertTrue(read.isFrozen());
+		for (int i = 0; i < frozen.size(); i++) {
+			assertSame(frozen.get(i), frozen.get(i));
+			assertTrue(frozen.get(i).isFrozen());
+		}
+		assertSame(Integer.valueOf(20), frozen.get(1));
+		assertEquals(20L, frozen.getLong(1));
+		assertEquals(9876543210L, frozen.toLongArray()[2]);
+	}
+
+	public void testSharedIntegersKeepTheirNodes() {
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		handler.setShareIntegers(true);
+		parser.setHandler(handler);
+		parser.parse(HEAD
+				+ "<array><integer>1</integer><integer>5000</integer></array>"
+				+ TAIL);
+		Array array = (Array) handler.getPlist().getRootElement();
+		assertNull(array.getPrimitiveType());
+		assertSame(Integer.valueOf(1), array.get(0));
+		assertTrue(array.get(1).isFrozen());
+		PListObject held = array.get(1);
+		array.trimToSize();
+		assertSame(held, array.get(1));
+	}
+
+	public void testWriteRoundTrip() throws IOException {
+		java.lang.String body = "<dict><key>i</key><array><integer>1</integer><integer>-7</integer></array>"
+				+ "<key>r</key><array><real>0.5</real><real>2.25</real></array>"
+				+ "<key>t</key><array><true/><false/><true/></array></dict>";
+		PList pList = parse(body);
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		new PListXMLWriter().write(pList, os);
+		java.lang.String written = os.toString("UTF-8");
+		assertTrue(written.contains(body));
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		parser.parse(written);
+		PList reparsed = handler.getPlist();
+		Array bools = (Array) ((com.longevitysoft.android.xml.plist.domain.Dict) reparsed
+				.getRootElement()).getConfigMap().get("t");
+		assertEquals(PListObjectType.TRUE, bools.getPrimitiveType());
+	}
+
+}
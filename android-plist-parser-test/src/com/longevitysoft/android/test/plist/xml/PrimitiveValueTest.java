@@ -0,0 +1,290 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.math.BigInteger;
+
+import junit.framework.TestCase;
+
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.PListXMLWriter;
+import com.longevitysoft.android.xml.plist.binary.BinaryPListParser;
+import com.longevitysoft.android.xml.plist.binary.BinaryPListWriter;
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Date;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.Integer;
+import com.longevitysoft.android.xml.plist.domain.KeyPath;
+import com.longevitysoft.android.xml.plist.domain.PList;
+import com.longevitysoft.android.xml.plist.domain.Real;
+
+/**
+ * Tests the primitive storage of {@link Integer} and {@link Real} and the
+ * primitive accessors of {@link Dict} and {@link Array}.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class PrimitiveValueTest extends TestCase {
+
+	private static final java.lang.String DOC = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\"><dict>"
+			+ "<key>port</key><integer>8080</integer>"
+			+ "<key>big</key><integer>9876543210</integer>"
+			+ "<key>neg</key><integer>-42</integer>"
+			+ "<key>hex</key><integer>0x1F</integer>"
+			+ "<key>unsigned</key><integer>18446744073709551615</integer>"
+			+ "<key>ratio</key><real>0.75</real>"
+			+ "<key>on</key><true/>"
+			+ "<key>off</key><false/>"
+			+ "<key>name</key><string>x</string>"
+			+ "<key>server</key><dict><key>timeout</key><real>2.5</real></dict>"
+			+ "<key>sizes</key><array><integer>1</integer><integer>2</integer><real>3.5</real></array>"
+			+ "</dict></plist>";
+
+	private Dict root;
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see junit.framework.TestCase#setUp()
+	 */
+	protected void setUp() throws Exception {
+		super.setUp();
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		parser.parse(DOC);
+		root = (Dict) handler.getPlist().getRootElement();
+	}
+
+	public void testIntegerStorage() {
+		Integer val = new Integer();
+		assertFalse(val.hasValue());
+		assertNull(val.getValue());
+		try {
+			val.getLongValue();
+			fail("expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		val.setValue(1L << 40);
+		assertTrue(val.hasValue());
+		assertEquals(1L << 40, val.getLongValue());
+		try {
+			val.getValue();
+			fail("expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		val.setValue(java.lang.Integer.valueOf(7));
+		assertEquals(7, val.getIntValue());
+		assertEquals(java.lang.Integer.valueOf(7), val.getValue());
+		val.setValue(" -9 ");
+		assertEquals(-9L, val.getLongValue());
+		val.setValue((java.lang.Integer) null);
+		assertFalse(val.hasValue());
+	}
+
+	public void testBigIntegerStorage() {
+		Integer val = new Integer();
+		val.setValue("0xFFFFFFFFFFFFFFFF");
+		assertTrue(val.hasValue());
+		assertFalse(val.isLong());
+		assertEquals(new BigInteger("18446744073709551615"),
+				val.getBigIntegerValue());
+		assertEquals(1.8446744073709552e19, val.getDoubleValue(), 0);
+		try {
+			val.getLongValue();
+			fail("expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		val.setValue(BigInteger.valueOf(-5));
+		assertTrue(val.isLong());
+		assertEquals(-5L, val.getLongValue());
+		val.setValue("-0x10");
+		assertEquals(-16L, val.getLongValue());
+		try {
+			val.setValue("1.5");
+			fail("expected NumberFormatException");
+		} catch (NumberFormatException e) {
+			// expected
+		}
+		val.setValue((BigInteger) null);
+		assertFalse(val.hasValue());
+		assertNull(val.getBigIntegerValue());
+	}
+
+	public void testBigIntegerRoundTrip() throws IOException {
+		Integer unsigned = (Integer) root.getConfigurationObject("unsigned");
+		Integer min = new Integer();
+		min.setValue(BigInteger.ONE.shiftLeft(127).negate());
+		Array array = new Array();
+		array.add(unsigned);
+		array.add(min);
+		PList pList = new PList();
+		pList.setRootElement(array);
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		new PListXMLWriter(false).write(pList, os);
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		parser.setHandler(handler);
+		parser.parse(os.toString("UTF-8"));
+		Array xml = (Array) handler.getPlist().getRootElement();
+		assertEquals(unsigned.getBigIntegerValue(),
+				((Integer) xml.get(0)).getBigIntegerValue());
+		assertEquals(min.getBigIntegerValue(),
+				((Integer) xml.get(1)).getBigIntegerValue());
+
+		BinaryPListWriter writer = new BinaryPListWriter();
+		Array binary = (Array) new BinaryPListParser().parse(
+				writer.toByteArray(pList)).getRootElement();
+		assertEquals(unsigned.getBigIntegerValue(),
+				((Integer) binary.get(0)).getBigIntegerValue());
+		assertEquals(min.getBigIntegerValue(),
+				((Integer) binary.get(1)).getBigIntegerValue());
+
+		min.setValue(BigInteger.ONE.shiftLeft(127));
+		try {
+			writer.toByteArray(pList);
+			fail("expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testRealStorage() {
+		Real val = new Real();
+		assertFalse(val.hasValue());
+		assertNull(val.getValue());
+		val.setValue(0.1);
+		assertEquals(0.1, val.getDoubleValue(), 0);
+		assertEquals(Float.valueOf(0.1f), val.getValue());
+		val.setValue(Float.valueOf(2.5f));
+		assertEquals(2.5, val.getDoubleValue(), 0);
+		val.setValue((Float) null);
+		assertFalse(val.hasValue());
+	}
+
+	public void testDictAccessors() {
+		assertEquals(8080, root.getInt("port", -1));
+		assertEquals(-42, root.getInt(KeyPath.compile("neg"), -1));
+		assertEquals(-1, root.getInt("big", -1));
+		assertEquals(9876543210L, root.getLong("big", -1));
+		assertEquals(-1, root.getLong("name", -1));
+		assertEquals(31, root.getInt("hex", -1));
+		assertEquals(-1, root.getLong("unsigned", -1));
+		assertEquals(1.8446744073709552e19, root.getDouble("unsigned", -1), 0);
+		assertEquals(-1, root.getLong("missing", -1));
+		assertEquals(0.75, root.getDouble("ratio", -1), 0);
+		assertEquals(2.5, root.getDouble("server.timeout", -1), 0);
+		assertEquals(8080.0, root.getDouble("port", -1), 0);
+		assertEquals(-1.0, root.getDouble("name", -1), 0);
+		assertTrue(root.getBoolean("on", false));
+		assertFalse(root.getBoolean("off", true));
+		assertTrue(root.getBoolean("name", true));
+		// dotted keys only go through dicts, key paths index arrays too
+		assertEquals(-1, root.getInt("sizes.1", -1));
+		assertEquals(2, root.getInt(KeyPath.compile("sizes.1"), -1));
+		assertEquals(3.5, root.getDouble(KeyPath.compile("sizes.2"), -1), 0);
+	}
+
+	public void testArrayAccessors() {
+		Array sizes = root.getConfigurationArray("sizes");
+		assertEquals(1L, sizes.getLong(0));
+		assertEquals(2.0, sizes.getDouble(1), 0);
+		assertEquals(3.5, sizes.getDouble(2), 0);
+		try {
+			sizes.getLong(2);
+			fail("expected ClassCastException");
+		} catch (ClassCastException e) {
+			// expected
+		}
+	}
+
+	private static byte[] serialize(Serializable obj) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(obj);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private static Object deserialize(byte[] bytes) throws IOException,
+			ClassNotFoundException {
+		return new ObjectInputStream(new ByteArrayInputStream(bytes))
+				.readObject();
+	}
+
+	/**
+	 * Replace the serialVersionUID of cls in a stream by uid, as written
+	 * before the fields of cls changed.
+	 */
+	private static byte[] withUid(byte[] bytes, Class<?> cls, long uid) {
+		long current = ObjectStreamClass.lookup(cls).getSerialVersionUID();
+		for (int i = 0; i + 8 <= bytes.length; i++) {
+			long val = 0;
+			for (int j = 0; j < 8; j++) {
+				val = (val << 8) | (bytes[i + j] & 0xFF);
+			}
+			if (val == current) {
+				for (int j = 0; j < 8; j++) {
+					bytes[i + j] = (byte) (uid >>> (56 - 8 * j));
+				}
+				return bytes;
+			}
+		}
+		throw new AssertionError("uid not found");
+	}
+
+	private static void assertOldLayoutRejected(Serializable obj, long oldUid)
+			throws IOException, ClassNotFoundException {
+		try {
+			deserialize(withUid(serialize(obj), obj.getClass(), oldUid));
+		} catch (InvalidClassException e) {
+			return;
+		}
+		fail("expected exception not thrown");
+	}
+
+	public void testSerialization() throws IOException,
+			ClassNotFoundException {
+		Integer big = new Integer();
+		big.setValue(new BigInteger("18446744073709551615"));
+		assertEquals(big.getBigIntegerValue(),
+				((Integer) deserialize(serialize(big))).getBigIntegerValue());
+		Real real = new Real();
+		real.setValue(0.1);
+		assertEquals(0.1, ((Real) deserialize(serialize(real)))
+				.getDoubleValue(), 0);
+		Date date = new Date();
+		date.setValue(1330078200000L);
+		assertEquals(1330078200000L, ((Date) deserialize(serialize(date)))
+				.getTime());
+		// the fields changed, so streams of the old classes must not load
+		assertOldLayoutRejected(big, -5952071046933925529L);
+		assertOldLayoutRejected(real, -4204214862534504729L);
+		assertOldLayoutRejected(date, 3846688440069431376L);
+	}
+
+}
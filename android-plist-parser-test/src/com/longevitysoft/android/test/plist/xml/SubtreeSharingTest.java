@@ -0,0 +1,197 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml;
+
+import java.util.Iterator;
+
+import junit.framework.TestCase;
+
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.Integer;
+import com.longevitysoft.android.xml.plist.domain.PList;
+import com.longevitysoft.android.xml.plist.domain.PListObject;
+
+/**
+ * Tests sharing equal subtrees while a {@link PList} is built, and the frozen
+ * containers it relies on.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class SubtreeSharingTest extends TestCase {
+
+	private static final String STYLE = "<dict><key>color</key><string>red</string><key>size</key><integer>12</integer>"
+			+ "<key>margins</key><array><integer>1</integer><integer>2</integer></array></dict>";
+
+	private static final String DOC = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\"><dict>"
+			+ "<key>items</key><array>"
+			+ "<dict><key>name</key><string>a</string><key>style</key>"
+			+ STYLE
+			+ "</dict>"
+			+ "<dict><key>name</key><string>b</string><key>style</key>"
+			+ STYLE
+			+ "</dict>"
+			+ "<dict><key>name</key><string>c</string><key>style</key>"
+			+ "<dict><key>color</key><string>red</string><key>size</key><real>12</real>"
+			+ "<key>margins</key><array><integer>1</integer><integer>2</integer></array></dict>"
+			+ "</dict>"
+			+ STYLE
+			+ "<array><string>x</string><true/></array>"
+			+ "<array><string>x</string><true/></array>"
+			+ "<array><string>x</string><false/></array>"
+			+ "</array>"
+			+ "<key>default</key>"
+			+ STYLE
+			+ "<key>empty</key><array/><key>none</key><array/>"
+			+ "</dict></plist>";
+
+	private static PList parse(boolean share) {
+		PListXMLParser parser = new PListXMLParser();
+		PListXMLHandler handler = new PListXMLHandler();
+		handler.setShareSubtrees(share);
+		parser.setHandler(handler);
+		parser.parse(DOC);
+		return handler.getPlist();
+	}
+
+	private static void assertFrozen(Runnable mutation) {
+		try {
+			mutation.run();
+			fail("expected UnsupportedOperationException");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	public void testSharedSubtrees() {
+		PList pList = parse(true);
+		assertTrue(pList.isShareSubtrees());
+		Dict root = (Dict) pList.getRootElement();
+		Array items = root.getConfigurationArray("items");
+		Dict style = ((Dict) items.get(0)).getConfigurationObject("style");
+		assertSame(style, ((Dict) items.get(1)).getConfigurationObject("style"));
+		assertSame(style, items.get(3));
+		assertSame(style, root.getConfigurationObject("default"));
+		// an integer size is not equal to a real one
+		Dict other = ((Dict) items.get(2)).getConfigurationObject("style");
+		assertNotSame(style, other);
+		assertSame(style.getConfigurationObject("margins"),
+				other.getConfigurationObject("margins"));
+		assertSame(items.get(4), items.get(5));
+		assertNotSame(items.get(4), items.get(6));
+		assertSame(root.getConfigurationObject("empty"),
+				root.getConfigurationObject("none"));
+		assertNotSame(items.get(0), items.get(1));
+
+		// style 3x, margins 4x, [x, true] 1x, empty array 1x
+		assertEquals(9, pList.getSharedSubtreeCount());
+		assertTrue(pList.getSharedSubtreeBytes() > 0);
+
+		PListXMLTokenizerTest.assertSameTree(parse(false).getRootElement(),
+				root);
+	}
+
+	public void testSharedSubtreesFrozen() {
+		Dict root = (Dict) parse(true).getRootElement();
+		final Array items = root.getConfigurationArray("items");
+		final Dict style = ((Dict) items.get(0))
+				.getConfigurationObject("style");
+		final Array margins = style.getConfigurationObject("margins");
+		assertTrue(root.isFrozen());
+		assertTrue(items.isFrozen());
+		assertTrue(style.isFrozen());
+		assertTrue(margins.isFrozen());
+		assertTrue(margins.get(0).isFrozen());
+		assertTrue(style.getConfiguration("color").isFrozen());
+		assertFrozen(new Runnable() {
+			public void run() {
+				style.putConfig("size", new Integer());
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				style.getConfigMap().remove("size");
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				style.getConfigMap().entrySet().iterator().next()
+						.setValue(null);
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				style.setConfigMap(null);
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				style.getConfiguration("color").setValue("blue");
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				items.add(new Integer());
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				items.clear();
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				Iterator<PListObject> it = items.iterator();
+				it.next();
+				it.remove();
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				items.subList(0, 2).clear();
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				margins.set(0, new Integer());
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				((Integer) margins.get(1)).setValue(5L);
+			}
+		});
+		assertEquals(2, margins.getLong(1));
+		assertEquals(7, items.size());
+		assertEquals(3, style.getConfigMap().size());
+	}
+
+	public void testNotSharedByDefault() {
+		PList pList = parse(false);
+		assertFalse(pList.isShareSubtrees());
+		Dict root = (Dict) pList.getRootElement();
+		Array items = root.getConfigurationArray("items");
+		assertNotSame(((Dict) items.get(0)).getConfigurationObject("style"),
+				((Dict) items.get(1)).getConfigurationObject("style"));
+		assertFalse(root.isFrozen());
+		assertFalse(items.isFrozen());
+		assertEquals(0, pList.getSharedSubtreeCount());
+		assertEquals(0, pList.getSharedSubtreeBytes());
+		items.add(new Integer());
+		assertEquals(8, items.size());
+	}
+
+}
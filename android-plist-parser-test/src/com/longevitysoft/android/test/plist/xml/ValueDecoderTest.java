@@ -0,0 +1,276 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml;
+
+import java.math.BigInteger;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Random;
+import java.util.TimeZone;
+
+import junit.framework.TestCase;
+
+import com.longevitysoft.android.xml.plist.ValueDecoder;
+
+/**
+ * Tests {@link ValueDecoder}.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class ValueDecoderTest extends TestCase {
+
+	public void testTrim() {
+		String val = " \n\t 42 \n";
+		int start = ValueDecoder.trimStart(val, 0, val.length());
+		int end = ValueDecoder.trimEnd(val, start, val.length());
+		assertEquals("42", val.substring(start, end));
+		assertEquals(3, ValueDecoder.trimStart("   ", 0, 3));
+		assertEquals(0, ValueDecoder.trimEnd("   ", 0, 3));
+	}
+
+	public void testParseLong() {
+		assertEquals(0, ValueDecoder.parseLong("0", 0, 1));
+		assertEquals(-17, ValueDecoder.parseLong("-17", 0, 3));
+		assertEquals(17, ValueDecoder.parseLong("+17", 0, 3));
+		assertEquals(123, ValueDecoder.parseLong("\n\t123 \n", 0, 7));
+		assertEquals(23, ValueDecoder.parseLong("123", 1, 3));
+		assertEquals(Long.MAX_VALUE, ValueDecoder.parseLong(
+				"9223372036854775807", 0, 19));
+		assertEquals(Long.MIN_VALUE, ValueDecoder.parseLong(
+				"-9223372036854775808", 0, 20));
+	}
+
+	public void testParseLongInvalid() {
+		String[] invalid = { "", " ", "-", "+", "1 2", "12a", "1.0", "0x",
+				"-0x", "0xg", "0x-1", "--1", "x10", "0b10",
+				"9223372036854775808", "-9223372036854775809",
+				"99999999999999999999", "0x8000000000000000",
+				"-0x8000000000000001" };
+		for (String val : invalid) {
+			try {
+				ValueDecoder.parseLong(val, 0, val.length());
+				fail("expected NumberFormatException for " + val);
+			} catch (NumberFormatException e) {
+				// expected
+			}
+		}
+	}
+
+	public void testParseLongHex() {
+		assertEquals(16, ValueDecoder.parseLong("0x10", 0, 4));
+		assertEquals(0xABCDEF, ValueDecoder.parseLong(" 0XabCdEf ", 0, 10));
+		assertEquals(-255, ValueDecoder.parseLong("-0xff", 0, 5));
+		assertEquals(255, ValueDecoder.parseLong("+0xFF", 0, 5));
+		assertEquals(Long.MAX_VALUE, ValueDecoder.parseLong(
+				"0x7fffffffffffffff", 0, 18));
+		assertEquals(Long.MIN_VALUE, ValueDecoder.parseLong(
+				"-0x8000000000000000", 0, 19));
+		assertEquals(0, ValueDecoder.parseLong("0x0000", 0, 6));
+	}
+
+	public void testParseBigInteger() {
+		assertEquals(new BigInteger("18446744073709551615"),
+				ValueDecoder.parseBigInteger("18446744073709551615", 0, 20));
+		assertEquals(new BigInteger("18446744073709551615"),
+				ValueDecoder.parseBigInteger(" 0xFFFFFFFFFFFFFFFF\n", 0, 20));
+		assertEquals(new BigInteger("-9223372036854775809"),
+				ValueDecoder.parseBigInteger("-9223372036854775809", 0, 20));
+		assertEquals(BigInteger.valueOf(-26), ValueDecoder.parseBigInteger(
+				"-0x1a", 0, 5));
+		assertEquals(BigInteger.valueOf(7), ValueDecoder.parseBigInteger(
+				"+7", 0, 2));
+		String[] invalid = { "", "-", "0x", "--1", "+-1", "1e3", "0x1g",
+				"12 3" };
+		for (String val : invalid) {
+			try {
+				ValueDecoder.parseBigInteger(val, 0, val.length());
+				fail("expected NumberFormatException for " + val);
+			} catch (NumberFormatException e) {
+				// expected
+			}
+		}
+	}
+
+	/**
+	 * Assert val parses to the same double as
+	 * {@link Double#parseDouble(String)}.
+	 */
+	public static void assertParsesLikeJdk(CharSequence val) {
+		String text = val.toString();
+		assertEquals(text, Double.doubleToRawLongBits(Double.parseDouble(text)),
+				Double.doubleToRawLongBits(ValueDecoder.parseDouble(val, 0,
+						val.length())));
+	}
+
+	public void testParseDouble() {
+		String[] vals = { "0", "-0", "0.0", "+1", "3.1417", " 2.5\n", "1e10",
+				"1E-10", "-123.456e+7", ".5", "5.", "0.1", "0.3",
+				"9007199254740993", "9007199254740992.5", "18446744073709551615",
+				"18446744073709551616", "123456789012345678901234567890",
+				"0.000000000000000000000000000001234", "2.2250738585072011e-308",
+				"2.2250738585072014e-308", "4.9e-324", "2.4703282292062327e-324",
+				"2.4703282292062328e-324", "1.7976931348623157e308",
+				"1.7976931348623158e308", "1.7976931348623159e308", "1e309",
+				"1e-400", "7.2057594037927933e16", "1e23", "8.41e21",
+				"5e-324", "4.35e-200", "9.999999999999999e22", "NaN",
+				"-Infinity", "0x1p3", "1.5d" };
+		for (String val : vals) {
+			assertParsesLikeJdk(val);
+		}
+	}
+
+	public void testParseDoubleInvalid() {
+		String[] vals = { "", "-", ".", "e5", "1e", "1e+", "1.2.3", "1e5x",
+				"abc" };
+		for (String val : vals) {
+			try {
+				ValueDecoder.parseDouble(val, 0, val.length());
+				fail(val);
+			} catch (NumberFormatException e) {
+				// expected
+			}
+		}
+	}
+
+	public void testParseDoubleRoundTrip() {
+		Random random = new Random(19);
+		for (int i = 0; i < 20000; i++) {
+			double val = Double.longBitsToDouble(random.nextLong());
+			if (Double.isNaN(val) || Double.isInfinite(val)) {
+				continue;
+			}
+			String text = Double.toString(val);
+			assertEquals(text, Double.doubleToRawLongBits(val),
+					Double.doubleToRawLongBits(ValueDecoder.parseDouble(text,
+							0, text.length())));
+		}
+	}
+
+	public void testParseDoubleRandomDigits() {
+		Random random = new Random(23);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			sb.setLength(0);
+			int digits = 1 + random.nextInt(22);
+			for (int j = 0; j < digits; j++) {
+				sb.append((char) ('0' + random.nextInt(10)));
+				if (j == 0 && digits > 1) {
+					sb.append('.');
+				}
+			}
+			sb.append('e').append(random.nextInt(680) - 345);
+			assertParsesLikeJdk(sb);
+		}
+	}
+
+	/**
+	 * Significands of up to 4 digits at the exponents where the fast paths
+	 * give way, the full sweep is in
+	 * {@link com.longevitysoft.android.test.plist.perf.ParseDoubleSweepTest}.
+	 */
+	public void testParseDoubleExponents() {
+		int[] exponents = { -330, -324, -323, -308, -307, -23, -22, -1, 0, 1,
+				15, 22, 23, 37, 305, 308, 309 };
+		StringBuilder sb = new StringBuilder();
+		for (int exponent : exponents) {
+			for (int significand = 1; significand < 10000; significand += 37) {
+				sb.setLength(0);
+				sb.append(significand).append('e').append(exponent);
+				assertParsesLikeJdk(sb);
+			}
+		}
+	}
+
+	/**
+	 * Every 1048573rd float, as the shortest decimal that reads back as it.
+	 */
+	public void testParseDoubleFloats() {
+		for (long bits = 0; bits <= 0x7F7FFFFFL; bits += 1048573) {
+			assertParsesLikeJdk(Float.toString(Float
+					.intBitsToFloat((int) bits)));
+		}
+	}
+
+	public void testParseDate() throws Exception {
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+		format.setTimeZone(TimeZone.getTimeZone("UTC"));
+		String[] vals = { "2011-01-18T12:34:56Z", "1969-07-20T20:17:40",
+				"2000-02-29T00:00:00Z", " 2038-01-19T03:14:08Z\n",
+				"1600-03-01T00:00:00Z", "9999-12-31T23:59:59Z" };
+		for (String val : vals) {
+			assertEquals(val, format.parse(val.trim()).getTime(),
+					ValueDecoder.parseDate(val, 0, val.length()));
+		}
+		// proleptic Gregorian, where SimpleDateFormat switches to Julian
+		assertEquals(-62135596800000L,
+				ValueDecoder.parseDate("0001-01-01T00:00:00Z", 0, 20));
+	}
+
+	public void testParseDateEveryDay() throws Exception {
+		Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+		cal.clear();
+		cal.set(1896, Calendar.JANUARY, 1, 23, 59, 58);
+		StringBuilder sb = new StringBuilder();
+		// every day of years spanning the 1900 and 2000 leap year rules
+		for (int i = 0; i < 366 * 210; i++) {
+			sb.setLength(0);
+			sb.append(cal.get(Calendar.YEAR)).append('-');
+			pad(sb, cal.get(Calendar.MONTH) + 1).append('-');
+			pad(sb, cal.get(Calendar.DAY_OF_MONTH)).append("T23:59:58Z");
+			assertEquals(sb.toString(), cal.getTimeInMillis(),
+					ValueDecoder.parseDate(sb, 0, sb.length()));
+			cal.add(Calendar.DAY_OF_MONTH, 1);
+		}
+	}
+
+	private static StringBuilder pad(StringBuilder sb, int val) {
+		if (val < 10) {
+			sb.append('0');
+		}
+		return sb.append(val);
+	}
+
+	public void testParseDateFractionAndOffset() {
+		long utc = ValueDecoder.parseDate("2011-01-18T12:34:56Z", 0, 20);
+		String[] vals = { "2011-01-18T13:34:56+01:00",
+				"2011-01-18T13:34:56+0100", "2011-01-18T13:34:56+01",
+				"2011-01-18T07:04:56-05:30" };
+		for (String val : vals) {
+			assertEquals(val, utc, ValueDecoder.parseDate(val, 0, val.length()));
+		}
+		assertEquals(utc + 250,
+				ValueDecoder.parseDate("2011-01-18T12:34:56.25Z", 0, 23));
+		assertEquals(utc + 123, ValueDecoder.parseDate(
+				"2011-01-18T12:34:56.123456Z", 0, 27));
+	}
+
+	public void testParseDateNotISO() {
+		String[] vals = { "", "Tue, 18 Jan 2011 12:34:56 GMT",
+				"2011-01-18 12:34:56", "2011-01-18T12:34", "2011-1-18T12:34:56",
+				"2011-02-29T12:34:56Z", "2011-13-01T12:34:56Z",
+				"2011-01-18T24:00:00Z", "2011-01-18T12:34:56.Z",
+				"2011-01-18T12:34:56ZZ", "2011-01-18T12:34:56+1:00",
+				"2011-01-18T12:34:56 PST" };
+		for (String val : vals) {
+			assertEquals(val, ValueDecoder.NOT_A_DATE, ValueDecoder.parseDate(
+					val, 0, val.length()));
+		}
+	}
+
+	public void testToBytes() {
+		byte[] bytes = ValueDecoder.toBytes("\n\tZm9v\nYmFy\n", 0, 12);
+		assertEquals("Zm9v\nYmFy", new String(bytes));
+	}
+
+}
@@ -0,0 +1,241 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigInteger;
+
+import junit.framework.TestCase;
+
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.StringTable;
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.False;
+import com.longevitysoft.android.xml.plist.domain.Integer;
+import com.longevitysoft.android.xml.plist.domain.PListObjectType;
+import com.longevitysoft.android.xml.plist.domain.String;
+import com.longevitysoft.android.xml.plist.domain.True;
+
+/**
+ * Tests the frozen nodes shared by parsers: the {@link True} and
+ * {@link False} instances, the {@link Integer} cache and the strings
+ * interned with a {@link StringTable}.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class ValueSharingTest extends TestCase {
+
+	private static final java.lang.String DOC = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\"><array>"
+			+ "<dict><key>id</key><integer>1</integer><key>on</key><true/><key>state</key><string>YES</string><key>note</key><string>a longer note</string></dict>"
+			+ "<dict><key>id</key><integer>1</integer><key>on</key><true/><key>state</key><string>YES</string><key>note</key><string>a longer note</string></dict>"
+			+ "<dict><key>id</key><integer>4096</integer><key>on</key><false/><key>state</key><string></string><key>note</key><string>a longer note</string></dict>"
+			+ "</array></plist>";
+
+	private PListXMLParser parser;
+
+	private PListXMLHandler handler;
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see junit.framework.TestCase#setUp()
+	 */
+	protected void setUp() throws Exception {
+		super.setUp();
+		parser = new PListXMLParser();
+		handler = new PListXMLHandler();
+		parser.setHandler(handler);
+	}
+
+	private Array parse() {
+		parser.parse(DOC);
+		return (Array) handler.getPlist().getRootElement();
+	}
+
+	private static void assertFrozen(Runnable mutation) {
+		try {
+			mutation.run();
+			fail("expected UnsupportedOperationException");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	public void testBooleansShared() {
+		Array root = parse();
+		assertSame(True.getInstance(), ((Dict) root.get(0)).getConfigMap()
+				.get("on"));
+		assertSame(True.getInstance(), ((Dict) root.get(1)).getConfigMap()
+				.get("on"));
+		assertSame(False.getInstance(), ((Dict) root.get(2)).getConfigMap()
+				.get("on"));
+		assertTrue(True.getInstance().isFrozen());
+		assertFalse(new True().isFrozen());
+		assertEquals(Boolean.TRUE, True.getInstance().getValue());
+		// setting the value of a boolean never had an effect
+		True.getInstance().setValue(Boolean.FALSE);
+		assertEquals(Boolean.TRUE, True.getInstance().getValue());
+		assertFrozen(new Runnable() {
+			public void run() {
+				False.getInstance().setType(PListObjectType.TRUE);
+			}
+		});
+		assertEquals(PListObjectType.FALSE, False.getInstance().getType());
+	}
+
+	public void testBooleansStaySharedWhenDeserialized() throws IOException,
+			ClassNotFoundException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(True.getInstance());
+		out.writeObject(new True());
+		out.close();
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(
+				bytes.toByteArray()));
+		assertSame(True.getInstance(), in.readObject());
+		Object copy = in.readObject();
+		assertNotSame(True.getInstance(), copy);
+		assertFalse(((True) copy).isFrozen());
+	}
+
+	public void testIntegerCache() {
+		assertSame(Integer.valueOf(0), Integer.valueOf(0));
+		assertSame(Integer.valueOf(Integer.CACHE_LOW),
+				Integer.valueOf(Integer.CACHE_LOW));
+		assertSame(Integer.valueOf(Integer.CACHE_HIGH),
+				Integer.valueOf("" + Integer.CACHE_HIGH, 0, 4));
+		assertNotSame(Integer.valueOf(Integer.CACHE_HIGH + 1),
+				Integer.valueOf(Integer.CACHE_HIGH + 1));
+		assertSame(Integer.valueOf(16), Integer.valueOf(" 0x10 ", 0, 6));
+		assertEquals(-129, Integer.valueOf(-129).getLongValue());
+		assertTrue(Integer.valueOf(-129).isFrozen());
+		Integer big = Integer.valueOf("18446744073709551615", 0, 20);
+		assertTrue(big.isFrozen());
+		assertEquals(new BigInteger("18446744073709551615"),
+				big.getBigIntegerValue());
+
+		final Integer shared = Integer.valueOf(7);
+		assertFrozen(new Runnable() {
+			public void run() {
+				shared.setValue(8L);
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				shared.setValue("8");
+			}
+		});
+		assertFrozen(new Runnable() {
+			public void run() {
+				shared.setValue((java.lang.Integer) null);
+			}
+		});
+		assertEquals(7, shared.getLongValue());
+		Integer own = new Integer();
+		own.setValue(8L);
+		assertFalse(own.isFrozen());
+	}
+
+	public void testShareIntegers() {
+		assertFalse(handler.isShareIntegers());
+		Array root = parse();
+		Object first = ((Dict) root.get(0)).getConfigMap().get("id");
+		assertNotSame(first, ((Dict) root.get(1)).getConfigMap().get("id"));
+		assertFalse(((Integer) first).isFrozen());
+
+		handler.setShareIntegers(true);
+		root = parse();
+		first = ((Dict) root.get(0)).getConfigMap().get("id");
+		assertSame(Integer.valueOf(1), first);
+		assertSame(first, ((Dict) root.get(1)).getConfigMap().get("id"));
+		Integer large = (Integer) ((Dict) root.get(2)).getConfigMap().get(
+				"id");
+		assertEquals(4096, large.getLongValue());
+		assertTrue(large.isFrozen());
+	}
+
+	public void testInternStrings() {
+		assertEquals(-1, handler.getStringInternLength());
+		Array root = parse();
+		Object first = ((Dict) root.get(0)).getConfigMap().get("state");
+		assertNotSame(first, ((Dict) root.get(1)).getConfigMap().get("state"));
+
+		handler.setStringInternLength(8);
+		root = parse();
+		final String state = (String) ((Dict) root.get(0)).getConfigMap()
+				.get("state");
+		assertEquals("YES", state.getValue());
+		assertTrue(state.isFrozen());
+		assertSame(state, ((Dict) root.get(1)).getConfigMap().get("state"));
+		String empty = (String) ((Dict) root.get(2)).getConfigMap().get(
+				"state");
+		assertEquals("", empty.getValue());
+		assertTrue(empty.isFrozen());
+		// longer strings keep their own nodes
+		String note = (String) ((Dict) root.get(0)).getConfigMap().get(
+				"note");
+		assertFalse(note.isFrozen());
+		assertNotSame(note, ((Dict) root.get(1)).getConfigMap().get("note"));
+		assertFrozen(new Runnable() {
+			public void run() {
+				state.setValue("NO");
+			}
+		});
+		assertEquals("YES", state.getValue());
+
+		// the table is per parse
+		Array again = parse();
+		assertNotSame(state, ((Dict) again.get(0)).getConfigMap()
+				.get("state"));
+	}
+
+	public void testStringTable() {
+		StringTable table = new StringTable();
+		StringBuilder text = new StringBuilder("xYESyYESz");
+		java.lang.String yes = table.intern(text, 1, 4);
+		assertEquals("YES", yes);
+		assertSame(yes, table.intern(text, 5, 8));
+		assertEquals(1, table.size());
+		int slot = table.add(text, 5, 8);
+		assertNull(table.valueAt(slot));
+		table.setValueAt(slot, "value");
+		assertSame("value", table.valueAt(table.add("YES", 0, 3)));
+
+		java.lang.String[] added = new java.lang.String[1000];
+		for (int i = 0; i < added.length; i++) {
+			java.lang.String str = java.lang.String.valueOf(i);
+			added[i] = table.intern(str, 0, str.length());
+		}
+		assertEquals(1001, table.size());
+		for (int i = 0; i < added.length; i++) {
+			java.lang.String str = "_" + i;
+			assertSame(added[i], table.intern(str, 1, str.length()));
+		}
+		assertSame(yes, table.intern(text, 1, 4));
+		assertSame("value", table.valueAt(table.add(text, 1, 4)));
+		assertSame(table.keyAt(table.add("", 0, 0)),
+				table.intern("", 0, 0));
+
+		table.clear();
+		assertEquals(0, table.size());
+		assertNotSame(yes, table.intern(text, 1, 4));
+	}
+
+}
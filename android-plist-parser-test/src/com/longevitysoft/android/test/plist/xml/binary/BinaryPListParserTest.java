@@ -0,0 +1,256 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.Iterator;
+
+import junit.framework.TestCase;
+import net.sf.migbase64.Base64;
+
+import com.longevitysoft.android.xml.plist.binary.BinaryPListParser;
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Data;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.False;
+import com.longevitysoft.android.xml.plist.domain.PList;
+import com.longevitysoft.android.xml.plist.domain.PListObjectType;
+import com.longevitysoft.android.xml.plist.domain.Real;
+import com.longevitysoft.android.xml.plist.domain.True;
+
+/**
+ * Tests {@link BinaryPListParser} with binary PList fixtures.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class BinaryPListParserTest extends TestCase {
+
+	/**
+	 * A binary PList holding a dict with one of each object type, written by
+	 * Python's plistlib.
+	 */
+	public static final String VALID_BPLIST_DICT_ROOT = "YnBsaXN0MDDcAQIDBAUGBwgJCgsMDQ4PEBwdHiIjJCUmU2JpZ1RibG9iVWNvdW50VWl0ZW1zVG5hbWVTbmVnVm5lc3RlZFJub1Jva1VyYXRpb1N1bmlUd2hlbhIAARFwRmZvb2JhchAqpBESExhRYVFi0RQVVGRlZXDRFhdTa2V5VXZhbHVloxkaGxABEAIQA1ZHYWxheHkT//////////vSHyAZIVF4UXlTdHdvCAkjQAwAAAAAAABkAGMAYQBmAOkzQbT3mXgAAAAIISUqMDY7P0ZJTFJWW2BnaW5wcnV6fYGHi42PkZihpqiqrq+wucIAAAAAAAABAQAAAAAAAAAnAAAAAAAAAAAAAAAAAAAAyw==";
+
+	/**
+	 * The class under test.
+	 */
+	protected BinaryPListParser parser;
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see junit.framework.TestCase#setUp()
+	 */
+	protected void setUp() throws Exception {
+		super.setUp();
+		parser = new BinaryPListParser();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see junit.framework.TestCase#tearDown()
+	 */
+	protected void tearDown() throws Exception {
+		parser = null;
+		super.tearDown();
+	}
+
+	public void testIsBinaryPList() {
+		assertTrue(BinaryPListParser.isBinaryPList(Base64
+				.decode(VALID_BPLIST_DICT_ROOT)));
+		assertFalse(BinaryPListParser.isBinaryPList("<?xml version="
+				.getBytes()));
+	}
+
+	public void testParseInvalid() {
+		try {
+			parser.parse("<?xml version=\"1.0\"?><plist></plist>".getBytes());
+		} catch (IOException e) {
+			return;
+		}
+		fail("expected exception not thrown");
+	}
+
+	public void testParseDictRoot() throws IOException {
+		PList actualPList = parser.parse(Base64.decode(VALID_BPLIST_DICT_ROOT));
+		assertNotNull(actualPList);
+		Dict root = (Dict) actualPList.getRootElement();
+		assertEquals(12, root.getConfigMap().size());
+		assertEquals("Galaxy", root.getConfiguration("name").getValue());
+		assertEquals("caf\u00e9", root.getConfiguration("uni").getValue());
+		assertEquals(new Integer(42), root.getConfigurationInteger("count")
+				.getValue());
+		assertEquals(new Integer(70000), root.getConfigurationInteger("big")
+				.getValue());
+		assertEquals(new Integer(-5), root.getConfigurationInteger("neg")
+				.getValue());
+		assertEquals(new Float(3.5f),
+				((Real) root.getConfigurationObject("ratio")).getValue());
+		assertTrue(((True) root.getConfigurationObject("ok")).getValue());
+		assertFalse(((False) root.getConfigurationObject("no")).getValue());
+		assertEquals(new Date(1330078200000L),
+				((com.longevitysoft.android.xml.plist.domain.Date) root
+						.getConfigurationObject("when")).getValue());
+		assertEquals("foobar",
+				((Data) root.getConfigurationObject("blob")).getValue());
+		assertEquals(new Integer(1),
+				root.getConfigurationInteger("nested.x").getValue());
+		assertEquals("two", root.getConfiguration("nested.y").getValue());
+	}
+
+	public void testParseNestedArrays() throws IOException {
+		PList actualPList = parser.parse(new ByteArrayInputStream(Base64
+				.decode(VALID_BPLIST_DICT_ROOT)));
+		Array items = ((Dict) actualPList.getRootElement())
+				.getConfigurationArray("items");
+		assertEquals(4, items.size());
+		assertEquals("b",
+				((com.longevitysoft.android.xml.plist.domain.String) items
+						.get(1)).getValue());
+		assertEquals("value", ((Dict) items.get(2)).getConfiguration(
+				"deep.key").getValue());
+		assertEquals(PListObjectType.ARRAY, items.get(3).getType());
+		assertEquals(3, ((Array) items.get(3)).size());
+		items.add(items.remove(0));
+		assertEquals(4, items.size());
+		assertEquals("a",
+				((com.longevitysoft.android.xml.plist.domain.String) items
+						.get(3)).getValue());
+	}
+
+	public void testDictIteratesInKeyOrder() throws IOException {
+		PList actualPList = parser.parse(ByteBuffer.wrap(Base64
+				.decode(VALID_BPLIST_DICT_ROOT)));
+		Dict root = (Dict) actualPList.getRootElement();
+		Iterator<String> keys = root.getConfigMap().keySet().iterator();
+		String prev = keys.next();
+		while (keys.hasNext()) {
+			String key = keys.next();
+			assertTrue(prev.compareTo(key) < 0);
+			prev = key;
+		}
+		root.putConfig("zzz", root.getConfigurationObject("name"));
+		assertEquals(13, root.getConfigMap().size());
+		assertEquals("Galaxy", root.getConfiguration("zzz").getValue());
+	}
+
+
+	/**
+	 * Build a binary PList from the encoded objects, with 1 byte offsets and
+	 * references.
+	 */
+	private static byte[] bplist(int top, byte[]... objects) {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		os.write(BinaryPListParser.MAGIC, 0, BinaryPListParser.MAGIC.length);
+		int[] offsets = new int[objects.length];
+		for (int i = 0; i < objects.length; i++) {
+			offsets[i] = os.size();
+			os.write(objects[i], 0, objects[i].length);
+		}
+		int tableOffset = os.size();
+		for (int i = 0; i < offsets.length; i++) {
+			os.write(offsets[i]);
+		}
+		ByteBuffer trailer = ByteBuffer.allocate(32);
+		trailer.put(6, (byte) 1).put(7, (byte) 1);
+		trailer.putLong(8, objects.length).putLong(16, top)
+				.putLong(24, tableOffset);
+		os.write(trailer.array(), 0, 32);
+		return os.toByteArray();
+	}
+
+	private static byte[] bytes(int... vals) {
+		byte[] ret = new byte[vals.length];
+		for (int i = 0; i < vals.length; i++) {
+			ret[i] = (byte) vals[i];
+		}
+		return ret;
+	}
+
+	private void assertCorrupt(byte[] data) {
+		try {
+			parser.parse(data);
+		} catch (IOException e) {
+			return;
+		}
+		fail("expected exception not thrown");
+	}
+
+	public void testParseBuilt() throws IOException {
+		Array root = (Array) parser.parse(
+				bplist(0, bytes(0xA3, 1, 2, 1), bytes(0x10, 5),
+						bytes(0x51, 'a'))).getRootElement();
+		assertEquals(3, root.size());
+		assertEquals(new Integer(5),
+				((com.longevitysoft.android.xml.plist.domain.Integer) root
+						.get(0)).getValue());
+		assertEquals("a",
+				((com.longevitysoft.android.xml.plist.domain.String) root
+						.get(1)).getValue());
+	}
+
+	public void testParseTruncated() {
+		byte[] data = Base64.decode(VALID_BPLIST_DICT_ROOT);
+		for (int len = 0; len < data.length; len += 7) {
+			byte[] truncated = new byte[len];
+			System.arraycopy(data, 0, truncated, 0, len);
+			assertCorrupt(truncated);
+		}
+	}
+
+	public void testParseLengthPastEnd() {
+		assertCorrupt(bplist(0, bytes(0x55, 'a')));
+		assertCorrupt(bplist(0, bytes(0x62, 0, 'a')));
+		assertCorrupt(bplist(0, bytes(0x4F, 0x10, 0x7F, 0)));
+		assertCorrupt(bplist(0, bytes(0x4F, 0x13, 0x7F)));
+		assertCorrupt(bplist(0, bytes(0x4F, 0x13, 0x80, 0, 0, 0, 0, 0, 0, 0)));
+		assertCorrupt(bplist(0, bytes(0xA2, 0)));
+		assertCorrupt(bplist(0, bytes(0x33, 0, 0)));
+		assertCorrupt(bplist(0, bytes(0x14, 0, 0, 0, 0)));
+	}
+
+	public void testParseBadMarkers() {
+		assertCorrupt(bplist(0, bytes(0x70)));
+		assertCorrupt(bplist(0, bytes(0x01)));
+		assertCorrupt(bplist(0, bytes(0x15, 0)));
+		assertCorrupt(bplist(0, bytes(0x21, 0, 0)));
+		assertCorrupt(bplist(0, bytes(0x4F, 0x51, 'a')));
+	}
+
+	public void testParseBadRefs() {
+		assertCorrupt(bplist(0, bytes(0xA1, 2), bytes(0x10, 5)));
+		assertCorrupt(bplist(0, bytes(0xD1, 1, 1), bytes(0x10, 5)));
+		byte[] data = bplist(0, bytes(0xA1, 1), bytes(0x10, 5));
+		data[data.length - 33] = (byte) 0xFF;
+		assertCorrupt(data);
+	}
+
+	public void testParseCycles() throws IOException {
+		assertCorrupt(bplist(0, bytes(0xA1, 0)));
+		assertCorrupt(bplist(0, bytes(0xA1, 1), bytes(0xD1, 2, 0),
+				bytes(0x51, 'k')));
+		// shared members are not cycles
+		Array root = (Array) parser.parse(
+				bplist(0, bytes(0xA2, 1, 1), bytes(0xA1, 2), bytes(0x09)))
+				.getRootElement();
+		assertEquals(1, ((Array) root.get(0)).size());
+		assertEquals(1, ((Array) root.get(1)).size());
+	}
+
+}
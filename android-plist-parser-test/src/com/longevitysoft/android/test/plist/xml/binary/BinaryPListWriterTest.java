@@ -0,0 +1,165 @@
+/**
+ * Licensed under Creative Commons Attribution 3.0 Unported license.
+ * http://creativecommons.org/licenses/by/3.0/
+ * You are free to copy, distribute and transmit the work, and 
+ * to adapt the work.  You must attribute android-plist-parser 
+ * to Free Beachler (http://www.freebeachler.com).
+ * 
+ * The Android PList parser (android-plist-parser) is distributed in 
+ * the hope that it will be useful, but WITHOUT ANY WARRANTY; without 
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.
+ */
+package com.longevitysoft.android.test.plist.xml.binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import junit.framework.TestCase;
+import net.sf.migbase64.Base64;
+
+import com.longevitysoft.android.test.plist.xml.PListXMLParserTest;
+import com.longevitysoft.android.test.plist.xml.PListXMLTokenizerTest;
+import com.longevitysoft.android.xml.plist.PListXMLHandler;
+import com.longevitysoft.android.xml.plist.PListXMLParser;
+import com.longevitysoft.android.xml.plist.binary.BinaryPListParser;
+import com.longevitysoft.android.xml.plist.binary.BinaryPListWriter;
+import com.longevitysoft.android.xml.plist.domain.Array;
+import com.longevitysoft.android.xml.plist.domain.Dict;
+import com.longevitysoft.android.xml.plist.domain.Integer;
+import com.longevitysoft.android.xml.plist.domain.PList;
+import com.longevitysoft.android.xml.plist.domain.PListObject;
+
+/**
+ * Tests {@link BinaryPListWriter} by reading what it writes back with
+ * {@link BinaryPListParser}.
+ * 
+ * @author fbeachler
+ * 
+ */
+public class BinaryPListWriterTest extends TestCase {
+
+	/**
+	 * The class under test.
+	 */
+	protected BinaryPListWriter writer;
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see junit.framework.TestCase#setUp()
+	 */
+	protected void setUp() throws Exception {
+		super.setUp();
+		writer = new BinaryPListWriter();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see junit.framework.TestCase#tearDown()
+	 */
+	protected void tearDown() throws Exception {
+		writer = null;
+		super.tearDown();
+	}
+
+	private static PList pList(PListObject root) {
+		PList ret = new PList();
+		ret.setRootElement(root);
+		return ret;
+	}
+
+	private static com.longevitysoft.android.xml.plist.domain.String string(
+			String val) {
+		com.longevitysoft.android.xml.plist.domain.String ret = new com.longevitysoft.android.xml.plist.domain.String();
+		ret.setValue(val);
+		return ret;
+	}
+
+	private static Integer integer(int val) {
+		Integer ret = new Integer();
+		ret.setValue(java.lang.Integer.valueOf(val));
+		return ret;
+	}
+
+	private static ByteBuffer trailer(byte[] bplist) {
+		return ByteBuffer.wrap(bplist, bplist.length - 32, 32).slice();
+	}
+
+	public void testRoundTripBinary() throws IOException {
+		BinaryPListParser parser = new BinaryPListParser();
+		PList expected = parser.parse(Base64
+				.decode(BinaryPListParserTest.VALID_BPLIST_DICT_ROOT));
+		byte[] written = writer.toByteArray(expected);
+		assertTrue(BinaryPListParser.isBinaryPList(written));
+		PListXMLTokenizerTest.assertSameTree(expected.getRootElement(),
+				parser.parse(written).getRootElement());
+	}
+
+	public void testRoundTripXML() throws IOException {
+		PListXMLParser xmlParser = new PListXMLParser();
+		xmlParser.setHandler(new PListXMLHandler());
+		xmlParser.parse(PListXMLParserTest.VALID_WORKFLOW_PLIST);
+		PList expected = ((PListXMLHandler) xmlParser.getHandler()).getPlist();
+		PList actual = new BinaryPListParser().parse(writer
+				.toByteArray(expected));
+		PListXMLTokenizerTest.assertSameTree(expected.getRootElement(),
+				actual.getRootElement());
+	}
+
+	public void testUniquesEqualScalars() throws IOException {
+		Array root = new Array();
+		for (int i = 0; i < 100; i++) {
+			root.add(string("x"));
+			root.add(integer(7));
+		}
+		Dict dict = new Dict();
+		// keys and string values share objects
+		dict.putConfig("x", string("x"));
+		dict.putConfig("seven", integer(7));
+		root.add(dict);
+		root.add(dict);
+		byte[] written = writer.toByteArray(pList(root));
+		ByteBuffer trailer = trailer(written);
+		// array, "x", 7, dict, "seven"
+		assertEquals(5, trailer.getLong(8));
+		assertEquals(0, trailer.getLong(16));
+		Array actual = (Array) new BinaryPListParser().parse(written)
+				.getRootElement();
+		assertEquals(202, actual.size());
+		assertEquals("x", ((Dict) actual.get(201)).getConfiguration("x")
+				.getValue());
+	}
+
+	public void testMinimalWidths() throws IOException {
+		Array small = new Array();
+		small.add(string("a"));
+		ByteBuffer trailer = trailer(writer.toByteArray(pList(small)));
+		assertEquals(1, trailer.get(6));
+		assertEquals(1, trailer.get(7));
+
+		Array wide = new Array();
+		for (int i = 0; i < 300; i++) {
+			wide.add(integer(i * 1000));
+		}
+		byte[] written = writer.toByteArray(pList(wide));
+		trailer = trailer(written);
+		assertEquals(2, trailer.get(6));
+		assertEquals(2, trailer.get(7));
+		Array actual = (Array) new BinaryPListParser().parse(written)
+				.getRootElement();
+		assertEquals(java.lang.Integer.valueOf(299000),
+				((Integer) actual.get(299)).getValue());
+	}
+
+	public void testWriteNoRoot() throws IOException {
+		try {
+			writer.toByteArray(new PList());
+		} catch (IllegalArgumentException e) {
+			return;
+		}
+		fail("expected exception not thrown");
+	}
+
+}